@@ -14,6 +14,7 @@ public class AuthProperties {
     private LockoutProperties lockout = new LockoutProperties();
     private SessionProperties session = new SessionProperties();
     private PlatformProperties platform = new PlatformProperties();
+    private MessagingProperties messaging = new MessagingProperties();
 
     @Getter
     @Setter
@@ -60,4 +61,11 @@ public class AuthProperties {
         private String adminPassword = "ChangeMe123!";
         private String location = "http://localhost:9000/auth";
     }
+
+    @Getter
+    @Setter
+    public static class MessagingProperties {
+        private String encoding = "json";  // Switch to smile once every communications server reads it
+        private int compressionThresholdBytes = 2048;
+    }
 }
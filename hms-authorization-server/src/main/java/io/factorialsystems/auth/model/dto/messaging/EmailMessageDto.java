@@ -7,6 +7,7 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -28,5 +29,7 @@ public class EmailMessageDto {
     private String subject;
     private String htmlContent;
     private String textContent;
+    private String templateKey;             // Template key on the communications server; replaces subject and content
+    private Map<String, Object> variables;  // Values for the template placeholders
     private List<EmailAttachmentDto> attachments;
 }
@@ -42,6 +42,8 @@ public class AuthEventPublisher {
         payload.put("code", tenant.getCode());
         payload.put("name", tenant.getName());
         payload.put("status", tenant.getStatus().name());
+        // The Communications Server weights its dispatch by plan
+        payload.put("subscriptionPlan", tenant.getSubscriptionPlan().name());
         return payload;
     }
 
@@ -0,0 +1,63 @@
+package io.factorialsystems.auth.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.factorialsystems.auth.config.AuthProperties;
+import io.factorialsystems.auth.config.SmileMessageConverter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.amqp.support.postprocessor.GZipPostProcessor;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Encodes email and SMS requests for the Communications Server in the configured wire format
+ * (JSON by default, or Smile) and gzips bodies of at least {@code compression-threshold-bytes}.
+ * The content type and encoding headers tell the consumer how to decode. Auth events keep
+ * the plain JSON converter of the shared {@code RabbitTemplate}.
+ */
+@Slf4j
+@Component
+public class CommunicationsPayloadEncoder {
+
+    private final MessageConverter converter;
+    private final GZipPostProcessor gzip = new GZipPostProcessor();
+    private final int compressionThreshold;
+
+    public CommunicationsPayloadEncoder(AuthProperties authProperties) {
+        AuthProperties.MessagingProperties messaging = authProperties.getMessaging();
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        // A typo must not silently pick a format the consumer may not read yet
+        this.converter = switch (messaging.getEncoding().toLowerCase(Locale.ROOT)) {
+            case "json" -> new Jackson2JsonMessageConverter(objectMapper);
+            case "smile" -> new SmileMessageConverter(objectMapper);
+            default -> throw new IllegalStateException("Unknown hms.auth.messaging.encoding '"
+                    + messaging.getEncoding() + "', expected json or smile");
+        };
+        this.compressionThreshold = messaging.getCompressionThresholdBytes();
+
+        log.info("Communications payloads encoded as {}, compressed from {} bytes",
+                messaging.getEncoding(), compressionThreshold);
+    }
+
+    public Message encode(Object payload) {
+        // The publish time lets the consumer measure how long the message sat on the queue
+        MessageProperties properties = new MessageProperties();
+        properties.setTimestamp(new Date());
+
+        Message message = converter.toMessage(payload, properties);
+        return message.getBody().length >= compressionThreshold
+                ? gzip.postProcessMessage(message)
+                : message;
+    }
+}
@@ -0,0 +1,87 @@
+package io.factorialsystems.communications.benchmark;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.model.dto.request.EmailAttachmentRequest;
+import io.factorialsystems.communications.service.AttachmentStore;
+import io.factorialsystems.communications.service.EmailAttachmentService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Attachment handling while accepting an email: base64 decoding, hashing and writing into
+ * the content-addressed store, and building the references kept on the row. After the first
+ * invocation the blob already exists, so this measures the common repeated-attachment case.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AttachmentBenchmark {
+
+    @Param({"16384", "1048576"})
+    public int size;
+
+    @Param({"1", "3"})
+    public int count;
+
+    private Path storeRoot;
+    private EmailAttachmentService attachmentService;
+    private List<EmailAttachmentRequest> attachments;
+
+    @Setup
+    public void setUp() throws IOException {
+        storeRoot = Files.createTempDirectory("attachment-benchmark");
+
+        CommunicationsProperties properties = new CommunicationsProperties();
+        properties.getAttachment().setStorePath(storeRoot.toString());
+
+        AttachmentStore store = new AttachmentStore(properties);
+        store.init();
+        attachmentService = new EmailAttachmentService(store, properties);
+
+        byte[] content = new byte[size];
+        new Random(42).nextBytes(content);
+        String encoded = Base64.getMimeEncoder().encodeToString(content);
+
+        attachments = IntStream.range(0, count)
+                .mapToObj(i -> EmailAttachmentRequest.builder()
+                        .filename("document-" + i + ".pdf")
+                        .contentType("application/pdf")
+                        .content(encoded)
+                        .build())
+                .toList();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(storeRoot);
+    }
+
+    @Benchmark
+    public List<Map<String, String>> storeInline() {
+        return attachmentService.store(attachments, List.of());
+    }
+}
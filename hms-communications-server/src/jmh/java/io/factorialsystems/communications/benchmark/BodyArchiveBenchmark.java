@@ -0,0 +1,108 @@
+package io.factorialsystems.communications.benchmark;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.service.BodyArchive;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The email body archive: appending a batch of bodies to a segment (compression plus one
+ * fsync per batch) and rehydrating a single body from a segment of a few thousand records,
+ * which is the extra work an archived {@code GET /api/v1/email/messages/{id}} does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BodyArchiveBenchmark {
+
+    private static final int RECORDS = 5000;
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"4096", "65536"})
+    public int bodySize;
+
+    private Path archiveRoot;
+    private BodyArchive archive;
+    private List<BodyArchive.Body> batch;
+    private List<BodyArchive.Body> stored;
+    private List<BodyArchive.Ref> refs;
+
+    @Setup
+    public void setUp() throws IOException {
+        archiveRoot = Files.createTempDirectory("archive-benchmark");
+
+        CommunicationsProperties properties = new CommunicationsProperties();
+        properties.getArchive().setStorePath(archiveRoot.toString());
+
+        archive = new BodyArchive(properties, new SimpleMeterRegistry());
+        archive.init();
+
+        batch = bodies(BATCH_SIZE);
+        stored = bodies(RECORDS);
+        refs = new ArrayList<>(RECORDS);
+        for (int from = 0; from < RECORDS; from += BATCH_SIZE) {
+            refs.addAll(archive.append(stored.subList(from, from + BATCH_SIZE)));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        archive.close();
+        FileSystemUtils.deleteRecursively(archiveRoot);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<BodyArchive.Ref> appendBatch() {
+        return archive.append(batch);
+    }
+
+    @Benchmark
+    public BodyArchive.Body read() {
+        int i = ThreadLocalRandom.current().nextInt(RECORDS);
+        return archive.read(stored.get(i).messageId(), refs.get(i));
+    }
+
+    /**
+     * Bodies shaped like a transactional email: markup repeated around a little varying text,
+     * so they compress about as well as real ones.
+     */
+    private List<BodyArchive.Body> bodies(int count) {
+        List<BodyArchive.Body> bodies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            StringBuilder html = new StringBuilder(bodySize);
+            while (html.length() < bodySize) {
+                html.append("<tr><td style=\"padding:8px;font-family:Arial\">Appointment ")
+                        .append(ThreadLocalRandom.current().nextInt(100000))
+                        .append(" confirmed for ward ").append(i % 40).append("</td></tr>\n");
+            }
+            bodies.add(new BodyArchive.Body(UUID.randomUUID(), html.toString(), "Appointment " + i + " confirmed"));
+        }
+        return bodies;
+    }
+}
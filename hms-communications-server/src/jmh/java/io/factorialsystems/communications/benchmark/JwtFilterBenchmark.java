@@ -0,0 +1,129 @@
+package io.factorialsystems.communications.benchmark;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.security.JwtAuthenticationFilter;
+import io.factorialsystems.communications.security.VerifiedTokenCache;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Authenticating one API request for a bearer token signed like the authorization server's.
+ * {@code authenticate} is the full {@link JwtAuthenticationFilter} pass with the verified-token
+ * cache off ({@code cacheMaxSize=0}, one verification per request) and on (a client polling with
+ * the same token); {@code doubleVerify} is the filter's earlier behaviour of verifying and
+ * parsing every token twice, kept as the baseline.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtFilterBenchmark {
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> { };
+
+    @State(Scope.Benchmark)
+    public static class Token {
+        private static final SecretKey KEY = Keys.hmacShaKeyFor(
+                "benchmark-secret-that-is-long-enough-for-hs256".getBytes(StandardCharsets.UTF_8));
+
+        JwtParser parser;
+        String authorization;
+
+        @Setup
+        public void setUp() {
+            parser = Jwts.parser().verifyWith(KEY).build();
+
+            Instant now = Instant.now();
+            String token = Jwts.builder()
+                    .subject(UUID.randomUUID().toString())
+                    .issuer("hms-authorization-server")
+                    .claim("tenant_id", UUID.randomUUID().toString())
+                    .claim("permissions", List.of("email:send", "email:read", "sms:send", "sms:read"))
+                    .issuedAt(Date.from(now))
+                    .expiration(Date.from(now.plus(1, ChronoUnit.DAYS)))
+                    .signWith(KEY)
+                    .compact();
+            authorization = "Bearer " + token;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Filter {
+        @Param({"0", "10000"})
+        public long cacheMaxSize;
+
+        JwtAuthenticationFilter filter;
+
+        @Setup
+        public void setUp(Token token) {
+            CommunicationsProperties properties = new CommunicationsProperties();
+            properties.getJwt().setCacheMaxSize(cacheMaxSize);
+
+            filter = new JwtAuthenticationFilter(
+                    new VerifiedTokenCache(token.parser, properties, new SimpleMeterRegistry()));
+        }
+    }
+
+    @Benchmark
+    public Object authenticate(Filter filter, Token token) throws ServletException, IOException {
+        // A fresh request each time; the filter marks requests it has already seen
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/email/send");
+        request.addHeader("Authorization", token.authorization);
+
+        filter.filter.doFilter(request, new MockHttpServletResponse(), NO_OP_CHAIN);
+
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        SecurityContextHolder.clearContext();
+        return principal;
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Object doubleVerify(Token token) {
+        String jwt = token.authorization.substring(7);
+
+        token.parser.parseSignedClaims(jwt);
+        Claims claims = token.parser.parseSignedClaims(jwt).getPayload();
+        UUID tenantId = UUID.fromString(claims.get("tenant_id", String.class));
+        List<SimpleGrantedAuthority> authorities = ((List<String>) claims.get("permissions", List.class)).stream()
+                .map(SimpleGrantedAuthority::new)
+                .toList();
+
+        UsernamePasswordAuthenticationToken authentication =
+                new UsernamePasswordAuthenticationToken(claims.getSubject(), null, authorities);
+        authentication.setDetails(tenantId);
+        return authentication;
+    }
+}
@@ -0,0 +1,98 @@
+package io.factorialsystems.communications.benchmark;
+
+import io.factorialsystems.communications.mapper.EmailMessageMapper;
+import io.factorialsystems.communications.mapper.EmailMessageMapperImpl;
+import io.factorialsystems.communications.mapper.SmsMessageMapper;
+import io.factorialsystems.communications.mapper.SmsMessageMapperImpl;
+import io.factorialsystems.communications.model.dto.response.EmailMessageResponse;
+import io.factorialsystems.communications.model.dto.response.SmsMessageResponse;
+import io.factorialsystems.communications.model.entity.EmailMessage;
+import io.factorialsystems.communications.model.entity.SmsMessage;
+import io.factorialsystems.communications.model.enums.MessageStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity-to-response mapping done for every message returned by the email and SMS APIs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+
+    private EmailMessageMapper emailMessageMapper;
+    private SmsMessageMapper smsMessageMapper;
+    private EmailMessage email;
+    private SmsMessage sms;
+
+    @Setup
+    public void setUp() {
+        emailMessageMapper = new EmailMessageMapperImpl();
+        smsMessageMapper = new SmsMessageMapperImpl();
+
+        LocalDateTime now = LocalDateTime.now();
+        email = EmailMessage.builder()
+                .tenantId(UUID.randomUUID())
+                .toEmail("jane.doe@example.com")
+                .toName("Jane Doe")
+                .fromEmail("noreply@cityhospital.example")
+                .fromName("City General Hospital")
+                .subject("Your lab results")
+                .htmlContent("<p>Your results are attached.</p>".repeat(40))
+                .textContent("Your results are attached.\n".repeat(40))
+                .status(MessageStatus.SENT)
+                .providerId("<202610171200.12345@smtp-relay.example>")
+                .attachments(List.of(Map.of(
+                        "filename", "results.pdf",
+                        "contentType", "application/pdf",
+                        "sha256", "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08",
+                        "size", "48213")))
+                .sentAt(now)
+                .retryCount(0)
+                .build();
+        email.setId(UUID.randomUUID());
+        email.setCreatedAt(now);
+        email.setUpdatedAt(now);
+
+        sms = SmsMessage.builder()
+                .tenantId(UUID.randomUUID())
+                .toPhone("+2348012345678")
+                .fromPhone("HOSPITAL")
+                .message("Your appointment is confirmed for tomorrow at 10:00.")
+                .status(MessageStatus.SENT)
+                .providerId("SM0123456789abcdef0123456789abcdef")
+                .sentAt(now)
+                .retryCount(0)
+                .build();
+        sms.setId(UUID.randomUUID());
+        sms.setCreatedAt(now);
+        sms.setUpdatedAt(now);
+    }
+
+    @Benchmark
+    public EmailMessageResponse emailToResponse() {
+        return emailMessageMapper.toResponse(email);
+    }
+
+    @Benchmark
+    public SmsMessageResponse smsToResponse() {
+        return smsMessageMapper.toResponse(sms);
+    }
+}
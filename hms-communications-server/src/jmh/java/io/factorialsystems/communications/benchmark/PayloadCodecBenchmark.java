@@ -0,0 +1,139 @@
+package io.factorialsystems.communications.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.factorialsystems.communications.config.SmileMessageConverter;
+import io.factorialsystems.communications.model.dto.request.EmailAttachmentRequest;
+import io.factorialsystems.communications.model.dto.request.SendEmailRequest;
+import io.factorialsystems.communications.service.MessagePayloadCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.amqp.support.postprocessor.GZipPostProcessor;
+
+import java.io.IOException;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode cost of one email payload per wire format. Run with {@code -prof gc} for
+ * allocation per message; the encoded size of each combination is printed at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayloadCodecBenchmark {
+
+    @Param({"template", "html", "attachment"})
+    public String payload;
+
+    @Param({"json", "smile", "json+gzip", "smile+gzip"})
+    public String format;
+
+    private MessageConverter converter;
+    private GZipPostProcessor gzip;
+    private MessagePayloadCodec codec;
+    private SendEmailRequest request;
+    private Message encoded;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        converter = format.startsWith("smile")
+                ? new SmileMessageConverter(objectMapper)
+                : new Jackson2JsonMessageConverter(objectMapper);
+        gzip = format.endsWith("gzip") ? new GZipPostProcessor() : null;
+        codec = new MessagePayloadCodec(objectMapper);
+        request = request(payload);
+        encoded = encode();
+
+        System.out.printf("%n%s/%s: %d bytes%n", payload, format, encoded.getBody().length);
+    }
+
+    @Benchmark
+    public Message encode() {
+        Message message = converter.toMessage(request, new MessageProperties());
+        return gzip != null ? gzip.postProcessMessage(message) : message;
+    }
+
+    @Benchmark
+    public SendEmailRequest decode() throws IOException {
+        return codec.read(encoded, SendEmailRequest.class);
+    }
+
+    private static SendEmailRequest request(String payload) {
+        SendEmailRequest.SendEmailRequestBuilder builder = SendEmailRequest.builder()
+                .tenantId(UUID.randomUUID())
+                .toEmail("jane.doe@example.com")
+                .toName("Jane Doe");
+
+        return switch (payload) {
+            case "template" -> builder
+                    .templateKey("auth.password-reset")
+                    .variables(Map.of(
+                            "userName", "Jane Doe",
+                            "resetToken", UUID.randomUUID().toString(),
+                            "facilityName", "City General Hospital"))
+                    .build();
+            case "html" -> builder
+                    .subject("Password Reset Request - City General Hospital")
+                    .htmlContent(html())
+                    .textContent("Hello Jane Doe,\n\nUse the reset token below to complete the process.\n".repeat(8))
+                    .build();
+            case "attachment" -> builder
+                    .subject("Your lab results")
+                    .htmlContent(html())
+                    .attachments(List.of(EmailAttachmentRequest.builder()
+                            .filename("results.pdf")
+                            .content(attachment(48 * 1024))
+                            .contentType("application/pdf")
+                            .build()))
+                    .build();
+            default -> throw new IllegalArgumentException(payload);
+        };
+    }
+
+    private static String html() {
+        StringBuilder html = new StringBuilder("<!DOCTYPE html><html><head><style>")
+                .append("body { font-family: Arial, sans-serif; line-height: 1.6; color: #333; }")
+                .append(".container { max-width: 600px; margin: 0 auto; padding: 20px; }")
+                .append("</style></head><body><div class=\"container\">");
+        for (int i = 0; i < 20; i++) {
+            html.append("<p>We received a request to reset your password. Use the reset token below to complete the process.</p>");
+        }
+        return html.append("</div></body></html>").toString();
+    }
+
+    // Half repetitive, half random, roughly as compressible as a typical PDF
+    private static String attachment(int size) {
+        byte[] bytes = new byte[size];
+        new Random(42).nextBytes(bytes);
+        for (int i = 0; i < size / 2; i++) {
+            bytes[i] = (byte) (i % 64);
+        }
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+}
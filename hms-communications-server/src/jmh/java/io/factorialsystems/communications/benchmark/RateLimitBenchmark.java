@@ -0,0 +1,82 @@
+package io.factorialsystems.communications.benchmark;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.model.enums.MessageType;
+import io.factorialsystems.communications.service.RedisRateLimiter;
+import io.factorialsystems.communications.service.ResourceGovernor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The quota decision made for every accepted message: one Lua round trip to Redis. Needs a
+ * Redis at {@code -Dredis.host} / {@code -Dredis.port} (default localhost:6379, e.g. the one
+ * from docker-compose); keys are written under a random tenant and deleted afterwards. Calls
+ * go through the Redis permits, sized from the default Lettuce pool as in the service.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class RateLimitBenchmark {
+
+    /**
+     * {@code accept}: quota always available; {@code reject}: the tenant is over its limit.
+     */
+    @Param({"accept", "reject"})
+    public String decision;
+
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redisTemplate;
+    private RedisRateLimiter rateLimiter;
+    private UUID tenantId;
+    private int limit;
+
+    @Setup
+    public void setUp() {
+        connectionFactory = new LettuceConnectionFactory(
+                System.getProperty("redis.host", "localhost"),
+                Integer.getInteger("redis.port", 6379));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        ResourceGovernor resourceGovernor = new ResourceGovernor(new HikariDataSource(),
+                new CommunicationsProperties(), new SimpleMeterRegistry());
+        rateLimiter = new RedisRateLimiter(redisTemplate, resourceGovernor);
+        tenantId = UUID.randomUUID();
+        limit = "accept".equals(decision) ? Integer.MAX_VALUE : 0;
+    }
+
+    @TearDown
+    public void tearDown() {
+        redisTemplate.delete(redisTemplate.keys("hms:ratelimit:*:" + tenantId + ":*"));
+        connectionFactory.destroy();
+    }
+
+    @Benchmark
+    public boolean reserve() {
+        return rateLimiter.tryReserve(MessageType.EMAIL, tenantId, 1, limit, LocalDate.now());
+    }
+}
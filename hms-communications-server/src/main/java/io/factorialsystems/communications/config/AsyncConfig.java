@@ -1,26 +1,66 @@
 package io.factorialsystems.communications.config;
 
+import io.factorialsystems.communications.service.ResourceGovernor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
-
-import java.util.concurrent.Executor;
 
+/**
+ * Executors run a virtual thread per task. Those that do blocking work wait for a
+ * {@link ResourceGovernor} permit before starting, so the number of tasks using a pool at once
+ * never exceeds what the pool can serve.
+ */
 @Configuration
 @EnableAsync
 public class AsyncConfig {
 
+    private static final long TERMINATION_TIMEOUT_MS = 60_000;
+
+    /**
+     * {@code @Async} work. Assumed to use the database.
+     */
     @Bean(name = "taskExecutor")
-    public Executor taskExecutor() {
-        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(5);
-        executor.setMaxPoolSize(10);
-        executor.setQueueCapacity(100);
-        executor.setThreadNamePrefix("async-email-");
-        executor.setWaitForTasksToCompleteOnShutdown(true);
-        executor.setAwaitTerminationSeconds(60);
-        executor.initialize();
+    public AsyncTaskExecutor taskExecutor(ResourceGovernor resourceGovernor) {
+        return governed("async-", resourceGovernor, ResourceGovernor.Resource.DATABASE);
+    }
+
+    /**
+     * Sends claimed outbox entries to the provider, at most {@code provider.max-concurrent-calls}
+     * at a time.
+     */
+    @Bean(name = "emailDispatchExecutor")
+    public AsyncTaskExecutor emailDispatchExecutor(ResourceGovernor resourceGovernor) {
+        return governed("email-dispatch-", resourceGovernor, ResourceGovernor.Resource.PROVIDER);
+    }
+
+    /**
+     * Records SMS send results. Provider calls are non-blocking and bounded by
+     * {@code sms.max-in-flight}, so completions only need a virtual thread each.
+     */
+    @Bean(name = "smsDispatchExecutor")
+    public AsyncTaskExecutor smsDispatchExecutor() {
+        return new VirtualThreadTaskExecutor("sms-dispatch-");
+    }
+
+    /**
+     * Runs the messages of a consumer window in parallel. Windows are bounded by consumers x
+     * batch size; each message then waits for a database permit, so a full window queues on
+     * the governor rather than on the connection pool.
+     */
+    @Bean(name = "consumerExecutor")
+    public AsyncTaskExecutor consumerExecutor(ResourceGovernor resourceGovernor) {
+        return governed("amqp-worker-", resourceGovernor, ResourceGovernor.Resource.DATABASE);
+    }
+
+    private static AsyncTaskExecutor governed(String threadNamePrefix, ResourceGovernor resourceGovernor,
+                                              ResourceGovernor.Resource resource) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        executor.setTaskDecorator(task -> () -> resourceGovernor.runWhenFree(resource, task));
+        executor.setTaskTerminationTimeout(TERMINATION_TIMEOUT_MS);
         return executor;
     }
 }
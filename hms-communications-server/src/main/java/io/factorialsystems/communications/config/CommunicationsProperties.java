@@ -1,13 +1,22 @@
 package io.factorialsystems.communications.config;
 
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Getter
 @Setter
 @Configuration
+@Validated
 @ConfigurationProperties(prefix = "hms.communications")
 public class CommunicationsProperties {
 
@@ -16,6 +25,24 @@ public class CommunicationsProperties {
     private RateLimit rateLimit = new RateLimit();
     private Message message = new Message();
     private Jwt jwt = new Jwt();
+    private Consumer consumer = new Consumer();
+    private Retry retry = new Retry();
+    private Outbox outbox = new Outbox();
+    private Batch batch = new Batch();
+    private Idempotency idempotency = new Idempotency();
+    private Attachment attachment = new Attachment();
+    private Webhook webhook = new Webhook();
+    private DeliveryLog deliveryLog = new DeliveryLog();
+    private SettingsCache settingsCache = new SettingsCache();
+    private Provider provider = new Provider();
+    @Valid
+    private FairShare fairShare = new FairShare();
+    private Template template = new Template();
+    private Metrics metrics = new Metrics();
+    private Concurrency concurrency = new Concurrency();
+    private Scheduler scheduler = new Scheduler();
+    private Stats stats = new Stats();
+    private Archive archive = new Archive();
 
     @Getter
     @Setter
@@ -25,6 +52,12 @@ public class CommunicationsProperties {
         private String defaultFromName;
     }
 
+    /**
+     * SMS provider ({@code TWILIO}, or {@code FAKE}/{@code STUB} for local and load tests).
+     * At most {@code maxInFlight} sends are outstanding per instance; a send that cannot get a
+     * slot within {@code acquireTimeout}, or whose instance died, is picked up again once the
+     * message has been pending for {@code redispatchAfter}.
+     */
     @Getter
     @Setter
     public static class Sms {
@@ -32,6 +65,14 @@ public class CommunicationsProperties {
         private String accountSid;
         private String authToken;
         private String defaultFromPhone;
+        private String baseUrl = "https://api.twilio.com";
+        private Integer maxInFlight = 200;
+        private Duration acquireTimeout = Duration.ofSeconds(10);
+        private Duration connectTimeout = Duration.ofSeconds(5);
+        private Duration requestTimeout = Duration.ofSeconds(10);
+        private Duration redispatchAfter = Duration.ofMinutes(1);
+        private Duration fakeLatency = Duration.ofMillis(50);
+        private Double fakeFailureRate = 0.0;
     }
 
     @Getter
@@ -39,20 +80,270 @@ public class CommunicationsProperties {
     public static class RateLimit {
         private Integer defaultDailyEmailLimit = 1000;
         private Integer defaultDailySmsLimit = 100;
+        private Long flushIntervalMs = 60000L;
     }
 
+    /**
+     * Per-message limits. {@code maxRequestSizeMb} caps a whole multipart upload and should
+     * leave room for {@code maxAttachmentsPerEmail} files of {@code maxAttachmentSizeMb} plus
+     * the JSON part.
+     */
     @Getter
     @Setter
     public static class Message {
         private Integer maxAttachmentSizeMb = 25;
         private Integer maxAttachmentsPerEmail = 10;
+        private Integer maxRequestSizeMb = 260;
         private Integer maxRetryAttempts = 3;
     }
 
+    /**
+     * Email outbox dispatch. Entries are claimed in batches with FOR UPDATE SKIP LOCKED and
+     * sent on virtual threads, at most {@code provider.max-concurrent-calls} at a time and outside
+     * of any transaction.
+     */
+    @Getter
+    @Setter
+    public static class Outbox {
+        private Integer batchSize = 50;
+        private Long pollIntervalMs = 500L;
+        private Integer leaseSeconds = 120;
+        private Integer retryBackoffSeconds = 30;
+    }
+
+    /**
+     * Bulk sends. Recipients are persisted with JDBC batching and sent to Brevo as message
+     * versions, {@code chunkSize} recipients per API call.
+     */
+    @Getter
+    @Setter
+    public static class Batch {
+        private Integer maxRecipients = 5000;
+        private Integer chunkSize = 500;
+        private Integer insertBatchSize = 500;
+    }
+
+    /**
+     * Content-addressed attachment blobs. Must be a shared volume when several instances
+     * accept and dispatch emails.
+     */
+    @Getter
+    @Setter
+    public static class Attachment {
+        private String storePath = "./data/attachments";
+    }
+
+    /**
+     * Provider webhooks. Events are buffered in memory (at most {@code bufferCapacity}) and
+     * written every {@code flushIntervalMs} in batches of {@code batchSize}.
+     */
+    @Getter
+    @Setter
+    public static class Webhook {
+        private String secret;
+        private Integer bufferCapacity = 50000;
+        private Integer batchSize = 2000;
+        private Long flushIntervalMs = 250L;
+    }
+
+    /**
+     * Monthly delivery_logs partitions: {@code partitionsAhead} future months are kept
+     * created, and months older than {@code retentionMonths} are dropped.
+     */
+    @Getter
+    @Setter
+    public static class DeliveryLog {
+        private Integer retentionMonths = 12;
+        private Integer partitionsAhead = 3;
+        private String maintenanceCron = "0 15 3 * * *";
+    }
+
+    /**
+     * How long idempotency keys are remembered in Redis: {@code inFlightTtl} while the first
+     * request is running, {@code ttl} once it has committed. Older keys are still caught by
+     * the unique index on the message tables.
+     */
+    @Getter
+    @Setter
+    public static class Idempotency {
+        private Duration ttl = Duration.ofHours(24);
+        private Duration inFlightTtl = Duration.ofMinutes(2);
+    }
+
+    /**
+     * Guards applied to every outbound provider, each with its own instance: HTTP timeouts,
+     * a bulkhead of {@code maxConcurrentCalls} (waiting at most {@code maxWait} for a slot) and
+     * a circuit breaker that opens for {@code openDuration} once {@code failureRateThreshold}
+     * percent of the last {@code slidingWindowSize} calls failed or took longer than
+     * {@code slowCallDuration}.
+     */
+    @Getter
+    @Setter
+    public static class Provider {
+        private Duration connectTimeout = Duration.ofSeconds(5);
+        private Duration readTimeout = Duration.ofSeconds(30);
+        private Duration writeTimeout = Duration.ofSeconds(30);
+        private Integer maxConcurrentCalls = 16;
+        private Duration maxWait = Duration.ofMillis(500);
+        private Integer slidingWindowSize = 50;
+        private Integer minimumCalls = 20;
+        private Float failureRateThreshold = 50f;
+        private Duration slowCallDuration = Duration.ofSeconds(10);
+        private Float slowCallRateThreshold = 80f;
+        private Duration openDuration = Duration.ofSeconds(30);
+        private Integer halfOpenCalls = 5;
+    }
+
+    /**
+     * Deficit round-robin between tenants in the email dispatcher. Each visit adds
+     * {@code quantum} x the plan weight to a tenant's allowance, counted in provider calls
+     * (one email, or one chunk of a bulk send). Every value must be at least 1; a tenant
+     * with no allowance would never be served.
+     */
+    @Getter
+    @Setter
+    public static class FairShare {
+        @Min(1)
+        private Integer quantum = 5;
+        @Min(1)
+        private Integer defaultWeight = 1;
+        private Map<String, @Min(1) Integer> planWeights = new HashMap<>(Map.of(
+                "FREE_TRIAL", 1,
+                "BASIC", 2,
+                "PROFESSIONAL", 4,
+                "ENTERPRISE", 8));
+    }
+
+    /**
+     * Compiled email templates. {@code latestTtl} bounds how long a send without an explicit
+     * version keeps using the previous latest version after a new one is added.
+     */
+    @Getter
+    @Setter
+    public static class Template {
+        private Long cacheSize = 500L;
+        private Duration latestTtl = Duration.ofMinutes(5);
+    }
+
+    /**
+     * Pipeline metrics. Only the first {@code maxTaggedTenants} tenants seen get their own
+     * tenant tag, which keeps the number of time series bounded.
+     */
+    @Getter
+    @Setter
+    public static class Metrics {
+        private Integer maxTaggedTenants = 100;
+    }
+
+    /**
+     * Permits for the database, the email provider and Redis. The first two are sized from their
+     * pools, Redis from {@code redisPermits}. Request paths give up after {@code acquireTimeout};
+     * {@code databaseReserve} connections are kept out of the permit count for the dispatcher
+     * and scheduled jobs.
+     */
+    @Getter
+    @Setter
+    public static class Concurrency {
+        private Duration acquireTimeout = Duration.ofSeconds(5);
+        private Integer databaseReserve = 2;
+        private Integer redisPermits = 8;
+        private Boolean pinningMonitor = true;
+        private Duration pinnedThreshold = Duration.ofMillis(20);
+    }
+
+    /**
+     * Scheduled delivery ({@code sendAt}). Messages due within {@code horizon} are indexed in
+     * Redis and released in batches of {@code batchSize}; rows still SCHEDULED more than
+     * {@code grace} after their due time are re-indexed.
+     */
+    @Getter
+    @Setter
+    public static class Scheduler {
+        private Long pollIntervalMs = 1000L;
+        private Integer batchSize = 500;
+        private Duration horizon = Duration.ofHours(2);
+        private Long loadIntervalMs = 60000L;
+        private Duration grace = Duration.ofMinutes(2);
+        private Duration maxDelay = Duration.ofDays(400);
+    }
+
+    /**
+     * Daily stats rollup. Status transitions are counted in memory and upserted every
+     * {@code flushIntervalMs}; one stats request may span at most {@code maxRangeDays}.
+     */
+    @Getter
+    @Setter
+    public static class Stats {
+        private Long flushIntervalMs = 5000L;
+        private Integer maxRangeDays = 366;
+    }
+
+    /**
+     * Cold storage for email bodies. Bodies of finished messages older than {@code age} are
+     * moved to gzip segment files under {@code storePath}, {@code batchSize} rows per
+     * transaction; a segment is closed once it reaches {@code segmentMaxBytes}. Like the
+     * attachment store, must be a shared volume when several instances serve reads.
+     */
+    @Getter
+    @Setter
+    public static class Archive {
+        private Boolean enabled = true;
+        private String storePath = "./data/archive";
+        private Duration age = Duration.ofDays(30);
+        private Integer batchSize = 500;
+        private Long segmentMaxBytes = 256L * 1024 * 1024;
+        private String cron = "0 45 2 * * *";
+    }
+
+    /**
+     * In-process cache of tenant settings in front of the shared Redis cache. Updates are
+     * broadcast over Redis pub/sub; {@code localTtl} bounds staleness if a broadcast is missed.
+     */
+    @Getter
+    @Setter
+    public static class SettingsCache {
+        private Long localMaxSize = 10000L;
+        private Duration localTtl = Duration.ofMinutes(1);
+    }
+
+    /**
+     * Verified bearer tokens are cached until they expire, but never longer than
+     * {@code cacheMaxTtl}. A {@code cacheMaxSize} of 0 verifies every request.
+     */
     @Getter
     @Setter
     public static class Jwt {
         private String secret;
         private String issuer = "hms-authorization-server";
+        private Long cacheMaxSize = 10000L;
+        private Duration cacheMaxTtl = Duration.ofMinutes(5);
+    }
+
+    /**
+     * Listener settings for the email and SMS send queues.
+     * A batch size of 1 gives the classic one-message-one-ack behaviour.
+     */
+    @Getter
+    @Setter
+    public static class Consumer {
+        private Integer concurrentConsumers = 4;
+        private Integer maxConcurrentConsumers = 16;
+        private Integer prefetch = 50;
+        private Integer batchSize = 25;
+        private Long receiveTimeoutMs = 200L;
+    }
+
+    /**
+     * Delayed retry tiers for failed queue messages. Each delay gets its own TTL queue that
+     * dead-letters back to the work queue; after the last tier messages go to the DLQ.
+     */
+    @Getter
+    @Setter
+    public static class Retry {
+        private List<Duration> delays = List.of(
+                Duration.ofSeconds(5),
+                Duration.ofSeconds(30),
+                Duration.ofMinutes(2),
+                Duration.ofMinutes(10));
     }
 }
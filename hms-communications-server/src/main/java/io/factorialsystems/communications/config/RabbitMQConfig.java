@@ -5,13 +5,20 @@ import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.springframework.amqp.core.*;
 import org.springframework.amqp.rabbit.annotation.EnableRabbit;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.postprocessor.DelegatingDecompressingPostProcessor;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
 @Configuration
 @EnableRabbit
 public class RabbitMQConfig {
@@ -21,6 +28,22 @@ public class RabbitMQConfig {
     public static final String SMS_QUEUE = "communications.sms.send";
     public static final String EMAIL_ROUTING_KEY = "email.send";
     public static final String SMS_ROUTING_KEY = "sms.send";
+    public static final String SEND_LISTENER_FACTORY = "sendListenerContainerFactory";
+
+    // Tenant lifecycle events published by the authorization server
+    public static final String AUTH_EVENTS_EXCHANGE = "hms.auth.events";
+    public static final String TENANT_EVENTS_QUEUE = "communications.tenant.events";
+    public static final String TENANT_EVENTS_ROUTING_KEY = "tenant.*";
+
+    // Delayed retry tiers and final dead-letter queues
+    public static final String RETRY_EXCHANGE = "hms.communications.retry";
+    public static final String DEAD_LETTER_EXCHANGE = "hms.communications.dlx";
+    public static final String EMAIL_DEAD_LETTER_QUEUE = "communications.email.dlq";
+    public static final String SMS_DEAD_LETTER_QUEUE = "communications.sms.dlq";
+    public static final String WEBHOOK_DEAD_LETTER_QUEUE = "communications.webhook.dlq";
+    public static final String EMAIL_DEAD_LETTER_ROUTING_KEY = "email.dead";
+    public static final String SMS_DEAD_LETTER_ROUTING_KEY = "sms.dead";
+    public static final String WEBHOOK_DEAD_LETTER_ROUTING_KEY = "webhook.dead";
 
     @Bean
     public TopicExchange communicationsExchange() {
@@ -61,17 +84,169 @@ public class RabbitMQConfig {
     }
 
     @Bean
-    public MessageConverter jsonMessageConverter() {
+    public TopicExchange authEventsExchange() {
+        return ExchangeBuilder
+                .topicExchange(AUTH_EVENTS_EXCHANGE)
+                .durable(true)
+                .build();
+    }
+
+    /**
+     * Tenant created, activated and suspended events; they carry the tenant's subscription plan.
+     */
+    @Bean
+    public Queue tenantEventsQueue() {
+        return QueueBuilder
+                .durable(TENANT_EVENTS_QUEUE)
+                .build();
+    }
+
+    @Bean
+    public Binding tenantEventsBinding(Queue tenantEventsQueue, TopicExchange authEventsExchange) {
+        return BindingBuilder
+                .bind(tenantEventsQueue)
+                .to(authEventsExchange)
+                .with(TENANT_EVENTS_ROUTING_KEY);
+    }
+
+    /**
+     * One TTL queue per channel and retry delay. Expired messages are dead-lettered back to the
+     * communications exchange with the original routing key, so they re-enter the work queue.
+     * The queue name doubles as the routing key on the retry exchange.
+     */
+    @Bean
+    public Declarables retryTopology(CommunicationsProperties properties) {
+        DirectExchange retryExchange = ExchangeBuilder
+                .directExchange(RETRY_EXCHANGE)
+                .durable(true)
+                .build();
+
+        List<Declarable> declarables = new ArrayList<>();
+        declarables.add(retryExchange);
+
+        for (Duration delay : properties.getRetry().getDelays()) {
+            declarables.addAll(retryTier(retryExchange, EMAIL_ROUTING_KEY, delay));
+            declarables.addAll(retryTier(retryExchange, SMS_ROUTING_KEY, delay));
+        }
+
+        return new Declarables(declarables);
+    }
+
+    private List<Declarable> retryTier(DirectExchange retryExchange, String routingKey, Duration delay) {
+        Queue queue = QueueBuilder
+                .durable(retryQueueName(routingKey, delay))
+                .ttl(Math.toIntExact(delay.toMillis()))
+                .deadLetterExchange(COMMUNICATIONS_EXCHANGE)
+                .deadLetterRoutingKey(routingKey)
+                .build();
+
+        return List.of(queue, BindingBuilder.bind(queue).to(retryExchange).with(queue.getName()));
+    }
+
+    public static String retryQueueName(String routingKey, Duration delay) {
+        return "communications." + routingKey + ".retry." + delay.toMillis() + "ms";
+    }
+
+    @Bean
+    public DirectExchange deadLetterExchange() {
+        return ExchangeBuilder
+                .directExchange(DEAD_LETTER_EXCHANGE)
+                .durable(true)
+                .build();
+    }
+
+    @Bean
+    public Queue emailDeadLetterQueue() {
+        return QueueBuilder
+                .durable(EMAIL_DEAD_LETTER_QUEUE)
+                .build();
+    }
+
+    @Bean
+    public Queue smsDeadLetterQueue() {
+        return QueueBuilder
+                .durable(SMS_DEAD_LETTER_QUEUE)
+                .build();
+    }
+
+    /**
+     * Webhook event batches that could not be written to the database, as a JSON array.
+     */
+    @Bean
+    public Queue webhookDeadLetterQueue() {
+        return QueueBuilder
+                .durable(WEBHOOK_DEAD_LETTER_QUEUE)
+                .build();
+    }
+
+    @Bean
+    public Binding emailDeadLetterBinding(Queue emailDeadLetterQueue, DirectExchange deadLetterExchange) {
+        return BindingBuilder
+                .bind(emailDeadLetterQueue)
+                .to(deadLetterExchange)
+                .with(EMAIL_DEAD_LETTER_ROUTING_KEY);
+    }
+
+    @Bean
+    public Binding smsDeadLetterBinding(Queue smsDeadLetterQueue, DirectExchange deadLetterExchange) {
+        return BindingBuilder
+                .bind(smsDeadLetterQueue)
+                .to(deadLetterExchange)
+                .with(SMS_DEAD_LETTER_ROUTING_KEY);
+    }
+
+    @Bean
+    public Binding webhookDeadLetterBinding(Queue webhookDeadLetterQueue, DirectExchange deadLetterExchange) {
+        return BindingBuilder
+                .bind(webhookDeadLetterQueue)
+                .to(deadLetterExchange)
+                .with(WEBHOOK_DEAD_LETTER_ROUTING_KEY);
+    }
+
+    /**
+     * Picks JSON or Smile by the message content type; JSON when none is set. Outgoing
+     * messages are written as JSON unless their properties ask for Smile.
+     */
+    @Bean
+    public MessageConverter messageConverter() {
         ObjectMapper objectMapper = new ObjectMapper();
         objectMapper.registerModule(new JavaTimeModule());
         objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
-        return new Jackson2JsonMessageConverter(objectMapper);
+
+        ContentTypeDelegatingMessageConverter converter =
+                new ContentTypeDelegatingMessageConverter(new Jackson2JsonMessageConverter(objectMapper));
+        converter.addDelegate(SmileMessageConverter.CONTENT_TYPE, new SmileMessageConverter(objectMapper));
+        return converter;
+    }
+
+    /**
+     * Container factory for the send queues. Each consumer receives a window of up to
+     * {@code batchSize} messages, processes them concurrently and acknowledges the whole
+     * window with a single multiple-ack.
+     */
+    @Bean(name = SEND_LISTENER_FACTORY)
+    public SimpleRabbitListenerContainerFactory sendListenerContainerFactory(ConnectionFactory connectionFactory,
+                                                                             CommunicationsProperties properties) {
+        CommunicationsProperties.Consumer consumer = properties.getConsumer();
+
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        factory.setConcurrentConsumers(consumer.getConcurrentConsumers());
+        factory.setMaxConcurrentConsumers(consumer.getMaxConcurrentConsumers());
+        factory.setPrefetchCount(Math.max(consumer.getPrefetch(), consumer.getBatchSize()));
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(consumer.getBatchSize());
+        factory.setReceiveTimeout(consumer.getReceiveTimeoutMs());
+        return factory;
     }
 
     @Bean
-    public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory, MessageConverter jsonMessageConverter) {
+    public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory, MessageConverter messageConverter) {
         RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
-        rabbitTemplate.setMessageConverter(jsonMessageConverter);
+        rabbitTemplate.setMessageConverter(messageConverter);
+        rabbitTemplate.setAfterReceivePostProcessors(new DelegatingDecompressingPostProcessor());
         return rabbitTemplate;
     }
 }
@@ -0,0 +1,40 @@
+package io.factorialsystems.communications.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.factorialsystems.communications.service.FakeSmsProvider;
+import io.factorialsystems.communications.service.SmsProvider;
+import io.factorialsystems.communications.service.TwilioSmsProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class SmsProviderConfig {
+
+    /**
+     * Selects the provider from {@code hms.communications.sms.provider}.
+     */
+    @Bean
+    public SmsProvider smsProvider(CommunicationsProperties properties, ObjectMapper objectMapper) {
+        CommunicationsProperties.Sms sms = properties.getSms();
+
+        return switch (sms.getProvider().toUpperCase(Locale.ROOT)) {
+            case "TWILIO" -> new TwilioSmsProvider(smsHttpClient(sms), objectMapper, sms);
+            case "FAKE", "STUB" -> new FakeSmsProvider(sms);
+            default -> throw new IllegalStateException("Unknown SMS provider: " + sms.getProvider());
+        };
+    }
+
+    /**
+     * One pooled client for all SMS calls; responses are handled on virtual threads.
+     */
+    private HttpClient smsHttpClient(CommunicationsProperties.Sms sms) {
+        return HttpClient.newBuilder()
+                .connectTimeout(sms.getConnectTimeout())
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+}
@@ -0,0 +1,40 @@
+package io.factorialsystems.communications.config;
+
+import io.factorialsystems.communications.service.ResourceGovernor;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * API requests hold a database permit while their handler runs. Requests run on unbounded
+ * virtual threads, so under load they queue on the {@link ResourceGovernor} and are answered
+ * 503 after {@code concurrency.acquire-timeout}, rather than waiting out Hikari's connection
+ * timeout. Webhooks only append to an in-memory buffer and are not limited.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final ResourceGovernor resourceGovernor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                resourceGovernor.acquire(ResourceGovernor.Resource.DATABASE);
+                return true;
+            }
+
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                        Object handler, Exception ex) {
+                resourceGovernor.release(ResourceGovernor.Resource.DATABASE);
+            }
+        }).addPathPatterns("/api/**").excludePathPatterns("/api/v1/webhooks/**");
+    }
+}
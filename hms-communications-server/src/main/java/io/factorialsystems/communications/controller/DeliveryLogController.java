@@ -0,0 +1,64 @@
+package io.factorialsystems.communications.controller;
+
+import io.factorialsystems.communications.model.dto.response.ApiResponse;
+import io.factorialsystems.communications.model.dto.response.CursorPage;
+import io.factorialsystems.communications.model.dto.response.DeliveryLogResponse;
+import io.factorialsystems.communications.model.enums.MessageType;
+import io.factorialsystems.communications.security.TenantContext;
+import io.factorialsystems.communications.service.DeliveryLogService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/delivery-logs")
+@RequiredArgsConstructor
+@Tag(name = "Delivery Logs", description = "Delivery event history endpoints")
+@SecurityRequirement(name = "bearerAuth")
+public class DeliveryLogController {
+
+    private static final int DEFAULT_WINDOW_DAYS = 30;
+
+    private final DeliveryLogService deliveryLogService;
+
+    @GetMapping
+    @Operation(summary = "Scroll delivery logs",
+            description = "Keyset-paginated delivery events for current tenant, newest first. "
+                    + "Defaults to the last 30 days.")
+    public ResponseEntity<ApiResponse<CursorPage<DeliveryLogResponse>>> scrollLogs(
+            @Parameter(description = "Start of the time range (inclusive, ISO-8601)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "End of the time range (inclusive, ISO-8601)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "Filter by message type")
+            @RequestParam(required = false) MessageType messageType,
+            @Parameter(description = "Filter by event type, e.g. sent or delivered")
+            @RequestParam(required = false) String eventType,
+            @Parameter(description = "Continuation token from the previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (max 100)")
+            @RequestParam(defaultValue = "20") int limit) {
+
+        UUID tenantId = TenantContext.getTenantId();
+        LocalDateTime until = to != null ? to : LocalDateTime.now();
+        LocalDateTime since = from != null ? from : until.minusDays(DEFAULT_WINDOW_DAYS);
+        log.debug("Scrolling delivery logs for tenant: {} between {} and {}", tenantId, since, until);
+
+        CursorPage<DeliveryLogResponse> logs = deliveryLogService.scrollLogs(
+                tenantId, messageType, eventType, since, until, cursor, limit);
+        return ResponseEntity.ok(ApiResponse.success(logs));
+    }
+}
@@ -1,8 +1,12 @@
 package io.factorialsystems.communications.controller;
 
+import io.factorialsystems.communications.model.dto.request.SendBatchEmailRequest;
 import io.factorialsystems.communications.model.dto.request.SendEmailRequest;
 import io.factorialsystems.communications.model.dto.response.ApiResponse;
+import io.factorialsystems.communications.model.dto.response.BatchEmailResponse;
+import io.factorialsystems.communications.model.dto.response.CursorPage;
 import io.factorialsystems.communications.model.dto.response.EmailMessageResponse;
+import io.factorialsystems.communications.model.dto.response.EmailMessageSummary;
 import io.factorialsystems.communications.model.enums.MessageStatus;
 import io.factorialsystems.communications.security.TenantContext;
 import io.factorialsystems.communications.service.EmailService;
@@ -17,9 +21,13 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.util.List;
 import java.util.UUID;
 
 @Slf4j
@@ -30,25 +38,78 @@ import java.util.UUID;
 @SecurityRequirement(name = "bearerAuth")
 public class EmailController {
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     private final EmailService emailService;
 
-    @PostMapping("/send")
-    @Operation(summary = "Send email", description = "Send a transactional email via Brevo")
+    @PostMapping(value = "/send", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Send email", description = "Queue a transactional email for delivery via Brevo")
     public ResponseEntity<ApiResponse<EmailMessageResponse>> sendEmail(
-            @Valid @RequestBody SendEmailRequest request) {
+            @Valid @RequestBody SendEmailRequest request,
+            @Parameter(description = "Client key that makes retries of this request safe")
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
 
         UUID tenantId = TenantContext.getTenantId();
         request.setTenantId(tenantId);
+        if (idempotencyKey != null) {
+            request.setIdempotencyKey(idempotencyKey);
+        }
 
         log.info("Sending email for tenant: {} to: {}", tenantId, request.getToEmail());
 
         EmailMessageResponse response = emailService.sendEmail(tenantId, request);
-        return ResponseEntity.ok(ApiResponse.success(response, "Email sent successfully"));
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success(response, "Email accepted for delivery"));
+    }
+
+    @PostMapping(value = "/send", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Send email with uploaded attachments",
+            description = "Queue a transactional email whose attachments are sent as file parts instead of base64")
+    public ResponseEntity<ApiResponse<EmailMessageResponse>> sendEmailWithUploads(
+            @Valid @RequestPart("email") SendEmailRequest request,
+            @RequestPart(value = "attachments", required = false) List<MultipartFile> attachments,
+            @Parameter(description = "Client key that makes retries of this request safe")
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+
+        UUID tenantId = TenantContext.getTenantId();
+        request.setTenantId(tenantId);
+        if (idempotencyKey != null) {
+            request.setIdempotencyKey(idempotencyKey);
+        }
+
+        List<MultipartFile> uploads = attachments != null ? attachments : List.of();
+        log.info("Sending email for tenant: {} to: {} with {} uploaded attachment(s)",
+                tenantId, request.getToEmail(), uploads.size());
+
+        EmailMessageResponse response = emailService.sendEmail(tenantId, request, uploads);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success(response, "Email accepted for delivery"));
+    }
+
+    @PostMapping("/send-batch")
+    @Operation(summary = "Send email batch",
+            description = "Queue one email for many recipients, with per-recipient params, for delivery via Brevo")
+    public ResponseEntity<ApiResponse<BatchEmailResponse>> sendBatch(
+            @Valid @RequestBody SendBatchEmailRequest request,
+            @Parameter(description = "Client key that makes retries of this request safe")
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+
+        UUID tenantId = TenantContext.getTenantId();
+        request.setTenantId(tenantId);
+        if (idempotencyKey != null) {
+            request.setIdempotencyKey(idempotencyKey);
+        }
+
+        log.info("Sending email batch for tenant: {} to {} recipient(s)", tenantId, request.getRecipients().size());
+
+        BatchEmailResponse response = emailService.sendBatch(tenantId, request);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success(response, "Email batch accepted for delivery"));
     }
 
     @GetMapping("/messages")
-    @Operation(summary = "List emails", description = "Get paginated list of emails for current tenant")
-    public ResponseEntity<ApiResponse<Page<EmailMessageResponse>>> listEmails(
+    @Operation(summary = "List emails", description = "Get paginated list of emails for current tenant (summary fields only)")
+    public ResponseEntity<ApiResponse<Page<EmailMessageSummary>>> listEmails(
             @Parameter(description = "Filter by status")
             @RequestParam(required = false) MessageStatus status,
             @PageableDefault(size = 20, sort = "createdAt", direction = Sort.Direction.DESC)
@@ -57,7 +118,26 @@ public class EmailController {
         UUID tenantId = TenantContext.getTenantId();
         log.debug("Listing emails for tenant: {}, status: {}", tenantId, status);
 
-        Page<EmailMessageResponse> emails = emailService.listEmails(tenantId, status, pageable);
+        Page<EmailMessageSummary> emails = emailService.listEmails(tenantId, status, pageable);
+        return ResponseEntity.ok(ApiResponse.success(emails));
+    }
+
+    @GetMapping("/messages/cursor")
+    @Operation(summary = "Scroll emails",
+            description = "Keyset-paginated list of emails for current tenant, newest first. "
+                    + "Pass the returned nextCursor to fetch the following page.")
+    public ResponseEntity<ApiResponse<CursorPage<EmailMessageSummary>>> scrollEmails(
+            @Parameter(description = "Filter by status")
+            @RequestParam(required = false) MessageStatus status,
+            @Parameter(description = "Continuation token from the previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (max 100)")
+            @RequestParam(defaultValue = "20") int limit) {
+
+        UUID tenantId = TenantContext.getTenantId();
+        log.debug("Scrolling emails for tenant: {}, status: {}", tenantId, status);
+
+        CursorPage<EmailMessageSummary> emails = emailService.scrollEmails(tenantId, status, cursor, limit);
         return ResponseEntity.ok(ApiResponse.success(emails));
     }
 
@@ -2,6 +2,7 @@ package io.factorialsystems.communications.controller;
 
 import io.factorialsystems.communications.model.dto.request.SendSmsRequest;
 import io.factorialsystems.communications.model.dto.response.ApiResponse;
+import io.factorialsystems.communications.model.dto.response.CursorPage;
 import io.factorialsystems.communications.model.dto.response.SmsMessageResponse;
 import io.factorialsystems.communications.model.enums.MessageStatus;
 import io.factorialsystems.communications.security.TenantContext;
@@ -17,6 +18,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -26,25 +28,32 @@ import java.util.UUID;
 @RestController
 @RequestMapping("/api/v1/sms")
 @RequiredArgsConstructor
-@Tag(name = "SMS", description = "SMS messaging endpoints (stub implementation)")
+@Tag(name = "SMS", description = "SMS messaging endpoints")
 @SecurityRequirement(name = "bearerAuth")
 public class SmsController {
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     private final SmsService smsService;
 
     @PostMapping("/send")
-    @Operation(summary = "Send SMS (stub)", description = "Send SMS - currently stub implementation, Twilio integration pending")
+    @Operation(summary = "Send SMS", description = "Queue an SMS for asynchronous delivery through the configured provider")
     public ResponseEntity<ApiResponse<SmsMessageResponse>> sendSms(
-            @Valid @RequestBody SendSmsRequest request) {
+            @Valid @RequestBody SendSmsRequest request,
+            @Parameter(description = "Client key that makes retries of this request safe")
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
 
         UUID tenantId = TenantContext.getTenantId();
         request.setTenantId(tenantId);
+        if (idempotencyKey != null) {
+            request.setIdempotencyKey(idempotencyKey);
+        }
 
-        log.info("Sending SMS for tenant: {} to: {} (STUB)", tenantId, request.getToPhone());
+        log.info("Sending SMS for tenant: {} to: {}", tenantId, request.getToPhone());
 
         SmsMessageResponse response = smsService.sendSms(tenantId, request);
-        return ResponseEntity.ok(ApiResponse.success(response,
-                "SMS recorded (stub mode - actual sending not yet implemented)"));
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success(response, "SMS accepted for delivery"));
     }
 
     @GetMapping("/messages")
@@ -62,6 +71,25 @@ public class SmsController {
         return ResponseEntity.ok(ApiResponse.success(smsMessages));
     }
 
+    @GetMapping("/messages/cursor")
+    @Operation(summary = "Scroll SMS messages",
+            description = "Keyset-paginated list of SMS messages for current tenant, newest first. "
+                    + "Pass the returned nextCursor to fetch the following page.")
+    public ResponseEntity<ApiResponse<CursorPage<SmsMessageResponse>>> scrollSms(
+            @Parameter(description = "Filter by status")
+            @RequestParam(required = false) MessageStatus status,
+            @Parameter(description = "Continuation token from the previous page")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size (max 100)")
+            @RequestParam(defaultValue = "20") int limit) {
+
+        UUID tenantId = TenantContext.getTenantId();
+        log.debug("Scrolling SMS for tenant: {}, status: {}", tenantId, status);
+
+        CursorPage<SmsMessageResponse> smsMessages = smsService.scrollSms(tenantId, status, cursor, limit);
+        return ResponseEntity.ok(ApiResponse.success(smsMessages));
+    }
+
     @GetMapping("/messages/{id}")
     @Operation(summary = "Get SMS message", description = "Get SMS message details by ID")
     public ResponseEntity<ApiResponse<SmsMessageResponse>> getSms(
@@ -0,0 +1,57 @@
+package io.factorialsystems.communications.controller;
+
+import io.factorialsystems.communications.model.dto.response.ApiResponse;
+import io.factorialsystems.communications.model.dto.response.MessageStatsResponse;
+import io.factorialsystems.communications.model.enums.MessageType;
+import io.factorialsystems.communications.security.TenantContext;
+import io.factorialsystems.communications.service.MessageStatsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/stats")
+@RequiredArgsConstructor
+@Tag(name = "Statistics", description = "Message statistics endpoints")
+@SecurityRequirement(name = "bearerAuth")
+public class StatsController {
+
+    private static final int DEFAULT_WINDOW_DAYS = 30;
+
+    private final MessageStatsService messageStatsService;
+
+    @GetMapping
+    @Operation(summary = "Get message statistics",
+            description = "Daily message counts by channel and status for current tenant, with totals. "
+                    + "Each count is the number of messages that entered the status that day. "
+                    + "Defaults to the last 30 days.")
+    public ResponseEntity<ApiResponse<MessageStatsResponse>> getStats(
+            @Parameter(description = "First day (inclusive, ISO-8601 date)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last day (inclusive, ISO-8601 date)")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Filter by channel")
+            @RequestParam(required = false) MessageType channel) {
+
+        UUID tenantId = TenantContext.getTenantId();
+        LocalDate until = to != null ? to : LocalDate.now();
+        LocalDate since = from != null ? from : until.minusDays(DEFAULT_WINDOW_DAYS - 1);
+        log.debug("Getting message stats for tenant: {} between {} and {}", tenantId, since, until);
+
+        MessageStatsResponse stats = messageStatsService.getStats(tenantId, since, until, channel);
+        return ResponseEntity.ok(ApiResponse.success(stats));
+    }
+}
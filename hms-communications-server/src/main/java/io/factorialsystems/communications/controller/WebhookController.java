@@ -0,0 +1,72 @@
+package io.factorialsystems.communications.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.model.dto.request.BrevoWebhookEvent;
+import io.factorialsystems.communications.model.dto.response.ApiResponse;
+import io.factorialsystems.communications.service.WebhookEventBuffer;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/webhooks")
+@RequiredArgsConstructor
+@Tag(name = "Webhooks", description = "Delivery event callbacks from messaging providers")
+public class WebhookController {
+
+    private final WebhookEventBuffer webhookEventBuffer;
+    private final ObjectMapper objectMapper;
+    private final CommunicationsProperties properties;
+
+    @PostMapping("/brevo")
+    @Operation(summary = "Brevo events", description = "Receive transactional email events (single or batched) from Brevo")
+    public ResponseEntity<ApiResponse<Void>> receiveBrevoEvents(
+            @RequestParam(value = "token", required = false) String token,
+            @RequestBody JsonNode body) {
+
+        if (!isAuthorized(token)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(ApiResponse.error("Invalid webhook token"));
+        }
+
+        List<BrevoWebhookEvent> events = new ArrayList<>();
+        if (body.isArray()) {
+            for (JsonNode node : body) {
+                events.add(objectMapper.convertValue(node, BrevoWebhookEvent.class));
+            }
+        } else {
+            events.add(objectMapper.convertValue(body, BrevoWebhookEvent.class));
+        }
+
+        if (!webhookEventBuffer.offerAll(events)) {
+            log.warn("Webhook buffer full, refusing {} Brevo event(s)", events.size());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "30")
+                    .body(ApiResponse.error("Event buffer is full, retry later"));
+        }
+
+        return ResponseEntity.ok(ApiResponse.success(null, "Events accepted"));
+    }
+
+    private boolean isAuthorized(String token) {
+        String secret = properties.getWebhook().getSecret();
+        if (secret == null || secret.isBlank()) {
+            log.warn("Webhook secret is not configured; rejecting provider events");
+            return false;
+        }
+        return token != null && MessageDigest.isEqual(
+                secret.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8));
+    }
+}
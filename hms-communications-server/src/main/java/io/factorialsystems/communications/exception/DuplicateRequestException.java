@@ -0,0 +1,12 @@
+package io.factorialsystems.communications.exception;
+
+public class DuplicateRequestException extends RuntimeException {
+
+    public DuplicateRequestException(String message) {
+        super(message);
+    }
+
+    public DuplicateRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,20 @@
+package io.factorialsystems.communications.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * A provider call was not attempted because its circuit breaker is open or its bulkhead is
+ * full. Not a failed attempt: the work should be retried after {@link #getRetryAfter()}.
+ */
+@Getter
+public class ProviderUnavailableException extends MessageSendException {
+
+    private final Duration retryAfter;
+
+    public ProviderUnavailableException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,12 @@
+package io.factorialsystems.communications.exception;
+
+/**
+ * An earlier request with the same idempotency key has been claimed but not committed yet.
+ * Unlike a plain duplicate, the original may still fail, so queue consumers retry these.
+ */
+public class RequestInProgressException extends DuplicateRequestException {
+
+    public RequestInProgressException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,21 @@
+package io.factorialsystems.communications.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * No permit for a shared resource (database, provider, Redis) became free within
+ * {@code concurrency.acquire-timeout}. The request was not started and can be retried after
+ * {@link #getRetryAfter()}.
+ */
+@Getter
+public class ResourceBusyException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public ResourceBusyException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
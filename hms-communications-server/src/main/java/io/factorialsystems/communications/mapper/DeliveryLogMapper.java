@@ -0,0 +1,12 @@
+package io.factorialsystems.communications.mapper;
+
+import io.factorialsystems.communications.model.dto.response.DeliveryLogResponse;
+import io.factorialsystems.communications.model.entity.DeliveryLog;
+import org.mapstruct.Mapper;
+import org.mapstruct.MappingConstants;
+
+@Mapper(componentModel = MappingConstants.ComponentModel.SPRING)
+public interface DeliveryLogMapper {
+
+    DeliveryLogResponse toResponse(DeliveryLog deliveryLog);
+}
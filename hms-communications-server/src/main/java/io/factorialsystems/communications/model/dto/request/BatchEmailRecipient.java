@@ -0,0 +1,27 @@
+package io.factorialsystems.communications.model.dto.request;
+
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Map;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchEmailRecipient {
+
+    @NotBlank(message = "Recipient email is required")
+    @Email(message = "Invalid email format")
+    private String email;
+
+    private String name;
+
+    private Map<String, Object> params;  // Substituted for {{params.key}} in subject and content
+}
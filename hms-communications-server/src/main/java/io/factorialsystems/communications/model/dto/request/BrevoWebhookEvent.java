@@ -0,0 +1,36 @@
+package io.factorialsystems.communications.model.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Transactional email event as posted by Brevo webhooks. Only the fields used for status
+ * tracking are mapped; everything else is ignored.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BrevoWebhookEvent {
+
+    private String event;  // delivered, hard_bounce, soft_bounce, opened, click, ...
+
+    private String email;
+
+    @JsonProperty("message-id")
+    private String messageId;  // Matches email_messages.provider_id
+
+    @JsonProperty("ts_event")
+    private Long tsEvent;  // Epoch seconds
+
+    private String reason;
+
+    private String link;
+}
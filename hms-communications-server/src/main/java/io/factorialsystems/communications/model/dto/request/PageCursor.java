@@ -0,0 +1,52 @@
+package io.factorialsystems.communications.model.dto.request;
+
+import io.factorialsystems.communications.exception.BusinessException;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Opaque continuation token for keyset pagination: the sort timestamp and id of the last row
+ * returned, base64url-encoded.
+ */
+public record PageCursor(LocalDateTime timestamp, UUID id) {
+
+    private static final String SEPARATOR = "|";
+
+    public String encode() {
+        String raw = timestamp + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            return new PageCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    UUID.fromString(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new BusinessException("Invalid cursor");
+        }
+    }
+
+    /**
+     * Scroll position for the rows after the cursor, or the first page when there is none.
+     * {@code timestampProperty} is the property the listing sorts on before {@code id}.
+     */
+    public static ScrollPosition positionAfter(String cursor, String timestampProperty) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+
+        PageCursor decoded = decode(cursor);
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put(timestampProperty, decoded.timestamp());
+        keys.put("id", decoded.id());
+        return ScrollPosition.forward(keys);
+    }
+}
@@ -0,0 +1,45 @@
+package io.factorialsystems.communications.model.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.UUID;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SendBatchEmailRequest {
+
+    private UUID tenantId;  // Set from JWT, not request body
+
+    @Size(max = 255, message = "Idempotency key must not exceed 255 characters")
+    private String idempotencyKey;  // Optional; the Idempotency-Key header or AMQP message id takes the same role
+
+    @Email(message = "Invalid from email format")
+    private String fromEmail;  // Optional, uses tenant default if not provided
+
+    private String fromName;   // Optional, uses tenant default if not provided
+
+    @NotBlank(message = "Subject is required")
+    @Size(max = 500, message = "Subject must not exceed 500 characters")
+    private String subject;  // May reference recipient params, e.g. {{params.firstName}}
+
+    private String htmlContent;  // Either htmlContent or textContent must be provided
+
+    private String textContent;
+
+    @NotEmpty(message = "At least one recipient is required")
+    @Valid
+    private List<BatchEmailRecipient> recipients;
+}
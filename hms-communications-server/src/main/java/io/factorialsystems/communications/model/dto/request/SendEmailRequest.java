@@ -1,5 +1,6 @@
 package io.factorialsystems.communications.model.dto.request;
 
+import com.fasterxml.jackson.annotation.JsonAlias;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
@@ -9,7 +10,9 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Getter
@@ -21,6 +24,9 @@ public class SendEmailRequest {
 
     private UUID tenantId;  // Set from JWT, not request body
 
+    @Size(max = 255, message = "Idempotency key must not exceed 255 characters")
+    private String idempotencyKey;  // Optional; the Idempotency-Key header or AMQP message id takes the same role
+
     @NotBlank(message = "Recipient email is required")
     @Email(message = "Invalid email format")
     private String toEmail;
@@ -32,13 +38,22 @@ public class SendEmailRequest {
 
     private String fromName;   // Optional, uses tenant default if not provided
 
-    @NotBlank(message = "Subject is required")
     @Size(max = 500, message = "Subject must not exceed 500 characters")
-    private String subject;
+    private String subject;      // Required unless templateKey is given
 
-    private String htmlContent;  // Either htmlContent or textContent must be provided
+    private String htmlContent;  // Either htmlContent or textContent must be provided, or templateKey
 
     private String textContent;
 
+    @Size(max = 100, message = "Template key must not exceed 100 characters")
+    @JsonAlias("templateId")     // Name used by earlier authorization server releases
+    private String templateKey;  // e.g. "auth.welcome"; replaces subject and content
+
+    private Integer templateVersion;  // Optional, latest version if not provided
+
+    private Map<String, Object> variables;  // Values for the template placeholders
+
     private List<EmailAttachmentRequest> attachments;
+
+    private OffsetDateTime sendAt;  // Optional; delivered at this time instead of straight away
 }
@@ -9,6 +9,7 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.time.OffsetDateTime;
 import java.util.UUID;
 
 @Getter
@@ -20,6 +21,9 @@ public class SendSmsRequest {
 
     private UUID tenantId;  // Set from JWT, not request body
 
+    @Size(max = 255, message = "Idempotency key must not exceed 255 characters")
+    private String idempotencyKey;  // Optional; the Idempotency-Key header or AMQP message id takes the same role
+
     @NotBlank(message = "Recipient phone number is required")
     @Pattern(regexp = "^\\+?[1-9]\\d{1,14}$", message = "Invalid phone number format (E.164)")
     private String toPhone;
@@ -30,4 +34,6 @@ public class SendSmsRequest {
     @NotBlank(message = "Message is required")
     @Size(max = 1600, message = "Message must not exceed 1600 characters")
     private String message;
+
+    private OffsetDateTime sendAt;  // Optional; delivered at this time instead of straight away
 }
@@ -0,0 +1,27 @@
+package io.factorialsystems.communications.model.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.Map;
+
+/**
+ * Tenant lifecycle event as published by the authorization server on {@code hms.auth.events}.
+ * Only the envelope fields used here are mapped.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class TenantEvent {
+
+    private String messageType;  // tenant.created, tenant.activated, tenant.suspended
+
+    private Map<String, String> payload;  // tenantId, code, name, status, subscriptionPlan
+}
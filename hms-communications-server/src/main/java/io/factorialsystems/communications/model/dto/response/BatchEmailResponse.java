@@ -0,0 +1,27 @@
+package io.factorialsystems.communications.model.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.factorialsystems.communications.model.enums.MessageStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchEmailResponse {
+
+    private UUID batchId;
+    private UUID tenantId;
+    private Integer recipientCount;
+    private MessageStatus status;
+    private LocalDateTime createdAt;
+}
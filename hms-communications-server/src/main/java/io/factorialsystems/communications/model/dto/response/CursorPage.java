@@ -0,0 +1,53 @@
+package io.factorialsystems.communications.model.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.factorialsystems.communications.model.dto.request.PageCursor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Window;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One slice of a keyset-paginated listing. Pass {@code nextCursor} back as {@code cursor}
+ * to get the following slice; there is no total count.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CursorPage<T> {
+
+    public static final int MAX_LIMIT = 100;
+
+    private List<T> items;
+    private String nextCursor;
+    private boolean hasMore;
+
+    /**
+     * Page size for a listing request, clamped to 1..{@value #MAX_LIMIT}.
+     */
+    public static Limit limit(int requested) {
+        return Limit.of(Math.clamp(requested, 1, MAX_LIMIT));
+    }
+
+    public static <E, T> CursorPage<T> of(Window<E> window, Function<E, T> mapper, Function<E, PageCursor> cursorOf) {
+        List<E> content = window.getContent();
+        String nextCursor = window.hasNext() && !content.isEmpty()
+                ? cursorOf.apply(content.get(content.size() - 1)).encode()
+                : null;
+
+        return CursorPage.<T>builder()
+                .items(content.stream().map(mapper).toList())
+                .nextCursor(nextCursor)
+                .hasMore(window.hasNext())
+                .build();
+    }
+}
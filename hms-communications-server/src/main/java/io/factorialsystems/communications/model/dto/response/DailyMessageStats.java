@@ -0,0 +1,27 @@
+package io.factorialsystems.communications.model.dto.response;
+
+import io.factorialsystems.communications.model.enums.MessageStatus;
+import io.factorialsystems.communications.model.enums.MessageType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * Messages of one channel that entered {@code status} on {@code date}.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DailyMessageStats {
+
+    private LocalDate date;
+    private MessageType channel;
+    private MessageStatus status;
+    private Long count;
+}
@@ -0,0 +1,30 @@
+package io.factorialsystems.communications.model.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.factorialsystems.communications.model.enums.MessageType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DeliveryLogResponse {
+
+    private UUID id;
+    private UUID messageId;
+    private MessageType messageType;
+    private String eventType;
+    private Map<String, Object> eventData;
+    private String providerName;
+    private LocalDateTime occurredAt;
+}
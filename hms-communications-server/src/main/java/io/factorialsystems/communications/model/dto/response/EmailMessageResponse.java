@@ -40,6 +40,10 @@ public class EmailMessageResponse {
     private String errorMessage;
     private Integer retryCount;
     private LocalDateTime lastRetryAt;
+    private UUID batchId;
+    private UUID templateId;
+    private Map<String, Object> templateParams;
+    private LocalDateTime scheduledAt;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 }
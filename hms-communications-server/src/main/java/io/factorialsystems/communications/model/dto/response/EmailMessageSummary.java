@@ -0,0 +1,40 @@
+package io.factorialsystems.communications.model.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.factorialsystems.communications.model.enums.MessageStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * List view of an email. Repositories select it with a constructor expression, so the
+ * TOASTed body columns and the attachments jsonb are never read for listings; use
+ * {@link EmailMessageResponse} via {@code GET /messages/{id}} for the full content.
+ */
+@Getter
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class EmailMessageSummary {
+
+    private UUID id;
+    private UUID tenantId;
+    private String toEmail;
+    private String toName;
+    private String fromEmail;
+    private String subject;
+    private MessageStatus status;
+    private String providerId;
+    private LocalDateTime sentAt;
+    private LocalDateTime deliveredAt;
+    private LocalDateTime openedAt;
+    private LocalDateTime clickedAt;
+    private String errorMessage;
+    private Integer retryCount;
+    private UUID batchId;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
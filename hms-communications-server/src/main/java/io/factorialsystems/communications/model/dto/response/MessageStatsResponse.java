@@ -0,0 +1,29 @@
+package io.factorialsystems.communications.model.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.factorialsystems.communications.model.enums.MessageStatus;
+import io.factorialsystems.communications.model.enums.MessageType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MessageStatsResponse {
+
+    private LocalDate from;
+    private LocalDate to;
+    private MessageType channel;
+    private Map<MessageType, Map<MessageStatus, Long>> totals;
+    private List<DailyMessageStats> daily;
+}
@@ -31,6 +31,7 @@ public class SmsMessageResponse {
     private String errorMessage;
     private Integer retryCount;
     private LocalDateTime lastRetryAt;
+    private LocalDateTime scheduledAt;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 }
@@ -17,12 +17,9 @@ import java.util.UUID;
 @Builder
 @Entity
 @Table(name = "delivery_logs", indexes = {
-    @Index(name = "idx_delivery_logs_message_id", columnList = "message_id"),
-    @Index(name = "idx_delivery_logs_tenant_id", columnList = "tenant_id"),
-    @Index(name = "idx_delivery_logs_event_type", columnList = "event_type"),
-    @Index(name = "idx_delivery_logs_occurred_at", columnList = "occurred_at"),
-    @Index(name = "idx_delivery_logs_message_type", columnList = "message_type"),
-    @Index(name = "idx_delivery_logs_tenant_event", columnList = "tenant_id, event_type")
+    @Index(name = "idx_delivery_logs_message_id", columnList = "message_id, occurred_at"),
+    @Index(name = "idx_delivery_logs_tenant_occurred", columnList = "tenant_id, occurred_at DESC, id DESC"),
+    @Index(name = "idx_delivery_logs_tenant_event", columnList = "tenant_id, event_type, occurred_at DESC, id DESC")
 })
 public class DeliveryLog {
 
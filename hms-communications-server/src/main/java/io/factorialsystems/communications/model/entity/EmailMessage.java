@@ -6,6 +6,7 @@ import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.Type;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -18,11 +19,12 @@ import java.util.UUID;
 @Builder
 @Entity
 @Table(name = "email_messages", indexes = {
-    @Index(name = "idx_email_messages_tenant_id", columnList = "tenant_id"),
+    @Index(name = "idx_email_messages_tenant_created", columnList = "tenant_id, created_at DESC, id DESC"),
     @Index(name = "idx_email_messages_status", columnList = "status"),
     @Index(name = "idx_email_messages_created_at", columnList = "created_at"),
     @Index(name = "idx_email_messages_provider_id", columnList = "provider_id"),
-    @Index(name = "idx_email_messages_tenant_status", columnList = "tenant_id, status")
+    @Index(name = "idx_email_messages_tenant_status_created", columnList = "tenant_id, status, created_at DESC, id DESC"),
+    @Index(name = "idx_email_messages_batch_status", columnList = "batch_id, status")
 })
 public class EmailMessage extends BaseEntity {
 
@@ -82,4 +84,35 @@ public class EmailMessage extends BaseEntity {
 
     @Column(name = "last_retry_at")
     private LocalDateTime lastRetryAt;
+
+    @Column(name = "batch_id")
+    private UUID batchId;
+
+    @Column(name = "idempotency_key")
+    private String idempotencyKey;
+
+    @Column(name = "idempotency_scope", length = 20)
+    private String idempotencyScope;
+
+    @Column(name = "scheduled_at")
+    private LocalDateTime scheduledAt;
+
+    @Column(name = "quota_day")
+    private LocalDate quotaDay;
+
+    @Column(name = "template_id")
+    private UUID templateId;
+
+    @Type(JsonBinaryType.class)
+    @Column(name = "template_params", columnDefinition = "jsonb")
+    private Map<String, Object> templateParams;
+
+    @Column(name = "archive_segment", length = 100)
+    private String archiveSegment;
+
+    @Column(name = "archive_offset")
+    private Long archiveOffset;
+
+    @Column(name = "archive_length")
+    private Integer archiveLength;
 }
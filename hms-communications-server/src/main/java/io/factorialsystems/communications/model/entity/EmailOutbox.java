@@ -0,0 +1,53 @@
+package io.factorialsystems.communications.model.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "email_outbox", indexes = {
+    @Index(name = "idx_email_outbox_available_at", columnList = "available_at"),
+    @Index(name = "idx_email_outbox_tenant_available", columnList = "tenant_id, available_at"),
+    @Index(name = "idx_email_outbox_message_id", columnList = "message_id"),
+    @Index(name = "idx_email_outbox_batch_id", columnList = "batch_id")
+})
+public class EmailOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "message_id")
+    private UUID messageId;
+
+    @Column(name = "batch_id")
+    private UUID batchId;
+
+    @Column(name = "tenant_id", nullable = false)
+    private UUID tenantId;
+
+    @Column(name = "attempts", nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    @Column(name = "available_at", nullable = false)
+    private LocalDateTime availableAt;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "quota_day")
+    private LocalDate quotaDay;
+
+    @Column(name = "created_at", nullable = false)
+    @Builder.Default
+    private LocalDateTime createdAt = LocalDateTime.now();
+}
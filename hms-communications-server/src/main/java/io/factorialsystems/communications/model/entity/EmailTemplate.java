@@ -0,0 +1,34 @@
+package io.factorialsystems.communications.model.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "email_templates", uniqueConstraints = {
+    @UniqueConstraint(name = "uq_email_templates_key_version", columnNames = {"template_key", "template_version"})
+})
+public class EmailTemplate extends BaseEntity {
+
+    @Column(name = "template_key", nullable = false, length = 100)
+    private String templateKey;
+
+    @Column(name = "template_version", nullable = false)
+    private Integer templateVersion;
+
+    @Column(name = "description")
+    private String description;
+
+    @Column(name = "subject", nullable = false, length = 500)
+    private String subject;
+
+    @Column(name = "html_body", columnDefinition = "TEXT")
+    private String htmlBody;
+
+    @Column(name = "text_body", columnDefinition = "TEXT")
+    private String textBody;
+}
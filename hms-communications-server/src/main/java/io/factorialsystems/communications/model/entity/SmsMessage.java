@@ -4,6 +4,7 @@ import io.factorialsystems.communications.model.enums.MessageStatus;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -14,11 +15,11 @@ import java.util.UUID;
 @Builder
 @Entity
 @Table(name = "sms_messages", indexes = {
-    @Index(name = "idx_sms_messages_tenant_id", columnList = "tenant_id"),
+    @Index(name = "idx_sms_messages_tenant_created", columnList = "tenant_id, created_at DESC, id DESC"),
     @Index(name = "idx_sms_messages_status", columnList = "status"),
     @Index(name = "idx_sms_messages_created_at", columnList = "created_at"),
     @Index(name = "idx_sms_messages_provider_id", columnList = "provider_id"),
-    @Index(name = "idx_sms_messages_tenant_status", columnList = "tenant_id, status")
+    @Index(name = "idx_sms_messages_tenant_status_created", columnList = "tenant_id, status, created_at DESC, id DESC")
 })
 public class SmsMessage extends BaseEntity {
 
@@ -56,4 +57,13 @@ public class SmsMessage extends BaseEntity {
 
     @Column(name = "last_retry_at")
     private LocalDateTime lastRetryAt;
+
+    @Column(name = "idempotency_key")
+    private String idempotencyKey;
+
+    @Column(name = "scheduled_at")
+    private LocalDateTime scheduledAt;
+
+    @Column(name = "quota_day")
+    private LocalDate quotaDay;
 }
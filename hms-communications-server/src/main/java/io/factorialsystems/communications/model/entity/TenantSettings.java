@@ -64,4 +64,8 @@ public class TenantSettings extends BaseEntity {
     @Column(name = "enable_click_tracking", nullable = false)
     @Builder.Default
     private Boolean enableClickTracking = true;
+
+    // Dispatch weight
+    @Column(name = "subscription_plan", length = 30)
+    private String subscriptionPlan;
 }
@@ -1,6 +1,7 @@
 package io.factorialsystems.communications.model.enums;
 
 public enum MessageStatus {
+    SCHEDULED,
     PENDING,
     SENT,
     DELIVERED,
@@ -2,22 +2,50 @@ package io.factorialsystems.communications.repository;
 
 import io.factorialsystems.communications.model.entity.DeliveryLog;
 import io.factorialsystems.communications.model.enums.MessageType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
+/**
+ * delivery_logs is partitioned by month on occurred_at, so every query takes a time range
+ * and only scans the partitions that overlap it.
+ */
 @Repository
 public interface DeliveryLogRepository extends JpaRepository<DeliveryLog, UUID> {
 
-    List<DeliveryLog> findByMessageIdOrderByOccurredAtDesc(UUID messageId);
+    /**
+     * Events for one message; {@code since} is normally the message's creation time.
+     */
+    List<DeliveryLog> findByMessageIdAndTenantIdAndOccurredAtGreaterThanEqualOrderByOccurredAtDesc(
+            UUID messageId, UUID tenantId, LocalDateTime since);
 
-    Page<DeliveryLog> findByTenantId(UUID tenantId, Pageable pageable);
+    Page<DeliveryLog> findByTenantIdAndOccurredAtBetween(
+            UUID tenantId, LocalDateTime from, LocalDateTime to, Pageable pageable);
 
-    Page<DeliveryLog> findByTenantIdAndMessageType(UUID tenantId, MessageType messageType, Pageable pageable);
+    Page<DeliveryLog> findByTenantIdAndMessageTypeAndOccurredAtBetween(
+            UUID tenantId, MessageType messageType, LocalDateTime from, LocalDateTime to, Pageable pageable);
 
-    Page<DeliveryLog> findByTenantIdAndEventType(UUID tenantId, String eventType, Pageable pageable);
+    Page<DeliveryLog> findByTenantIdAndEventTypeAndOccurredAtBetween(
+            UUID tenantId, String eventType, LocalDateTime from, LocalDateTime to, Pageable pageable);
+
+    // Keyset pagination over (occurred_at, id), newest first
+
+    Window<DeliveryLog> findByTenantIdAndOccurredAtBetweenOrderByOccurredAtDescIdDesc(
+            UUID tenantId, LocalDateTime from, LocalDateTime to, ScrollPosition position, Limit limit);
+
+    Window<DeliveryLog> findByTenantIdAndMessageTypeAndOccurredAtBetweenOrderByOccurredAtDescIdDesc(
+            UUID tenantId, MessageType messageType, LocalDateTime from, LocalDateTime to,
+            ScrollPosition position, Limit limit);
+
+    Window<DeliveryLog> findByTenantIdAndEventTypeAndOccurredAtBetweenOrderByOccurredAtDescIdDesc(
+            UUID tenantId, String eventType, LocalDateTime from, LocalDateTime to,
+            ScrollPosition position, Limit limit);
 }
@@ -1,25 +1,105 @@
 package io.factorialsystems.communications.repository;
 
+import io.factorialsystems.communications.model.dto.response.EmailMessageSummary;
 import io.factorialsystems.communications.model.entity.EmailMessage;
 import io.factorialsystems.communications.model.enums.MessageStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface EmailMessageRepository extends JpaRepository<EmailMessage, UUID> {
+public interface EmailMessageRepository extends JpaRepository<EmailMessage, UUID>, EmailMessageRepositoryCustom {
 
-    Page<EmailMessage> findByTenantId(UUID tenantId, Pageable pageable);
+    // Listings return EmailMessageSummary, which Spring Data selects through a constructor
+    // expression: html_content, text_content and attachments are left in TOAST
 
-    Page<EmailMessage> findByTenantIdAndStatus(UUID tenantId, MessageStatus status, Pageable pageable);
+    Page<EmailMessageSummary> findByTenantId(UUID tenantId, Pageable pageable);
+
+    Page<EmailMessageSummary> findByTenantIdAndStatus(UUID tenantId, MessageStatus status, Pageable pageable);
+
+    // Keyset pagination over (created_at, id), newest first; no OFFSET and no count query
+
+    Window<EmailMessageSummary> findByTenantIdOrderByCreatedAtDescIdDesc(
+            UUID tenantId, ScrollPosition position, Limit limit);
+
+    Window<EmailMessageSummary> findByTenantIdAndStatusOrderByCreatedAtDescIdDesc(
+            UUID tenantId, MessageStatus status, ScrollPosition position, Limit limit);
 
     Optional<EmailMessage> findByIdAndTenantId(UUID id, UUID tenantId);
 
     Optional<EmailMessage> findByProviderIdAndTenantId(String providerId, UUID tenantId);
 
     long countByTenantIdAndStatus(UUID tenantId, MessageStatus status);
+
+    /**
+     * @param idempotencyScope {@link io.factorialsystems.communications.service.IdempotencyService#EMAIL}
+     *                         or {@link io.factorialsystems.communications.service.IdempotencyService#EMAIL_BATCH}
+     */
+    Optional<EmailMessage> findByTenantIdAndIdempotencyScopeAndIdempotencyKey(UUID tenantId, String idempotencyScope,
+                                                                              String idempotencyKey);
+
+    long countByBatchId(UUID batchId);
+
+    List<EmailMessage> findByBatchIdAndStatusOrderByIdAsc(UUID batchId, MessageStatus status, Limit limit);
+
+    // Scheduled messages in due order, keyset over (scheduled_at, id), for the scheduler index
+
+    Window<ScheduledMessageRef> findByStatusAndScheduledAtBetweenOrderByScheduledAtAscIdAsc(
+            MessageStatus status, LocalDateTime from, LocalDateTime to, ScrollPosition position, Limit limit);
+
+    /**
+     * Locks those of {@code ids} that are still in {@code status}. A row another poller is
+     * releasing is waited for and then left out, as it is no longer SCHEDULED.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<EmailMessage> findByIdInAndStatus(Collection<UUID> ids, MessageStatus status);
+
+    // Dispatch results are recorded with conditional updates so a message only leaves PENDING once
+
+    @Modifying
+    @Query("UPDATE EmailMessage e SET e.status = io.factorialsystems.communications.model.enums.MessageStatus.SENT, " +
+           "e.providerId = :providerId, e.sentAt = :sentAt, e.errorMessage = null, e.version = e.version + 1 " +
+           "WHERE e.id = :id AND e.status = io.factorialsystems.communications.model.enums.MessageStatus.PENDING")
+    int markSent(@Param("id") UUID id, @Param("providerId") String providerId, @Param("sentAt") LocalDateTime sentAt);
+
+    @Modifying
+    @Query("UPDATE EmailMessage e SET e.status = io.factorialsystems.communications.model.enums.MessageStatus.FAILED, " +
+           "e.errorMessage = :error, e.lastRetryAt = :failedAt, e.version = e.version + 1 " +
+           "WHERE e.id = :id AND e.status = io.factorialsystems.communications.model.enums.MessageStatus.PENDING")
+    int markFailed(@Param("id") UUID id, @Param("error") String error, @Param("failedAt") LocalDateTime failedAt);
+
+    @Modifying
+    @Query("UPDATE EmailMessage e SET e.retryCount = e.retryCount + 1, e.errorMessage = :error, " +
+           "e.lastRetryAt = :retriedAt, e.version = e.version + 1 " +
+           "WHERE e.id = :id AND e.status = io.factorialsystems.communications.model.enums.MessageStatus.PENDING")
+    int recordRetry(@Param("id") UUID id, @Param("error") String error, @Param("retriedAt") LocalDateTime retriedAt);
+
+    @Modifying
+    @Query("UPDATE EmailMessage e SET e.status = io.factorialsystems.communications.model.enums.MessageStatus.FAILED, " +
+           "e.errorMessage = :error, e.lastRetryAt = :failedAt, e.version = e.version + 1 " +
+           "WHERE e.batchId = :batchId AND e.status = io.factorialsystems.communications.model.enums.MessageStatus.PENDING")
+    int markBatchFailed(@Param("batchId") UUID batchId, @Param("error") String error,
+                        @Param("failedAt") LocalDateTime failedAt);
+
+    @Modifying
+    @Query("UPDATE EmailMessage e SET e.retryCount = e.retryCount + 1, e.errorMessage = :error, " +
+           "e.lastRetryAt = :retriedAt, e.version = e.version + 1 " +
+           "WHERE e.batchId = :batchId AND e.status = io.factorialsystems.communications.model.enums.MessageStatus.PENDING")
+    int recordBatchRetry(@Param("batchId") UUID batchId, @Param("error") String error,
+                         @Param("retriedAt") LocalDateTime retriedAt);
 }
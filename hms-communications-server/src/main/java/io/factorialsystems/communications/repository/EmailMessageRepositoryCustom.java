@@ -0,0 +1,26 @@
+package io.factorialsystems.communications.repository;
+
+import io.factorialsystems.communications.model.entity.EmailMessage;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Set-based writes for bulk sends that bypass the persistence context.
+ */
+public interface EmailMessageRepositoryCustom {
+
+    /**
+     * Inserts the messages with JDBC batching. Ids and audit columns are assigned in place,
+     * so the passed entities can be used afterwards; they are not managed.
+     */
+    void insertAll(List<EmailMessage> messages);
+
+    /**
+     * Marks each message SENT with its provider id if it is still PENDING.
+     *
+     * @return the ids that were actually updated
+     */
+    List<UUID> markAllSent(List<UUID> ids, List<String> providerIds, LocalDateTime sentAt);
+}
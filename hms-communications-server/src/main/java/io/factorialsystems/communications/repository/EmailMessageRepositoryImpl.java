@@ -0,0 +1,117 @@
+package io.factorialsystems.communications.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.model.entity.EmailMessage;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+@RequiredArgsConstructor
+public class EmailMessageRepositoryImpl implements EmailMessageRepositoryCustom {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO email_messages (id, tenant_id, to_email, to_name, from_email, from_name, subject, " +
+            "html_content, text_content, status, attachments, retry_count, batch_id, template_params, " +
+            "idempotency_key, idempotency_scope, quota_day, created_at, created_by, updated_at, updated_by, version) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?::jsonb, ?, ?, ?::jsonb, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private static final String MARK_SENT_SQL =
+            "UPDATE email_messages SET status = 'SENT', provider_id = ?, sent_at = ?, error_message = NULL, " +
+            "updated_at = ?, version = version + 1 WHERE id = ? AND status = 'PENDING'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final AuditorAware<String> auditorProvider;
+    private final CommunicationsProperties properties;
+
+    @Override
+    public void insertAll(List<EmailMessage> messages) {
+        LocalDateTime now = LocalDateTime.now();
+        String auditor = auditorProvider.getCurrentAuditor().orElse("system");
+
+        for (EmailMessage message : messages) {
+            message.setId(UUID.randomUUID());
+            message.setCreatedAt(now);
+            message.setCreatedBy(auditor);
+            message.setUpdatedAt(now);
+            message.setUpdatedBy(auditor);
+            message.setVersion(0L);
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, messages, properties.getBatch().getInsertBatchSize(),
+                (ps, message) -> bindInsert(ps, message));
+    }
+
+    @Override
+    public List<UUID> markAllSent(List<UUID> ids, List<String> providerIds, LocalDateTime sentAt) {
+        Timestamp sentAtTs = Timestamp.valueOf(sentAt);
+        List<Integer> indexes = IntStream.range(0, ids.size()).boxed().toList();
+
+        int[][] counts = jdbcTemplate.batchUpdate(MARK_SENT_SQL, indexes, properties.getBatch().getInsertBatchSize(),
+                (ps, i) -> {
+                    ps.setString(1, providerIds.get(i));
+                    ps.setTimestamp(2, sentAtTs);
+                    ps.setTimestamp(3, sentAtTs);
+                    ps.setObject(4, ids.get(i));
+                });
+
+        List<UUID> updated = new ArrayList<>(ids.size());
+        int i = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count > 0) {
+                    updated.add(ids.get(i));
+                }
+                i++;
+            }
+        }
+        return updated;
+    }
+
+    private void bindInsert(PreparedStatement ps, EmailMessage message) throws SQLException {
+        ps.setObject(1, message.getId());
+        ps.setObject(2, message.getTenantId());
+        ps.setString(3, message.getToEmail());
+        ps.setString(4, message.getToName());
+        ps.setString(5, message.getFromEmail());
+        ps.setString(6, message.getFromName());
+        ps.setString(7, message.getSubject());
+        ps.setString(8, message.getHtmlContent());
+        ps.setString(9, message.getTextContent());
+        ps.setString(10, message.getStatus().name());
+        ps.setString(11, toJson(message.getAttachments()));
+        ps.setInt(12, message.getRetryCount() != null ? message.getRetryCount() : 0);
+        ps.setObject(13, message.getBatchId(), Types.OTHER);
+        ps.setString(14, toJson(message.getTemplateParams()));
+        ps.setString(15, message.getIdempotencyKey());
+        ps.setString(16, message.getIdempotencyScope());
+        ps.setObject(17, message.getQuotaDay(), Types.DATE);
+        ps.setTimestamp(18, Timestamp.valueOf(message.getCreatedAt()));
+        ps.setString(19, message.getCreatedBy());
+        ps.setTimestamp(20, Timestamp.valueOf(message.getUpdatedAt()));
+        ps.setString(21, message.getUpdatedBy());
+    }
+
+    private String toJson(Object value) throws SQLException {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new SQLException("Could not serialize JSON column", e);
+        }
+    }
+}
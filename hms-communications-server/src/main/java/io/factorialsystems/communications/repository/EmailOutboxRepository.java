@@ -0,0 +1,57 @@
+package io.factorialsystems.communications.repository;
+
+import io.factorialsystems.communications.model.entity.EmailOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, UUID> {
+
+    /**
+     * Locks up to {@code limit} of the tenant's due entries, oldest first, skipping rows
+     * already locked by other dispatchers.
+     */
+    @Query(value = "SELECT * FROM email_outbox WHERE tenant_id = :tenantId AND available_at <= :now " +
+                   "ORDER BY available_at LIMIT :limit FOR UPDATE SKIP LOCKED",
+           nativeQuery = true)
+    List<EmailOutbox> findDueForUpdate(@Param("tenantId") UUID tenantId, @Param("now") LocalDateTime now,
+                                       @Param("limit") int limit);
+
+    /**
+     * Number of due entries per tenant: the per-tenant queue depth.
+     */
+    @Query("SELECT o.tenantId AS tenantId, COUNT(o) AS depth FROM EmailOutbox o " +
+           "WHERE o.availableAt <= :now GROUP BY o.tenantId")
+    List<TenantDepth> countDueByTenant(@Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE EmailOutbox o SET o.availableAt = :availableAt, o.lastError = :error WHERE o.id = :id")
+    int reschedule(@Param("id") UUID id, @Param("availableAt") LocalDateTime availableAt,
+                   @Param("error") String error);
+
+    /**
+     * Pushes an entry back without using up an attempt (the claim already counted one).
+     */
+    @Modifying
+    @Query("UPDATE EmailOutbox o SET o.availableAt = :availableAt, o.lastError = :error, " +
+           "o.attempts = o.attempts - 1 WHERE o.id = :id")
+    int defer(@Param("id") UUID id, @Param("availableAt") LocalDateTime availableAt,
+              @Param("error") String error);
+
+    @Modifying
+    @Query("DELETE FROM EmailOutbox o WHERE o.id = :id")
+    int deleteEntry(@Param("id") UUID id);
+
+    interface TenantDepth {
+        UUID getTenantId();
+
+        long getDepth();
+    }
+}
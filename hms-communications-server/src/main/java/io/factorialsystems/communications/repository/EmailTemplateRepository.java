@@ -0,0 +1,16 @@
+package io.factorialsystems.communications.repository;
+
+import io.factorialsystems.communications.model.entity.EmailTemplate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface EmailTemplateRepository extends JpaRepository<EmailTemplate, UUID> {
+
+    Optional<EmailTemplate> findByTemplateKeyAndTemplateVersion(String templateKey, Integer templateVersion);
+
+    Optional<EmailTemplate> findFirstByTemplateKeyOrderByTemplateVersionDesc(String templateKey);
+}
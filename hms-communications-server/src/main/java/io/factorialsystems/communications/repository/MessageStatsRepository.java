@@ -0,0 +1,85 @@
+package io.factorialsystems.communications.repository;
+
+import io.factorialsystems.communications.model.dto.response.DailyMessageStats;
+import io.factorialsystems.communications.model.enums.MessageStatus;
+import io.factorialsystems.communications.model.enums.MessageType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Reads and increments {@code message_stats_daily}. Plain JDBC: the table has no entity, and
+ * an increment is an additive upsert that JPA cannot express.
+ */
+@Repository
+@RequiredArgsConstructor
+public class MessageStatsRepository {
+
+    private static final String INCREMENT_SQL =
+            "INSERT INTO message_stats_daily (tenant_id, stat_date, channel, status, message_count, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, CURRENT_TIMESTAMP) " +
+            "ON CONFLICT (tenant_id, stat_date, channel, status) DO UPDATE SET " +
+            "message_count = message_stats_daily.message_count + EXCLUDED.message_count, " +
+            "updated_at = CURRENT_TIMESTAMP";
+
+    private static final String SELECT_SQL =
+            "SELECT stat_date, channel, status, message_count FROM message_stats_daily " +
+            "WHERE tenant_id = ? AND stat_date BETWEEN ? AND ?";
+
+    // Rows are written in key order so two instances flushing at once cannot deadlock
+    private static final Comparator<Key> KEY_ORDER = Comparator.comparing(Key::tenantId)
+            .thenComparing(Key::day)
+            .thenComparing(Key::channel)
+            .thenComparing(Key::status);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record Key(UUID tenantId, LocalDate day, MessageType channel, MessageStatus status) {
+    }
+
+    @Transactional
+    public void increment(Map<Key, Long> counts) {
+        List<Map.Entry<Key, Long>> rows = new ArrayList<>(counts.entrySet());
+        rows.sort(Map.Entry.comparingByKey(KEY_ORDER));
+
+        jdbcTemplate.batchUpdate(INCREMENT_SQL, rows, rows.size(), (ps, row) -> {
+            Key key = row.getKey();
+            ps.setObject(1, key.tenantId());
+            ps.setDate(2, Date.valueOf(key.day()));
+            ps.setString(3, key.channel().name());
+            ps.setString(4, key.status().name());
+            ps.setLong(5, row.getValue());
+        });
+    }
+
+    /**
+     * A tenant's rows between {@code from} and {@code to} (inclusive), oldest first;
+     * {@code channel} may be null for both channels.
+     */
+    @Transactional(readOnly = true)
+    public List<DailyMessageStats> findByTenant(UUID tenantId, LocalDate from, LocalDate to, MessageType channel) {
+        List<Object> params = new ArrayList<>(List.of(tenantId, Date.valueOf(from), Date.valueOf(to)));
+        String sql = SELECT_SQL;
+        if (channel != null) {
+            sql += " AND channel = ?";
+            params.add(channel.name());
+        }
+        sql += " ORDER BY stat_date, channel, status";
+
+        return jdbcTemplate.query(sql, (rs, rowNum) -> DailyMessageStats.builder()
+                .date(rs.getDate("stat_date").toLocalDate())
+                .channel(MessageType.valueOf(rs.getString("channel")))
+                .status(MessageStatus.valueOf(rs.getString("status")))
+                .count(rs.getLong("message_count"))
+                .build(), params.toArray());
+    }
+}
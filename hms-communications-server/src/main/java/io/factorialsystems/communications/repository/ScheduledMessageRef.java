@@ -0,0 +1,11 @@
+package io.factorialsystems.communications.repository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A scheduled message's id and due time; all the scheduler index needs, selected without
+ * reading the message content.
+ */
+public record ScheduledMessageRef(UUID id, LocalDateTime scheduledAt) {
+}
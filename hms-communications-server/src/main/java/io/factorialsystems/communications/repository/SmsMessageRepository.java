@@ -2,11 +2,22 @@ package io.factorialsystems.communications.repository;
 
 import io.factorialsystems.communications.model.entity.SmsMessage;
 import io.factorialsystems.communications.model.enums.MessageStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -17,9 +28,70 @@ public interface SmsMessageRepository extends JpaRepository<SmsMessage, UUID> {
 
     Page<SmsMessage> findByTenantIdAndStatus(UUID tenantId, MessageStatus status, Pageable pageable);
 
+    // Keyset pagination over (created_at, id), newest first; no OFFSET and no count query
+
+    Window<SmsMessage> findByTenantIdOrderByCreatedAtDescIdDesc(
+            UUID tenantId, ScrollPosition position, Limit limit);
+
+    Window<SmsMessage> findByTenantIdAndStatusOrderByCreatedAtDescIdDesc(
+            UUID tenantId, MessageStatus status, ScrollPosition position, Limit limit);
+
     Optional<SmsMessage> findByIdAndTenantId(UUID id, UUID tenantId);
 
     Optional<SmsMessage> findByProviderIdAndTenantId(String providerId, UUID tenantId);
 
     long countByTenantIdAndStatus(UUID tenantId, MessageStatus status);
+
+    Optional<SmsMessage> findByTenantIdAndIdempotencyKey(UUID tenantId, String idempotencyKey);
+
+    // Scheduled messages in due order, keyset over (scheduled_at, id), for the scheduler index
+
+    Window<ScheduledMessageRef> findByStatusAndScheduledAtBetweenOrderByScheduledAtAscIdAsc(
+            MessageStatus status, LocalDateTime from, LocalDateTime to, ScrollPosition position, Limit limit);
+
+    /**
+     * Locks those of {@code ids} that are still in {@code status}. A row another poller is
+     * releasing is waited for and then left out, as it is no longer SCHEDULED.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<SmsMessage> findByIdInAndStatus(Collection<UUID> ids, MessageStatus status);
+
+    // Dispatch results are recorded with conditional updates so a message only leaves PENDING once
+
+    @Modifying
+    @Query("UPDATE SmsMessage s SET s.status = io.factorialsystems.communications.model.enums.MessageStatus.SENT, " +
+           "s.providerId = :providerId, s.sentAt = :sentAt, s.errorMessage = null, s.version = s.version + 1 " +
+           "WHERE s.id = :id AND s.status = io.factorialsystems.communications.model.enums.MessageStatus.PENDING")
+    int markSent(@Param("id") UUID id, @Param("providerId") String providerId, @Param("sentAt") LocalDateTime sentAt);
+
+    @Modifying
+    @Query("UPDATE SmsMessage s SET s.status = io.factorialsystems.communications.model.enums.MessageStatus.FAILED, " +
+           "s.errorMessage = :error, s.lastRetryAt = :failedAt, s.version = s.version + 1 " +
+           "WHERE s.id = :id AND s.status = io.factorialsystems.communications.model.enums.MessageStatus.PENDING")
+    int markFailed(@Param("id") UUID id, @Param("error") String error, @Param("failedAt") LocalDateTime failedAt);
+
+    @Modifying
+    @Query("UPDATE SmsMessage s SET s.retryCount = s.retryCount + 1, s.errorMessage = :error, " +
+           "s.lastRetryAt = :retriedAt, s.version = s.version + 1 " +
+           "WHERE s.id = :id AND s.status = io.factorialsystems.communications.model.enums.MessageStatus.PENDING")
+    int recordRetry(@Param("id") UUID id, @Param("error") String error, @Param("retriedAt") LocalDateTime retriedAt);
+
+    // Pending messages untouched since staleBefore: failed attempts waiting for their retry,
+    // or sends lost with the instance that accepted them. A released scheduled message counts
+    // from its due time, not from when it was accepted
+
+    @Query("SELECT s.id FROM SmsMessage s " +
+           "WHERE s.status = io.factorialsystems.communications.model.enums.MessageStatus.PENDING " +
+           "AND COALESCE(s.lastRetryAt, s.scheduledAt, s.createdAt) < :staleBefore ORDER BY s.createdAt")
+    List<UUID> findStalePendingIds(@Param("staleBefore") LocalDateTime staleBefore, Limit limit);
+
+    /**
+     * Takes a stale pending message for redispatch; only one instance gets 1 back.
+     */
+    @Modifying
+    @Query("UPDATE SmsMessage s SET s.lastRetryAt = :claimedAt, s.version = s.version + 1 " +
+           "WHERE s.id = :id AND s.status = io.factorialsystems.communications.model.enums.MessageStatus.PENDING " +
+           "AND COALESCE(s.lastRetryAt, s.scheduledAt, s.createdAt) < :staleBefore")
+    int claimForRedispatch(@Param("id") UUID id, @Param("staleBefore") LocalDateTime staleBefore,
+                           @Param("claimedAt") LocalDateTime claimedAt);
 }
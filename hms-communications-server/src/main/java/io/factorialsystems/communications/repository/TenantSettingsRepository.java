@@ -2,8 +2,13 @@ package io.factorialsystems.communications.repository;
 
 import io.factorialsystems.communications.model.entity.TenantSettings;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -13,4 +18,14 @@ public interface TenantSettingsRepository extends JpaRepository<TenantSettings,
     Optional<TenantSettings> findByTenantId(UUID tenantId);
 
     boolean existsByTenantId(UUID tenantId);
+
+    // A late release for an earlier day never overwrites a later day's copy. Runs in its
+    // own transaction when called outside one, as the scheduled flush does.
+    @Modifying
+    @Transactional
+    @Query("UPDATE TenantSettings t SET t.emailsSentToday = :emails, t.smsSentToday = :sms, " +
+           "t.limitResetDate = :resetDate WHERE t.tenantId = :tenantId " +
+           "AND (t.limitResetDate IS NULL OR t.limitResetDate <= :resetDate)")
+    int updateDailyCounters(@Param("tenantId") UUID tenantId, @Param("emails") int emails,
+                            @Param("sms") int sms, @Param("resetDate") LocalDateTime resetDate);
 }
@@ -1,7 +1,6 @@
 package io.factorialsystems.communications.security;
 
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,23 +8,21 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.List;
-import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
-    private final JwtParser jwtParser;
+    private static final WebAuthenticationDetailsSource DETAILS_SOURCE = new WebAuthenticationDetailsSource();
+
+    private final VerifiedTokenCache verifiedTokenCache;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -34,33 +31,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String token = extractToken(request);
 
-            if (token != null && validateToken(token)) {
-                Claims claims = jwtParser.parseSignedClaims(token).getPayload();
-
-                String userId = claims.getSubject();
-                UUID tenantId = UUID.fromString(claims.get("tenant_id", String.class));
-
-                // Extract permissions/roles from JWT
-                @SuppressWarnings("unchecked")
-                List<String> permissions = claims.get("permissions", List.class);
-
-                List<SimpleGrantedAuthority> authorities = permissions != null
-                        ? permissions.stream()
-                            .map(SimpleGrantedAuthority::new)
-                            .collect(Collectors.toList())
-                        : List.of();
+            if (token != null) {
+                // Verified once per token; repeat requests are served from the cache
+                VerifiedTokenCache.VerifiedPrincipal principal = verifiedTokenCache.get(token);
 
                 // Set authentication in SecurityContext
                 UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(userId, null, authorities);
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                        new UsernamePasswordAuthenticationToken(principal.userId(), null, principal.authorities());
+                authentication.setDetails(DETAILS_SOURCE.buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authentication);
 
                 // Store tenant in ThreadLocal
-                TenantContext.setTenantId(tenantId);
+                TenantContext.setTenantId(principal.tenantId());
 
-                log.debug("Authenticated user: {} for tenant: {}", userId, tenantId);
+                log.debug("Authenticated user: {} for tenant: {}", principal.userId(), principal.tenantId());
             }
+        } catch (JwtException e) {
+            log.debug("Invalid JWT token: {}", e.getMessage());
         } catch (Exception e) {
             log.error("Cannot set user authentication: {}", e.getMessage());
             TenantContext.clear();
@@ -83,14 +70,4 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         return null;
     }
-
-    private boolean validateToken(String token) {
-        try {
-            jwtParser.parseSignedClaims(token);
-            return true;
-        } catch (Exception e) {
-            log.debug("Invalid JWT token: {}", e.getMessage());
-            return false;
-        }
-    }
 }
@@ -0,0 +1,123 @@
+package io.factorialsystems.communications.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Bearer tokens that have already been verified, keyed by the SHA-256 of the token so raw
+ * tokens are not kept in memory. A token is verified and its claims parsed once; clients
+ * polling with the same token are then authenticated from the cache until the token
+ * expires, or for at most {@code jwt.cache-max-ttl}. A {@code jwt.cache-max-size} of 0
+ * turns caching off.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final JwtParser jwtParser;
+    private final Duration maxTtl;
+    private final Cache<String, VerifiedPrincipal> principals;
+
+    public VerifiedTokenCache(JwtParser jwtParser, CommunicationsProperties properties, MeterRegistry meterRegistry) {
+        this.jwtParser = jwtParser;
+
+        CommunicationsProperties.Jwt config = properties.getJwt();
+        this.maxTtl = config.getCacheMaxTtl();
+
+        if (config.getCacheMaxSize() > 0) {
+            this.principals = Caffeine.newBuilder()
+                    .maximumSize(config.getCacheMaxSize())
+                    .expireAfter(Expiry.creating((String digest, VerifiedPrincipal principal) -> principal.ttl(maxTtl)))
+                    .recordStats()
+                    .build();
+            CaffeineCacheMetrics.monitor(meterRegistry, principals, "jwtPrincipals");
+        } else {
+            this.principals = null;
+        }
+    }
+
+    /**
+     * The principal for {@code token}, verifying it on a cache miss.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is invalid or expired
+     */
+    public VerifiedPrincipal get(String token) {
+        if (principals == null) {
+            return verify(token);
+        }
+
+        String digest = digest(token);
+        VerifiedPrincipal principal = principals.getIfPresent(digest);
+        if (principal != null && principal.isValidAt(Instant.now())) {
+            return principal;
+        }
+
+        principal = verify(token);
+        principals.put(digest, principal);
+        return principal;
+    }
+
+    private VerifiedPrincipal verify(String token) {
+        Claims claims = jwtParser.parseSignedClaims(token).getPayload();
+
+        @SuppressWarnings("unchecked")
+        List<String> permissions = claims.get("permissions", List.class);
+        List<SimpleGrantedAuthority> authorities = permissions != null
+                ? permissions.stream().map(SimpleGrantedAuthority::new).toList()
+                : List.of();
+
+        return new VerifiedPrincipal(
+                claims.getSubject(),
+                UUID.fromString(claims.get("tenant_id", String.class)),
+                authorities,
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null);
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * What the filter needs from a verified token. {@code expiresAt} is null for tokens
+     * without an {@code exp} claim.
+     */
+    public record VerifiedPrincipal(String userId, UUID tenantId, List<SimpleGrantedAuthority> authorities,
+                                    Instant expiresAt) {
+
+        boolean isValidAt(Instant now) {
+            return expiresAt == null || now.isBefore(expiresAt);
+        }
+
+        Duration ttl(Duration maxTtl) {
+            if (expiresAt == null) {
+                return maxTtl;
+            }
+            Duration remaining = Duration.between(Instant.now(), expiresAt);
+            if (remaining.isNegative()) {
+                return Duration.ZERO;
+            }
+            return remaining.compareTo(maxTtl) < 0 ? remaining : maxTtl;
+        }
+    }
+}
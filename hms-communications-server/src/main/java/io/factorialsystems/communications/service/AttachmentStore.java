@@ -0,0 +1,168 @@
+package io.factorialsystems.communications.service;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.exception.BusinessException;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Content-addressed attachment blobs on the local filesystem. A blob is stored once under
+ * {@code {root}/ab/cd/<sha256>}, so the same logo or standard PDF attached to many emails
+ * takes up space only once. Blobs are written to a temp file while hashing and then moved
+ * into place, so a partially written blob is never visible under its hash.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AttachmentStore {
+
+    private static final String TEMP_DIR = "tmp";
+
+    private final CommunicationsProperties properties;
+
+    private Path root;
+
+    public record StoredBlob(String sha256, long size) {
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Path.of(properties.getAttachment().getStorePath()).toAbsolutePath();
+        Files.createDirectories(root.resolve(TEMP_DIR));
+        log.info("Attachment store at {}", root);
+    }
+
+    /**
+     * Streams the content into the store, rejecting it once it grows past {@code maxBytes}.
+     */
+    public StoredBlob store(InputStream content, long maxBytes) {
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(root.resolve(TEMP_DIR), "upload-", ".part");
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+
+            long size;
+            try (InputStream in = new DigestInputStream(new LimitedInputStream(content, maxBytes), digest)) {
+                size = Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            String sha256 = HexFormat.of().formatHex(digest.digest());
+            Path target = pathFor(sha256);
+
+            if (Files.exists(target)) {
+                log.debug("Attachment {} already stored, reusing it", sha256);
+            } else {
+                Files.createDirectories(target.getParent());
+                moveIntoPlace(temp, target);
+            }
+
+            return new StoredBlob(sha256, size);
+
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store attachment", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        } finally {
+            deleteQuietly(temp);
+        }
+    }
+
+    public InputStream open(String sha256) throws IOException {
+        return Files.newInputStream(pathFor(sha256));
+    }
+
+    public byte[] read(String sha256) throws IOException {
+        return Files.readAllBytes(pathFor(sha256));
+    }
+
+    public boolean exists(String sha256) {
+        return Files.exists(pathFor(sha256));
+    }
+
+    private Path pathFor(String sha256) {
+        if (!sha256.matches("[0-9a-f]{64}")) {
+            throw new IllegalArgumentException("Not a SHA-256 hex digest: " + sha256);
+        }
+        return root.resolve(sha256.substring(0, 2)).resolve(sha256.substring(2, 4)).resolve(sha256);
+    }
+
+    private void moveIntoPlace(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            try {
+                Files.move(temp, target);
+            } catch (FileAlreadyExistsException ignored) {
+                // Stored concurrently by another request; the content is identical
+            }
+        } catch (FileAlreadyExistsException ignored) {
+            // Stored concurrently by another request; the content is identical
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete temp file {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Fails the copy as soon as more than {@code maxBytes} have been read.
+     */
+    private static class LimitedInputStream extends FilterInputStream {
+
+        private final long maxBytes;
+        private long count;
+
+        LimitedInputStream(InputStream in, long maxBytes) {
+            super(in);
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                checkLimit(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                checkLimit(n);
+            }
+            return n;
+        }
+
+        private void checkLimit(int read) {
+            count += read;
+            if (count > maxBytes) {
+                throw new BusinessException("Attachment exceeds the maximum size of " + maxBytes + " bytes");
+            }
+        }
+    }
+}
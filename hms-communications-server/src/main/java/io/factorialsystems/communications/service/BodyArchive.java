@@ -0,0 +1,223 @@
+package io.factorialsystems.communications.service;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Append-only segment files for archived email bodies under {@code archive.store-path}. Each
+ * body is written as its own gzip member, so a segment is a valid {@code .gz} stream and any
+ * one body can be read back with a single positional read of {@code length} bytes at
+ * {@code offset}. Those three values are the offset index; the caller keeps them on the row.
+ * <p>
+ * Segments are never rewritten. Every instance writes its own segment and starts a new one
+ * at {@code archive.segment-max-bytes} or on restart. Records left by an archive run that
+ * did not commit are never referenced and cost nothing but their bytes.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BodyArchive {
+
+    private static final DateTimeFormatter SEGMENT_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final String SEGMENT_PATTERN = "bodies-[0-9]{8}-[0-9]{6}-[0-9a-f]{8}\\.gz";
+    private static final int NULL_LENGTH = -1;
+
+    private final CommunicationsProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    private Path root;
+    private String segment;
+    private FileChannel channel;
+
+    public record Body(UUID messageId, String html, String text) {
+    }
+
+    public record Ref(String segment, long offset, int length) {
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Path.of(properties.getArchive().getStorePath()).toAbsolutePath();
+        Files.createDirectories(root);
+        log.info("Email body archive at {}", root);
+    }
+
+    /**
+     * Appends the bodies and forces them to disk before returning, so a row is only ever
+     * pointed at bytes that survive a crash.
+     *
+     * @return where each body was written, in the order given
+     */
+    public synchronized List<Ref> append(List<Body> bodies) {
+        try {
+            FileChannel out = currentSegment();
+            List<Ref> refs = new ArrayList<>(bodies.size());
+
+            for (Body body : bodies) {
+                ByteBuffer record = ByteBuffer.wrap(compress(body));
+                long offset = out.position();
+                while (record.hasRemaining()) {
+                    out.write(record);
+                }
+                refs.add(new Ref(segment, offset, record.capacity()));
+            }
+            out.force(false);
+
+            if (out.position() >= properties.getArchive().getSegmentMaxBytes()) {
+                closeSegment();
+            }
+            return refs;
+
+        } catch (IOException e) {
+            // The partly written segment is abandoned; nothing references it yet
+            closeQuietly();
+            throw new UncheckedIOException("Failed to append to body archive", e);
+        }
+    }
+
+    /**
+     * Reads one archived body, checking it belongs to {@code messageId}.
+     */
+    public Body read(UUID messageId, Ref ref) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            ByteBuffer record = ByteBuffer.allocate(ref.length());
+            try (FileChannel in = FileChannel.open(pathFor(ref.segment()), StandardOpenOption.READ)) {
+                while (record.hasRemaining()) {
+                    if (in.read(record, ref.offset() + record.position()) < 0) {
+                        throw new EOFException("Archive segment " + ref.segment() + " ends before offset "
+                                + (ref.offset() + ref.length()));
+                    }
+                }
+            }
+
+            Body body = decompress(record.array());
+            if (!body.messageId().equals(messageId)) {
+                throw new IllegalStateException("Archive record at " + ref.segment() + ":" + ref.offset()
+                        + " belongs to message " + body.messageId() + ", not " + messageId);
+            }
+            return body;
+
+        } catch (IOException e) {
+            outcome = "failure";
+            throw new UncheckedIOException("Failed to read archived body of message " + messageId, e);
+        } catch (RuntimeException e) {
+            outcome = "failure";
+            throw e;
+        } finally {
+            sample.stop(meterRegistry.timer("communications.archive.read", "outcome", outcome));
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        closeQuietly();
+    }
+
+    private FileChannel currentSegment() throws IOException {
+        if (channel == null) {
+            segment = "bodies-" + LocalDateTime.now().format(SEGMENT_TIME) + "-"
+                    + HexFormat.of().toHexDigits(ThreadLocalRandom.current().nextInt()) + ".gz";
+            channel = FileChannel.open(root.resolve(segment), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            log.info("Started archive segment {}", segment);
+        }
+        return channel;
+    }
+
+    private void closeSegment() throws IOException {
+        channel.close();
+        log.info("Closed archive segment {}", segment);
+        channel = null;
+        segment = null;
+    }
+
+    private void closeQuietly() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            closeSegment();
+        } catch (IOException e) {
+            log.warn("Could not close archive segment {}: {}", segment, e.getMessage());
+            channel = null;
+            segment = null;
+        }
+    }
+
+    private Path pathFor(String name) {
+        if (!name.matches(SEGMENT_PATTERN)) {
+            throw new IllegalArgumentException("Not an archive segment name: " + name);
+        }
+        return root.resolve(name);
+    }
+
+    private static byte[] compress(Body body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes))) {
+            out.writeLong(body.messageId().getMostSignificantBits());
+            out.writeLong(body.messageId().getLeastSignificantBits());
+            writeString(out, body.html());
+            writeString(out, body.text());
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Body decompress(byte[] record) throws IOException {
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(record)))) {
+            UUID messageId = new UUID(in.readLong(), in.readLong());
+            return new Body(messageId, readString(in), readString(in));
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_LENGTH);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] utf8 = in.readNBytes(length);
+        if (utf8.length != length) {
+            throw new EOFException("Archive record is truncated");
+        }
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
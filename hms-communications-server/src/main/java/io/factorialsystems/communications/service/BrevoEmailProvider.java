@@ -14,10 +14,15 @@ import sibApi.TransactionalEmailsApi;
 import sibModel.CreateSmtpEmail;
 import sibModel.SendSmtpEmail;
 import sibModel.SendSmtpEmailAttachment;
+import sibModel.SendSmtpEmailMessageVersions;
 import sibModel.SendSmtpEmailSender;
 import sibModel.SendSmtpEmailTo;
+import sibModel.SendSmtpEmailTo1;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -27,18 +32,31 @@ import java.util.Map;
 public class BrevoEmailProvider {
 
     private final CommunicationsProperties properties;
+    private final AttachmentStore attachmentStore;
+    private final ProviderExecutor providerExecutor;
+    private final EmailTemplateRegistry emailTemplateRegistry;
     private TransactionalEmailsApi apiInstance;
 
+    public static final String PROVIDER_NAME = "brevo";
+
     @PostConstruct
     public void init() {
         log.info("Initializing Brevo email provider");
         ApiClient defaultClient = Configuration.getDefaultApiClient();
         defaultClient.setApiKey(properties.getBrevo().getApiKey());
+        defaultClient.setConnectTimeout((int) properties.getProvider().getConnectTimeout().toMillis());
+        defaultClient.setReadTimeout((int) properties.getProvider().getReadTimeout().toMillis());
+        defaultClient.setWriteTimeout((int) properties.getProvider().getWriteTimeout().toMillis());
         this.apiInstance = new TransactionalEmailsApi();
         log.info("Brevo email provider initialized successfully");
     }
 
     public String sendEmail(EmailMessage message) throws MessageSendException {
+        // Members of a bulk send carry per-recipient params; send them as a one-version batch
+        if (message.getBatchId() != null) {
+            return sendBatch(List.of(message)).get(0);
+        }
+
         try {
             SendSmtpEmail email = new SendSmtpEmail();
 
@@ -56,39 +74,160 @@ public class BrevoEmailProvider {
             toList.add(to);
             email.setTo(toList);
 
-            // Set subject and content
+            // Set subject and content; templated messages are rendered only now
+            String htmlContent = message.getHtmlContent();
+            String textContent = message.getTextContent();
+            if (message.getTemplateId() != null) {
+                EmailTemplateRegistry.Compiled template = emailTemplateRegistry.get(message.getTemplateId());
+                htmlContent = template.renderHtml(message.getTemplateParams());
+                textContent = template.renderText(message.getTemplateParams());
+            }
+
             email.setSubject(message.getSubject());
-            if (message.getHtmlContent() != null) {
-                email.setHtmlContent(message.getHtmlContent());
+            if (htmlContent != null) {
+                email.setHtmlContent(htmlContent);
             }
-            if (message.getTextContent() != null) {
-                email.setTextContent(message.getTextContent());
+            if (textContent != null) {
+                email.setTextContent(textContent);
             }
 
-            // Set attachments if any
+            // Set attachments if any; content is only read from the store at this point
             if (message.getAttachments() != null && !message.getAttachments().isEmpty()) {
                 List<SendSmtpEmailAttachment> attachments = new ArrayList<>();
                 for (Map<String, String> attachmentData : message.getAttachments()) {
                     SendSmtpEmailAttachment attachment = new SendSmtpEmailAttachment();
                     attachment.setName(attachmentData.get("filename"));
-                    attachment.setContent(attachmentData.get("content").getBytes());  // Base64 encoded string to bytes
+                    attachment.setContent(attachmentContent(attachmentData));
                     attachments.add(attachment);
                 }
                 email.setAttachment(attachments);
             }
 
             // Send email
-            CreateSmtpEmail response = apiInstance.sendTransacEmail(email);
+            CreateSmtpEmail response = send(email);
 
             log.info("Email sent successfully via Brevo, messageId: {}", response.getMessageId());
             return response.getMessageId();
 
-        } catch (ApiException e) {
-            log.error("Failed to send email via Brevo: {}", e.getMessage(), e);
-            throw new MessageSendException("Failed to send email via Brevo: " + e.getMessage(), e);
+        } catch (MessageSendException e) {
+            log.error("Failed to send email via Brevo: {}", e.getMessage());
+            throw e;
         } catch (Exception e) {
             log.error("Unexpected error sending email: {}", e.getMessage(), e);
             throw new MessageSendException("Unexpected error sending email: " + e.getMessage(), e);
         }
     }
+
+    /**
+     * Raw attachment bytes; the SDK base64-encodes them when serializing the request.
+     * Rows written before the blob store keep the base64 content inline.
+     */
+    private byte[] attachmentContent(Map<String, String> attachmentData) throws IOException {
+        String sha256 = attachmentData.get("sha256");
+        if (sha256 != null) {
+            return attachmentStore.read(sha256);
+        }
+        return Base64.getMimeDecoder().decode(attachmentData.get("content"));
+    }
+
+    /**
+     * Sends messages that share sender, subject and content as message versions of a single
+     * Brevo call, each with its own recipient and params.
+     *
+     * @return the provider message id of each message, in the order given
+     */
+    public List<String> sendBatch(List<EmailMessage> messages) throws MessageSendException {
+        EmailMessage first = messages.get(0);
+
+        try {
+            SendSmtpEmail email = new SendSmtpEmail();
+
+            SendSmtpEmailSender sender = new SendSmtpEmailSender();
+            sender.setEmail(first.getFromEmail());
+            sender.setName(first.getFromName());
+            email.setSender(sender);
+
+            email.setSubject(first.getSubject());
+            if (first.getHtmlContent() != null) {
+                email.setHtmlContent(first.getHtmlContent());
+            }
+            if (first.getTextContent() != null) {
+                email.setTextContent(first.getTextContent());
+            }
+
+            List<SendSmtpEmailMessageVersions> versions = new ArrayList<>(messages.size());
+            for (EmailMessage message : messages) {
+                SendSmtpEmailTo1 to = new SendSmtpEmailTo1();
+                to.setEmail(message.getToEmail());
+                to.setName(message.getToName());
+
+                SendSmtpEmailMessageVersions version = new SendSmtpEmailMessageVersions();
+                version.setTo(List.of(to));
+                if (message.getTemplateParams() != null && !message.getTemplateParams().isEmpty()) {
+                    version.setParams(message.getTemplateParams());
+                }
+                versions.add(version);
+            }
+            email.setMessageVersions(versions);
+
+            CreateSmtpEmail response = send(email);
+
+            // One id per version, in request order
+            List<String> messageIds = response.getMessageIds();
+            if (messageIds == null || messageIds.size() != messages.size()) {
+                messageIds = unmatchedMessageIds(response, messages.size());
+            }
+
+            log.info("Batch of {} email(s) sent via Brevo", messages.size());
+            return messageIds;
+
+        } catch (MessageSendException e) {
+            log.error("Failed to send email batch via Brevo: {}", e.getMessage());
+            throw e;
+        } catch (Exception e) {
+            log.error("Unexpected error sending email batch: {}", e.getMessage(), e);
+            throw new MessageSendException("Unexpected error sending email batch: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Ids for a response without one id per message version. A lone message owns the single
+     * id; for more it is unknown which id belongs to which recipient, so none is stored rather
+     * than one id on several rows. Webhook events for those messages then match no row.
+     */
+    private static List<String> unmatchedMessageIds(CreateSmtpEmail response, int count) {
+        if (count == 1 && response.getMessageId() != null) {
+            return List.of(response.getMessageId());
+        }
+
+        log.warn("Brevo returned {} message id(s) for a batch of {}; the batch is stored without provider ids",
+                response.getMessageIds() != null ? response.getMessageIds().size() : 0, count);
+        return Collections.nCopies(count, null);
+    }
+
+    /**
+     * One Brevo API call, guarded by the provider bulkhead and circuit breaker.
+     */
+    private CreateSmtpEmail send(SendSmtpEmail email) {
+        return providerExecutor.execute(PROVIDER_NAME, () -> {
+            try {
+                return apiInstance.sendTransacEmail(email);
+            } catch (ApiException e) {
+                throw new MessageSendException("Failed to send email via Brevo (" + e.getCode() + "): "
+                        + (e.getResponseBody() != null ? e.getResponseBody() : e.getMessage()), e);
+            }
+        }, BrevoEmailProvider::isProviderFault);
+    }
+
+    /**
+     * Network errors and timeouts (code 0), throttling and 5xx answers say Brevo is unhealthy;
+     * other 4xx answers are problems with the request itself.
+     */
+    private static boolean isProviderFault(Throwable error) {
+        if (!(error.getCause() instanceof ApiException apiException)) {
+            return false;
+        }
+        int code = apiException.getCode();
+        return code == 0 || code == 429 || code >= 500;
+    }
 }
@@ -0,0 +1,126 @@
+package io.factorialsystems.communications.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A template split once into literal text and placeholders. {@code {{name}}} inserts the
+ * variable, HTML-escaped when the template was compiled with {@code escapeHtml};
+ * {@code {{{name}}}} always inserts it as-is. Rendering is a single pass into one
+ * pre-sized {@link StringBuilder}, with no parsing or regex work per message.
+ * <p>
+ * Instances are immutable and safe to share between threads.
+ */
+public final class CompiledTemplate {
+
+    private final String[] literals;
+    private final String[] names;
+    private final boolean[] escaped;
+    private final int literalLength;
+    private final Set<String> variables;
+
+    private CompiledTemplate(List<String> literals, List<String> names, List<Boolean> escaped) {
+        this.literals = literals.toArray(String[]::new);
+        this.names = names.toArray(String[]::new);
+        this.escaped = new boolean[escaped.size()];
+        for (int i = 0; i < escaped.size(); i++) {
+            this.escaped[i] = escaped.get(i);
+        }
+        this.literalLength = literals.stream().mapToInt(String::length).sum();
+        this.variables = Collections.unmodifiableSet(new LinkedHashSet<>(names));
+    }
+
+    public static CompiledTemplate compile(String source, boolean escapeHtml) {
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        List<Boolean> escaped = new ArrayList<>();
+
+        int position = 0;
+        while (true) {
+            int open = source.indexOf("{{", position);
+            if (open < 0) {
+                break;
+            }
+
+            boolean raw = source.startsWith("{{{", open);
+            String closing = raw ? "}}}" : "}}";
+            int nameStart = open + (raw ? 3 : 2);
+            int close = source.indexOf(closing, nameStart);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder at offset " + open);
+            }
+
+            String name = source.substring(nameStart, close).strip();
+            if (name.isEmpty()) {
+                throw new IllegalArgumentException("Empty placeholder at offset " + open);
+            }
+
+            literals.add(source.substring(position, open));
+            names.add(name);
+            escaped.add(escapeHtml && !raw);
+            position = close + closing.length();
+        }
+        literals.add(source.substring(position));
+
+        return new CompiledTemplate(literals, names, escaped);
+    }
+
+    /**
+     * Placeholder names, in order of first use.
+     */
+    public Set<String> variables() {
+        return variables;
+    }
+
+    /**
+     * Renders with {@code values}; a missing variable renders as an empty string.
+     * {@code values} may be null when the template has no placeholders.
+     */
+    public String render(Map<String, ?> values) {
+        if (values == null) {
+            values = Map.of();
+        }
+        StringBuilder out = new StringBuilder(literalLength + names.length * 16);
+
+        for (int i = 0; i < names.length; i++) {
+            out.append(literals[i]);
+
+            Object value = values.get(names[i]);
+            if (value == null) {
+                continue;
+            }
+            String text = value.toString();
+            if (escaped[i]) {
+                appendEscaped(out, text);
+            } else {
+                out.append(text);
+            }
+        }
+        out.append(literals[names.length]);
+
+        return out.toString();
+    }
+
+    private static void appendEscaped(StringBuilder out, String text) {
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            String replacement = switch (text.charAt(i)) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '"' -> "&quot;";
+                case '\'' -> "&#39;";
+                default -> null;
+            };
+            if (replacement != null) {
+                out.append(text, start, i).append(replacement);
+                start = i + 1;
+            }
+        }
+        out.append(text, start, text.length());
+    }
+}
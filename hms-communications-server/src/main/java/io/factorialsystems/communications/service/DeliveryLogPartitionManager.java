@@ -0,0 +1,114 @@
+package io.factorialsystems.communications.service;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Keeps the monthly delivery_logs partitions rolling: partitions for the coming months are
+ * created ahead of time, and partitions older than the retention period are dropped whole.
+ * A transaction-scoped advisory lock makes sure only one instance does this at a time.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DeliveryLogPartitionManager {
+
+    private static final String TABLE = "delivery_logs";
+    private static final DateTimeFormatter SUFFIX_FORMAT = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final long ADVISORY_LOCK_KEY = 0x646c6f6773L;  // "dlogs"
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CommunicationsProperties properties;
+    private final TransactionTemplate transactionTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintainPartitions();
+    }
+
+    @Scheduled(cron = "${hms.communications.delivery-log.maintenance-cron:0 15 3 * * *}")
+    public void maintainPartitions() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> maintain());
+        } catch (DataAccessException e) {
+            log.error("Delivery log partition maintenance failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private void maintain() {
+        Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, ADVISORY_LOCK_KEY);
+        if (!Boolean.TRUE.equals(locked)) {
+            log.debug("Partition maintenance already running on another instance");
+            return;
+        }
+
+        CommunicationsProperties.DeliveryLog config = properties.getDeliveryLog();
+        YearMonth current = YearMonth.now();
+
+        for (int i = 0; i <= config.getPartitionsAhead(); i++) {
+            createPartition(current.plusMonths(i));
+        }
+
+        YearMonth oldestKept = current.minusMonths(config.getRetentionMonths());
+        for (String partition : existingPartitions()) {
+            YearMonth month = monthOf(partition);
+            if (month != null && month.isBefore(oldestKept)) {
+                dropPartition(partition);
+            }
+        }
+    }
+
+    private void createPartition(YearMonth month) {
+        String name = partitionName(month);
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF " + TABLE +
+                " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+        log.debug("Ensured partition {} [{}, {})", name, from, to);
+    }
+
+    private void dropPartition(String name) {
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + name);
+        jdbcTemplate.execute("DROP TABLE " + name);
+        log.info("Dropped expired delivery log partition {}", name);
+    }
+
+    private List<String> existingPartitions() {
+        return jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid " +
+                "JOIN pg_class p ON p.oid = i.inhparent " +
+                "WHERE p.relname = ?", String.class, TABLE);
+    }
+
+    private static String partitionName(YearMonth month) {
+        return TABLE + "_" + month.format(SUFFIX_FORMAT);
+    }
+
+    /**
+     * Month a partition covers, or {@code null} for partitions that do not follow the monthly
+     * naming scheme (such as the default partition), which are never dropped.
+     */
+    private static YearMonth monthOf(String partition) {
+        String suffix = partition.substring(TABLE.length() + 1);
+        try {
+            return YearMonth.parse(suffix, SUFFIX_FORMAT);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
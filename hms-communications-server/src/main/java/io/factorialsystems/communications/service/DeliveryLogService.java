@@ -1,14 +1,22 @@
 package io.factorialsystems.communications.service;
 
+import io.factorialsystems.communications.mapper.DeliveryLogMapper;
+import io.factorialsystems.communications.model.dto.request.PageCursor;
+import io.factorialsystems.communications.model.dto.response.CursorPage;
+import io.factorialsystems.communications.model.dto.response.DeliveryLogResponse;
 import io.factorialsystems.communications.model.entity.DeliveryLog;
 import io.factorialsystems.communications.model.enums.MessageType;
 import io.factorialsystems.communications.repository.DeliveryLogRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -20,6 +28,34 @@ public class DeliveryLogService {
 
     private final DeliveryLogRepository deliveryLogRepository;
 
+    private final DeliveryLogMapper deliveryLogMapper;
+
+    /**
+     * Keyset-paginated events for a tenant within [from, to]; the range also limits which
+     * monthly partitions are scanned.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<DeliveryLogResponse> scrollLogs(UUID tenantId, MessageType messageType, String eventType,
+                                                      LocalDateTime from, LocalDateTime to, String cursor, int limit) {
+        ScrollPosition position = PageCursor.positionAfter(cursor, "occurredAt");
+        Limit pageSize = CursorPage.limit(limit);
+
+        Window<DeliveryLog> window;
+        if (eventType != null) {
+            window = deliveryLogRepository.findByTenantIdAndEventTypeAndOccurredAtBetweenOrderByOccurredAtDescIdDesc(
+                    tenantId, eventType, from, to, position, pageSize);
+        } else if (messageType != null) {
+            window = deliveryLogRepository.findByTenantIdAndMessageTypeAndOccurredAtBetweenOrderByOccurredAtDescIdDesc(
+                    tenantId, messageType, from, to, position, pageSize);
+        } else {
+            window = deliveryLogRepository.findByTenantIdAndOccurredAtBetweenOrderByOccurredAtDescIdDesc(
+                    tenantId, from, to, position, pageSize);
+        }
+
+        return CursorPage.of(window, deliveryLogMapper::toResponse,
+                deliveryLog -> new PageCursor(deliveryLog.getOccurredAt(), deliveryLog.getId()));
+    }
+
     public void logEvent(UUID messageId, MessageType messageType, UUID tenantId,
                         String eventType, String providerName,
                         Map<String, Object> eventData, Map<String, Object> providerResponse) {
@@ -45,6 +81,30 @@ public class DeliveryLogService {
                 Map.of("providerId", providerId), providerResponse);
     }
 
+    /**
+     * Records a "sent" event for every message of a bulk send chunk in one batched insert.
+     */
+    public void logEmailsSent(UUID tenantId, Map<UUID, String> providerIds, Map<String, Object> providerResponse) {
+        LocalDateTime now = LocalDateTime.now();
+
+        List<DeliveryLog> logs = providerIds.entrySet().stream()
+                .map(entry -> DeliveryLog.builder()
+                        .messageId(entry.getKey())
+                        .messageType(MessageType.EMAIL)
+                        .tenantId(tenantId)
+                        .eventType("sent")
+                        .eventData(entry.getValue() != null ? Map.of("providerId", entry.getValue()) : Map.of())
+                        .providerName("brevo")
+                        .providerResponse(providerResponse)
+                        .occurredAt(now)
+                        .build())
+                .toList();
+
+        deliveryLogRepository.saveAll(logs);
+
+        log.debug("Delivery event logged: sent for {} message(s)", logs.size());
+    }
+
     public void logEmailDelivered(UUID messageId, UUID tenantId, Map<String, Object> eventData) {
         logEvent(messageId, MessageType.EMAIL, tenantId, "delivered", "brevo", eventData, null);
     }
@@ -61,8 +121,9 @@ public class DeliveryLogService {
         logEvent(messageId, MessageType.EMAIL, tenantId, "clicked", "brevo", eventData, null);
     }
 
-    public void logSmsSent(UUID messageId, UUID tenantId, String providerId, Map<String, Object> providerResponse) {
-        logEvent(messageId, MessageType.SMS, tenantId, "sent", "twilio",
+    public void logSmsSent(UUID messageId, UUID tenantId, String providerName, String providerId,
+                           Map<String, Object> providerResponse) {
+        logEvent(messageId, MessageType.SMS, tenantId, "sent", providerName,
                 Map.of("providerId", providerId), providerResponse);
     }
 
@@ -70,7 +131,7 @@ public class DeliveryLogService {
         logEvent(messageId, MessageType.SMS, tenantId, "delivered", "twilio", eventData, null);
     }
 
-    public void logSmsFailed(UUID messageId, UUID tenantId, Map<String, Object> eventData) {
-        logEvent(messageId, MessageType.SMS, tenantId, "failed", "twilio", eventData, null);
+    public void logSmsFailed(UUID messageId, UUID tenantId, String providerName, Map<String, Object> eventData) {
+        logEvent(messageId, MessageType.SMS, tenantId, "failed", providerName, eventData, null);
     }
 }
@@ -0,0 +1,85 @@
+package io.factorialsystems.communications.service;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.exception.BusinessException;
+import io.factorialsystems.communications.model.dto.request.EmailAttachmentRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves attachment content of an accepted email into the {@link AttachmentStore}. Base64
+ * content is decoded and uploaded parts are copied as streams, so heap use does not grow with
+ * attachment size.
+ */
+@Service
+@RequiredArgsConstructor
+public class EmailAttachmentService {
+
+    private final AttachmentStore attachmentStore;
+    private final CommunicationsProperties properties;
+
+    /**
+     * Validates count and sizes, then stores each attachment and returns the references kept
+     * on the message row ({@code filename}, {@code contentType}, {@code sha256}, {@code size}),
+     * or null when there are none.
+     */
+    public List<Map<String, String>> store(List<EmailAttachmentRequest> inline, List<MultipartFile> uploads) {
+        List<EmailAttachmentRequest> encoded = inline != null ? inline : List.of();
+        if (encoded.isEmpty() && uploads.isEmpty()) {
+            return null;
+        }
+
+        // Check count and declared sizes before any content is copied
+        CommunicationsProperties.Message limits = properties.getMessage();
+        if (encoded.size() + uploads.size() > limits.getMaxAttachmentsPerEmail()) {
+            throw new BusinessException("An email may have at most " + limits.getMaxAttachmentsPerEmail() + " attachments");
+        }
+        long maxBytes = limits.getMaxAttachmentSizeMb() * 1024L * 1024L;
+        for (MultipartFile upload : uploads) {
+            if (upload.getSize() > maxBytes) {
+                throw new BusinessException("Attachment " + upload.getOriginalFilename()
+                        + " exceeds the maximum size of " + limits.getMaxAttachmentSizeMb() + " MB");
+            }
+        }
+
+        List<Map<String, String>> references = new ArrayList<>(encoded.size() + uploads.size());
+        for (EmailAttachmentRequest attachment : encoded) {
+            InputStream content = Base64.getMimeDecoder().wrap(
+                    new ByteArrayInputStream(attachment.getContent().getBytes(StandardCharsets.US_ASCII)));
+            references.add(attachmentReference(attachment.getFilename(), attachment.getContentType(),
+                    attachmentStore.store(content, maxBytes)));
+        }
+        for (MultipartFile upload : uploads) {
+            try (InputStream content = upload.getInputStream()) {
+                String contentType = upload.getContentType() != null
+                        ? upload.getContentType()
+                        : MediaType.APPLICATION_OCTET_STREAM_VALUE;
+                references.add(attachmentReference(upload.getOriginalFilename(), contentType,
+                        attachmentStore.store(content, maxBytes)));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read uploaded attachment", e);
+            }
+        }
+        return references;
+    }
+
+    private Map<String, String> attachmentReference(String filename, String contentType, AttachmentStore.StoredBlob blob) {
+        return Map.of(
+                "filename", filename != null ? filename : blob.sha256(),
+                "contentType", contentType,
+                "sha256", blob.sha256(),
+                "size", Long.toString(blob.size()));
+    }
+}
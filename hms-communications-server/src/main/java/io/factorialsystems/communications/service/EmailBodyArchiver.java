@@ -0,0 +1,191 @@
+package io.factorialsystems.communications.service;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.model.entity.EmailMessage;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Moves the bodies of finished emails older than {@code archive.age} out of
+ * {@code email_messages} into {@link BodyArchive} segments. Each batch is one transaction:
+ * the bodies are appended and forced to disk, then the rows get their segment reference and
+ * lose {@code html_content}/{@code text_content}. A transaction-scoped advisory lock keeps
+ * instances from archiving at the same time.
+ * <p>
+ * Reads go through {@link #bodyOf}; a failed message that is retried gets its body back in
+ * the row through {@link #restore}, since the dispatcher only sends from the row.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EmailBodyArchiver {
+
+    private static final long ADVISORY_LOCK_KEY = 0x61726368L;  // "arch"
+
+    private static final String SELECT_SQL =
+            "SELECT id, version, created_at, html_content, text_content, " +
+            "COALESCE(pg_column_size(html_content), 0) + COALESCE(pg_column_size(text_content), 0) AS stored_bytes " +
+            "FROM email_messages " +
+            "WHERE (html_content IS NOT NULL OR text_content IS NOT NULL) " +
+            "AND created_at < ? AND (created_at, id) > (?, ?) " +
+            "AND status IN ('SENT', 'DELIVERED', 'FAILED', 'BOUNCED', 'OPENED', 'CLICKED') " +
+            "ORDER BY created_at, id LIMIT ?";
+
+    private static final String ARCHIVE_SQL =
+            "UPDATE email_messages SET html_content = NULL, text_content = NULL, " +
+            "archive_segment = ?, archive_offset = ?, archive_length = ?, version = version + 1 " +
+            "WHERE id = ? AND version = ?";
+
+    private static final LocalDateTime START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final BodyArchive bodyArchive;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CommunicationsProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    private record Candidate(UUID id, long version, LocalDateTime createdAt, String html, String text, long storedBytes) {
+    }
+
+    private record BatchResult(int selected, int archived, long reclaimedBytes, long writtenBytes,
+                               LocalDateTime lastCreatedAt, UUID lastId) {
+    }
+
+    @Scheduled(cron = "${hms.communications.archive.cron:0 45 2 * * *}")
+    public void archive() {
+        CommunicationsProperties.Archive config = properties.getArchive();
+        if (!config.getEnabled()) {
+            return;
+        }
+
+        LocalDateTime cutoff = LocalDateTime.now().minus(config.getAge());
+        LocalDateTime afterCreatedAt = START;
+        UUID afterId = new UUID(0, 0);
+        long archived = 0;
+        long reclaimed = 0;
+        long written = 0;
+
+        try {
+            while (true) {
+                LocalDateTime fromCreatedAt = afterCreatedAt;
+                UUID fromId = afterId;
+                BatchResult batch = transactionTemplate.execute(status -> archiveBatch(cutoff, fromCreatedAt, fromId));
+
+                if (batch == null) {
+                    log.debug("Body archiving already running on another instance");
+                    return;
+                }
+                archived += batch.archived();
+                reclaimed += batch.reclaimedBytes();
+                written += batch.writtenBytes();
+
+                if (batch.selected() < config.getBatchSize()) {
+                    break;
+                }
+                afterCreatedAt = batch.lastCreatedAt();
+                afterId = batch.lastId();
+            }
+        } catch (Exception e) {
+            log.error("Email body archiving stopped after {} message(s): {}", archived, e.getMessage(), e);
+        }
+
+        if (archived > 0) {
+            log.info("Archived the bodies of {} email(s) older than {}: {} bytes reclaimed in the table, {} bytes written to segments",
+                    archived, cutoff, reclaimed, written);
+        }
+    }
+
+    /**
+     * The message's body, read from its archive segment when it has been archived.
+     */
+    public BodyArchive.Body bodyOf(EmailMessage message) {
+        if (message.getArchiveSegment() == null) {
+            return new BodyArchive.Body(message.getId(), message.getHtmlContent(), message.getTextContent());
+        }
+        return bodyArchive.read(message.getId(), new BodyArchive.Ref(
+                message.getArchiveSegment(), message.getArchiveOffset(), message.getArchiveLength()));
+    }
+
+    /**
+     * Puts an archived body back into the managed entity so it can be sent again. The
+     * segment record stays where it is; segments are never rewritten.
+     */
+    public void restore(EmailMessage message) {
+        if (message.getArchiveSegment() == null) {
+            return;
+        }
+        BodyArchive.Body body = bodyOf(message);
+        message.setHtmlContent(body.html());
+        message.setTextContent(body.text());
+        message.setArchiveSegment(null);
+        message.setArchiveOffset(null);
+        message.setArchiveLength(null);
+    }
+
+    /**
+     * Archives one batch; returns null if another instance holds the archive lock.
+     */
+    private BatchResult archiveBatch(LocalDateTime cutoff, LocalDateTime afterCreatedAt, UUID afterId) {
+        Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, ADVISORY_LOCK_KEY);
+        if (!Boolean.TRUE.equals(locked)) {
+            return null;
+        }
+
+        List<Candidate> candidates = jdbcTemplate.query(SELECT_SQL, (rs, rowNum) -> new Candidate(
+                        rs.getObject("id", UUID.class),
+                        rs.getLong("version"),
+                        rs.getTimestamp("created_at").toLocalDateTime(),
+                        rs.getString("html_content"),
+                        rs.getString("text_content"),
+                        rs.getLong("stored_bytes")),
+                Timestamp.valueOf(cutoff), Timestamp.valueOf(afterCreatedAt), afterId,
+                properties.getArchive().getBatchSize());
+        if (candidates.isEmpty()) {
+            return new BatchResult(0, 0, 0, 0, afterCreatedAt, afterId);
+        }
+
+        List<BodyArchive.Body> bodies = new ArrayList<>(candidates.size());
+        for (Candidate candidate : candidates) {
+            bodies.add(new BodyArchive.Body(candidate.id(), candidate.html(), candidate.text()));
+        }
+        List<BodyArchive.Ref> refs = bodyArchive.append(bodies);
+
+        List<Object[]> updates = new ArrayList<>(candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+            BodyArchive.Ref ref = refs.get(i);
+            Candidate candidate = candidates.get(i);
+            updates.add(new Object[]{ref.segment(), ref.offset(), ref.length(), candidate.id(), candidate.version()});
+        }
+        int[] counts = jdbcTemplate.batchUpdate(ARCHIVE_SQL, updates);
+
+        // A row whose version moved on since it was read keeps its body; the next run retries it
+        int archived = 0;
+        long reclaimedBytes = 0;
+        long writtenBytes = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 1) {
+                archived++;
+                reclaimedBytes += candidates.get(i).storedBytes();
+                writtenBytes += refs.get(i).length();
+            }
+        }
+
+        meterRegistry.counter("communications.archive.messages").increment(archived);
+        meterRegistry.counter("communications.archive.bytes", "kind", "reclaimed").increment(reclaimedBytes);
+        meterRegistry.counter("communications.archive.bytes", "kind", "written").increment(writtenBytes);
+
+        Candidate last = candidates.get(candidates.size() - 1);
+        return new BatchResult(candidates.size(), archived, reclaimedBytes, writtenBytes, last.createdAt(), last.id());
+    }
+}
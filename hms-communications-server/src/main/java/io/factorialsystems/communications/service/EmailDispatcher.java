@@ -0,0 +1,135 @@
+package io.factorialsystems.communications.service;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.exception.MessageSendException;
+import io.factorialsystems.communications.exception.ProviderUnavailableException;
+import io.factorialsystems.communications.model.entity.EmailMessage;
+import io.factorialsystems.communications.model.entity.EmailOutbox;
+import io.factorialsystems.communications.model.enums.MessageStatus;
+import io.factorialsystems.communications.repository.EmailMessageRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Drains the email outbox. {@link FairShareScheduler} picks which tenants' entries are claimed
+ * each round; claiming and recording results are short transactions in
+ * {@link EmailOutboxService}, and the Brevo call itself runs on the dispatch pool with no
+ * transaction or pooled connection held.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EmailDispatcher {
+
+    private final EmailOutboxService outboxService;
+    private final EmailMessageRepository emailMessageRepository;
+    private final BrevoEmailProvider brevoProvider;
+    private final ProviderExecutor providerExecutor;
+    private final FairShareScheduler fairShareScheduler;
+    private final CommunicationsProperties properties;
+
+    @Qualifier("emailDispatchExecutor")
+    private final AsyncTaskExecutor emailDispatchExecutor;
+
+    @Scheduled(fixedDelayString = "${hms.communications.outbox.poll-interval-ms:500}")
+    public void dispatchDue() {
+        // Leave entries unclaimed while Brevo is failing; the breaker half-opens on its own
+        if (providerExecutor.isOpen(BrevoEmailProvider.PROVIDER_NAME)) {
+            return;
+        }
+
+        int batchSize = properties.getOutbox().getBatchSize();
+        List<EmailOutbox> claimed;
+
+        // Keep draining while full batches come back, then wait for the next poll
+        do {
+            claimed = fairShareScheduler.claimRound(batchSize);
+            if (claimed.isEmpty()) {
+                return;
+            }
+
+            CompletableFuture.allOf(claimed.stream()
+                    .map(entry -> CompletableFuture.runAsync(() -> dispatch(entry), emailDispatchExecutor))
+                    .toArray(CompletableFuture[]::new))
+                    .join();
+
+            log.debug("Dispatched {} outbox entr(ies)", claimed.size());
+        } while (claimed.size() == batchSize);
+    }
+
+    private void dispatch(EmailOutbox entry) {
+        fairShareScheduler.recordWait(entry);
+
+        if (entry.getBatchId() != null) {
+            dispatchBatch(entry);
+            return;
+        }
+
+        try {
+            Optional<EmailMessage> message = emailMessageRepository.findById(entry.getMessageId());
+            if (message.isEmpty() || message.get().getStatus() != MessageStatus.PENDING) {
+                outboxService.discard(entry);
+                return;
+            }
+
+            String providerId = brevoProvider.sendEmail(message.get());
+            outboxService.recordSent(entry, providerId);
+
+            log.info("Email {} sent for tenant {}", entry.getMessageId(), entry.getTenantId());
+
+        } catch (ProviderUnavailableException e) {
+            outboxService.defer(entry, e.getRetryAfter(), e.getMessage());
+        } catch (MessageSendException e) {
+            outboxService.recordFailure(entry, e.getMessage());
+        } catch (Exception e) {
+            // Leave the entry leased; it is retried once the lease expires
+            log.error("Unexpected error dispatching email {}: {}", entry.getMessageId(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Sends the next provider-sized chunk of a bulk send's still-pending messages and, if more
+     * remain, requeues the entry so the following chunk competes with other tenants' work.
+     * Each chunk is recorded as soon as it is accepted, so a failure only retries the rest.
+     */
+    private void dispatchBatch(EmailOutbox entry) {
+        try {
+            int chunkSize = properties.getBatch().getChunkSize();
+            List<EmailMessage> pending = emailMessageRepository.findByBatchIdAndStatusOrderByIdAsc(
+                    entry.getBatchId(), MessageStatus.PENDING, Limit.of(chunkSize + 1));
+
+            List<EmailMessage> chunk = pending.subList(0, Math.min(chunkSize, pending.size()));
+            if (!chunk.isEmpty()) {
+                List<String> providerIds = brevoProvider.sendBatch(chunk);
+                outboxService.recordBatchChunkSent(entry, chunk, providerIds);
+            }
+
+            if (pending.size() > chunkSize) {
+                outboxService.requeue(entry);
+                log.debug("Batch {} chunk of {} sent, more pending", entry.getBatchId(), chunk.size());
+                return;
+            }
+
+            outboxService.discard(entry);
+
+            log.info("Batch {} completed for tenant {}", entry.getBatchId(), entry.getTenantId());
+
+        } catch (ProviderUnavailableException e) {
+            // Chunks sent so far are recorded; the rest goes out once the provider recovers
+            outboxService.defer(entry, e.getRetryAfter(), e.getMessage());
+        } catch (MessageSendException e) {
+            outboxService.recordFailure(entry, e.getMessage());
+        } catch (Exception e) {
+            log.error("Unexpected error dispatching batch {}: {}", entry.getBatchId(), e.getMessage(), e);
+        }
+    }
+}
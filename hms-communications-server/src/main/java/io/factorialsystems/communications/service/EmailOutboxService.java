@@ -0,0 +1,233 @@
+package io.factorialsystems.communications.service;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.model.entity.EmailMessage;
+import io.factorialsystems.communications.model.entity.EmailOutbox;
+import io.factorialsystems.communications.model.enums.MessageStatus;
+import io.factorialsystems.communications.model.enums.MessageType;
+import io.factorialsystems.communications.repository.EmailMessageRepository;
+import io.factorialsystems.communications.repository.EmailOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Short transactions around the email outbox. Nothing in here talks to the provider;
+ * {@link EmailDispatcher} calls Brevo between {@link #claimDue} and the record methods.
+ */
+@Slf4j
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class EmailOutboxService {
+
+    private final EmailOutboxRepository outboxRepository;
+    private final EmailMessageRepository emailMessageRepository;
+    private final DeliveryLogService deliveryLogService;
+    private final RateLimitService rateLimitService;
+    private final PipelineMetrics pipelineMetrics;
+    private final MessageStatsService messageStatsService;
+    private final CommunicationsProperties properties;
+
+    /**
+     * Adds an outbox entry for a freshly persisted message. Must run in the caller's
+     * transaction so the entry commits together with the message row.
+     */
+    public void enqueue(EmailMessage message) {
+        outboxRepository.save(EmailOutbox.builder()
+                .messageId(message.getId())
+                .tenantId(message.getTenantId())
+                .quotaDay(message.getQuotaDay())
+                .availableAt(LocalDateTime.now())
+                .build());
+    }
+
+    /**
+     * Moves scheduled messages that have fallen due to PENDING and queues them for the
+     * dispatcher. Messages no longer SCHEDULED are skipped, so an id claimed twice from the
+     * scheduler index is still sent once.
+     *
+     * @return the number of messages released
+     */
+    public int releaseScheduled(List<UUID> messageIds) {
+        List<EmailMessage> due = emailMessageRepository.findByIdInAndStatus(messageIds, MessageStatus.SCHEDULED);
+        for (EmailMessage message : due) {
+            message.setStatus(MessageStatus.PENDING);
+            enqueue(message);
+            messageStatsService.record(MessageType.EMAIL, message.getTenantId(), MessageStatus.PENDING, 1);
+        }
+        return due.size();
+    }
+
+    /**
+     * Adds a single outbox entry covering every pending message of a bulk send.
+     */
+    public void enqueueBatch(UUID batchId, UUID tenantId, LocalDate quotaDay) {
+        outboxRepository.save(EmailOutbox.builder()
+                .batchId(batchId)
+                .tenantId(tenantId)
+                .quotaDay(quotaDay)
+                .availableAt(LocalDateTime.now())
+                .build());
+    }
+
+    /**
+     * Due entries per tenant, for the fair-share scheduler.
+     */
+    @Transactional(readOnly = true)
+    public Map<UUID, Long> countDueByTenant() {
+        Map<UUID, Long> depths = new LinkedHashMap<>();
+        for (EmailOutboxRepository.TenantDepth row : outboxRepository.countDueByTenant(LocalDateTime.now())) {
+            depths.put(row.getTenantId(), row.getDepth());
+        }
+        return depths;
+    }
+
+    /**
+     * Claims up to {@code limit} of a tenant's due entries by pushing their availability out by
+     * the lease, so a crashed dispatcher's work is picked up again once the lease runs out.
+     */
+    public List<EmailOutbox> claimDue(UUID tenantId, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leaseUntil = now.plusSeconds(properties.getOutbox().getLeaseSeconds());
+
+        List<EmailOutbox> due = outboxRepository.findDueForUpdate(tenantId, now, limit);
+        for (EmailOutbox entry : due) {
+            entry.setAttempts(entry.getAttempts() + 1);
+            entry.setAvailableAt(leaseUntil);
+        }
+
+        return due;
+    }
+
+    public void recordSent(EmailOutbox entry, String providerId) {
+        int updated = emailMessageRepository.markSent(entry.getMessageId(), providerId, LocalDateTime.now());
+        outboxRepository.deleteEntry(entry.getId());
+
+        if (updated == 1) {
+            deliveryLogService.logEmailSent(entry.getMessageId(), entry.getTenantId(), providerId,
+                    Map.of("messageId", providerId, "attempt", entry.getAttempts()));
+            pipelineMetrics.recordCompleted(PipelineMetrics.EMAIL, entry.getTenantId(), entry.getCreatedAt(), "sent", 1);
+            messageStatsService.record(MessageType.EMAIL, entry.getTenantId(), MessageStatus.SENT, 1);
+        } else {
+            log.warn("Email {} was no longer pending when its send completed", entry.getMessageId());
+        }
+    }
+
+    /**
+     * Records one sent chunk of a bulk send. The outbox entry stays in place until every
+     * chunk is through, so a retry only picks up the messages that are still pending.
+     */
+    public void recordBatchChunkSent(EmailOutbox entry, List<EmailMessage> chunk, List<String> providerIds) {
+        List<UUID> ids = chunk.stream().map(EmailMessage::getId).toList();
+        Set<UUID> updated = new HashSet<>(emailMessageRepository.markAllSent(ids, providerIds, LocalDateTime.now()));
+
+        Map<UUID, String> sent = new LinkedHashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (updated.contains(ids.get(i))) {
+                sent.put(ids.get(i), providerIds.get(i));
+            }
+        }
+        deliveryLogService.logEmailsSent(entry.getTenantId(), sent,
+                Map.of("batchId", entry.getBatchId(), "attempt", entry.getAttempts()));
+        pipelineMetrics.recordCompleted(PipelineMetrics.EMAIL, entry.getTenantId(), entry.getCreatedAt(), "sent", sent.size());
+        messageStatsService.record(MessageType.EMAIL, entry.getTenantId(), MessageStatus.SENT, sent.size());
+
+        if (sent.size() < ids.size()) {
+            log.warn("{} message(s) of batch {} were no longer pending when their send completed",
+                    ids.size() - sent.size(), entry.getBatchId());
+        }
+    }
+
+    /**
+     * Makes a partly sent bulk send due again straight away, so its next chunk is scheduled
+     * against other tenants' work instead of holding a dispatcher thread.
+     */
+    public void requeue(EmailOutbox entry) {
+        outboxRepository.defer(entry.getId(), LocalDateTime.now(), null);
+    }
+
+    /**
+     * Puts the entry back for {@code retryAfter} without counting the attempt; used when the
+     * provider refused the call up front (open circuit breaker, full bulkhead).
+     */
+    public void defer(EmailOutbox entry, Duration retryAfter, String reason) {
+        outboxRepository.defer(entry.getId(), LocalDateTime.now().plus(retryAfter), reason);
+
+        log.debug("Outbox entry {} deferred for {}: {}", entry.getId(), retryAfter, reason);
+    }
+
+    /**
+     * Backs the entry off exponentially, or fails the message and gives its quota back once
+     * the configured number of attempts is used up.
+     */
+    public void recordFailure(EmailOutbox entry, String error) {
+        if (entry.getBatchId() != null) {
+            recordBatchFailure(entry, error);
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        int maxAttempts = properties.getMessage().getMaxRetryAttempts();
+
+        if (entry.getAttempts() >= maxAttempts) {
+            int failed = emailMessageRepository.markFailed(entry.getMessageId(), error, now);
+            outboxRepository.deleteEntry(entry.getId());
+            rateLimitService.releaseEmail(entry.getTenantId(), 1, entry.getQuotaDay());
+            pipelineMetrics.recordCompleted(PipelineMetrics.EMAIL, entry.getTenantId(), entry.getCreatedAt(), "failed", 1);
+            messageStatsService.record(MessageType.EMAIL, entry.getTenantId(), MessageStatus.FAILED, failed);
+
+            log.error("Email {} failed after {} attempt(s): {}", entry.getMessageId(), entry.getAttempts(), error);
+            return;
+        }
+
+        long backoffSeconds = properties.getOutbox().getRetryBackoffSeconds() * (1L << (entry.getAttempts() - 1));
+        outboxRepository.reschedule(entry.getId(), now.plusSeconds(backoffSeconds), error);
+        emailMessageRepository.recordRetry(entry.getMessageId(), error, now);
+
+        log.warn("Email {} attempt {} failed, retrying in {}s: {}",
+                entry.getMessageId(), entry.getAttempts(), backoffSeconds, error);
+    }
+
+    private void recordBatchFailure(EmailOutbox entry, String error) {
+        LocalDateTime now = LocalDateTime.now();
+        int maxAttempts = properties.getMessage().getMaxRetryAttempts();
+
+        if (entry.getAttempts() >= maxAttempts) {
+            int failed = emailMessageRepository.markBatchFailed(entry.getBatchId(), error, now);
+            outboxRepository.deleteEntry(entry.getId());
+            rateLimitService.releaseEmail(entry.getTenantId(), failed, entry.getQuotaDay());
+            pipelineMetrics.recordCompleted(PipelineMetrics.EMAIL, entry.getTenantId(), entry.getCreatedAt(), "failed", failed);
+            messageStatsService.record(MessageType.EMAIL, entry.getTenantId(), MessageStatus.FAILED, failed);
+
+            log.error("Batch {} failed after {} attempt(s), {} message(s) not sent: {}",
+                    entry.getBatchId(), entry.getAttempts(), failed, error);
+            return;
+        }
+
+        long backoffSeconds = properties.getOutbox().getRetryBackoffSeconds() * (1L << (entry.getAttempts() - 1));
+        outboxRepository.reschedule(entry.getId(), now.plusSeconds(backoffSeconds), error);
+        emailMessageRepository.recordBatchRetry(entry.getBatchId(), error, now);
+
+        log.warn("Batch {} attempt {} failed, retrying in {}s: {}",
+                entry.getBatchId(), entry.getAttempts(), backoffSeconds, error);
+    }
+
+    /**
+     * Drops an entry whose message no longer needs sending (e.g. deleted or already final).
+     */
+    public void discard(EmailOutbox entry) {
+        outboxRepository.deleteEntry(entry.getId());
+    }
+}
@@ -1,27 +1,44 @@
 package io.factorialsystems.communications.service;
 
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.exception.BusinessException;
+import io.factorialsystems.communications.exception.DuplicateRequestException;
 import io.factorialsystems.communications.exception.MessageSendException;
 import io.factorialsystems.communications.exception.RateLimitExceededException;
+import io.factorialsystems.communications.exception.RequestInProgressException;
 import io.factorialsystems.communications.exception.ResourceNotFoundException;
 import io.factorialsystems.communications.mapper.EmailMessageMapper;
+import io.factorialsystems.communications.model.dto.request.BatchEmailRecipient;
+import io.factorialsystems.communications.model.dto.request.PageCursor;
+import io.factorialsystems.communications.model.dto.request.SendBatchEmailRequest;
 import io.factorialsystems.communications.model.dto.request.SendEmailRequest;
+import io.factorialsystems.communications.model.dto.response.BatchEmailResponse;
+import io.factorialsystems.communications.model.dto.response.CursorPage;
 import io.factorialsystems.communications.model.dto.response.EmailMessageResponse;
+import io.factorialsystems.communications.model.dto.response.EmailMessageSummary;
 import io.factorialsystems.communications.model.entity.EmailMessage;
 import io.factorialsystems.communications.model.entity.TenantSettings;
 import io.factorialsystems.communications.model.enums.MessageStatus;
+import io.factorialsystems.communications.model.enums.MessageType;
 import io.factorialsystems.communications.repository.EmailMessageRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 @Slf4j
 @Service
@@ -30,20 +47,69 @@ import java.util.stream.Collectors;
 public class EmailService {
 
     private final EmailMessageRepository emailMessageRepository;
-    private final BrevoEmailProvider brevoProvider;
+    private final EmailOutboxService emailOutboxService;
     private final RateLimitService rateLimitService;
+    private final IdempotencyService idempotencyService;
+    private final EmailAttachmentService emailAttachmentService;
     private final TenantSettingsService tenantSettingsService;
-    private final DeliveryLogService deliveryLogService;
+    private final EmailTemplateRegistry emailTemplateRegistry;
+    private final ScheduledMessageIndex scheduledMessageIndex;
+    private final EmailBodyArchiver emailBodyArchiver;
+    private final MessageStatsService messageStatsService;
+    private final PipelineMetrics pipelineMetrics;
     private final EmailMessageMapper emailMessageMapper;
+    private final CommunicationsProperties properties;
 
     public EmailMessageResponse sendEmail(UUID tenantId, SendEmailRequest request) {
-        // Check rate limit
-        if (!rateLimitService.checkEmailLimit(tenantId)) {
+        return sendEmail(tenantId, request, List.of());
+    }
+
+    /**
+     * Accepts an email whose attachments arrive as uploaded parts instead of base64 in the
+     * request. Parts are streamed into the attachment store, so heap use does not grow with
+     * attachment size.
+     */
+    public EmailMessageResponse sendEmail(UUID tenantId, SendEmailRequest request, List<MultipartFile> uploads) {
+        // A template supplies subject and content; the body is rendered at send time
+        EmailTemplateRegistry.Compiled template = null;
+        String subject = request.getSubject();
+        if (request.getTemplateKey() != null) {
+            template = emailTemplateRegistry.resolve(request.getTemplateKey(), request.getTemplateVersion());
+            template.checkVariables(request.getVariables());
+            subject = template.subject().render(request.getVariables());
+        } else if (request.getHtmlContent() == null && request.getTextContent() == null) {
+            throw new MessageSendException("Either htmlContent or textContent must be provided");
+        }
+
+        if (subject == null || subject.isBlank()) {
+            throw new MessageSendException("Subject is required");
+        }
+        if (subject.length() > 500) {
+            throw new MessageSendException("Subject must not exceed 500 characters");
+        }
+
+        LocalDateTime scheduledAt = scheduledMessageIndex.dueTime(request.getSendAt());
+
+        // A repeated idempotency key gets the original message back without a second send
+        String idempotencyKey = request.getIdempotencyKey();
+        if (idempotencyKey != null && !pipelineMetrics.time(PipelineMetrics.EMAIL, "idempotency",
+                () -> idempotencyService.claim(IdempotencyService.EMAIL, tenantId, idempotencyKey))) {
+            return emailMessageRepository.findByTenantIdAndIdempotencyScopeAndIdempotencyKey(
+                            tenantId, IdempotencyService.EMAIL, idempotencyKey)
+                    .map(emailMessageMapper::toResponse)
+                    .orElseThrow(() -> new RequestInProgressException(
+                            "A request with this idempotency key is still being processed"));
+        }
+
+        // Reserve quota (released again, to the same day, if delivery ultimately fails)
+        LocalDate quotaDay = LocalDate.now();
+        if (!pipelineMetrics.time(PipelineMetrics.EMAIL, "rate_limit", () -> rateLimitService.reserveEmail(tenantId, 1, quotaDay))) {
             throw new RateLimitExceededException("Daily email limit exceeded for tenant");
         }
 
         // Get tenant settings for defaults
-        TenantSettings settings = tenantSettingsService.getOrCreateSettings(tenantId);
+        TenantSettings settings = pipelineMetrics.time(PipelineMetrics.EMAIL, "settings",
+                () -> tenantSettingsService.getOrCreateSettings(tenantId));
 
         // Use tenant defaults if not provided in request
         String fromEmail = request.getFromEmail() != null
@@ -53,21 +119,8 @@ public class EmailService {
                 ? request.getFromName()
                 : settings.getDefaultFromName();
 
-        // Validate content
-        if (request.getHtmlContent() == null && request.getTextContent() == null) {
-            throw new MessageSendException("Either htmlContent or textContent must be provided");
-        }
-
-        // Convert attachments to proper format
-        var attachments = request.getAttachments() != null
-                ? request.getAttachments().stream()
-                    .map(att -> Map.of(
-                            "filename", att.getFilename(),
-                            "content", att.getContent(),
-                            "contentType", att.getContentType()
-                    ))
-                    .collect(Collectors.toList())
-                : null;
+        // Move attachment content into the blob store; the row only keeps references
+        var attachments = emailAttachmentService.store(request.getAttachments(), uploads);
 
         // Create message record
         EmailMessage message = EmailMessage.builder()
@@ -76,55 +129,155 @@ public class EmailService {
                 .toName(request.getToName())
                 .fromEmail(fromEmail)
                 .fromName(fromName)
-                .subject(request.getSubject())
-                .htmlContent(request.getHtmlContent())
-                .textContent(request.getTextContent())
+                .subject(subject)
+                .htmlContent(template == null ? request.getHtmlContent() : null)
+                .textContent(template == null ? request.getTextContent() : null)
+                .templateId(template != null ? template.id() : null)
+                .templateParams(template != null ? request.getVariables() : null)
                 .attachments(attachments)
-                .status(MessageStatus.PENDING)
+                .status(scheduledAt != null ? MessageStatus.SCHEDULED : MessageStatus.PENDING)
+                .scheduledAt(scheduledAt)
+                .quotaDay(quotaDay)
                 .retryCount(0)
+                .idempotencyKey(idempotencyKey)
+                .idempotencyScope(idempotencyKey != null ? IdempotencyService.EMAIL : null)
                 .build();
 
-        message = emailMessageRepository.save(message);
-
+        EmailMessage saved;
         try {
-            // Send via Brevo
-            String providerId = brevoProvider.sendEmail(message);
+            saved = pipelineMetrics.time(PipelineMetrics.EMAIL, "persist", () -> idempotencyKey != null
+                    ? emailMessageRepository.saveAndFlush(message)
+                    : emailMessageRepository.save(message));
+        } catch (DataIntegrityViolationException e) {
+            // Redis lost the claim but the unique index still knows the key
+            throw new DuplicateRequestException("A message with this idempotency key already exists", e);
+        }
 
-            // Update status
-            message.setProviderId(providerId);
-            message.setStatus(MessageStatus.SENT);
-            message.setSentAt(LocalDateTime.now());
-            message = emailMessageRepository.save(message);
+        pipelineMetrics.timeCommit(PipelineMetrics.EMAIL);
+        messageStatsService.record(MessageType.EMAIL, tenantId, saved.getStatus(), 1);
 
-            // Log delivery event
-            deliveryLogService.logEmailSent(message.getId(), tenantId, providerId,
-                    Map.of("messageId", providerId));
+        if (scheduledAt != null) {
+            // ScheduledMessagePoller hands it to the dispatcher when it falls due
+            scheduledMessageIndex.addAfterCommit(PipelineMetrics.EMAIL, saved.getId(), scheduledAt);
 
-            // Increment counter
-            rateLimitService.incrementEmailCount(tenantId);
+            log.info("Email to {} for tenant {} scheduled for {}", request.getToEmail(), tenantId, scheduledAt);
+        } else {
+            // Hand off to the dispatcher; the provider call happens after this transaction commits
+            emailOutboxService.enqueue(saved);
 
-            log.info("Email sent successfully to {} for tenant {}", request.getToEmail(), tenantId);
+            log.info("Email queued for delivery to {} for tenant {}", request.getToEmail(), tenantId);
+        }
 
-            return emailMessageMapper.toResponse(message);
+        return emailMessageMapper.toResponse(saved);
+    }
 
-        } catch (MessageSendException e) {
-            message.setStatus(MessageStatus.FAILED);
-            message.setErrorMessage(e.getMessage());
-            message.setLastRetryAt(LocalDateTime.now());
-            emailMessageRepository.save(message);
+    /**
+     * Accepts a bulk send: quota for every recipient is reserved in one call, the rows are
+     * inserted with JDBC batching and a single outbox entry hands the batch to the dispatcher.
+     */
+    public BatchEmailResponse sendBatch(UUID tenantId, SendBatchEmailRequest request) {
+        if (request.getHtmlContent() == null && request.getTextContent() == null) {
+            throw new MessageSendException("Either htmlContent or textContent must be provided");
+        }
 
-            log.error("Failed to send email: {}", e.getMessage());
-            throw e;
+        int recipientCount = request.getRecipients().size();
+        int maxRecipients = properties.getBatch().getMaxRecipients();
+        if (recipientCount > maxRecipients) {
+            throw new BusinessException("A batch may contain at most " + maxRecipients + " recipients");
         }
+
+        String idempotencyKey = request.getIdempotencyKey();
+        if (idempotencyKey != null && !idempotencyService.claim(IdempotencyService.EMAIL_BATCH, tenantId, idempotencyKey)) {
+            return emailMessageRepository.findByTenantIdAndIdempotencyScopeAndIdempotencyKey(
+                            tenantId, IdempotencyService.EMAIL_BATCH, idempotencyKey)
+                    .map(first -> BatchEmailResponse.builder()
+                            .batchId(first.getBatchId())
+                            .tenantId(tenantId)
+                            .recipientCount((int) emailMessageRepository.countByBatchId(first.getBatchId()))
+                            .status(MessageStatus.PENDING)
+                            .createdAt(first.getCreatedAt())
+                            .build())
+                    .orElseThrow(() -> new RequestInProgressException(
+                            "A request with this idempotency key is still being processed"));
+        }
+
+        LocalDate quotaDay = LocalDate.now();
+        if (!rateLimitService.reserveEmail(tenantId, recipientCount, quotaDay)) {
+            throw new RateLimitExceededException("Daily email limit exceeded for tenant");
+        }
+
+        TenantSettings settings = tenantSettingsService.getOrCreateSettings(tenantId);
+
+        String fromEmail = request.getFromEmail() != null
+                ? request.getFromEmail()
+                : settings.getDefaultFromEmail();
+        String fromName = request.getFromName() != null
+                ? request.getFromName()
+                : settings.getDefaultFromName();
+
+        UUID batchId = UUID.randomUUID();
+        List<EmailMessage> messages = new ArrayList<>(recipientCount);
+        for (BatchEmailRecipient recipient : request.getRecipients()) {
+            messages.add(EmailMessage.builder()
+                    .tenantId(tenantId)
+                    .toEmail(recipient.getEmail())
+                    .toName(recipient.getName())
+                    .fromEmail(fromEmail)
+                    .fromName(fromName)
+                    .subject(request.getSubject())
+                    .htmlContent(request.getHtmlContent())
+                    .textContent(request.getTextContent())
+                    .status(MessageStatus.PENDING)
+                    .quotaDay(quotaDay)
+                    .retryCount(0)
+                    .batchId(batchId)
+                    .templateParams(recipient.getParams() != null ? recipient.getParams() : Map.of())
+                    .build());
+        }
+
+        // Only the first row carries the key, so the unique index still holds one row per key
+        if (idempotencyKey != null) {
+            messages.get(0).setIdempotencyKey(idempotencyKey);
+            messages.get(0).setIdempotencyScope(IdempotencyService.EMAIL_BATCH);
+        }
+
+        try {
+            emailMessageRepository.insertAll(messages);
+        } catch (DataIntegrityViolationException e) {
+            throw new DuplicateRequestException("A batch with this idempotency key already exists", e);
+        }
+        emailOutboxService.enqueueBatch(batchId, tenantId, quotaDay);
+        messageStatsService.record(MessageType.EMAIL, tenantId, MessageStatus.PENDING, recipientCount);
+
+        log.info("Email batch {} queued with {} recipient(s) for tenant {}", batchId, recipientCount, tenantId);
+
+        return BatchEmailResponse.builder()
+                .batchId(batchId)
+                .tenantId(tenantId)
+                .recipientCount(recipientCount)
+                .status(MessageStatus.PENDING)
+                .createdAt(messages.get(0).getCreatedAt())
+                .build();
     }
 
     @Transactional(readOnly = true)
-    public Page<EmailMessageResponse> listEmails(UUID tenantId, MessageStatus status, Pageable pageable) {
-        Page<EmailMessage> messages = status != null
+    public Page<EmailMessageSummary> listEmails(UUID tenantId, MessageStatus status, Pageable pageable) {
+        return status != null
                 ? emailMessageRepository.findByTenantIdAndStatus(tenantId, status, pageable)
                 : emailMessageRepository.findByTenantId(tenantId, pageable);
+    }
 
-        return messages.map(emailMessageMapper::toResponse);
+    @Transactional(readOnly = true)
+    public CursorPage<EmailMessageSummary> scrollEmails(UUID tenantId, MessageStatus status, String cursor, int limit) {
+        ScrollPosition position = PageCursor.positionAfter(cursor, "createdAt");
+        Window<EmailMessageSummary> window = status != null
+                ? emailMessageRepository.findByTenantIdAndStatusOrderByCreatedAtDescIdDesc(
+                        tenantId, status, position, CursorPage.limit(limit))
+                : emailMessageRepository.findByTenantIdOrderByCreatedAtDescIdDesc(
+                        tenantId, position, CursorPage.limit(limit));
+
+        return CursorPage.of(window, Function.identity(),
+                message -> new PageCursor(message.getCreatedAt(), message.getId()));
     }
 
     @Transactional(readOnly = true)
@@ -132,7 +285,17 @@ public class EmailService {
         EmailMessage message = emailMessageRepository.findByIdAndTenantId(id, tenantId)
                 .orElseThrow(() -> new ResourceNotFoundException("Email message not found"));
 
-        return emailMessageMapper.toResponse(message);
+        EmailMessageResponse response = emailMessageMapper.toResponse(message);
+        if (message.getTemplateId() != null) {
+            EmailTemplateRegistry.Compiled template = emailTemplateRegistry.get(message.getTemplateId());
+            response.setHtmlContent(template.renderHtml(message.getTemplateParams()));
+            response.setTextContent(template.renderText(message.getTemplateParams()));
+        } else if (message.getArchiveSegment() != null) {
+            BodyArchive.Body body = emailBodyArchiver.bodyOf(message);
+            response.setHtmlContent(body.html());
+            response.setTextContent(body.text());
+        }
+        return response;
     }
 
     public void retryFailedEmail(UUID messageId, UUID tenantId) {
@@ -143,35 +306,27 @@ public class EmailService {
             throw new MessageSendException("Only failed messages can be retried");
         }
 
-        if (message.getRetryCount() >= 3) {
+        if (message.getRetryCount() >= properties.getMessage().getMaxRetryAttempts()) {
             throw new MessageSendException("Maximum retry attempts exceeded");
         }
 
-        try {
-            String providerId = brevoProvider.sendEmail(message);
-
-            message.setProviderId(providerId);
-            message.setStatus(MessageStatus.SENT);
-            message.setSentAt(LocalDateTime.now());
-            message.setRetryCount(message.getRetryCount() + 1);
-            message.setLastRetryAt(LocalDateTime.now());
-            message.setErrorMessage(null);
-
-            emailMessageRepository.save(message);
-
-            deliveryLogService.logEmailSent(message.getId(), tenantId, providerId,
-                    Map.of("messageId", providerId, "retry", message.getRetryCount()));
+        LocalDate quotaDay = LocalDate.now();
+        if (!rateLimitService.reserveEmail(tenantId, 1, quotaDay)) {
+            throw new RateLimitExceededException("Daily email limit exceeded for tenant");
+        }
 
-            log.info("Email retry successful for message: {}", messageId);
+        // The dispatcher sends from the row, so an archived body goes back into it
+        emailBodyArchiver.restore(message);
+        message.setStatus(MessageStatus.PENDING);
+        message.setQuotaDay(quotaDay);
+        message.setRetryCount(message.getRetryCount() + 1);
+        message.setLastRetryAt(LocalDateTime.now());
+        message.setErrorMessage(null);
+        emailMessageRepository.save(message);
 
-        } catch (MessageSendException e) {
-            message.setRetryCount(message.getRetryCount() + 1);
-            message.setLastRetryAt(LocalDateTime.now());
-            message.setErrorMessage(e.getMessage());
-            emailMessageRepository.save(message);
+        emailOutboxService.enqueue(message);
+        messageStatsService.record(MessageType.EMAIL, tenantId, MessageStatus.PENDING, 1);
 
-            log.error("Email retry failed for message: {}", messageId);
-            throw e;
-        }
+        log.info("Email retry queued for message: {}", messageId);
     }
 }
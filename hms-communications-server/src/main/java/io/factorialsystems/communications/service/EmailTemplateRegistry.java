@@ -0,0 +1,124 @@
+package io.factorialsystems.communications.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.exception.BusinessException;
+import io.factorialsystems.communications.exception.ResourceNotFoundException;
+import io.factorialsystems.communications.model.entity.EmailTemplate;
+import io.factorialsystems.communications.repository.EmailTemplateRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Versioned email templates, compiled once and kept in memory. A (key, version) pair never
+ * changes, so compiled templates are cached by id without expiry; only the "latest version"
+ * lookup expires, after {@code template.latest-ttl}, so new versions are picked up.
+ */
+@Slf4j
+@Service
+public class EmailTemplateRegistry {
+
+    private final EmailTemplateRepository templateRepository;
+    private final Cache<UUID, Compiled> compiled;
+    private final Cache<String, UUID> latestVersions;
+
+    public EmailTemplateRegistry(EmailTemplateRepository templateRepository,
+                                 CommunicationsProperties properties,
+                                 MeterRegistry meterRegistry) {
+        this.templateRepository = templateRepository;
+
+        CommunicationsProperties.Template config = properties.getTemplate();
+        this.compiled = Caffeine.newBuilder()
+                .maximumSize(config.getCacheSize())
+                .recordStats()
+                .build();
+        this.latestVersions = Caffeine.newBuilder()
+                .maximumSize(config.getCacheSize())
+                .expireAfterWrite(config.getLatestTtl())
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, compiled, "emailTemplates");
+    }
+
+    /**
+     * The given version of a template, or its latest version when {@code version} is null.
+     */
+    public Compiled resolve(String templateKey, Integer version) {
+        if (version != null) {
+            EmailTemplate template = templateRepository.findByTemplateKeyAndTemplateVersion(templateKey, version)
+                    .orElseThrow(() -> new ResourceNotFoundException(
+                            "Email template not found: " + templateKey + " v" + version));
+            return compiled.get(template.getId(), id -> compile(template));
+        }
+
+        UUID latestId = latestVersions.get(templateKey, key -> templateRepository
+                .findFirstByTemplateKeyOrderByTemplateVersionDesc(key)
+                .map(template -> compiled.get(template.getId(), id -> compile(template)).id())
+                .orElse(null));
+        if (latestId == null) {
+            throw new ResourceNotFoundException("Email template not found: " + templateKey);
+        }
+        return get(latestId);
+    }
+
+    public Compiled get(UUID templateId) {
+        return compiled.get(templateId, id -> templateRepository.findById(id)
+                .map(this::compile)
+                .orElseThrow(() -> new ResourceNotFoundException("Email template not found: " + id)));
+    }
+
+    private Compiled compile(EmailTemplate template) {
+        try {
+            Compiled result = new Compiled(template.getId(), template.getTemplateKey(), template.getTemplateVersion(),
+                    CompiledTemplate.compile(template.getSubject(), false),
+                    template.getHtmlBody() != null ? CompiledTemplate.compile(template.getHtmlBody(), true) : null,
+                    template.getTextBody() != null ? CompiledTemplate.compile(template.getTextBody(), false) : null);
+
+            log.info("Compiled email template {} v{}", template.getTemplateKey(), template.getTemplateVersion());
+            return result;
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("Email template " + template.getTemplateKey() + " v"
+                    + template.getTemplateVersion() + " is invalid: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * A compiled template version. {@code html} or {@code text} may be absent.
+     */
+    public record Compiled(UUID id, String key, int version,
+                           CompiledTemplate subject, CompiledTemplate html, CompiledTemplate text) {
+
+        /**
+         * Rejects {@code values} unless every placeholder of the template has a value.
+         */
+        public void checkVariables(Map<String, ?> values) {
+            Set<String> required = new LinkedHashSet<>(subject.variables());
+            for (CompiledTemplate body : List.of(html != null ? html : subject, text != null ? text : subject)) {
+                required.addAll(body.variables());
+            }
+            if (values != null) {
+                required.removeAll(values.keySet());
+            }
+            if (!required.isEmpty()) {
+                throw new BusinessException("Missing template variables for " + key + ": " + required);
+            }
+        }
+
+        public String renderHtml(Map<String, ?> values) {
+            return html != null ? html.render(values) : null;
+        }
+
+        public String renderText(Map<String, ?> values) {
+            return text != null ? text.render(values) : null;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package io.factorialsystems.communications.service;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.model.entity.EmailOutbox;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Decides which tenants' outbox entries the dispatcher claims next, using deficit round-robin
+ * over the tenants that have due work. Every visit adds the tenant's quantum (base quantum x
+ * plan weight) to its allowance and claims up to that many entries; unused allowance carries
+ * over only while the tenant still has a backlog. A tenant with a 50k-recipient campaign
+ * therefore gets its share of each round instead of the whole dispatcher, and a tenant with
+ * one password reset is served in the next round.
+ * <p>
+ * Only called from the dispatcher's scheduling thread, so the round state is not shared.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FairShareScheduler {
+
+    private final EmailOutboxService outboxService;
+    private final TenantSettingsService tenantSettingsService;
+    private final CommunicationsProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final PipelineMetrics pipelineMetrics;
+
+    private final Deque<UUID> activeTenants = new ArrayDeque<>();
+    private final Map<UUID, Long> deficits = new HashMap<>();
+
+    private MultiGauge queueDepth;
+
+    @PostConstruct
+    public void registerMetrics() {
+        queueDepth = MultiGauge.builder("communications.outbox.tenant.depth")
+                .description("Due email outbox entries per tenant")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Claims up to {@code capacity} entries for one dispatch round, interleaved by tenant so
+     * the dispatch pool works on every selected tenant at once.
+     */
+    public List<EmailOutbox> claimRound(int capacity) {
+        Map<UUID, Long> remaining = outboxService.countDueByTenant();
+        publishDepths(remaining);
+
+        // Tenants that ran dry lose their allowance; newly active tenants join at the back
+        activeTenants.removeIf(tenantId -> !remaining.containsKey(tenantId));
+        deficits.keySet().retainAll(remaining.keySet());
+        for (UUID tenantId : remaining.keySet()) {
+            if (deficits.putIfAbsent(tenantId, 0L) == null) {
+                activeTenants.addLast(tenantId);
+            }
+        }
+
+        Map<UUID, List<EmailOutbox>> claimed = new LinkedHashMap<>();
+        int total = 0;
+
+        while (total < capacity && !activeTenants.isEmpty()) {
+            UUID tenantId = activeTenants.pollFirst();
+            long allowance = deficits.get(tenantId) + quantum(tenantId);
+            int take = (int) Math.min(Math.min(allowance, remaining.get(tenantId)), capacity - total);
+            if (take <= 0) {
+                // No allowance this round; requeueing it would spin without claiming anything
+                remaining.remove(tenantId);
+                deficits.remove(tenantId);
+                continue;
+            }
+
+            List<EmailOutbox> entries = outboxService.claimDue(tenantId, take);
+            claimed.computeIfAbsent(tenantId, id -> new ArrayList<>()).addAll(entries);
+            total += entries.size();
+
+            // Fewer than asked means the tenant is drained (or another instance holds the rest)
+            long left = entries.size() < take ? 0 : remaining.get(tenantId) - entries.size();
+            if (left > 0) {
+                remaining.put(tenantId, left);
+                deficits.put(tenantId, allowance - entries.size());
+                activeTenants.addLast(tenantId);
+            } else {
+                remaining.remove(tenantId);
+                deficits.remove(tenantId);
+            }
+        }
+
+        return interleave(claimed.values());
+    }
+
+    /**
+     * Records how long an entry waited between being queued and its first dispatch.
+     */
+    public void recordWait(EmailOutbox entry) {
+        if (entry.getAttempts() != 1) {
+            return;
+        }
+
+        Timer.builder("communications.outbox.wait")
+                .description("Time from accepting an email to its first dispatch")
+                .tag("tenant", pipelineMetrics.tenantTag(entry.getTenantId()))
+                .register(meterRegistry)
+                .record(Duration.between(entry.getCreatedAt(), LocalDateTime.now()));
+    }
+
+    private long quantum(UUID tenantId) {
+        CommunicationsProperties.FairShare config = properties.getFairShare();
+        String plan = tenantSettingsService.getOrCreateSettings(tenantId).getSubscriptionPlan();
+
+        int weight = plan != null
+                ? config.getPlanWeights().getOrDefault(plan, config.getDefaultWeight())
+                : config.getDefaultWeight();
+        return (long) config.getQuantum() * weight;
+    }
+
+    private void publishDepths(Map<UUID, Long> depths) {
+        // Tenants past the tag limit share one "other" row
+        Map<String, Long> byTag = new HashMap<>();
+        depths.forEach((tenantId, depth) -> byTag.merge(pipelineMetrics.tenantTag(tenantId), depth, Long::sum));
+
+        List<MultiGauge.Row<?>> rows = new ArrayList<>(byTag.size());
+        byTag.forEach((tag, depth) -> rows.add(MultiGauge.Row.of(Tags.of("tenant", tag), depth)));
+        queueDepth.register(rows, true);
+    }
+
+    private static List<EmailOutbox> interleave(Iterable<List<EmailOutbox>> perTenant) {
+        List<Iterator<EmailOutbox>> cursors = new ArrayList<>();
+        perTenant.forEach(entries -> cursors.add(entries.iterator()));
+
+        List<EmailOutbox> ordered = new ArrayList<>();
+        while (!cursors.isEmpty()) {
+            cursors.removeIf(cursor -> {
+                if (!cursor.hasNext()) {
+                    return true;
+                }
+                ordered.add(cursor.next());
+                return false;
+            });
+        }
+        return ordered;
+    }
+}
@@ -0,0 +1,43 @@
+package io.factorialsystems.communications.service;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.exception.MessageSendException;
+import io.factorialsystems.communications.model.entity.SmsMessage;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accepts every SMS without any network call, after {@code sms.fake-latency} and failing a
+ * {@code sms.fake-failure-rate} fraction of sends. Used for local development and load tests.
+ */
+@Slf4j
+public class FakeSmsProvider implements SmsProvider {
+
+    private final CommunicationsProperties.Sms config;
+
+    public FakeSmsProvider(CommunicationsProperties.Sms config) {
+        this.config = config;
+        log.warn("Using the fake SMS provider; messages are not delivered");
+    }
+
+    @Override
+    public String getName() {
+        return "fake";
+    }
+
+    @Override
+    public CompletableFuture<String> send(SmsMessage message) {
+        return CompletableFuture.supplyAsync(() -> {
+            if (ThreadLocalRandom.current().nextDouble() < config.getFakeFailureRate()) {
+                throw new MessageSendException("Simulated provider failure");
+            }
+
+            log.debug("Fake SMS to {} for tenant {}", message.getToPhone(), message.getTenantId());
+            return "fake-" + UUID.randomUUID();
+        }, CompletableFuture.delayedExecutor(config.getFakeLatency().toMillis(), TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,77 @@
+package io.factorialsystems.communications.service;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.exception.BusinessException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+
+/**
+ * Fast-path duplicate detection for idempotency keys. The first request to present a key
+ * claims it with SET NX; later requests see the claim and look the original up in the
+ * database, which holds a unique index on the tenant and key as the durable guard. Email keys
+ * are also indexed by scope there, so a batch key and a single-send key never collide.
+ * <p>
+ * A claim starts with the short in-flight TTL and is extended to the full TTL once the
+ * claiming transaction commits. If it rolls back the claim is dropped, and if the process
+ * dies mid-request the claim simply lapses, so the caller can always retry.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IdempotencyService {
+
+    public static final String EMAIL = "email";
+    public static final String EMAIL_BATCH = "email-batch";
+    public static final String SMS = "sms";
+
+    private static final String KEY_PREFIX = "hms:idem:";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final StringRedisTemplate redisTemplate;
+    private final ResourceGovernor resourceGovernor;
+    private final CommunicationsProperties properties;
+
+    /**
+     * @return {@code true} if this call claimed the key, {@code false} if it was seen before
+     */
+    public boolean claim(String scope, UUID tenantId, String idempotencyKey) {
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new BusinessException("Idempotency key must not exceed " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String key = key(scope, tenantId, idempotencyKey);
+
+        CommunicationsProperties.Idempotency config = properties.getIdempotency();
+        Boolean claimed = resourceGovernor.call(ResourceGovernor.Resource.REDIS,
+                () -> redisTemplate.opsForValue().setIfAbsent(key, "1", config.getInFlightTtl()));
+
+        if (!Boolean.TRUE.equals(claimed)) {
+            log.debug("Idempotency key already seen: {}", key);
+            return false;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        redisTemplate.expire(key, config.getTtl());
+                    } else {
+                        redisTemplate.delete(key);
+                    }
+                }
+            });
+        }
+        return true;
+    }
+
+    private String key(String scope, UUID tenantId, String idempotencyKey) {
+        return KEY_PREFIX + scope + ":" + tenantId + ":" + idempotencyKey;
+    }
+}
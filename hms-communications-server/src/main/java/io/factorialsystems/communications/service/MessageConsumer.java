@@ -1,21 +1,44 @@
 package io.factorialsystems.communications.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.rabbitmq.client.Channel;
+import io.factorialsystems.communications.config.CommunicationsProperties;
 import io.factorialsystems.communications.config.RabbitMQConfig;
+import io.factorialsystems.communications.exception.BusinessException;
+import io.factorialsystems.communications.exception.DuplicateRequestException;
+import io.factorialsystems.communications.exception.RateLimitExceededException;
+import io.factorialsystems.communications.exception.RequestInProgressException;
+import io.factorialsystems.communications.exception.ResourceNotFoundException;
 import io.factorialsystems.communications.model.dto.request.SendEmailRequest;
 import io.factorialsystems.communications.model.dto.request.SendSmsRequest;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
-import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.zip.ZipException;
 
 @Slf4j
 @Component
@@ -25,111 +48,286 @@ public class MessageConsumer {
     private final EmailService emailService;
     private final SmsService smsService;
     private final RabbitTemplate rabbitTemplate;
-    private final ObjectMapper objectMapper;
+    private final MessagePayloadCodec payloadCodec;
+    private final PipelineMetrics pipelineMetrics;
+    private final MeterRegistry meterRegistry;
+    private final CommunicationsProperties properties;
 
-    private static final int MAX_RETRIES = 3;
+    @Qualifier("consumerExecutor")
+    private final AsyncTaskExecutor consumerExecutor;
 
-    @RabbitListener(queues = RabbitMQConfig.EMAIL_QUEUE)
-    public void handleEmailMessage(Message message, Channel channel,
-                                   @Header(value = "x-retry-count", required = false) Integer retryCount)
-            throws IOException {
+    private static final String RETRY_COUNT_HEADER = "x-retry-count";
 
-        Integer currentRetryCount = retryCount != null ? retryCount : 0;
-        long deliveryTag = message.getMessageProperties().getDeliveryTag();
+    private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
 
-        log.debug("Received email message, retry count: {}", currentRetryCount);
+    @PostConstruct
+    public void registerMetrics() {
+        for (String queue : List.of(RabbitMQConfig.EMAIL_QUEUE, RabbitMQConfig.SMS_QUEUE)) {
+            inFlight.put(queue, meterRegistry.gauge("communications.consumer.in.flight",
+                    Tags.of("queue", queue), new AtomicInteger()));
+        }
+    }
+
+    @RabbitListener(queues = RabbitMQConfig.EMAIL_QUEUE, containerFactory = RabbitMQConfig.SEND_LISTENER_FACTORY)
+    public void handleEmailMessages(List<Message> messages, Channel channel) throws IOException {
+        processWindow(RabbitMQConfig.EMAIL_QUEUE, messages, channel, this::handleEmailMessage);
+    }
+
+    @RabbitListener(queues = RabbitMQConfig.SMS_QUEUE, containerFactory = RabbitMQConfig.SEND_LISTENER_FACTORY)
+    public void handleSmsMessages(List<Message> messages, Channel channel) throws IOException {
+        processWindow(RabbitMQConfig.SMS_QUEUE, messages, channel, this::handleSmsMessage);
+    }
 
-        if (currentRetryCount >= MAX_RETRIES) {
-            log.error("Email message exceeded max retries ({}), discarding message", MAX_RETRIES);
-            channel.basicAck(deliveryTag, false);
+    /**
+     * Processes a window of deliveries concurrently. When every message has been handled,
+     * scheduled for retry or dead-lettered the window is acknowledged with a single
+     * multiple-ack; messages that could not be settled are nacked back onto the queue. If the
+     * window fails before it is settled, whatever is still unacknowledged is nacked too, so
+     * no delivery is left hanging until the channel closes.
+     */
+    private void processWindow(String queue, List<Message> messages, Channel channel,
+                               Function<Message, Outcome> handler) throws IOException {
+        if (messages.isEmpty()) {
             return;
         }
 
+        AtomicInteger queueInFlight = inFlight.get(queue);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        long lastDeliveryTag = 0;
+        boolean settled = false;
+
+        try {
+            List<CompletableFuture<Outcome>> tasks = new ArrayList<>(messages.size());
+            for (Message message : messages) {
+                MessageProperties props = message.getMessageProperties();
+                lastDeliveryTag = Math.max(lastDeliveryTag, props.getDeliveryTag());
+                DistributionSummary.builder("communications.consumer.payload.size")
+                        .description("Queue payload size as delivered")
+                        .baseUnit("bytes")
+                        .tag("queue", queue)
+                        .tag("format", MessagePayloadCodec.format(props))
+                        .register(meterRegistry)
+                        .record(message.getBody().length);
+
+                queueInFlight.incrementAndGet();
+                tasks.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return handler.apply(message);
+                    } catch (Throwable t) {
+                        // The handlers settle their own failures; this only catches one escaping them
+                        log.error("Unhandled error processing message on {}, returning it to the queue: {}",
+                                queue, t.getMessage(), t);
+                        return Outcome.REQUEUED;
+                    } finally {
+                        queueInFlight.decrementAndGet();
+                    }
+                }, consumerExecutor));
+            }
+
+            CompletableFuture.allOf(tasks.toArray(CompletableFuture[]::new)).join();
+
+            boolean allSettled = true;
+            for (CompletableFuture<Outcome> task : tasks) {
+                Outcome outcome = task.join();
+                allSettled &= outcome != Outcome.REQUEUED;
+                meterRegistry.counter("communications.consumer.messages",
+                        "queue", queue, "outcome", outcome.getTag()).increment();
+            }
+
+            if (allSettled) {
+                channel.basicAck(lastDeliveryTag, true);
+            } else {
+                for (int i = 0; i < messages.size(); i++) {
+                    long deliveryTag = messages.get(i).getMessageProperties().getDeliveryTag();
+                    if (tasks.get(i).join() == Outcome.REQUEUED) {
+                        channel.basicNack(deliveryTag, false, true);
+                    } else {
+                        channel.basicAck(deliveryTag, false);
+                    }
+                }
+            }
+            settled = true;
+
+        } finally {
+            if (!settled) {
+                nackWindow(queue, channel, lastDeliveryTag, messages.size());
+            }
+        }
+
+        sample.stop(Timer.builder("communications.consumer.window")
+                .description("Time to process and acknowledge one consumer window")
+                .tag("queue", queue)
+                .register(meterRegistry));
+        DistributionSummary.builder("communications.consumer.window.size")
+                .tag("queue", queue)
+                .register(meterRegistry)
+                .record(messages.size());
+
+        log.debug("Settled {} message(s) on {} up to delivery tag {}", messages.size(), queue, lastDeliveryTag);
+    }
+
+    /**
+     * Returns every still unacknowledged delivery of a failed window to the queue.
+     */
+    private void nackWindow(String queue, Channel channel, long lastDeliveryTag, int size) {
+        if (lastDeliveryTag == 0) {
+            return;
+        }
         try {
-            String payload = new String(message.getBody(), StandardCharsets.UTF_8);
-            SendEmailRequest request = objectMapper.readValue(payload, SendEmailRequest.class);
+            channel.basicNack(lastDeliveryTag, true, true);
+            log.warn("Consumer window of {} message(s) on {} failed and was returned to the queue", size, queue);
+        } catch (IOException | RuntimeException e) {
+            log.error("Could not nack failed window on {}, it is redelivered when the channel closes: {}",
+                    queue, e.getMessage());
+        }
+    }
+
+    private Outcome handleEmailMessage(Message message) {
+        int currentRetryCount = retryCount(message);
+
+        log.debug("Received email message, retry count: {}", currentRetryCount);
+
+        try {
+            if (currentRetryCount == 0) {
+                pipelineMetrics.recordQueueLag(PipelineMetrics.EMAIL, message.getMessageProperties().getTimestamp());
+            }
+
+            SendEmailRequest request = payloadCodec.read(message, SendEmailRequest.class);
+            if (request.getIdempotencyKey() == null) {
+                request.setIdempotencyKey(message.getMessageProperties().getMessageId());
+            }
 
             log.info("Processing email message for tenant: {} to: {}",
                     request.getTenantId(), request.getToEmail());
 
             emailService.sendEmail(request.getTenantId(), request);
 
-            // Acknowledge successful processing
-            channel.basicAck(deliveryTag, false);
             log.info("Email message processed successfully");
+            return Outcome.PROCESSED;
 
-        } catch (Exception e) {
+        } catch (RequestInProgressException e) {
+            log.info("Email message with the same key is in flight, retrying later");
+            return retryOrDeadLetter(message, currentRetryCount, e,
+                    RabbitMQConfig.EMAIL_ROUTING_KEY, RabbitMQConfig.EMAIL_DEAD_LETTER_ROUTING_KEY);
+        } catch (DuplicateRequestException e) {
+            log.info("Duplicate email message ignored: {}", e.getMessage());
+            return Outcome.PROCESSED;
+        } catch (Throwable e) {
             log.error("Error processing email message: {}", e.getMessage(), e);
-
-            // Reject and requeue only if below max retries
-            if (currentRetryCount < MAX_RETRIES) {
-                log.info("Republishing email message with retry count: {}", currentRetryCount + 1);
-                republishWithRetry(message, currentRetryCount + 1, RabbitMQConfig.EMAIL_ROUTING_KEY);
-                channel.basicAck(deliveryTag, false);  // Acknowledge original message
-            } else {
-                log.error("Max retries reached, discarding email message");
-                channel.basicAck(deliveryTag, false);
-            }
+            return retryOrDeadLetter(message, currentRetryCount, e,
+                    RabbitMQConfig.EMAIL_ROUTING_KEY, RabbitMQConfig.EMAIL_DEAD_LETTER_ROUTING_KEY);
         }
     }
 
-    @RabbitListener(queues = RabbitMQConfig.SMS_QUEUE)
-    public void handleSmsMessage(Message message, Channel channel,
-                                @Header(value = "x-retry-count", required = false) Integer retryCount)
-            throws IOException {
-
-        Integer currentRetryCount = retryCount != null ? retryCount : 0;
-        long deliveryTag = message.getMessageProperties().getDeliveryTag();
+    private Outcome handleSmsMessage(Message message) {
+        int currentRetryCount = retryCount(message);
 
         log.debug("Received SMS message, retry count: {}", currentRetryCount);
 
-        if (currentRetryCount >= MAX_RETRIES) {
-            log.error("SMS message exceeded max retries ({}), discarding message", MAX_RETRIES);
-            channel.basicAck(deliveryTag, false);
-            return;
-        }
-
         try {
-            String payload = new String(message.getBody(), StandardCharsets.UTF_8);
-            SendSmsRequest request = objectMapper.readValue(payload, SendSmsRequest.class);
+            if (currentRetryCount == 0) {
+                pipelineMetrics.recordQueueLag(PipelineMetrics.SMS, message.getMessageProperties().getTimestamp());
+            }
+
+            SendSmsRequest request = payloadCodec.read(message, SendSmsRequest.class);
+            if (request.getIdempotencyKey() == null) {
+                request.setIdempotencyKey(message.getMessageProperties().getMessageId());
+            }
 
             log.info("Processing SMS message for tenant: {} to: {}",
                     request.getTenantId(), request.getToPhone());
 
             smsService.sendSms(request.getTenantId(), request);
 
-            // Acknowledge successful processing
-            channel.basicAck(deliveryTag, false);
             log.info("SMS message processed successfully");
+            return Outcome.PROCESSED;
 
-        } catch (Exception e) {
+        } catch (RequestInProgressException e) {
+            log.info("SMS message with the same key is in flight, retrying later");
+            return retryOrDeadLetter(message, currentRetryCount, e,
+                    RabbitMQConfig.SMS_ROUTING_KEY, RabbitMQConfig.SMS_DEAD_LETTER_ROUTING_KEY);
+        } catch (DuplicateRequestException e) {
+            log.info("Duplicate SMS message ignored: {}", e.getMessage());
+            return Outcome.PROCESSED;
+        } catch (Throwable e) {
             log.error("Error processing SMS message: {}", e.getMessage(), e);
-
-            // Reject and requeue only if below max retries
-            if (currentRetryCount < MAX_RETRIES) {
-                log.info("Republishing SMS message with retry count: {}", currentRetryCount + 1);
-                republishWithRetry(message, currentRetryCount + 1, RabbitMQConfig.SMS_ROUTING_KEY);
-                channel.basicAck(deliveryTag, false);  // Acknowledge original message
-            } else {
-                log.error("Max retries reached, discarding SMS message");
-                channel.basicAck(deliveryTag, false);
-            }
+            return retryOrDeadLetter(message, currentRetryCount, e,
+                    RabbitMQConfig.SMS_ROUTING_KEY, RabbitMQConfig.SMS_DEAD_LETTER_ROUTING_KEY);
         }
     }
 
-    private void republishWithRetry(Message message, int retryCount, String routingKey) {
+    private int retryCount(Message message) {
+        Object header = message.getMessageProperties().getHeaders().get(RETRY_COUNT_HEADER);
+        return header instanceof Number number ? number.intValue() : 0;
+    }
+
+    /**
+     * Parks a failed message in the next delayed retry tier, or moves it to the dead-letter
+     * queue with the original payload and the last error once the tiers are exhausted or the
+     * error is not {@linkplain #isRetryable retryable}. Returns {@link Outcome#REQUEUED} if the broker publish fails,
+     * so the original delivery is not acknowledged and lost.
+     */
+    private Outcome retryOrDeadLetter(Message message, int retryCount, Throwable error,
+                                      String routingKey, String deadLetterRoutingKey) {
+        List<Duration> delays = properties.getRetry().getDelays();
+        boolean retryable = isRetryable(error);
+
+        MessageProperties props = message.getMessageProperties();
+        props.getHeaders().put(RETRY_COUNT_HEADER, retryCount + 1);
+
         try {
-            org.springframework.amqp.core.MessageProperties props = message.getMessageProperties();
-            props.getHeaders().put("x-retry-count", retryCount);
+            if (retryable && retryCount < delays.size()) {
+                Duration delay = delays.get(retryCount);
+                String retryQueue = RabbitMQConfig.retryQueueName(routingKey, delay);
 
-            Message retryMessage = new Message(message.getBody(), props);
+                rabbitTemplate.send(RabbitMQConfig.RETRY_EXCHANGE, retryQueue, new Message(message.getBody(), props));
 
-            rabbitTemplate.send(RabbitMQConfig.COMMUNICATIONS_EXCHANGE, routingKey, retryMessage);
+                log.info("Message scheduled for retry {} of {} in {} via {}",
+                        retryCount + 1, delays.size(), delay, retryQueue);
+                return Outcome.RETRIED;
+            }
 
-            log.debug("Message republished with retry count: {}", retryCount);
+            props.getHeaders().put("x-exception-message", String.valueOf(error.getMessage()));
+            props.getHeaders().put("x-exception-class", error.getClass().getName());
+            props.getHeaders().put("x-original-routing-key", routingKey);
+            props.getHeaders().put("x-failed-at", Instant.now().toString());
+
+            rabbitTemplate.send(RabbitMQConfig.DEAD_LETTER_EXCHANGE, deadLetterRoutingKey,
+                    new Message(message.getBody(), props));
+
+            log.error("Message dead-lettered after {} attempt(s){}: {}", retryCount + 1,
+                    retryable ? "" : " without retry", error.getMessage());
+            return Outcome.DEAD_LETTERED;
 
         } catch (Exception e) {
-            log.error("Failed to republish message: {}", e.getMessage(), e);
+            log.error("Failed to republish message, returning it to the queue: {}", e.getMessage(), e);
+            return Outcome.REQUEUED;
         }
     }
+
+    /**
+     * Whether waiting in a retry tier can change the result. A payload that cannot be read,
+     * a request the service rejects and a tenant over its daily limit fail the same way on
+     * every attempt, so they are dead-lettered straight away.
+     */
+    static boolean isRetryable(Throwable error) {
+        return !(error instanceof JsonProcessingException
+                || error instanceof ZipException
+                || error instanceof MessageConversionException
+                || error instanceof IllegalArgumentException
+                || error instanceof BusinessException
+                || error instanceof ResourceNotFoundException
+                || error instanceof RateLimitExceededException);
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private enum Outcome {
+        PROCESSED("processed"),
+        RETRIED("retried"),
+        DEAD_LETTERED("dead_lettered"),
+        REQUEUED("requeued");
+
+        private final String tag;
+    }
 }
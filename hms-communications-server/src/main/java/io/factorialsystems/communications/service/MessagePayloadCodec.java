@@ -0,0 +1,63 @@
+package io.factorialsystems.communications.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.factorialsystems.communications.config.SmileMessageConverter;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Decodes queue payloads by their content type and encoding: Smile when the producer sent
+ * {@value SmileMessageConverter#CONTENT_TYPE}, JSON otherwise, inflated first when the
+ * content encoding starts with {@code gzip}. Bodies are parsed straight from the delivered
+ * bytes, with no intermediate {@code String}, so plain-JSON producers keep working unchanged.
+ */
+@Component
+public class MessagePayloadCodec {
+
+    private static final String GZIP = "gzip";
+
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper smileMapper;
+
+    public MessagePayloadCodec(ObjectMapper objectMapper) {
+        this.jsonMapper = objectMapper;
+        this.smileMapper = objectMapper.copyWith(new SmileFactory());
+    }
+
+    public <T> T read(Message message, Class<T> type) throws IOException {
+        MessageProperties props = message.getMessageProperties();
+        ObjectMapper mapper = isSmile(props.getContentType()) ? smileMapper : jsonMapper;
+
+        if (!isCompressed(props.getContentEncoding())) {
+            return mapper.readValue(message.getBody(), type);
+        }
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(message.getBody()))) {
+            return mapper.readValue(in, type);
+        }
+    }
+
+    /**
+     * Metric tag for the payload's wire format, e.g. {@code smile+gzip}.
+     */
+    public static String format(MessageProperties props) {
+        String format = isSmile(props.getContentType()) ? "smile" : "json";
+        return isCompressed(props.getContentEncoding()) ? format + "+" + GZIP : format;
+    }
+
+    private static boolean isSmile(String contentType) {
+        return contentType != null && contentType.startsWith(SmileMessageConverter.CONTENT_TYPE);
+    }
+
+    // GZipPostProcessor writes "gzip", or "gzip:<charset>" when the converter set an encoding
+    private static boolean isCompressed(String contentEncoding) {
+        return contentEncoding != null
+                && (contentEncoding.equals(GZIP) || contentEncoding.startsWith(GZIP + ":"));
+    }
+}
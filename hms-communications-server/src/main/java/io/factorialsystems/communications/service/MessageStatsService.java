@@ -0,0 +1,142 @@
+package io.factorialsystems.communications.service;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.exception.BusinessException;
+import io.factorialsystems.communications.model.dto.response.DailyMessageStats;
+import io.factorialsystems.communications.model.dto.response.MessageStatsResponse;
+import io.factorialsystems.communications.model.enums.MessageStatus;
+import io.factorialsystems.communications.model.enums.MessageType;
+import io.factorialsystems.communications.repository.MessageStatsRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maintains {@code message_stats_daily}: for each tenant, day, channel and status, how many
+ * messages entered that status. Transitions are counted in memory once their transaction
+ * commits and written every {@code stats.flush-interval-ms} as one batch of additive upserts,
+ * so a busy tenant's stats rows are never locked inside a send transaction. A clean shutdown
+ * flushes what is left; counts from the last interval before a crash are lost.
+ * <p>
+ * The stats API reads only the rollup, never the message tables.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MessageStatsService {
+
+    private final MessageStatsRepository statsRepository;
+    private final CommunicationsProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<MessageStatsRepository.Key, Long> pending = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void registerMetrics() {
+        Gauge.builder("communications.stats.pending", pending, Map::size)
+                .description("Stats rows waiting for the next rollup flush")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Counts {@code count} messages of {@code tenantId} entering {@code status} today. Inside
+     * a transaction the count only takes effect if it commits.
+     */
+    public void record(MessageType channel, UUID tenantId, MessageStatus status, int count) {
+        if (count <= 0) {
+            return;
+        }
+        MessageStatsRepository.Key key = new MessageStatsRepository.Key(tenantId, LocalDate.now(), channel, status);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            add(key, count);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                add(key, count);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${hms.communications.stats.flush-interval-ms:5000}")
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // Counts recorded while the batch is written land in the next one
+        Map<MessageStatsRepository.Key, Long> batch = new HashMap<>();
+        for (MessageStatsRepository.Key key : List.copyOf(pending.keySet())) {
+            Long count = pending.remove(key);
+            if (count != null) {
+                batch.put(key, count);
+            }
+        }
+
+        try {
+            statsRepository.increment(batch);
+            log.debug("Flushed {} stats row(s)", batch.size());
+        } catch (Exception e) {
+            batch.forEach(this::add);
+            log.error("Failed to flush {} stats row(s), retrying next interval: {}", batch.size(), e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * A tenant's daily counts between {@code from} and {@code to} (inclusive) with totals per
+     * channel and status; {@code channel} may be null for both channels.
+     */
+    public MessageStatsResponse getStats(UUID tenantId, LocalDate from, LocalDate to, MessageType channel) {
+        if (from.isAfter(to)) {
+            throw new BusinessException("from must not be after to");
+        }
+        int maxRangeDays = properties.getStats().getMaxRangeDays();
+        if (ChronoUnit.DAYS.between(from, to) >= maxRangeDays) {
+            throw new BusinessException("Stats can cover at most " + maxRangeDays + " days per request");
+        }
+
+        List<DailyMessageStats> daily = statsRepository.findByTenant(tenantId, from, to, channel);
+
+        Map<MessageType, Map<MessageStatus, Long>> totals = new EnumMap<>(MessageType.class);
+        for (DailyMessageStats row : daily) {
+            totals.computeIfAbsent(row.getChannel(), c -> new EnumMap<>(MessageStatus.class))
+                    .merge(row.getStatus(), row.getCount(), Long::sum);
+        }
+
+        return MessageStatsResponse.builder()
+                .from(from)
+                .to(to)
+                .channel(channel)
+                .totals(totals)
+                .daily(daily)
+                .build();
+    }
+
+    private void add(MessageStatsRepository.Key key, long count) {
+        pending.merge(key, count, Long::sum);
+    }
+}
@@ -0,0 +1,154 @@
+package io.factorialsystems.communications.service;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Timers for each leg of the send pipeline, tagged by channel:
+ * <ul>
+ *   <li>{@code communications.pipeline.queue.lag}: producer publish to consumer pickup</li>
+ *   <li>{@code communications.pipeline.stage}: idempotency, rate limit, settings and
+ *       database work while accepting a message, by stage and outcome</li>
+ *   <li>{@code communications.pipeline.end.to.end}: acceptance to the final provider
+ *       result, by outcome, with {@code communications.pipeline.messages} counting results
+ *       per tenant</li>
+ * </ul>
+ * Provider call latency is {@code communications.provider.call}. Tenant tags are capped at
+ * {@code metrics.max-tagged-tenants}; tenants seen after that share the {@code other} tag.
+ */
+@Component
+@RequiredArgsConstructor
+public class PipelineMetrics {
+
+    public static final String EMAIL = "email";
+    public static final String SMS = "sms";
+
+    private static final String OTHER_TENANTS = "other";
+
+    private final MeterRegistry meterRegistry;
+    private final CommunicationsProperties properties;
+
+    private final Set<UUID> taggedTenants = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Records the time a message spent on the queue, if the producer set the AMQP timestamp.
+     */
+    public void recordQueueLag(String channel, Date publishedAt) {
+        if (publishedAt == null) {
+            return;
+        }
+
+        long lagMillis = Math.max(0, System.currentTimeMillis() - publishedAt.getTime());
+        Timer.builder("communications.pipeline.queue.lag")
+                .description("Time from publishing a send request to consuming it")
+                .tag("channel", channel)
+                .register(meterRegistry)
+                .record(Duration.ofMillis(lagMillis));
+    }
+
+    public <T> T time(String channel, String stage, Supplier<T> work) {
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            T result = work.get();
+            outcome = "success";
+            return result;
+        } finally {
+            stageTimer(channel, stage, outcome).record(Duration.ofNanos(System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * Times the flush and commit of the current transaction as the {@code commit} stage.
+     * Inserts are deferred to the flush, so this is where most accept-time database work is.
+     */
+    public void timeCommit(String channel) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private long start;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                start = System.nanoTime();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (start != 0) {
+                    String outcome = status == STATUS_COMMITTED ? "success" : "error";
+                    stageTimer(channel, "commit", outcome).record(Duration.ofNanos(System.nanoTime() - start));
+                }
+            }
+        });
+    }
+
+    /**
+     * Records {@code count} messages accepted at {@code acceptedAt} reaching a final provider
+     * result ({@code sent} or {@code failed}).
+     */
+    public void recordCompleted(String channel, UUID tenantId, LocalDateTime acceptedAt, String outcome, int count) {
+        if (count <= 0) {
+            return;
+        }
+
+        if (acceptedAt != null) {
+            Timer endToEnd = Timer.builder("communications.pipeline.end.to.end")
+                    .description("Time from accepting a message to its final provider result")
+                    .tag("channel", channel)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry);
+            Duration elapsed = Duration.between(acceptedAt, LocalDateTime.now());
+            for (int i = 0; i < count; i++) {
+                endToEnd.record(elapsed);
+            }
+        }
+
+        Counter.builder("communications.pipeline.messages")
+                .description("Messages that reached a final provider result")
+                .tag("channel", channel)
+                .tag("tenant", tenantTag(tenantId))
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment(count);
+    }
+
+    /**
+     * The tag value for {@code tenantId}: its id for the first
+     * {@code metrics.max-tagged-tenants} tenants seen, {@code other} after that.
+     */
+    public String tenantTag(UUID tenantId) {
+        if (taggedTenants.contains(tenantId)) {
+            return tenantId.toString();
+        }
+        if (taggedTenants.size() < properties.getMetrics().getMaxTaggedTenants() && taggedTenants.add(tenantId)) {
+            return tenantId.toString();
+        }
+        return OTHER_TENANTS;
+    }
+
+    private Timer stageTimer(String channel, String stage, String outcome) {
+        return Timer.builder("communications.pipeline.stage")
+                .description("Time spent in one stage of accepting a message")
+                .tag("channel", channel)
+                .tag("stage", stage)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
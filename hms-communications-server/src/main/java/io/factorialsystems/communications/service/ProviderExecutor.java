@@ -0,0 +1,132 @@
+package io.factorialsystems.communications.service;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.exception.MessageSendException;
+import io.factorialsystems.communications.exception.ProviderUnavailableException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Runs blocking provider calls behind a per-provider bulkhead and circuit breaker. When the
+ * breaker is open or the bulkhead stays full for {@code provider.max-wait}, the call is not
+ * made and {@link ProviderUnavailableException} is thrown at once, so callers can defer the
+ * work instead of tying up a thread on a degraded provider.
+ * <p>
+ * Breaker and bulkhead state is exported through the resilience4j Micrometer binders; call
+ * latency is recorded as {@code communications.provider.call}.
+ */
+@Slf4j
+@Component
+public class ProviderExecutor {
+
+    private final CircuitBreakerRegistry circuitBreakers;
+    private final BulkheadRegistry bulkheads;
+    private final MeterRegistry meterRegistry;
+    private final CommunicationsProperties.Provider config;
+
+    public ProviderExecutor(CommunicationsProperties properties, MeterRegistry meterRegistry) {
+        this.config = properties.getProvider();
+        this.meterRegistry = meterRegistry;
+
+        this.circuitBreakers = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(config.getSlidingWindowSize())
+                .minimumNumberOfCalls(config.getMinimumCalls())
+                .failureRateThreshold(config.getFailureRateThreshold())
+                .slowCallDurationThreshold(config.getSlowCallDuration())
+                .slowCallRateThreshold(config.getSlowCallRateThreshold())
+                .waitDurationInOpenState(config.getOpenDuration())
+                .permittedNumberOfCallsInHalfOpenState(config.getHalfOpenCalls())
+                .automaticTransitionFromOpenToHalfOpenEnabled(true)
+                .build());
+        this.bulkheads = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(config.getMaxConcurrentCalls())
+                .maxWaitDuration(config.getMaxWait())
+                .build());
+
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakers).bindTo(meterRegistry);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheads).bindTo(meterRegistry);
+
+        circuitBreakers.getEventPublisher().onEntryAdded(added -> added.getAddedEntry().getEventPublisher()
+                .onStateTransition(event -> log.warn("Circuit breaker for {} went {}",
+                        event.getCircuitBreakerName(), event.getStateTransition())));
+    }
+
+    /**
+     * Calls {@code call} for {@code provider}. Only failures matching {@code providerFault}
+     * (timeouts, 5xx, throttling) count against the breaker; a rejected request means the
+     * provider is up.
+     */
+    public <T> T execute(String provider, ProviderCall<T> call, Predicate<Throwable> providerFault) {
+        CircuitBreaker breaker = circuitBreakers.circuitBreaker(provider);
+        Bulkhead bulkhead = bulkheads.bulkhead(provider);
+
+        if (!breaker.tryAcquirePermission()) {
+            record(provider, "rejected", 0);
+            throw new ProviderUnavailableException("Circuit breaker for " + provider + " is open",
+                    config.getOpenDuration());
+        }
+        if (!bulkhead.tryAcquirePermission()) {
+            breaker.releasePermission();
+            record(provider, "rejected", 0);
+            throw new ProviderUnavailableException(provider + " is at its concurrency limit", config.getMaxWait());
+        }
+
+        long start = System.nanoTime();
+        try {
+            T result = call.call();
+            long elapsed = System.nanoTime() - start;
+            breaker.onSuccess(elapsed, TimeUnit.NANOSECONDS);
+            record(provider, "success", elapsed);
+            return result;
+
+        } catch (RuntimeException e) {
+            long elapsed = System.nanoTime() - start;
+            if (providerFault.test(e)) {
+                breaker.onError(elapsed, TimeUnit.NANOSECONDS, e);
+            } else {
+                breaker.onSuccess(elapsed, TimeUnit.NANOSECONDS);
+            }
+            record(provider, "failure", elapsed);
+            throw e;
+
+        } finally {
+            bulkhead.onComplete();
+        }
+    }
+
+    /**
+     * Whether calls to {@code provider} are currently being refused by its breaker.
+     */
+    public boolean isOpen(String provider) {
+        CircuitBreaker.State state = circuitBreakers.circuitBreaker(provider).getState();
+        return state == CircuitBreaker.State.OPEN || state == CircuitBreaker.State.FORCED_OPEN;
+    }
+
+    private void record(String provider, String outcome, long elapsedNanos) {
+        Timer.builder("communications.provider.call")
+                .description("Outbound provider call latency")
+                .tag("provider", provider)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @FunctionalInterface
+    public interface ProviderCall<T> {
+        T call() throws MessageSendException;
+    }
+}
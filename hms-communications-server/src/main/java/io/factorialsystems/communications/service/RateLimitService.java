@@ -1,77 +1,141 @@
 package io.factorialsystems.communications.service;
 
 import io.factorialsystems.communications.model.entity.TenantSettings;
+import io.factorialsystems.communications.model.enums.MessageType;
 import io.factorialsystems.communications.repository.TenantSettingsRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Per-tenant daily quotas. Redis holds the authoritative counters (see {@link RedisRateLimiter});
+ * the counters on {@code tenant_settings} are a periodically flushed copy for reporting.
+ * <p>
+ * Callers pick the quota day and keep it on the message ({@code quota_day}), so quota given
+ * back after midnight returns to the day it was taken from.
+ */
 @Slf4j
 @Service
-@Transactional
 @RequiredArgsConstructor
 public class RateLimitService {
 
     private final TenantSettingsService tenantSettingsService;
     private final TenantSettingsRepository settingsRepository;
+    private final RedisRateLimiter rateLimiter;
 
-    public boolean checkEmailLimit(UUID tenantId) {
+    private final Set<TenantDay> dirtyCounters = ConcurrentHashMap.newKeySet();
+
+    public boolean reserveEmail(UUID tenantId, int count, LocalDate day) {
         TenantSettings settings = tenantSettingsService.getOrCreateSettings(tenantId);
-        resetIfNewDay(settings);
-        boolean withinLimit = settings.getEmailsSentToday() < settings.getDailyEmailLimit();
+        boolean reserved = rateLimiter.tryReserve(MessageType.EMAIL, tenantId, count, settings.getDailyEmailLimit(), day);
 
-        if (!withinLimit) {
-            log.warn("Email rate limit exceeded for tenant: {} ({}/{})",
-                    tenantId, settings.getEmailsSentToday(), settings.getDailyEmailLimit());
+        if (!reserved) {
+            log.warn("Email rate limit exceeded for tenant: {} (requested: {}, limit: {})",
+                    tenantId, count, settings.getDailyEmailLimit());
+        } else {
+            markDirty(tenantId, day);
+            releaseOnRollback(MessageType.EMAIL, tenantId, count, day);
         }
 
-        return withinLimit;
+        return reserved;
     }
 
-    public boolean checkSmsLimit(UUID tenantId) {
+    public boolean reserveSms(UUID tenantId, int count, LocalDate day) {
         TenantSettings settings = tenantSettingsService.getOrCreateSettings(tenantId);
-        resetIfNewDay(settings);
-        boolean withinLimit = settings.getSmsSentToday() < settings.getDailySmsLimit();
+        boolean reserved = rateLimiter.tryReserve(MessageType.SMS, tenantId, count, settings.getDailySmsLimit(), day);
 
-        if (!withinLimit) {
-            log.warn("SMS rate limit exceeded for tenant: {} ({}/{})",
-                    tenantId, settings.getSmsSentToday(), settings.getDailySmsLimit());
+        if (!reserved) {
+            log.warn("SMS rate limit exceeded for tenant: {} (requested: {}, limit: {})",
+                    tenantId, count, settings.getDailySmsLimit());
+        } else {
+            markDirty(tenantId, day);
+            releaseOnRollback(MessageType.SMS, tenantId, count, day);
         }
 
-        return withinLimit;
+        return reserved;
     }
 
-    public void incrementEmailCount(UUID tenantId) {
-        TenantSettings settings = tenantSettingsService.getOrCreateSettings(tenantId);
-        settings.setEmailsSentToday(settings.getEmailsSentToday() + 1);
-        settingsRepository.save(settings);
-        log.debug("Email count incremented for tenant: {} (now: {})",
-                tenantId, settings.getEmailsSentToday());
+    /**
+     * Gives back {@code count} units reserved on {@code day}.
+     */
+    public void releaseEmail(UUID tenantId, int count, LocalDate day) {
+        rateLimiter.release(MessageType.EMAIL, tenantId, count, day);
+        markDirty(tenantId, day);
+        log.debug("Released {} email unit(s) of {} for tenant: {}", count, day, tenantId);
     }
 
-    public void incrementSmsCount(UUID tenantId) {
-        TenantSettings settings = tenantSettingsService.getOrCreateSettings(tenantId);
-        settings.setSmsSentToday(settings.getSmsSentToday() + 1);
-        settingsRepository.save(settings);
-        log.debug("SMS count incremented for tenant: {} (now: {})",
-                tenantId, settings.getSmsSentToday());
+    /**
+     * Gives back {@code count} units reserved on {@code day}.
+     */
+    public void releaseSms(UUID tenantId, int count, LocalDate day) {
+        rateLimiter.release(MessageType.SMS, tenantId, count, day);
+        markDirty(tenantId, day);
+        log.debug("Released {} SMS unit(s) of {} for tenant: {}", count, day, tenantId);
     }
 
-    private void resetIfNewDay(TenantSettings settings) {
-        LocalDate today = LocalDate.now();
-        LocalDate resetDate = settings.getLimitResetDate().toLocalDate();
+    /**
+     * Copies the Redis counters of recently active tenants onto {@code tenant_settings}
+     * with a targeted UPDATE, instead of rewriting the row on every send. Each tenant is
+     * written in its own short transaction; one that fails stays dirty for the next flush.
+     */
+    @Scheduled(fixedDelayString = "${hms.communications.rate-limit.flush-interval-ms:60000}")
+    public void flushCounters() {
+        if (dirtyCounters.isEmpty()) {
+            return;
+        }
 
-        if (resetDate.isBefore(today)) {
-            log.info("Resetting daily counters for tenant: {}", settings.getTenantId());
-            settings.setEmailsSentToday(0);
-            settings.setSmsSentToday(0);
-            settings.setLimitResetDate(LocalDateTime.now());
-            settingsRepository.save(settings);
+        int flushed = 0;
+        for (TenantDay entry : List.copyOf(dirtyCounters)) {
+            // Cleared before reading, so a send marking it again meanwhile is not lost
+            dirtyCounters.remove(entry);
+            try {
+                int emails = (int) rateLimiter.usage(MessageType.EMAIL, entry.tenantId(), entry.day());
+                int sms = (int) rateLimiter.usage(MessageType.SMS, entry.tenantId(), entry.day());
+                settingsRepository.updateDailyCounters(entry.tenantId(), emails, sms, entry.day().atStartOfDay());
+                flushed++;
+            } catch (Exception e) {
+                dirtyCounters.add(entry);
+                log.warn("Failed to flush daily counters for tenant {}, retrying next interval: {}",
+                        entry.tenantId(), e.getMessage());
+            }
         }
+
+        log.debug("Flushed daily counters for {} tenant(s)", flushed);
+    }
+
+    /**
+     * Quota lives in Redis and is not part of the database transaction, so a reservation made
+     * inside a transaction that later rolls back is handed back explicitly.
+     */
+    private void releaseOnRollback(MessageType channel, UUID tenantId, int count, LocalDate day) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    rateLimiter.release(channel, tenantId, count, day);
+                    log.debug("Released {} {} unit(s) for tenant {} after rollback", count, channel, tenantId);
+                }
+            }
+        });
+    }
+
+    private void markDirty(UUID tenantId, LocalDate day) {
+        dirtyCounters.add(new TenantDay(tenantId, day));
+    }
+
+    private record TenantDay(UUID tenantId, LocalDate day) {
     }
 }
@@ -0,0 +1,102 @@
+package io.factorialsystems.communications.service;
+
+import io.factorialsystems.communications.model.enums.MessageType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Day-bucketed quota counters in Redis. Checking and reserving quota happens in a single
+ * Lua script, so concurrent consumers and instances can never overshoot a tenant's limit.
+ * Buckets expire on their own a day after they stop being current.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RedisRateLimiter {
+
+    private static final String KEY_PREFIX = "hms:ratelimit:";
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final Duration BUCKET_TTL = Duration.ofDays(2);
+
+    /**
+     * KEYS[1] = bucket, ARGV[1] = units, ARGV[2] = limit, ARGV[3] = ttl seconds.
+     * Returns the new usage, or -1 when the reservation would exceed the limit.
+     */
+    private static final RedisScript<Long> RESERVE_SCRIPT = new DefaultRedisScript<>("""
+            local units = tonumber(ARGV[1])
+            local used = tonumber(redis.call('GET', KEYS[1]) or '0')
+            if used + units > tonumber(ARGV[2]) then
+                return -1
+            end
+            used = redis.call('INCRBY', KEYS[1], units)
+            if redis.call('TTL', KEYS[1]) < 0 then
+                redis.call('EXPIRE', KEYS[1], ARGV[3])
+            end
+            return used
+            """, Long.class);
+
+    /**
+     * KEYS[1] = bucket, ARGV[1] = units. Gives back reserved units without going below zero.
+     */
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+                return 0
+            end
+            local used = redis.call('DECRBY', KEYS[1], tonumber(ARGV[1]))
+            if used < 0 then
+                redis.call('SET', KEYS[1], 0, 'KEEPTTL')
+                return 0
+            end
+            return used
+            """, Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ResourceGovernor resourceGovernor;
+
+    /**
+     * Atomically reserves {@code units} of the quota for {@code day}, normally today.
+     *
+     * @return true if the units were reserved, false if the limit would be exceeded
+     */
+    public boolean tryReserve(MessageType channel, UUID tenantId, int units, int limit, LocalDate day) {
+        Long used = resourceGovernor.call(ResourceGovernor.Resource.REDIS, () -> stringRedisTemplate.execute(
+                RESERVE_SCRIPT, List.of(bucketKey(channel, tenantId, day)),
+                String.valueOf(units), String.valueOf(limit), String.valueOf(BUCKET_TTL.toSeconds())));
+
+        if (used == null || used < 0) {
+            return false;
+        }
+
+        log.debug("Reserved {} {} unit(s) for tenant: {} (now: {}/{})", units, channel, tenantId, used, limit);
+        return true;
+    }
+
+    /**
+     * Returns previously reserved units to the bucket of {@code day}, the day they were
+     * reserved, e.g. when a send ultimately fails. A bucket that has already expired is left alone.
+     */
+    public void release(MessageType channel, UUID tenantId, int units, LocalDate day) {
+        resourceGovernor.call(ResourceGovernor.Resource.REDIS, () -> stringRedisTemplate.execute(
+                RELEASE_SCRIPT, List.of(bucketKey(channel, tenantId, day)), String.valueOf(units)));
+    }
+
+    public long usage(MessageType channel, UUID tenantId, LocalDate day) {
+        String value = resourceGovernor.call(ResourceGovernor.Resource.REDIS,
+                () -> stringRedisTemplate.opsForValue().get(bucketKey(channel, tenantId, day)));
+        return value != null ? Long.parseLong(value) : 0L;
+    }
+
+    private String bucketKey(MessageType channel, UUID tenantId, LocalDate day) {
+        return KEY_PREFIX + channel.name().toLowerCase() + ":" + tenantId + ":" + DAY_FORMAT.format(day);
+    }
+}
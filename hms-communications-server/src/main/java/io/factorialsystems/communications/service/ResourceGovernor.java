@@ -0,0 +1,160 @@
+package io.factorialsystems.communications.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.exception.ResourceBusyException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Per-resource permits for work running on virtual threads. Virtual threads are not a limited
+ * resource, so without these every request and queue message would go straight for the
+ * connection pool or provider and wait there (up to Hikari's 30s connection timeout) instead
+ * of being held back. Permits are sized from the pools behind each resource:
+ * <ul>
+ *   <li>{@code database}: Hikari's maximum pool size less {@code concurrency.database-reserve},
+ *   which is left for the dispatcher and scheduled jobs</li>
+ *   <li>{@code provider}: {@code provider.max-concurrent-calls}, the Brevo bulkhead size</li>
+ *   <li>{@code redis}: {@code concurrency.redis-permits}. Lettuce runs without a pool and shares
+ *   one multiplexed connection, so this bounds commands in flight rather than connections</li>
+ * </ul>
+ * Request paths wait up to {@code concurrency.acquire-timeout} and are then shed with
+ * {@link ResourceBusyException}; executor tasks wait as long as it takes, since their
+ * submitters already bound how many can be queued.
+ */
+@Slf4j
+@Component
+public class ResourceGovernor {
+
+    private final Map<Resource, Semaphore> permits = new EnumMap<>(Resource.class);
+    private final Map<Resource, Timer> acquiredWaits = new EnumMap<>(Resource.class);
+    private final Map<Resource, Timer> timedOutWaits = new EnumMap<>(Resource.class);
+    private final Duration acquireTimeout;
+
+    public ResourceGovernor(DataSource dataSource,
+                            CommunicationsProperties properties,
+                            MeterRegistry meterRegistry) {
+        CommunicationsProperties.Concurrency config = properties.getConcurrency();
+        this.acquireTimeout = config.getAcquireTimeout();
+
+        int poolSize = dataSource instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize() : 10;
+        Map<Resource, Integer> limits = new EnumMap<>(Resource.class);
+        limits.put(Resource.DATABASE, Math.max(1, poolSize - config.getDatabaseReserve()));
+        limits.put(Resource.PROVIDER, properties.getProvider().getMaxConcurrentCalls());
+        limits.put(Resource.REDIS, config.getRedisPermits());
+
+        limits.forEach((resource, limit) -> {
+            Semaphore semaphore = new Semaphore(limit, true);
+            permits.put(resource, semaphore);
+
+            Gauge.builder("communications.concurrency.permits.in.use", semaphore, s -> limit - s.availablePermits())
+                    .description("Permits held for a shared resource")
+                    .tag("resource", resource.getTag())
+                    .register(meterRegistry);
+            Gauge.builder("communications.concurrency.permits.limit", () -> limit)
+                    .description("Permits available for a shared resource")
+                    .tag("resource", resource.getTag())
+                    .register(meterRegistry);
+
+            acquiredWaits.put(resource, waitTimer(meterRegistry, resource, "acquired"));
+            timedOutWaits.put(resource, waitTimer(meterRegistry, resource, "timed_out"));
+        });
+
+        log.info("Concurrency limits: {}", limits);
+    }
+
+    /**
+     * Takes a permit for {@code resource}, waiting up to {@code concurrency.acquire-timeout}.
+     * Every successful call must be paired with {@link #release(Resource)}.
+     *
+     * @throws ResourceBusyException if no permit became free in time
+     */
+    public void acquire(Resource resource) {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.get(resource).tryAcquire(acquireTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResourceBusyException("Interrupted waiting for " + resource.getTag(), acquireTimeout);
+        }
+
+        long waited = System.nanoTime() - start;
+        if (!acquired) {
+            timedOutWaits.get(resource).record(waited, TimeUnit.NANOSECONDS);
+            throw new ResourceBusyException("No free " + resource.getTag() + " permit within " + acquireTimeout,
+                    acquireTimeout);
+        }
+        acquiredWaits.get(resource).record(waited, TimeUnit.NANOSECONDS);
+    }
+
+    public void release(Resource resource) {
+        permits.get(resource).release();
+    }
+
+    /**
+     * Runs {@code work} holding a {@code resource} permit, waiting up to
+     * {@code concurrency.acquire-timeout} for one.
+     */
+    public <T> T call(Resource resource, Supplier<T> work) {
+        acquire(resource);
+        try {
+            return work.get();
+        } finally {
+            release(resource);
+        }
+    }
+
+    /**
+     * Runs {@code work} once a {@code resource} permit is free, however long that takes.
+     * For executor tasks: the waiting is done by the task's own virtual thread, not a carrier.
+     */
+    public void runWhenFree(Resource resource, Runnable work) {
+        Semaphore semaphore = permits.get(resource);
+        long start = System.nanoTime();
+        try {
+            semaphore.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResourceBusyException("Interrupted waiting for " + resource.getTag(), acquireTimeout);
+        }
+        acquiredWaits.get(resource).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        try {
+            work.run();
+        } finally {
+            semaphore.release();
+        }
+    }
+
+    private static Timer waitTimer(MeterRegistry meterRegistry, Resource resource, String outcome) {
+        return Timer.builder("communications.concurrency.wait")
+                .description("Time spent waiting for a resource permit")
+                .tag("resource", resource.getTag())
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public enum Resource {
+        DATABASE("database"),
+        PROVIDER("provider"),
+        REDIS("redis");
+
+        private final String tag;
+    }
+}
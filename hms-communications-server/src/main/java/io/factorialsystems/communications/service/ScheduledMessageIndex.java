@@ -0,0 +1,170 @@
+package io.factorialsystems.communications.service;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.exception.BusinessException;
+import io.factorialsystems.communications.repository.ScheduledMessageRef;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Redis index of scheduled messages: one sorted set per channel, scored by due time in epoch
+ * millis. Only messages due within {@code scheduler.horizon} are indexed, so memory follows
+ * the near-term send rate rather than the number of pending reminders. Postgres remains the
+ * record of what is scheduled; anything missing from the index is re-added by
+ * {@link ScheduledMessagePoller}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ScheduledMessageIndex {
+
+    private static final String KEY_PREFIX = "hms:scheduled:";
+    private static final String LOADER_LOCK_KEY = KEY_PREFIX + "loader-lock";
+
+    /**
+     * KEYS[1] = index, ARGV[1] = now (epoch millis), ARGV[2] = max members.
+     * Removes and returns due members in one step, so each is claimed by exactly one poller.
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> CLAIM_SCRIPT = new DefaultRedisScript<>("""
+            local due = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, tonumber(ARGV[2]))
+            if #due > 0 then
+                redis.call('ZREM', KEYS[1], unpack(due))
+            end
+            return due
+            """, List.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ResourceGovernor resourceGovernor;
+    private final CommunicationsProperties properties;
+
+    /**
+     * The server-local due time for {@code sendAt}, or null when the message should go out
+     * straight away (no {@code sendAt}, or one that has already passed).
+     *
+     * @throws BusinessException if {@code sendAt} is further out than {@code scheduler.max-delay}
+     */
+    public LocalDateTime dueTime(OffsetDateTime sendAt) {
+        if (sendAt == null) {
+            return null;
+        }
+
+        Instant due = sendAt.toInstant();
+        Instant now = Instant.now();
+        if (!due.isAfter(now)) {
+            return null;
+        }
+
+        Duration maxDelay = properties.getScheduler().getMaxDelay();
+        if (due.isAfter(now.plus(maxDelay))) {
+            throw new BusinessException("sendAt must be within " + maxDelay.toDays() + " days");
+        }
+        return LocalDateTime.ofInstant(due, ZoneId.systemDefault());
+    }
+
+    /**
+     * Indexes a message once the current transaction commits, if it falls due within the
+     * horizon; later messages are indexed by the poller's loader as the horizon reaches them.
+     */
+    public void addAfterCommit(String channel, UUID messageId, LocalDateTime scheduledAt) {
+        if (!scheduledAt.isBefore(LocalDateTime.now().plus(properties.getScheduler().getHorizon()))) {
+            return;
+        }
+
+        List<ScheduledMessageRef> refs = List.of(new ScheduledMessageRef(messageId, scheduledAt));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            add(channel, refs);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    add(channel, refs);
+                } catch (RuntimeException e) {
+                    // Still SCHEDULED in the database; the poller's sweep indexes it
+                    log.warn("Could not index scheduled {} message {}: {}", channel, messageId, e.getMessage());
+                }
+            }
+        });
+    }
+
+    public void add(String channel, List<ScheduledMessageRef> refs) {
+        if (refs.isEmpty()) {
+            return;
+        }
+
+        Set<ZSetOperations.TypedTuple<String>> members = new HashSet<>(refs.size());
+        for (ScheduledMessageRef ref : refs) {
+            members.add(ZSetOperations.TypedTuple.of(ref.id().toString(), (double) epochMillis(ref.scheduledAt())));
+        }
+        resourceGovernor.call(ResourceGovernor.Resource.REDIS,
+                () -> redisTemplate.opsForZSet().add(key(channel), members));
+    }
+
+    /**
+     * Removes and returns up to {@code limit} messages that are due now.
+     */
+    public List<UUID> claimDue(String channel, int limit) {
+        List<?> due = resourceGovernor.call(ResourceGovernor.Resource.REDIS, () -> redisTemplate.execute(
+                CLAIM_SCRIPT, List.of(key(channel)), String.valueOf(System.currentTimeMillis()), String.valueOf(limit)));
+
+        if (due == null || due.isEmpty()) {
+            return List.of();
+        }
+        return due.stream().map(member -> UUID.fromString(member.toString())).toList();
+    }
+
+    public long size(String channel) {
+        Long size = redisTemplate.opsForZSet().zCard(key(channel));
+        return size != null ? size : 0L;
+    }
+
+    /**
+     * Upper bound of the last load into the index, if the index has been loaded since Redis
+     * last lost its data.
+     */
+    public Optional<LocalDateTime> loadedUntil(String channel) {
+        String value = redisTemplate.opsForValue().get(key(channel) + ":loaded-until");
+        return Optional.ofNullable(value)
+                .map(millis -> LocalDateTime.ofInstant(Instant.ofEpochMilli(Long.parseLong(millis)), ZoneId.systemDefault()));
+    }
+
+    public void setLoadedUntil(String channel, LocalDateTime until) {
+        redisTemplate.opsForValue().set(key(channel) + ":loaded-until", String.valueOf(epochMillis(until)));
+    }
+
+    /**
+     * Lets one instance run the loader per {@code hold}; the lock is never released early.
+     */
+    public boolean tryLockLoader(Duration hold) {
+        return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(LOADER_LOCK_KEY, "1", hold));
+    }
+
+    private static String key(String channel) {
+        return KEY_PREFIX + channel;
+    }
+
+    private static long epochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,157 @@
+package io.factorialsystems.communications.service;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.model.enums.MessageStatus;
+import io.factorialsystems.communications.repository.EmailMessageRepository;
+import io.factorialsystems.communications.repository.ScheduledMessageRef;
+import io.factorialsystems.communications.repository.SmsMessageRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.ToIntFunction;
+
+/**
+ * Moves scheduled messages onto the normal dispatch path when they fall due.
+ * <ul>
+ *   <li>{@link #releaseDue()} claims due ids from {@link ScheduledMessageIndex} in batches and
+ *   releases them in one transaction per batch: the rows go from SCHEDULED to PENDING and are
+ *   handed to the outbox or the SMS dispatcher. The index claim is atomic and the release only
+ *   takes rows that are still SCHEDULED, so several instances never send a message twice.</li>
+ *   <li>{@link #loadIndex()} runs on one instance per {@code scheduler.load-interval-ms}. It
+ *   indexes the rows coming due within the horizon, and re-indexes rows overdue by more than
+ *   {@code scheduler.grace}, which were claimed by an instance that died before releasing them
+ *   or never reached the index.</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ScheduledMessagePoller {
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final ScheduledMessageIndex index;
+    private final EmailOutboxService emailOutboxService;
+    private final SmsService smsService;
+    private final EmailMessageRepository emailMessageRepository;
+    private final SmsMessageRepository smsMessageRepository;
+    private final CommunicationsProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    @PostConstruct
+    public void registerMetrics() {
+        for (String channel : List.of(PipelineMetrics.EMAIL, PipelineMetrics.SMS)) {
+            Gauge.builder("communications.scheduler.indexed", () -> index.size(channel))
+                    .description("Scheduled messages in the Redis index")
+                    .tag("channel", channel)
+                    .register(meterRegistry);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${hms.communications.scheduler.poll-interval-ms:1000}")
+    public void releaseDue() {
+        release(PipelineMetrics.EMAIL, emailOutboxService::releaseScheduled);
+        release(PipelineMetrics.SMS, smsService::releaseScheduled);
+    }
+
+    @Scheduled(fixedDelayString = "${hms.communications.scheduler.load-interval-ms:60000}")
+    public void loadIndex() {
+        CommunicationsProperties.Scheduler config = properties.getScheduler();
+        if (!index.tryLockLoader(Duration.ofMillis(config.getLoadIntervalMs()))) {
+            return;
+        }
+
+        load(PipelineMetrics.EMAIL, emailMessageRepository::findByStatusAndScheduledAtBetweenOrderByScheduledAtAscIdAsc);
+        load(PipelineMetrics.SMS, smsMessageRepository::findByStatusAndScheduledAtBetweenOrderByScheduledAtAscIdAsc);
+    }
+
+    private void release(String channel, ToIntFunction<List<UUID>> releaser) {
+        int batchSize = properties.getScheduler().getBatchSize();
+        List<UUID> due;
+
+        // Keep releasing while full batches come back, then wait for the next poll
+        do {
+            try {
+                due = index.claimDue(channel, batchSize);
+            } catch (RuntimeException e) {
+                log.warn("Could not claim due scheduled {} messages: {}", channel, e.getMessage());
+                return;
+            }
+            if (due.isEmpty()) {
+                return;
+            }
+
+            try {
+                int released = releaser.applyAsInt(due);
+                meterRegistry.counter("communications.scheduler.released", "channel", channel).increment(released);
+
+                log.debug("Released {} of {} due scheduled {} message(s)", released, due.size(), channel);
+            } catch (RuntimeException e) {
+                // The ids have left the index but are still SCHEDULED; the sweep re-indexes them
+                log.error("Failed to release {} scheduled {} message(s): {}", due.size(), channel, e.getMessage(), e);
+                return;
+            }
+        } while (due.size() == batchSize);
+    }
+
+    private void load(String channel, ScheduledFinder finder) {
+        CommunicationsProperties.Scheduler config = properties.getScheduler();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime until = now.plus(config.getHorizon());
+
+        try {
+            // Start one interval before the last load, to catch rows committed while it ran
+            LocalDateTime from = index.loadedUntil(channel)
+                    .map(loaded -> loaded.minus(Duration.ofMillis(config.getLoadIntervalMs())))
+                    .orElse(EPOCH);
+            int upcoming = copy(channel, finder, from, until);
+            index.setLoadedUntil(channel, until);
+
+            int overdue = copy(channel, finder, EPOCH, now.minus(config.getGrace()));
+            if (overdue > 0) {
+                log.warn("Re-indexed {} overdue scheduled {} message(s)", overdue, channel);
+            }
+
+            log.debug("Indexed {} scheduled {} message(s) due before {}", upcoming, channel, until);
+        } catch (RuntimeException e) {
+            log.error("Failed to load the scheduled {} index: {}", channel, e.getMessage(), e);
+        }
+    }
+
+    private int copy(String channel, ScheduledFinder finder, LocalDateTime from, LocalDateTime to) {
+        Limit pageSize = Limit.of(properties.getScheduler().getBatchSize());
+        ScrollPosition position = ScrollPosition.keyset();
+        int copied = 0;
+
+        Window<ScheduledMessageRef> page;
+        do {
+            page = finder.find(MessageStatus.SCHEDULED, from, to, position, pageSize);
+            index.add(channel, page.getContent());
+            copied += page.size();
+
+            if (!page.isEmpty()) {
+                position = page.positionAt(page.size() - 1);
+            }
+        } while (page.hasNext());
+
+        return copied;
+    }
+
+    @FunctionalInterface
+    private interface ScheduledFinder {
+        Window<ScheduledMessageRef> find(MessageStatus status, LocalDateTime from, LocalDateTime to,
+                                         ScrollPosition position, Limit limit);
+    }
+}
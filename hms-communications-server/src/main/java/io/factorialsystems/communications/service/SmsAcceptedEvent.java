@@ -0,0 +1,10 @@
+package io.factorialsystems.communications.service;
+
+import io.factorialsystems.communications.model.entity.SmsMessage;
+
+/**
+ * Published when an SMS has been persisted as PENDING; {@link SmsDispatcher} sends it once
+ * the accepting transaction has committed.
+ */
+public record SmsAcceptedEvent(SmsMessage message) {
+}
@@ -0,0 +1,126 @@
+package io.factorialsystems.communications.service;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.model.entity.SmsMessage;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends accepted SMS through the configured {@link SmsProvider}. Provider calls are
+ * asynchronous and capped at {@code sms.max-in-flight} per instance; a caller that finds no
+ * free slot waits up to {@code sms.acquire-timeout}, which pushes back on the queue consumer.
+ * Results are recorded in short transactions in {@link SmsService}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SmsDispatcher {
+
+    private final SmsProvider smsProvider;
+    private final SmsService smsService;
+    private final CommunicationsProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    @Qualifier("smsDispatchExecutor")
+    private final AsyncTaskExecutor smsDispatchExecutor;
+
+    private Semaphore inFlight;
+
+    @PostConstruct
+    public void init() {
+        int maxInFlight = properties.getSms().getMaxInFlight();
+        inFlight = new Semaphore(maxInFlight);
+
+        Gauge.builder("communications.sms.in.flight", () -> maxInFlight - inFlight.availablePermits())
+                .description("SMS provider calls awaiting a response")
+                .register(meterRegistry);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onAccepted(SmsAcceptedEvent event) {
+        dispatch(event.message());
+    }
+
+    /**
+     * Picks up messages still pending after {@code sms.redispatch-after}: failed attempts
+     * due for a retry, and sends that never started or whose instance went away.
+     */
+    @Scheduled(fixedDelayString = "${hms.communications.sms.redispatch-after:1m}")
+    public void redispatchStale() {
+        LocalDateTime staleBefore = LocalDateTime.now().minus(properties.getSms().getRedispatchAfter());
+        List<UUID> stale = smsService.findStalePending(staleBefore, properties.getSms().getMaxInFlight());
+
+        for (UUID id : stale) {
+            smsService.claimForRedispatch(id, staleBefore).ifPresent(this::dispatch);
+        }
+
+        if (!stale.isEmpty()) {
+            log.info("Redispatched up to {} pending SMS", stale.size());
+        }
+    }
+
+    private void dispatch(SmsMessage message) {
+        try {
+            if (!inFlight.tryAcquire(properties.getSms().getAcquireTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("No free SMS send slot, message {} left for redispatch", message.getId());
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        CompletableFuture<String> send;
+        try {
+            send = smsProvider.send(message);
+        } catch (RuntimeException e) {
+            send = CompletableFuture.failedFuture(e);
+        }
+
+        send.whenCompleteAsync((providerId, error) -> {
+            try {
+                record(message, providerId, error);
+            } finally {
+                inFlight.release();
+                sample.stop(meterRegistry.timer("communications.provider.call",
+                        "provider", smsProvider.getName(), "outcome", error == null ? "success" : "failure"));
+            }
+        }, smsDispatchExecutor);
+    }
+
+    private void record(SmsMessage message, String providerId, Throwable error) {
+        try {
+            if (error == null) {
+                smsService.recordSent(message, smsProvider.getName(), providerId);
+                log.info("SMS {} sent for tenant {}", message.getId(), message.getTenantId());
+                return;
+            }
+
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            smsService.recordFailure(message, smsProvider.getName(), String.valueOf(cause.getMessage()));
+
+        } catch (Exception e) {
+            // The message stays pending and is redispatched after sms.redispatch-after
+            log.error("Failed to record the result of SMS {}: {}", message.getId(), e.getMessage(), e);
+        }
+    }
+}
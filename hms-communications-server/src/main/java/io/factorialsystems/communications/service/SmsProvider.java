@@ -0,0 +1,20 @@
+package io.factorialsystems.communications.service;
+
+import io.factorialsystems.communications.model.entity.SmsMessage;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends one SMS. Implementations must not block the caller: the returned future completes
+ * with the provider's message id, or exceptionally (usually with a
+ * {@link io.factorialsystems.communications.exception.MessageSendException}).
+ */
+public interface SmsProvider {
+
+    /**
+     * Provider name recorded on delivery logs, e.g. {@code twilio}.
+     */
+    String getName();
+
+    CompletableFuture<String> send(SmsMessage message);
+}
@@ -1,21 +1,37 @@
 package io.factorialsystems.communications.service;
 
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.exception.DuplicateRequestException;
 import io.factorialsystems.communications.exception.RateLimitExceededException;
+import io.factorialsystems.communications.exception.RequestInProgressException;
 import io.factorialsystems.communications.exception.ResourceNotFoundException;
 import io.factorialsystems.communications.mapper.SmsMessageMapper;
+import io.factorialsystems.communications.model.dto.request.PageCursor;
 import io.factorialsystems.communications.model.dto.request.SendSmsRequest;
+import io.factorialsystems.communications.model.dto.response.CursorPage;
 import io.factorialsystems.communications.model.dto.response.SmsMessageResponse;
 import io.factorialsystems.communications.model.entity.SmsMessage;
 import io.factorialsystems.communications.model.entity.TenantSettings;
 import io.factorialsystems.communications.model.enums.MessageStatus;
+import io.factorialsystems.communications.model.enums.MessageType;
 import io.factorialsystems.communications.repository.SmsMessageRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 @Slf4j
@@ -26,17 +42,38 @@ public class SmsService {
 
     private final SmsMessageRepository smsMessageRepository;
     private final RateLimitService rateLimitService;
+    private final IdempotencyService idempotencyService;
     private final TenantSettingsService tenantSettingsService;
     private final SmsMessageMapper smsMessageMapper;
+    private final DeliveryLogService deliveryLogService;
+    private final CommunicationsProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PipelineMetrics pipelineMetrics;
+    private final ScheduledMessageIndex scheduledMessageIndex;
+    private final MessageStatsService messageStatsService;
 
     public SmsMessageResponse sendSms(UUID tenantId, SendSmsRequest request) {
-        // Check rate limit
-        if (!rateLimitService.checkSmsLimit(tenantId)) {
+        LocalDateTime scheduledAt = scheduledMessageIndex.dueTime(request.getSendAt());
+
+        // A repeated idempotency key gets the original message back without a second send
+        String idempotencyKey = request.getIdempotencyKey();
+        if (idempotencyKey != null && !pipelineMetrics.time(PipelineMetrics.SMS, "idempotency",
+                () -> idempotencyService.claim(IdempotencyService.SMS, tenantId, idempotencyKey))) {
+            return smsMessageRepository.findByTenantIdAndIdempotencyKey(tenantId, idempotencyKey)
+                    .map(smsMessageMapper::toResponse)
+                    .orElseThrow(() -> new RequestInProgressException(
+                            "A request with this idempotency key is still being processed"));
+        }
+
+        // Reserve quota
+        LocalDate quotaDay = LocalDate.now();
+        if (!pipelineMetrics.time(PipelineMetrics.SMS, "rate_limit", () -> rateLimitService.reserveSms(tenantId, 1, quotaDay))) {
             throw new RateLimitExceededException("Daily SMS limit exceeded for tenant");
         }
 
         // Get tenant settings for defaults
-        TenantSettings settings = tenantSettingsService.getOrCreateSettings(tenantId);
+        TenantSettings settings = pipelineMetrics.time(PipelineMetrics.SMS, "settings",
+                () -> tenantSettingsService.getOrCreateSettings(tenantId));
 
         // Use tenant default if not provided in request
         String fromPhone = request.getFromPhone() != null
@@ -49,28 +86,113 @@ public class SmsService {
                 .toPhone(request.getToPhone())
                 .fromPhone(fromPhone)
                 .message(request.getMessage())
-                .status(MessageStatus.PENDING)
+                .status(scheduledAt != null ? MessageStatus.SCHEDULED : MessageStatus.PENDING)
+                .scheduledAt(scheduledAt)
+                .quotaDay(quotaDay)
                 .retryCount(0)
+                .idempotencyKey(idempotencyKey)
                 .build();
 
-        message = smsMessageRepository.save(message);
+        SmsMessage saved;
+        try {
+            saved = pipelineMetrics.time(PipelineMetrics.SMS, "persist", () -> idempotencyKey != null
+                    ? smsMessageRepository.saveAndFlush(message)
+                    : smsMessageRepository.save(message));
+        } catch (DataIntegrityViolationException e) {
+            // Redis lost the claim but the unique index still knows the key
+            throw new DuplicateRequestException("A message with this idempotency key already exists", e);
+        }
 
-        log.info("SMS stub: Would send to {} from tenant {} (message: {})",
-                request.getToPhone(), tenantId, request.getMessage());
+        pipelineMetrics.timeCommit(PipelineMetrics.SMS);
+        messageStatsService.record(MessageType.SMS, tenantId, saved.getStatus(), 1);
 
-        // TODO: Implement Twilio integration
-        // For now, just log and return pending status
-        // Future implementation:
-        // 1. Initialize Twilio client with account SID and auth token
-        // 2. Call Twilio API to send SMS
-        // 3. Update message status to SENT
-        // 4. Store provider SID
-        // 5. Log delivery event
-        // 6. Increment rate limit counter
+        if (scheduledAt != null) {
+            // ScheduledMessagePoller hands it to SmsDispatcher when it falls due
+            scheduledMessageIndex.addAfterCommit(PipelineMetrics.SMS, saved.getId(), scheduledAt);
 
-        log.warn("SMS sending is not yet implemented. Message saved with PENDING status.");
+            log.info("SMS {} for tenant {} to {} scheduled for {}", saved.getId(), tenantId, request.getToPhone(), scheduledAt);
+        } else {
+            // Sent by SmsDispatcher once this transaction commits
+            eventPublisher.publishEvent(new SmsAcceptedEvent(saved));
 
-        return smsMessageMapper.toResponse(message);
+            log.info("SMS {} accepted for tenant {} to {}", saved.getId(), tenantId, request.getToPhone());
+        }
+
+        return smsMessageMapper.toResponse(saved);
+    }
+
+    /**
+     * Moves scheduled messages that have fallen due to PENDING; each is sent by
+     * {@link SmsDispatcher} once this transaction commits. Messages no longer SCHEDULED are
+     * skipped, so an id claimed twice from the scheduler index is still sent once.
+     *
+     * @return the number of messages released
+     */
+    public int releaseScheduled(List<UUID> messageIds) {
+        List<SmsMessage> due = smsMessageRepository.findByIdInAndStatus(messageIds, MessageStatus.SCHEDULED);
+        for (SmsMessage message : due) {
+            message.setStatus(MessageStatus.PENDING);
+            eventPublisher.publishEvent(new SmsAcceptedEvent(message));
+            messageStatsService.record(MessageType.SMS, message.getTenantId(), MessageStatus.PENDING, 1);
+        }
+        return due.size();
+    }
+
+    public void recordSent(SmsMessage message, String providerName, String providerId) {
+        int updated = smsMessageRepository.markSent(message.getId(), providerId, LocalDateTime.now());
+
+        if (updated == 1) {
+            deliveryLogService.logSmsSent(message.getId(), message.getTenantId(), providerName, providerId,
+                    Map.of("messageId", providerId, "attempt", message.getRetryCount() + 1));
+            pipelineMetrics.recordCompleted(PipelineMetrics.SMS, message.getTenantId(), readyAt(message), "sent", 1);
+            messageStatsService.record(MessageType.SMS, message.getTenantId(), MessageStatus.SENT, 1);
+        } else {
+            log.warn("SMS {} was no longer pending when its send completed", message.getId());
+        }
+    }
+
+    /**
+     * Leaves the message pending for redispatch, or fails it and gives its quota back once
+     * the configured number of attempts is used up.
+     */
+    public void recordFailure(SmsMessage message, String providerName, String error) {
+        LocalDateTime now = LocalDateTime.now();
+        int attempts = message.getRetryCount() + 1;
+
+        if (attempts >= properties.getMessage().getMaxRetryAttempts()) {
+            if (smsMessageRepository.markFailed(message.getId(), error, now) == 1) {
+                rateLimitService.releaseSms(message.getTenantId(), 1, message.getQuotaDay());
+                deliveryLogService.logSmsFailed(message.getId(), message.getTenantId(), providerName,
+                        Map.of("error", error, "attempts", attempts));
+                pipelineMetrics.recordCompleted(PipelineMetrics.SMS, message.getTenantId(), readyAt(message), "failed", 1);
+                messageStatsService.record(MessageType.SMS, message.getTenantId(), MessageStatus.FAILED, 1);
+            }
+
+            log.error("SMS {} failed after {} attempt(s): {}", message.getId(), attempts, error);
+            return;
+        }
+
+        smsMessageRepository.recordRetry(message.getId(), error, now);
+
+        log.warn("SMS {} attempt {} failed, retrying in {}: {}",
+                message.getId(), attempts, properties.getSms().getRedispatchAfter(), error);
+    }
+
+    @Transactional(readOnly = true)
+    public List<UUID> findStalePending(LocalDateTime staleBefore, int limit) {
+        return smsMessageRepository.findStalePendingIds(staleBefore, Limit.of(limit));
+    }
+
+    /**
+     * Claims a stale pending message for this instance, or empty if another instance got it
+     * first or it has left PENDING in the meantime.
+     */
+    public Optional<SmsMessage> claimForRedispatch(UUID id, LocalDateTime staleBefore) {
+        if (smsMessageRepository.claimForRedispatch(id, staleBefore, LocalDateTime.now()) == 0) {
+            return Optional.empty();
+        }
+
+        return smsMessageRepository.findById(id);
     }
 
     @Transactional(readOnly = true)
@@ -82,6 +204,19 @@ public class SmsService {
         return messages.map(smsMessageMapper::toResponse);
     }
 
+    @Transactional(readOnly = true)
+    public CursorPage<SmsMessageResponse> scrollSms(UUID tenantId, MessageStatus status, String cursor, int limit) {
+        ScrollPosition position = PageCursor.positionAfter(cursor, "createdAt");
+        Window<SmsMessage> window = status != null
+                ? smsMessageRepository.findByTenantIdAndStatusOrderByCreatedAtDescIdDesc(
+                        tenantId, status, position, CursorPage.limit(limit))
+                : smsMessageRepository.findByTenantIdOrderByCreatedAtDescIdDesc(
+                        tenantId, position, CursorPage.limit(limit));
+
+        return CursorPage.of(window, smsMessageMapper::toResponse,
+                message -> new PageCursor(message.getCreatedAt(), message.getId()));
+    }
+
     @Transactional(readOnly = true)
     public SmsMessageResponse getSmsById(UUID id, UUID tenantId) {
         SmsMessage message = smsMessageRepository.findByIdAndTenantId(id, tenantId)
@@ -89,4 +224,9 @@ public class SmsService {
 
         return smsMessageMapper.toResponse(message);
     }
+
+    // End-to-end latency of a scheduled message counts from its due time
+    private static LocalDateTime readyAt(SmsMessage message) {
+        return message.getScheduledAt() != null ? message.getScheduledAt() : message.getCreatedAt();
+    }
 }
@@ -0,0 +1,67 @@
+package io.factorialsystems.communications.service;
+
+import com.rabbitmq.client.Channel;
+import io.factorialsystems.communications.config.RabbitMQConfig;
+import io.factorialsystems.communications.model.dto.request.TenantEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Keeps {@code tenant_settings.subscription_plan}, and with it the tenant's fair-share weight,
+ * in step with the authorization server. Every tenant event carries the tenant's current plan,
+ * so an event that is lost is corrected by the next one.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TenantEventConsumer {
+
+    private static final String TENANT_ID = "tenantId";
+    private static final String SUBSCRIPTION_PLAN = "subscriptionPlan";
+
+    private final TenantSettingsService tenantSettingsService;
+    private final MessagePayloadCodec payloadCodec;
+
+    /**
+     * Unreadable events are rejected without requeue; an event whose update fails is
+     * returned to the queue.
+     */
+    @RabbitListener(queues = RabbitMQConfig.TENANT_EVENTS_QUEUE)
+    public void handleTenantEvent(Message message, Channel channel) throws IOException {
+        long deliveryTag = message.getMessageProperties().getDeliveryTag();
+
+        TenantEvent event;
+        UUID tenantId;
+        try {
+            event = payloadCodec.read(message, TenantEvent.class);
+            tenantId = UUID.fromString(event.getPayload().get(TENANT_ID));
+        } catch (IOException | RuntimeException e) {
+            log.error("Dropping unreadable tenant event: {}", e.getMessage());
+            channel.basicReject(deliveryTag, false);
+            return;
+        }
+
+        String plan = event.getPayload().get(SUBSCRIPTION_PLAN);
+        if (plan == null) {
+            // Published by an authorization server that does not send plans yet
+            log.debug("Tenant event {} for {} has no subscription plan", event.getMessageType(), tenantId);
+            channel.basicAck(deliveryTag, false);
+            return;
+        }
+
+        try {
+            tenantSettingsService.updateSubscriptionPlan(tenantId, plan);
+            channel.basicAck(deliveryTag, false);
+        } catch (RuntimeException e) {
+            log.error("Could not record the plan of tenant {}, returning the event to the queue: {}",
+                    tenantId, e.getMessage());
+            channel.basicNack(deliveryTag, false, true);
+        }
+    }
+}
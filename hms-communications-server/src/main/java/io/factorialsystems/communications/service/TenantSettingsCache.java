@@ -0,0 +1,127 @@
+package io.factorialsystems.communications.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.model.entity.TenantSettings;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Two-tier cache for tenant settings: a bounded Caffeine cache per instance (L1) in front of
+ * the shared Redis "tenantSettings" cache (L2). A send reads settings several times, so most
+ * lookups are answered without a Redis round-trip or JSON deserialization.
+ * <p>
+ * {@link #invalidate(UUID)} evicts both tiers once the surrounding transaction commits and
+ * publishes the tenant id on {@link #INVALIDATION_CHANNEL}; every instance (including this
+ * one) drops its L1 entry when the message arrives.
+ */
+@Slf4j
+@Component
+public class TenantSettingsCache implements MessageListener {
+
+    public static final String CACHE_NAME = "tenantSettings";
+    public static final String INVALIDATION_CHANNEL = "communications:tenant-settings:invalidate";
+
+    private final Cache<UUID, TenantSettings> local;
+    private final org.springframework.cache.Cache shared;
+    private final StringRedisTemplate redisTemplate;
+
+    private final Counter sharedHits;
+    private final Counter sharedMisses;
+    private final Counter invalidations;
+
+    public TenantSettingsCache(CacheManager cacheManager,
+                               StringRedisTemplate redisTemplate,
+                               MeterRegistry meterRegistry,
+                               CommunicationsProperties properties) {
+        CommunicationsProperties.SettingsCache config = properties.getSettingsCache();
+
+        this.local = Caffeine.newBuilder()
+                .maximumSize(config.getLocalMaxSize())
+                .expireAfterWrite(config.getLocalTtl())
+                .recordStats()
+                .build();
+        this.shared = cacheManager.getCache(CACHE_NAME);
+        this.redisTemplate = redisTemplate;
+
+        CaffeineCacheMetrics.monitor(meterRegistry, local, "tenantSettings.local");
+        this.sharedHits = meterRegistry.counter("communications.tenant.settings.cache", "tier", "shared", "result", "hit");
+        this.sharedMisses = meterRegistry.counter("communications.tenant.settings.cache", "tier", "shared", "result", "miss");
+        this.invalidations = meterRegistry.counter("communications.tenant.settings.cache.invalidations");
+    }
+
+    /**
+     * Settings for the tenant from L1, then Redis, then {@code loader}. Loaded values are
+     * written back to both tiers. Concurrent misses for the same tenant share one load.
+     */
+    public TenantSettings get(UUID tenantId, Supplier<TenantSettings> loader) {
+        return local.get(tenantId, id -> {
+            TenantSettings cached = shared.get(id, TenantSettings.class);
+            if (cached != null) {
+                sharedHits.increment();
+                return cached;
+            }
+
+            sharedMisses.increment();
+            TenantSettings loaded = loader.get();
+            shared.put(id, loaded);
+            return loaded;
+        });
+    }
+
+    /**
+     * Evicts the tenant from both tiers on every instance. Deferred until after commit when a
+     * transaction is active, so no instance can reload the old row in between.
+     */
+    public void invalidate(UUID tenantId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evictAndBroadcast(tenantId);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evictAndBroadcast(tenantId);
+            }
+        });
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            local.invalidate(UUID.fromString(body));
+            log.debug("Dropped cached settings for tenant {} on broadcast", body);
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring malformed tenant settings invalidation: {}", body);
+        }
+    }
+
+    private void evictAndBroadcast(UUID tenantId) {
+        local.invalidate(tenantId);
+        invalidations.increment();
+
+        try {
+            shared.evict(tenantId);
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL, tenantId.toString());
+        } catch (Exception e) {
+            log.error("Failed to broadcast settings invalidation for tenant {}, other instances "
+                    + "will refresh within the local TTL: {}", tenantId, e.getMessage());
+        }
+    }
+}
@@ -5,11 +5,11 @@ import io.factorialsystems.communications.model.entity.TenantSettings;
 import io.factorialsystems.communications.repository.TenantSettingsRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Objects;
 import java.util.UUID;
 
 @Slf4j
@@ -20,9 +20,17 @@ public class TenantSettingsService {
 
     private final TenantSettingsRepository settingsRepository;
     private final CommunicationsProperties properties;
+    private final TenantSettingsCache settingsCache;
 
-    @Cacheable(value = "tenantSettings", key = "#tenantId")
+    /**
+     * Cached settings for the tenant. The returned instance is shared between callers and
+     * must not be modified; use {@link #updateSettings} instead.
+     */
     public TenantSettings getOrCreateSettings(UUID tenantId) {
+        return settingsCache.get(tenantId, () -> loadOrCreateSettings(tenantId));
+    }
+
+    private TenantSettings loadOrCreateSettings(UUID tenantId) {
         return settingsRepository.findByTenantId(tenantId)
                 .orElseGet(() -> createDefaultSettings(tenantId));
     }
@@ -48,7 +56,7 @@ public class TenantSettingsService {
     }
 
     public TenantSettings updateSettings(UUID tenantId, TenantSettings updatedSettings) {
-        TenantSettings settings = getOrCreateSettings(tenantId);
+        TenantSettings settings = loadOrCreateSettings(tenantId);
 
         // Update only the settings fields, not the counters
         if (updatedSettings.getDefaultFromEmail() != null) {
@@ -75,7 +83,29 @@ public class TenantSettingsService {
         if (updatedSettings.getEnableClickTracking() != null) {
             settings.setEnableClickTracking(updatedSettings.getEnableClickTracking());
         }
+        if (updatedSettings.getSubscriptionPlan() != null) {
+            settings.setSubscriptionPlan(updatedSettings.getSubscriptionPlan());
+        }
 
-        return settingsRepository.save(settings);
+        TenantSettings saved = settingsRepository.save(settings);
+        settingsCache.invalidate(tenantId);
+        return saved;
+    }
+
+    /**
+     * Records the tenant's subscription plan as sent by the authorization server. Unchanged
+     * plans are not written, so repeated tenant events leave the cached settings alone.
+     */
+    public void updateSubscriptionPlan(UUID tenantId, String subscriptionPlan) {
+        TenantSettings settings = loadOrCreateSettings(tenantId);
+        if (Objects.equals(settings.getSubscriptionPlan(), subscriptionPlan)) {
+            return;
+        }
+
+        log.info("Subscription plan of tenant {} changed from {} to {}",
+                tenantId, settings.getSubscriptionPlan(), subscriptionPlan);
+        settings.setSubscriptionPlan(subscriptionPlan);
+        settingsRepository.save(settings);
+        settingsCache.invalidate(tenantId);
     }
 }
@@ -0,0 +1,110 @@
+package io.factorialsystems.communications.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.exception.MessageSendException;
+import io.factorialsystems.communications.model.entity.SmsMessage;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Twilio Messages API (or any compatible endpoint under {@code sms.base-url}) over the shared
+ * non-blocking {@link HttpClient}, so an outstanding send holds a connection but no thread.
+ */
+@Slf4j
+public class TwilioSmsProvider implements SmsProvider {
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final CommunicationsProperties.Sms config;
+    private final URI messagesUri;
+    private final String authorization;
+
+    public TwilioSmsProvider(HttpClient httpClient, ObjectMapper objectMapper, CommunicationsProperties.Sms config) {
+        if (config.getAccountSid() == null || config.getAccountSid().isBlank()
+                || config.getAuthToken() == null || config.getAuthToken().isBlank()) {
+            throw new IllegalStateException("Twilio SMS provider requires sms.account-sid and sms.auth-token");
+        }
+
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.config = config;
+        this.messagesUri = URI.create(config.getBaseUrl() + "/2010-04-01/Accounts/" + config.getAccountSid() + "/Messages.json");
+        this.authorization = "Basic " + Base64.getEncoder().encodeToString(
+                (config.getAccountSid() + ":" + config.getAuthToken()).getBytes(StandardCharsets.UTF_8));
+
+        log.info("Twilio SMS provider initialized for {}", config.getBaseUrl());
+    }
+
+    @Override
+    public String getName() {
+        return "twilio";
+    }
+
+    @Override
+    public CompletableFuture<String> send(SmsMessage message) {
+        if (message.getFromPhone() == null) {
+            return CompletableFuture.failedFuture(new MessageSendException("No sender phone number configured"));
+        }
+
+        Map<String, String> form = new LinkedHashMap<>();
+        form.put("To", message.getToPhone());
+        form.put("From", message.getFromPhone());
+        form.put("Body", message.getMessage());
+
+        HttpRequest request = HttpRequest.newBuilder(messagesUri)
+                .timeout(config.getRequestTimeout())
+                .header("Authorization", authorization)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(encode(form)))
+                .build();
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(this::extractSid);
+    }
+
+    private String extractSid(HttpResponse<String> response) {
+        if (response.statusCode() >= 300) {
+            throw new MessageSendException("Twilio returned " + response.statusCode() + ": " + errorMessage(response.body()));
+        }
+
+        try {
+            JsonNode sid = objectMapper.readTree(response.body()).get("sid");
+            if (sid == null || sid.isNull()) {
+                throw new MessageSendException("Twilio response did not contain a message sid");
+            }
+            return sid.asText();
+        } catch (JsonProcessingException e) {
+            throw new MessageSendException("Unreadable Twilio response", e);
+        }
+    }
+
+    private String errorMessage(String body) {
+        try {
+            JsonNode message = objectMapper.readTree(body).get("message");
+            return message != null ? message.asText() : body;
+        } catch (JsonProcessingException e) {
+            return body;
+        }
+    }
+
+    private static String encode(Map<String, String> form) {
+        return form.entrySet().stream()
+                .map(entry -> URLEncoder.encode(entry.getKey(), StandardCharsets.UTF_8) + "="
+                        + URLEncoder.encode(entry.getValue(), StandardCharsets.UTF_8))
+                .collect(Collectors.joining("&"));
+    }
+}
@@ -0,0 +1,102 @@
+package io.factorialsystems.communications.service;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Streams JFR {@code jdk.VirtualThreadPinned} events: a virtual thread that blocked while
+ * stuck to its carrier for longer than {@code concurrency.pinned-threshold}. {@code synchronized}
+ * no longer pins on current JDKs, but blocking under native frames or class initialisation
+ * still does, and a pinned carrier is one less for every other request. Events are counted as
+ * {@code communications.virtual.pinned}, tagged with the first non-JDK class on the stack (the
+ * Brevo SDK, say), and each new pinning site is logged once with its stack.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class VirtualThreadPinningMonitor {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 12;
+
+    private final CommunicationsProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    private final Set<String> reportedSites = ConcurrentHashMap.newKeySet();
+    private RecordingStream recording;
+
+    @PostConstruct
+    public void start() {
+        CommunicationsProperties.Concurrency config = properties.getConcurrency();
+        if (!config.getPinningMonitor()) {
+            return;
+        }
+
+        recording = new RecordingStream();
+        recording.enable(PINNED_EVENT).withThreshold(config.getPinnedThreshold()).withStackTrace();
+        recording.onEvent(PINNED_EVENT, this::onPinned);
+        recording.startAsync();
+
+        log.info("Watching for virtual threads pinned longer than {}", config.getPinnedThreshold());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        String site = pinningSite(stackTrace);
+
+        Timer.builder("communications.virtual.pinned")
+                .description("Virtual threads blocked while pinned to their carrier")
+                .tag("site", site)
+                .register(meterRegistry)
+                .record(event.getDuration());
+
+        if (reportedSites.add(site)) {
+            log.warn("Virtual thread pinned for {} in {}:\n{}", event.getDuration(), site, describe(stackTrace));
+        }
+    }
+
+    private static String pinningSite(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "unknown";
+        }
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            String type = frame.getMethod().getType().getName();
+            if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                return type;
+            }
+        }
+        return "jdk";
+    }
+
+    private static String describe(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "\t(no stack trace)";
+        }
+        return stackTrace.getFrames().stream()
+                .limit(LOGGED_FRAMES)
+                .map(frame -> "\tat " + frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                        + ":" + frame.getLineNumber())
+                .collect(Collectors.joining("\n"));
+    }
+}
@@ -0,0 +1,137 @@
+package io.factorialsystems.communications.service;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.config.RabbitMQConfig;
+import io.factorialsystems.communications.model.dto.request.BrevoWebhookEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Bounded hand-off between the webhook endpoint and the database. The endpoint only enqueues;
+ * the flush drains the buffer in batches so a burst of events costs one transaction per
+ * batch rather than one per event. When the buffer is full the endpoint refuses the
+ * delivery and the provider retries it later. A batch that still fails after
+ * {@value #MAX_WRITE_ATTEMPTS} attempts is moved to the webhook dead-letter queue so the
+ * events behind it can be written; it is never dropped.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WebhookEventBuffer {
+
+    private static final int MAX_WRITE_ATTEMPTS = 5;
+
+    private final WebhookEventWriter writer;
+    private final RabbitTemplate rabbitTemplate;
+    private final CommunicationsProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    private final Object offerLock = new Object();
+    private BlockingQueue<BrevoWebhookEvent> buffer;
+    private List<BrevoWebhookEvent> failedBatch;
+    private int failedAttempts;
+
+    @PostConstruct
+    public void init() {
+        buffer = new ArrayBlockingQueue<>(properties.getWebhook().getBufferCapacity());
+        meterRegistry.gaugeCollectionSize("communications.webhook.buffer.size", List.of(), buffer);
+    }
+
+    /**
+     * Enqueues all events or none of them, so a refused delivery can be retried as a whole.
+     */
+    public boolean offerAll(List<BrevoWebhookEvent> events) {
+        synchronized (offerLock) {
+            if (buffer.remainingCapacity() < events.size()) {
+                meterRegistry.counter("communications.webhook.events", "outcome", "rejected").increment(events.size());
+                return false;
+            }
+            buffer.addAll(events);
+        }
+        meterRegistry.counter("communications.webhook.events", "outcome", "accepted").increment(events.size());
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${hms.communications.webhook.flush-interval-ms:250}")
+    public synchronized void flush() {
+        // A batch that failed last time goes first; while it keeps failing the buffer fills up
+        // and the endpoint starts refusing deliveries instead of losing them
+        if (failedBatch != null && !write(failedBatch)) {
+            return;
+        }
+        failedBatch = null;
+
+        int batchSize = properties.getWebhook().getBatchSize();
+        List<BrevoWebhookEvent> batch = new ArrayList<>(batchSize);
+
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            if (!write(batch)) {
+                failedBatch = batch;
+                return;
+            }
+            batch = new ArrayList<>(batchSize);
+        }
+    }
+
+    private boolean write(List<BrevoWebhookEvent> batch) {
+        try {
+            writer.write(batch);
+            failedAttempts = 0;
+            return true;
+        } catch (Exception e) {
+            failedAttempts++;
+            log.error("Failed to write {} webhook event(s), attempt {}: {}",
+                    batch.size(), failedAttempts, e.getMessage(), e);
+
+            if (failedAttempts >= MAX_WRITE_ATTEMPTS && deadLetter(batch, e)) {
+                failedAttempts = 0;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Publishes the batch to the webhook dead-letter queue with the last error. If that fails
+     * too the batch is kept and retried on the next flush.
+     */
+    private boolean deadLetter(List<BrevoWebhookEvent> batch, Exception error) {
+        try {
+            rabbitTemplate.convertAndSend(RabbitMQConfig.DEAD_LETTER_EXCHANGE,
+                    RabbitMQConfig.WEBHOOK_DEAD_LETTER_ROUTING_KEY, batch, message -> {
+                        Map<String, Object> headers = message.getMessageProperties().getHeaders();
+                        headers.put("x-exception-message", String.valueOf(error.getMessage()));
+                        headers.put("x-exception-class", error.getClass().getName());
+                        headers.put("x-failed-at", Instant.now().toString());
+                        return message;
+                    });
+
+            meterRegistry.counter("communications.webhook.events", "outcome", "dead_lettered").increment(batch.size());
+            log.error("Dead-lettered {} webhook event(s) after {} failed write attempts", batch.size(), failedAttempts);
+            return true;
+
+        } catch (Exception e) {
+            log.error("Failed to dead-letter {} webhook event(s), keeping them for the next flush: {}",
+                    batch.size(), e.getMessage(), e);
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void drainOnShutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,294 @@
+package io.factorialsystems.communications.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.factorialsystems.communications.model.dto.request.BrevoWebhookEvent;
+import io.factorialsystems.communications.model.enums.MessageStatus;
+import io.factorialsystems.communications.model.enums.MessageType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Writes a batch of provider events with a handful of set-based statements: one
+ * {@code UPDATE ... FROM (VALUES ...)} per chunk for the status transitions and one
+ * multi-row insert per chunk for the delivery logs. Only rows an event actually changes are
+ * updated; the rest are still matched, so their events are logged.
+ * <p>
+ * Statuses only move forward (SENT, then DELIVERED or BOUNCED, then OPENED, then CLICKED),
+ * so events that arrive out of order or twice never move a message backwards. The update
+ * joins each row to its pre-update self, so a message's first delivery, open and click, and
+ * its move to BOUNCED or FAILED, are counted in the daily stats exactly once.
+ */
+@Slf4j
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class WebhookEventWriter {
+
+    // Rows per statement; keeps the bind parameter count well under the driver limit
+    private static final int ROWS_PER_STATEMENT = 1000;
+
+    private static final String STATUS_RANK_SQL =
+            "CASE m.status WHEN 'SCHEDULED' THEN 0 WHEN 'PENDING' THEN 0 WHEN 'SENT' THEN 1 WHEN 'DELIVERED' THEN 2 " +
+            "WHEN 'BOUNCED' THEN 2 WHEN 'FAILED' THEN 2 WHEN 'OPENED' THEN 3 WHEN 'CLICKED' THEN 4 END";
+
+    private static final String UPDATE_PREFIX =
+            "WITH v (provider_id, status, rank, delivered_at, opened_at, clicked_at, error_message) AS (VALUES ";
+
+    // Duplicate and stale events fail the WHERE guard, so they cost no new row version
+    private static final String UPDATE_SUFFIX =
+            "), changed AS (UPDATE email_messages m SET " +
+            "status = CASE WHEN v.rank > " + STATUS_RANK_SQL + " THEN v.status ELSE m.status END, " +
+            "delivered_at = COALESCE(m.delivered_at, v.delivered_at), " +
+            "opened_at = COALESCE(m.opened_at, v.opened_at), " +
+            "clicked_at = COALESCE(m.clicked_at, v.clicked_at), " +
+            "error_message = COALESCE(v.error_message, m.error_message), " +
+            "updated_at = CURRENT_TIMESTAMP, version = m.version + 1 " +
+            "FROM email_messages o, v " +
+            "WHERE m.provider_id = v.provider_id AND o.id = m.id " +
+            "AND (v.rank > " + STATUS_RANK_SQL + " " +
+            "OR (m.delivered_at IS NULL AND v.delivered_at IS NOT NULL) " +
+            "OR (m.opened_at IS NULL AND v.opened_at IS NOT NULL) " +
+            "OR (m.clicked_at IS NULL AND v.clicked_at IS NOT NULL) " +
+            "OR (v.error_message IS NOT NULL AND v.error_message IS DISTINCT FROM m.error_message)) " +
+            "RETURNING m.id, m.tenant_id, m.provider_id, m.status, " +
+            "m.status <> o.status AS status_changed, " +
+            "o.delivered_at IS NULL AND m.delivered_at IS NOT NULL AS first_delivered, " +
+            "o.opened_at IS NULL AND m.opened_at IS NOT NULL AS first_opened, " +
+            "o.clicked_at IS NULL AND m.clicked_at IS NOT NULL AS first_clicked) " +
+            "SELECT * FROM changed " +
+            "UNION ALL " +
+            "SELECT m.id, m.tenant_id, m.provider_id, m.status, FALSE, FALSE, FALSE, FALSE " +
+            "FROM email_messages m JOIN v ON m.provider_id = v.provider_id " +
+            "WHERE NOT EXISTS (SELECT 1 FROM changed c WHERE c.id = m.id)";
+
+    private static final String UPDATE_ROW = "(?, ?, ?::int, ?::timestamp, ?::timestamp, ?::timestamp, ?)";
+
+    private static final String INSERT_PREFIX =
+            "INSERT INTO delivery_logs (message_id, message_type, tenant_id, event_type, event_data, " +
+            "provider_name, occurred_at) VALUES ";
+
+    private static final String INSERT_ROW = "(?, 'EMAIL', ?, ?, ?::jsonb, 'brevo', ?)";
+
+    /**
+     * Brevo event name to the delivery-log event type and, where it moves the message on,
+     * the status it moves to.
+     */
+    private static final Map<String, EventMapping> EVENTS = Map.ofEntries(
+            Map.entry("delivered", new EventMapping("delivered", MessageStatus.DELIVERED)),
+            Map.entry("hard_bounce", new EventMapping("bounced", MessageStatus.BOUNCED)),
+            Map.entry("soft_bounce", new EventMapping("bounced", MessageStatus.BOUNCED)),
+            Map.entry("blocked", new EventMapping("bounced", MessageStatus.BOUNCED)),
+            Map.entry("invalid_email", new EventMapping("bounced", MessageStatus.BOUNCED)),
+            Map.entry("error", new EventMapping("failed", MessageStatus.FAILED)),
+            Map.entry("opened", new EventMapping("opened", MessageStatus.OPENED)),
+            Map.entry("unique_opened", new EventMapping("opened", MessageStatus.OPENED)),
+            Map.entry("proxy_open", new EventMapping("opened", MessageStatus.OPENED)),
+            Map.entry("click", new EventMapping("clicked", MessageStatus.CLICKED)));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final MessageStatsService messageStatsService;
+
+    private record EventMapping(String eventType, MessageStatus status) {
+    }
+
+    private record Target(UUID messageId, UUID tenantId) {
+    }
+
+    private record StatKey(UUID tenantId, MessageStatus status) {
+    }
+
+    /**
+     * Everything a batch says about one provider message, folded into a single VALUES row.
+     */
+    private static class Transition {
+        MessageStatus status;
+        int rank = -1;
+        LocalDateTime deliveredAt;
+        LocalDateTime openedAt;
+        LocalDateTime clickedAt;
+        String errorMessage;
+    }
+
+    public void write(List<BrevoWebhookEvent> events) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+
+        Map<String, Transition> transitions = new LinkedHashMap<>();
+        for (BrevoWebhookEvent event : events) {
+            if (event.getMessageId() == null || event.getEvent() == null) {
+                continue;
+            }
+            fold(transitions.computeIfAbsent(event.getMessageId(), id -> new Transition()), event);
+        }
+
+        Map<String, List<Target>> targets = updateStatuses(transitions);
+        int logged = insertDeliveryLogs(events, targets);
+
+        int unmatched = events.size() - logged;
+        if (unmatched > 0) {
+            meterRegistry.counter("communications.webhook.events", "outcome", "unmatched").increment(unmatched);
+            log.debug("{} webhook event(s) did not match a sent message", unmatched);
+        }
+
+        sample.stop(meterRegistry.timer("communications.webhook.flush"));
+        log.debug("Wrote {} webhook event(s) for {} message(s)", logged, targets.size());
+    }
+
+    private void fold(Transition transition, BrevoWebhookEvent event) {
+        EventMapping mapping = EVENTS.get(event.getEvent());
+        if (mapping == null) {
+            return;  // Logged, but does not change the message
+        }
+
+        LocalDateTime occurredAt = occurredAt(event);
+        switch (mapping.status()) {
+            case DELIVERED -> transition.deliveredAt = earliest(transition.deliveredAt, occurredAt);
+            case OPENED -> transition.openedAt = earliest(transition.openedAt, occurredAt);
+            case CLICKED -> transition.clickedAt = earliest(transition.clickedAt, occurredAt);
+            case BOUNCED, FAILED -> transition.errorMessage = event.getReason();
+            default -> { }
+        }
+
+        int rank = rank(mapping.status());
+        if (rank > transition.rank) {
+            transition.rank = rank;
+            transition.status = mapping.status();
+        }
+    }
+
+    private Map<String, List<Target>> updateStatuses(Map<String, Transition> transitions) {
+        Map<String, List<Target>> targets = new HashMap<>();
+        Map<StatKey, Integer> entered = new HashMap<>();
+        List<Map.Entry<String, Transition>> rows = new ArrayList<>(transitions.entrySet());
+
+        for (int from = 0; from < rows.size(); from += ROWS_PER_STATEMENT) {
+            List<Map.Entry<String, Transition>> chunk = rows.subList(from, Math.min(from + ROWS_PER_STATEMENT, rows.size()));
+
+            String sql = UPDATE_PREFIX + String.join(", ", Collections.nCopies(chunk.size(), UPDATE_ROW)) + UPDATE_SUFFIX;
+            List<Object> params = new ArrayList<>(chunk.size() * 7);
+            for (Map.Entry<String, Transition> row : chunk) {
+                Transition t = row.getValue();
+                params.add(row.getKey());
+                params.add(t.status != null ? t.status.name() : null);
+                params.add(t.rank);
+                params.add(timestamp(t.deliveredAt));
+                params.add(timestamp(t.openedAt));
+                params.add(timestamp(t.clickedAt));
+                params.add(t.errorMessage);
+            }
+
+            jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+                UUID tenantId = rs.getObject("tenant_id", UUID.class);
+                targets.computeIfAbsent(rs.getString("provider_id"), id -> new ArrayList<>())
+                        .add(new Target(rs.getObject("id", UUID.class), tenantId));
+
+                MessageStatus status = MessageStatus.valueOf(rs.getString("status"));
+                if (rs.getBoolean("status_changed") && (status == MessageStatus.BOUNCED || status == MessageStatus.FAILED)) {
+                    entered.merge(new StatKey(tenantId, status), 1, Integer::sum);
+                }
+                if (rs.getBoolean("first_delivered")) {
+                    entered.merge(new StatKey(tenantId, MessageStatus.DELIVERED), 1, Integer::sum);
+                }
+                if (rs.getBoolean("first_opened")) {
+                    entered.merge(new StatKey(tenantId, MessageStatus.OPENED), 1, Integer::sum);
+                }
+                if (rs.getBoolean("first_clicked")) {
+                    entered.merge(new StatKey(tenantId, MessageStatus.CLICKED), 1, Integer::sum);
+                }
+            }, params.toArray());
+        }
+
+        entered.forEach((key, count) -> messageStatsService.record(MessageType.EMAIL, key.tenantId(), key.status(), count));
+        return targets;
+    }
+
+    private int insertDeliveryLogs(List<BrevoWebhookEvent> events, Map<String, List<Target>> targets) {
+        List<Object[]> rows = new ArrayList<>(events.size());
+        for (BrevoWebhookEvent event : events) {
+            List<Target> matched = targets.get(event.getMessageId());
+            if (matched == null) {
+                continue;
+            }
+
+            EventMapping mapping = EVENTS.get(event.getEvent());
+            String eventType = mapping != null ? mapping.eventType() : event.getEvent();
+            String eventData = eventData(event);
+            Timestamp occurredAt = timestamp(occurredAt(event));
+
+            for (Target target : matched) {
+                rows.add(new Object[]{target.messageId(), target.tenantId(), eventType, eventData, occurredAt});
+            }
+        }
+
+        for (int from = 0; from < rows.size(); from += ROWS_PER_STATEMENT) {
+            List<Object[]> chunk = rows.subList(from, Math.min(from + ROWS_PER_STATEMENT, rows.size()));
+
+            String sql = INSERT_PREFIX + String.join(", ", Collections.nCopies(chunk.size(), INSERT_ROW));
+            jdbcTemplate.update(sql, chunk.stream().flatMap(Arrays::stream).toArray());
+        }
+        return rows.size();
+    }
+
+    private String eventData(BrevoWebhookEvent event) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("event", event.getEvent());
+        data.put("email", event.getEmail());
+        data.put("providerId", event.getMessageId());
+        if (event.getReason() != null) {
+            data.put("reason", event.getReason());
+        }
+        if (event.getLink() != null) {
+            data.put("link", event.getLink());
+        }
+        try {
+            return objectMapper.writeValueAsString(data);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize webhook event data", e);
+        }
+    }
+
+    private static int rank(MessageStatus status) {
+        return switch (status) {
+            case SCHEDULED, PENDING -> 0;
+            case SENT -> 1;
+            case DELIVERED, BOUNCED, FAILED -> 2;
+            case OPENED -> 3;
+            case CLICKED -> 4;
+        };
+    }
+
+    private static LocalDateTime occurredAt(BrevoWebhookEvent event) {
+        return event.getTsEvent() != null
+                ? LocalDateTime.ofInstant(Instant.ofEpochSecond(event.getTsEvent()), ZoneId.systemDefault())
+                : LocalDateTime.now();
+    }
+
+    private static LocalDateTime earliest(LocalDateTime current, LocalDateTime candidate) {
+        return current == null || candidate.isBefore(current) ? candidate : current;
+    }
+
+    private static Timestamp timestamp(LocalDateTime value) {
+        return value != null ? Timestamp.valueOf(value) : null;
+    }
+}
@@ -0,0 +1,204 @@
+-- Server-side email templates. A template is identified by template_key and is immutable per
+-- template_version; publishing a change means inserting the next version. Placeholders are
+-- {{name}} (HTML-escaped in html_body) or {{{name}}} (inserted as-is).
+CREATE TABLE email_templates (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    template_key VARCHAR(100) NOT NULL,
+    template_version INTEGER NOT NULL,
+    description VARCHAR(255),
+
+    -- Content
+    subject VARCHAR(500) NOT NULL,
+    html_body TEXT,
+    text_body TEXT,
+
+    -- Audit fields
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    created_by VARCHAR(255),
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_by VARCHAR(255),
+    version INTEGER NOT NULL DEFAULT 0,
+
+    CONSTRAINT uq_email_templates_key_version UNIQUE (template_key, template_version),
+    CONSTRAINT chk_email_templates_body CHECK (html_body IS NOT NULL OR text_body IS NOT NULL)
+);
+
+-- Messages rendered from a template keep a reference instead of the body; the variables go
+-- into the existing template_params column
+ALTER TABLE email_messages ADD COLUMN template_id UUID REFERENCES email_templates(id);
+
+-- Add comments for documentation
+COMMENT ON TABLE email_templates IS 'Versioned email templates rendered by the communications server';
+COMMENT ON COLUMN email_templates.template_version IS 'Increasing version per template_key; rows are never updated in place';
+COMMENT ON COLUMN email_messages.template_id IS 'Template the message is rendered from at send time; html_content and text_content are then empty';
+COMMENT ON COLUMN email_messages.template_params IS 'Template variables, or per-recipient variables of a batch send';
+
+-- Templates used by the authorization server
+INSERT INTO email_templates (template_key, template_version, description, subject, html_body, text_body)
+VALUES ('auth.welcome', 1, 'New user account with temporary password',
+        'Welcome to {{facilityName}} - HMS Platform',
+$html$<!DOCTYPE html>
+<html>
+<head>
+    <style>
+        body { font-family: Arial, sans-serif; line-height: 1.6; color: #333; }
+        .container { max-width: 600px; margin: 0 auto; padding: 20px; }
+        .header { background-color: #007bff; color: white; padding: 20px; text-align: center; }
+        .content { padding: 20px; background-color: #f9f9f9; }
+        .password-box { background-color: #fff; border: 2px solid #007bff; padding: 15px; margin: 20px 0; text-align: center; font-size: 18px; font-weight: bold; }
+        .footer { text-align: center; padding: 20px; font-size: 12px; color: #666; }
+        .warning { color: #dc3545; font-weight: bold; }
+    </style>
+</head>
+<body>
+    <div class="container">
+        <div class="header">
+            <h1>Welcome to {{facilityName}}</h1>
+            <p>HMS Platform</p>
+        </div>
+        <div class="content">
+            <p>Hello {{userName}},</p>
+            <p>Your account has been created successfully. Below are your login credentials:</p>
+            <div class="password-box">
+                Temporary Password: {{tempPassword}}
+            </div>
+            <p class="warning">⚠️ Important: You must change this password on your first login for security reasons.</p>
+            <p>To access the system, please visit the HMS Platform login page and use your email address along with the temporary password above.</p>
+            <p>If you have any questions or need assistance, please contact your system administrator.</p>
+        </div>
+        <div class="footer">
+            <p>&copy; 2026 HMS Platform - Health Management System</p>
+            <p>This is an automated message, please do not reply.</p>
+        </div>
+    </div>
+</body>
+</html>
+$html$,
+$text$Welcome to {{facilityName}} - HMS Platform
+
+Hello {{userName}},
+
+Your account has been created successfully. Below are your login credentials:
+
+Temporary Password: {{tempPassword}}
+
+⚠️ IMPORTANT: You must change this password on your first login for security reasons.
+
+To access the system, please visit the HMS Platform login page and use your email address along with the temporary password above.
+
+If you have any questions or need assistance, please contact your system administrator.
+
+---
+© 2026 HMS Platform - Health Management System
+This is an automated message, please do not reply.
+$text$);
+
+INSERT INTO email_templates (template_key, template_version, description, subject, html_body, text_body)
+VALUES ('auth.password-reset', 1, 'Password reset token',
+        'Password Reset Request - {{facilityName}}',
+$html$<!DOCTYPE html>
+<html>
+<head>
+    <style>
+        body { font-family: Arial, sans-serif; line-height: 1.6; color: #333; }
+        .container { max-width: 600px; margin: 0 auto; padding: 20px; }
+        .header { background-color: #dc3545; color: white; padding: 20px; text-align: center; }
+        .content { padding: 20px; background-color: #f9f9f9; }
+        .token-box { background-color: #fff; border: 2px solid #dc3545; padding: 15px; margin: 20px 0; text-align: center; font-size: 16px; font-weight: bold; word-break: break-all; }
+        .footer { text-align: center; padding: 20px; font-size: 12px; color: #666; }
+    </style>
+</head>
+<body>
+    <div class="container">
+        <div class="header">
+            <h1>Password Reset Request</h1>
+            <p>{{facilityName}} - HMS Platform</p>
+        </div>
+        <div class="content">
+            <p>Hello {{userName}},</p>
+            <p>We received a request to reset your password. Use the reset token below to complete the process:</p>
+            <div class="token-box">{{resetToken}}</div>
+            <p>This reset token will expire in 1 hour for security reasons.</p>
+            <p>If you did not request a password reset, please ignore this email or contact your system administrator if you have concerns.</p>
+        </div>
+        <div class="footer">
+            <p>&copy; 2026 HMS Platform - Health Management System</p>
+            <p>This is an automated message, please do not reply.</p>
+        </div>
+    </div>
+</body>
+</html>
+$html$,
+$text$Password Reset Request - {{facilityName}} - HMS Platform
+
+Hello {{userName}},
+
+We received a request to reset your password. Use the reset token below to complete the process:
+
+Reset Token: {{resetToken}}
+
+This reset token will expire in 1 hour for security reasons.
+
+If you did not request a password reset, please ignore this email or contact your system administrator if you have concerns.
+
+---
+© 2026 HMS Platform - Health Management System
+This is an automated message, please do not reply.
+$text$);
+
+INSERT INTO email_templates (template_key, template_version, description, subject, html_body, text_body)
+VALUES ('auth.tenant-registration', 1, 'Facility registration confirmation',
+        'Facility Registration Successful - HMS Platform',
+$html$<!DOCTYPE html>
+<html>
+<head>
+    <style>
+        body { font-family: Arial, sans-serif; line-height: 1.6; color: #333; }
+        .container { max-width: 600px; margin: 0 auto; padding: 20px; }
+        .header { background-color: #28a745; color: white; padding: 20px; text-align: center; }
+        .content { padding: 20px; background-color: #f9f9f9; }
+        .info-box { background-color: #fff; border: 2px solid #28a745; padding: 15px; margin: 20px 0; }
+        .footer { text-align: center; padding: 20px; font-size: 12px; color: #666; }
+    </style>
+</head>
+<body>
+    <div class="container">
+        <div class="header">
+            <h1>🎉 Registration Successful!</h1>
+            <p>HMS Platform</p>
+        </div>
+        <div class="content">
+            <p>Hello {{adminName}},</p>
+            <p>Congratulations! Your facility <strong>{{facilityName}}</strong> has been successfully registered on the HMS Platform.</p>
+            <div class="info-box">
+                <p><strong>Facility Code:</strong> {{tenantCode}}</p>
+                <p><strong>Facility Name:</strong> {{facilityName}}</p>
+            </div>
+            <p>Your administrator account has been created, and you should receive a separate email with your login credentials shortly.</p>
+            <p>Welcome to the HMS Platform! We're excited to have you on board.</p>
+        </div>
+        <div class="footer">
+            <p>&copy; 2026 HMS Platform - Health Management System</p>
+            <p>This is an automated message, please do not reply.</p>
+        </div>
+    </div>
+</body>
+</html>
+$html$,
+$text$Registration Successful! - HMS Platform
+
+Hello {{adminName}},
+
+Congratulations! Your facility '{{facilityName}}' has been successfully registered on the HMS Platform.
+
+Facility Code: {{tenantCode}}
+Facility Name: {{facilityName}}
+
+Your administrator account has been created, and you should receive a separate email with your login credentials shortly.
+
+Welcome to the HMS Platform! We're excited to have you on board.
+
+---
+© 2026 HMS Platform - Health Management System
+This is an automated message, please do not reply.
+$text$);
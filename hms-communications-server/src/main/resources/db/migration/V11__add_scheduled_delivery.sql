@@ -0,0 +1,21 @@
+-- Scheduled delivery: a message with send_at in the future is stored as SCHEDULED with its due
+-- time in scheduled_at. Postgres is the durable record; a Redis sorted set indexes the ones due
+-- within the scheduler horizon, and the poller moves them to PENDING when they fall due.
+ALTER TABLE email_messages ADD COLUMN scheduled_at TIMESTAMP;
+ALTER TABLE sms_messages ADD COLUMN scheduled_at TIMESTAMP;
+
+ALTER TABLE email_messages DROP CONSTRAINT email_messages_status_check;
+ALTER TABLE email_messages ADD CONSTRAINT email_messages_status_check
+    CHECK (status IN ('SCHEDULED', 'PENDING', 'SENT', 'DELIVERED', 'FAILED', 'BOUNCED', 'OPENED', 'CLICKED'));
+
+ALTER TABLE sms_messages DROP CONSTRAINT sms_messages_status_check;
+ALTER TABLE sms_messages ADD CONSTRAINT sms_messages_status_check
+    CHECK (status IN ('SCHEDULED', 'PENDING', 'SENT', 'DELIVERED', 'FAILED', 'BOUNCED'));
+
+-- Only still-scheduled rows are indexed, so millions of sent messages cost the loader nothing
+CREATE INDEX idx_email_messages_scheduled ON email_messages(scheduled_at, id) WHERE status = 'SCHEDULED';
+CREATE INDEX idx_sms_messages_scheduled ON sms_messages(scheduled_at, id) WHERE status = 'SCHEDULED';
+
+-- Add comments for documentation
+COMMENT ON COLUMN email_messages.scheduled_at IS 'Requested send time (send_at); null for immediate sends';
+COMMENT ON COLUMN sms_messages.scheduled_at IS 'Requested send time (send_at); null for immediate sends';
@@ -0,0 +1,16 @@
+-- Cold storage for email bodies: the archiver moves html_content/text_content of finished
+-- messages past hms.communications.archive.age into gzip segment files and keeps where each
+-- body went. The columns are null until a message is archived, and again after a retry
+-- puts the body back in the row.
+ALTER TABLE email_messages ADD COLUMN archive_segment VARCHAR(100);
+ALTER TABLE email_messages ADD COLUMN archive_offset BIGINT;
+ALTER TABLE email_messages ADD COLUMN archive_length INTEGER;
+
+-- Rows still holding a body, in archiving order; archived rows drop out of the index
+CREATE INDEX idx_email_messages_unarchived ON email_messages(created_at, id)
+    WHERE html_content IS NOT NULL OR text_content IS NOT NULL;
+
+-- Add comments for documentation
+COMMENT ON COLUMN email_messages.archive_segment IS 'Archive segment file holding the body; null while the body is in the row';
+COMMENT ON COLUMN email_messages.archive_offset IS 'Byte offset of the body''s gzip member in archive_segment';
+COMMENT ON COLUMN email_messages.archive_length IS 'Length in bytes of the body''s gzip member';
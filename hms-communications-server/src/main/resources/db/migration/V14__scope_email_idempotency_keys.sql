@@ -0,0 +1,16 @@
+-- Bulk sends and single sends keep separate idempotency key spaces, as their Redis claims
+-- already do: a batch key reused for a single email (or the other way round) is a new request.
+ALTER TABLE email_messages ADD COLUMN idempotency_scope VARCHAR(20);
+
+UPDATE email_messages SET idempotency_scope = CASE WHEN batch_id IS NULL THEN 'email' ELSE 'email-batch' END
+WHERE idempotency_key IS NOT NULL;
+
+ALTER TABLE email_messages ADD CONSTRAINT email_messages_idempotency_scope_check
+    CHECK (idempotency_key IS NULL OR idempotency_scope IN ('email', 'email-batch'));
+
+DROP INDEX uq_email_messages_tenant_idempotency_key;
+CREATE UNIQUE INDEX uq_email_messages_tenant_idempotency_key ON email_messages(tenant_id, idempotency_scope, idempotency_key)
+    WHERE idempotency_key IS NOT NULL;
+
+-- Add comments for documentation
+COMMENT ON COLUMN email_messages.idempotency_scope IS 'Key space of idempotency_key: email (single send) or email-batch (first row of a bulk send)';
@@ -0,0 +1,17 @@
+-- The day a message's quota was reserved. Quota given back after a final failure returns to
+-- that day's counter, not to whatever day the failure happens on.
+ALTER TABLE email_messages ADD COLUMN quota_day DATE;
+ALTER TABLE sms_messages ADD COLUMN quota_day DATE;
+ALTER TABLE email_outbox ADD COLUMN quota_day DATE;
+
+-- Messages that can still fail were reserved when they were accepted
+UPDATE email_messages SET quota_day = created_at::date WHERE status IN ('SCHEDULED', 'PENDING');
+UPDATE sms_messages SET quota_day = created_at::date WHERE status IN ('SCHEDULED', 'PENDING');
+UPDATE email_outbox o SET quota_day = COALESCE(
+    (SELECT m.quota_day FROM email_messages m WHERE m.id = o.message_id),
+    o.created_at::date);
+
+-- Add comments for documentation
+COMMENT ON COLUMN email_messages.quota_day IS 'Day whose quota this message was reserved against; set again by a manual retry';
+COMMENT ON COLUMN sms_messages.quota_day IS 'Day whose quota this message was reserved against';
+COMMENT ON COLUMN email_outbox.quota_day IS 'Day whose quota the entry''s message(s) were reserved against';
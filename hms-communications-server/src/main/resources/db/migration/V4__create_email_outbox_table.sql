@@ -0,0 +1,24 @@
+-- Email outbox: one row per email waiting to be handed to the provider.
+-- Rows are written in the same transaction as the email_messages row and claimed by
+-- dispatchers with FOR UPDATE SKIP LOCKED. available_at doubles as the claim lease.
+CREATE TABLE email_outbox (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    message_id UUID NOT NULL REFERENCES email_messages(id) ON DELETE CASCADE,
+    tenant_id UUID NOT NULL,
+
+    -- Dispatch state
+    attempts INTEGER NOT NULL DEFAULT 0,
+    available_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_error TEXT,
+
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Indexes for email_outbox
+CREATE INDEX idx_email_outbox_available_at ON email_outbox(available_at);
+CREATE INDEX idx_email_outbox_message_id ON email_outbox(message_id);
+
+-- Add comments for documentation
+COMMENT ON TABLE email_outbox IS 'Emails committed for delivery and waiting for a dispatcher';
+COMMENT ON COLUMN email_outbox.attempts IS 'Number of times the entry has been claimed for sending';
+COMMENT ON COLUMN email_outbox.available_at IS 'Earliest time the entry may be claimed; pushed forward as a lease while claimed and as backoff after a failure';
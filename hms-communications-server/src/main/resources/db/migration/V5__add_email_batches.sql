@@ -0,0 +1,22 @@
+-- Bulk sends: one request fans out into one email_messages row per recipient.
+-- Rows of the same request share batch_id; per-recipient variables live in template_params
+-- and are substituted by Brevo ({{params.name}}) when the batch is sent.
+ALTER TABLE email_messages
+    ADD COLUMN batch_id UUID,
+    ADD COLUMN template_params JSONB;
+
+CREATE INDEX idx_email_messages_batch_status ON email_messages(batch_id, status)
+    WHERE batch_id IS NOT NULL;
+
+-- A batch is dispatched through a single outbox entry instead of one per recipient
+ALTER TABLE email_outbox
+    ALTER COLUMN message_id DROP NOT NULL,
+    ADD COLUMN batch_id UUID,
+    ADD CONSTRAINT chk_email_outbox_target CHECK ((message_id IS NULL) <> (batch_id IS NULL));
+
+CREATE INDEX idx_email_outbox_batch_id ON email_outbox(batch_id);
+
+-- Add comments for documentation
+COMMENT ON COLUMN email_messages.batch_id IS 'Bulk send this message belongs to, if any';
+COMMENT ON COLUMN email_messages.template_params IS 'Per-recipient variables substituted into subject and content by the provider';
+COMMENT ON COLUMN email_outbox.batch_id IS 'Set instead of message_id when the entry dispatches every pending message of a bulk send';
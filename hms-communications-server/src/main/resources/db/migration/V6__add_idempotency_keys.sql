@@ -0,0 +1,13 @@
+-- Client-supplied idempotency keys (Idempotency-Key header / AMQP message id).
+-- Redis answers most duplicate checks; these unique indexes are the durable backstop.
+ALTER TABLE email_messages ADD COLUMN idempotency_key VARCHAR(255);
+ALTER TABLE sms_messages ADD COLUMN idempotency_key VARCHAR(255);
+
+CREATE UNIQUE INDEX uq_email_messages_tenant_idempotency_key ON email_messages(tenant_id, idempotency_key)
+    WHERE idempotency_key IS NOT NULL;
+CREATE UNIQUE INDEX uq_sms_messages_tenant_idempotency_key ON sms_messages(tenant_id, idempotency_key)
+    WHERE idempotency_key IS NOT NULL;
+
+-- Add comments for documentation
+COMMENT ON COLUMN email_messages.idempotency_key IS 'Caller-supplied key; for a bulk send only the first recipient row carries it';
+COMMENT ON COLUMN sms_messages.idempotency_key IS 'Caller-supplied key used to deduplicate retried requests';
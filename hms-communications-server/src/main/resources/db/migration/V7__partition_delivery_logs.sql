@@ -0,0 +1,66 @@
+-- Monthly range partitioning for delivery_logs on occurred_at.
+-- Inserts only touch the current month's (small) indexes, time-bounded queries prune to the
+-- partitions they need, and retention drops whole partitions instead of deleting rows.
+-- DeliveryLogPartitionManager creates upcoming partitions and drops expired ones at runtime.
+ALTER TABLE delivery_logs RENAME TO delivery_logs_unpartitioned;
+ALTER TABLE delivery_logs_unpartitioned RENAME CONSTRAINT delivery_logs_pkey TO delivery_logs_unpartitioned_pkey;
+
+CREATE TABLE delivery_logs (
+    id UUID NOT NULL DEFAULT gen_random_uuid(),
+    message_id UUID NOT NULL,
+    message_type VARCHAR(20) NOT NULL CHECK (message_type IN ('EMAIL', 'SMS')),
+    tenant_id UUID NOT NULL,
+
+    -- Event details
+    event_type VARCHAR(50) NOT NULL,  -- sent, delivered, bounced, opened, clicked, etc.
+    event_data JSONB,
+
+    -- Provider information
+    provider_name VARCHAR(50) NOT NULL,  -- brevo, twilio
+    provider_response JSONB,
+
+    -- Timestamps
+    occurred_at TIMESTAMP NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+
+    -- The partition key has to be part of the primary key
+    PRIMARY KEY (id, occurred_at)
+) PARTITION BY RANGE (occurred_at);
+
+-- Catches rows outside every monthly partition; expected to stay empty
+CREATE TABLE delivery_logs_default PARTITION OF delivery_logs DEFAULT;
+
+-- Monthly partitions for existing data through three months ahead
+DO $$
+DECLARE
+    month_start DATE := date_trunc('month', COALESCE(
+        (SELECT min(occurred_at) FROM delivery_logs_unpartitioned), CURRENT_TIMESTAMP))::date;
+    last_month DATE := (date_trunc('month', CURRENT_TIMESTAMP) + INTERVAL '3 months')::date;
+BEGIN
+    WHILE month_start <= last_month LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF delivery_logs FOR VALUES FROM (%L) TO (%L)',
+                       'delivery_logs_' || to_char(month_start, 'YYYY_MM'),
+                       month_start, (month_start + INTERVAL '1 month')::date);
+        month_start := (month_start + INTERVAL '1 month')::date;
+    END LOOP;
+END $$;
+
+INSERT INTO delivery_logs (id, message_id, message_type, tenant_id, event_type, event_data,
+                           provider_name, provider_response, occurred_at, created_at)
+SELECT id, message_id, message_type, tenant_id, event_type, event_data,
+       provider_name, provider_response, occurred_at, created_at
+FROM delivery_logs_unpartitioned;
+
+DROP TABLE delivery_logs_unpartitioned;
+
+-- Indexes (created on every partition). Replaces the six single-purpose indexes from V2:
+-- every read is scoped by message or by tenant plus a time range.
+CREATE INDEX idx_delivery_logs_message_id ON delivery_logs(message_id, occurred_at);
+CREATE INDEX idx_delivery_logs_tenant_occurred ON delivery_logs(tenant_id, occurred_at);
+CREATE INDEX idx_delivery_logs_tenant_event ON delivery_logs(tenant_id, event_type, occurred_at);
+
+-- Add comments for documentation
+COMMENT ON TABLE delivery_logs IS 'Tracks all delivery events for email and SMS messages; partitioned by month on occurred_at';
+COMMENT ON COLUMN delivery_logs.event_type IS 'Event types: sent, delivered, bounced, opened, clicked, failed, etc.';
+COMMENT ON COLUMN delivery_logs.event_data IS 'Additional event-specific data in JSON format';
+COMMENT ON COLUMN delivery_logs.provider_response IS 'Raw response from the messaging provider';
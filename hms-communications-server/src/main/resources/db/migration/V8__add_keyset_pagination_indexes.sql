@@ -0,0 +1,20 @@
+-- Composite indexes for keyset (cursor) pagination. Listings are ordered newest first on
+-- (created_at, id), so each page is a single index range scan that starts right after the
+-- cursor instead of skipping OFFSET rows. They also serve the offset listings, which makes
+-- the tenant_id and (tenant_id, status) indexes redundant.
+CREATE INDEX idx_email_messages_tenant_created ON email_messages(tenant_id, created_at DESC, id DESC);
+CREATE INDEX idx_email_messages_tenant_status_created ON email_messages(tenant_id, status, created_at DESC, id DESC);
+DROP INDEX IF EXISTS idx_email_messages_tenant_id;
+DROP INDEX IF EXISTS idx_email_messages_tenant_status;
+
+CREATE INDEX idx_sms_messages_tenant_created ON sms_messages(tenant_id, created_at DESC, id DESC);
+CREATE INDEX idx_sms_messages_tenant_status_created ON sms_messages(tenant_id, status, created_at DESC, id DESC);
+DROP INDEX IF EXISTS idx_sms_messages_tenant_id;
+DROP INDEX IF EXISTS idx_sms_messages_tenant_status;
+
+-- Delivery logs page on (occurred_at, id); add the id tie-breaker to the tenant indexes
+-- (rebuilt on every partition).
+DROP INDEX IF EXISTS idx_delivery_logs_tenant_occurred;
+DROP INDEX IF EXISTS idx_delivery_logs_tenant_event;
+CREATE INDEX idx_delivery_logs_tenant_occurred ON delivery_logs(tenant_id, occurred_at DESC, id DESC);
+CREATE INDEX idx_delivery_logs_tenant_event ON delivery_logs(tenant_id, event_type, occurred_at DESC, id DESC);
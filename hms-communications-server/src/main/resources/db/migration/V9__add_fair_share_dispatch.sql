@@ -0,0 +1,8 @@
+-- Per-tenant fair-share dispatch: the dispatcher claims outbox entries tenant by tenant in
+-- deficit round-robin order, weighted by the tenant's subscription plan.
+ALTER TABLE tenant_settings ADD COLUMN subscription_plan VARCHAR(30);
+
+CREATE INDEX idx_email_outbox_tenant_available ON email_outbox(tenant_id, available_at);
+
+-- Add comments for documentation
+COMMENT ON COLUMN tenant_settings.subscription_plan IS 'Plan from the authorization server (FREE_TRIAL, BASIC, PROFESSIONAL, ENTERPRISE); sets the tenant''s dispatch weight';
@@ -0,0 +1,87 @@
+package io.factorialsystems.communications.mapper;
+
+import io.factorialsystems.communications.model.dto.response.EmailMessageResponse;
+import io.factorialsystems.communications.model.dto.response.SmsMessageResponse;
+import io.factorialsystems.communications.model.entity.EmailMessage;
+import io.factorialsystems.communications.model.entity.SmsMessage;
+import io.factorialsystems.communications.model.enums.MessageStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The mappings measured by {@code MapperBenchmark}.
+ */
+class MessageMapperTest {
+
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @Test
+    void emailMapsEveryResponseField() {
+        EmailMessage email = EmailMessage.builder()
+                .tenantId(UUID.randomUUID())
+                .toEmail("jane.doe@example.com")
+                .toName("Jane Doe")
+                .fromEmail("noreply@cityhospital.example")
+                .subject("Your lab results")
+                .htmlContent("<p>Your results are attached.</p>")
+                .status(MessageStatus.SENT)
+                .providerId("<202610171200.12345@smtp-relay.example>")
+                .attachments(List.of(Map.of("filename", "results.pdf", "size", "48213")))
+                .sentAt(now)
+                .retryCount(1)
+                .build();
+        email.setId(UUID.randomUUID());
+        email.setCreatedAt(now.minusMinutes(1));
+        email.setUpdatedAt(now);
+
+        EmailMessageResponse response = new EmailMessageMapperImpl().toResponse(email);
+
+        assertThat(response.getId()).isEqualTo(email.getId());
+        assertThat(response.getTenantId()).isEqualTo(email.getTenantId());
+        assertThat(response.getToName()).isEqualTo("Jane Doe");
+        assertThat(response.getHtmlContent()).isEqualTo("<p>Your results are attached.</p>");
+        assertThat(response.getStatus()).isEqualTo(MessageStatus.SENT);
+        assertThat(response.getAttachments()).containsExactly(Map.of("filename", "results.pdf", "size", "48213"));
+        assertThat(response.getRetryCount()).isEqualTo(1);
+        assertThat(response.getCreatedAt()).isEqualTo(now.minusMinutes(1));
+        assertThat(response.getUpdatedAt()).isEqualTo(now);
+    }
+
+    @Test
+    void smsMapsEveryResponseField() {
+        SmsMessage sms = SmsMessage.builder()
+                .tenantId(UUID.randomUUID())
+                .toPhone("+2348012345678")
+                .fromPhone("HOSPITAL")
+                .message("Your appointment is confirmed for tomorrow at 10:00.")
+                .status(MessageStatus.FAILED)
+                .errorMessage("Unreachable destination")
+                .retryCount(3)
+                .build();
+        sms.setId(UUID.randomUUID());
+        sms.setCreatedAt(now);
+        sms.setUpdatedAt(now);
+
+        SmsMessageResponse response = new SmsMessageMapperImpl().toResponse(sms);
+
+        assertThat(response.getId()).isEqualTo(sms.getId());
+        assertThat(response.getToPhone()).isEqualTo("+2348012345678");
+        assertThat(response.getMessage()).isEqualTo("Your appointment is confirmed for tomorrow at 10:00.");
+        assertThat(response.getStatus()).isEqualTo(MessageStatus.FAILED);
+        assertThat(response.getErrorMessage()).isEqualTo("Unreachable destination");
+        assertThat(response.getRetryCount()).isEqualTo(3);
+        assertThat(response.getCreatedAt()).isEqualTo(now);
+    }
+
+    @Test
+    void nullEntityMapsToNull() {
+        assertThat(new EmailMessageMapperImpl().toResponse(null)).isNull();
+        assertThat(new SmsMessageMapperImpl().toResponse(null)).isNull();
+    }
+}
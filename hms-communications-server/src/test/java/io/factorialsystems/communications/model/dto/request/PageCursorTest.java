@@ -0,0 +1,64 @@
+package io.factorialsystems.communications.model.dto.request;
+
+import io.factorialsystems.communications.exception.BusinessException;
+import io.factorialsystems.communications.model.dto.response.CursorPage;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PageCursorTest {
+
+    private final PageCursor cursor = new PageCursor(LocalDateTime.of(2026, 3, 14, 9, 26, 53, 589_793_000),
+            UUID.fromString("0b4f6c5e-8a1d-4e52-9c7a-2f1e3d4c5b6a"));
+
+    @Test
+    void encodedCursorDecodesToTheSamePosition() {
+        assertThat(PageCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @Test
+    void encodedCursorIsUrlSafe() {
+        assertThat(cursor.encode()).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        String noSeparator = Base64.getUrlEncoder().encodeToString("2026-03-14T09:26:53".getBytes(StandardCharsets.UTF_8));
+        String badId = Base64.getUrlEncoder().encodeToString("2026-03-14T09:26:53|nope".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> PageCursor.decode("%%%")).isInstanceOf(BusinessException.class);
+        assertThatThrownBy(() -> PageCursor.decode(noSeparator)).isInstanceOf(BusinessException.class);
+        assertThatThrownBy(() -> PageCursor.decode(badId)).isInstanceOf(BusinessException.class);
+    }
+
+    @Test
+    void missingCursorStartsAtTheFirstPage() {
+        assertThat(PageCursor.positionAfter(null, "createdAt")).isEqualTo(ScrollPosition.keyset());
+        assertThat(PageCursor.positionAfter(" ", "createdAt")).isEqualTo(ScrollPosition.keyset());
+    }
+
+    @Test
+    void cursorContinuesAfterItsTimestampAndId() {
+        ScrollPosition position = PageCursor.positionAfter(cursor.encode(), "occurredAt");
+
+        assertThat(position).isInstanceOf(KeysetScrollPosition.class);
+        assertThat(((KeysetScrollPosition) position).getKeys())
+                .containsEntry("occurredAt", cursor.timestamp())
+                .containsEntry("id", cursor.id());
+    }
+
+    @Test
+    void pageSizeIsClamped() {
+        assertThat(CursorPage.limit(0).max()).isEqualTo(1);
+        assertThat(CursorPage.limit(25).max()).isEqualTo(25);
+        assertThat(CursorPage.limit(10_000).max()).isEqualTo(CursorPage.MAX_LIMIT);
+    }
+}
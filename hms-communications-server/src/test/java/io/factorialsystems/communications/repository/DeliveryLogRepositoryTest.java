@@ -0,0 +1,84 @@
+package io.factorialsystems.communications.repository;
+
+import io.factorialsystems.communications.model.dto.request.PageCursor;
+import io.factorialsystems.communications.model.entity.DeliveryLog;
+import io.factorialsystems.communications.model.enums.MessageType;
+import io.factorialsystems.communications.support.JpaContainerTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Window;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeliveryLogRepositoryTest extends JpaContainerTest {
+
+    @Autowired
+    private DeliveryLogRepository deliveryLogRepository;
+
+    private final UUID tenantId = UUID.randomUUID();
+    private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+
+    @Test
+    void cursorWalksEveryRowOnceNewestFirst() {
+        // Two rows share each timestamp, so the id tie-breaker decides their order
+        List<DeliveryLog> logs = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            logs.add(log(now.minusMinutes(i / 2), "delivered"));
+        }
+        deliveryLogRepository.saveAll(logs);
+
+        List<UUID> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            Window<DeliveryLog> window = deliveryLogRepository.findByTenantIdAndOccurredAtBetweenOrderByOccurredAtDescIdDesc(
+                    tenantId, now.minusDays(1), now.plusDays(1), PageCursor.positionAfter(cursor, "occurredAt"), Limit.of(3));
+            window.forEach(log -> seen.add(log.getId()));
+            List<DeliveryLog> content = window.getContent();
+            cursor = window.hasNext()
+                    ? new PageCursor(content.get(content.size() - 1).getOccurredAt(), content.get(content.size() - 1).getId()).encode()
+                    : null;
+            pages++;
+        } while (cursor != null);
+
+        // PostgreSQL orders uuids bytewise, which matches their string form
+        List<UUID> expected = logs.stream()
+                .sorted((a, b) -> a.getOccurredAt().equals(b.getOccurredAt())
+                        ? b.getId().toString().compareTo(a.getId().toString())
+                        : b.getOccurredAt().compareTo(a.getOccurredAt()))
+                .map(DeliveryLog::getId)
+                .toList();
+        assertThat(pages).isEqualTo(3);
+        assertThat(seen).hasSize(7).doesNotHaveDuplicates();
+        assertThat(seen.stream().map(id -> expected.indexOf(id)).toList()).isSorted();
+    }
+
+    @Test
+    void eventTypeListingOnlyReturnsThatEvent() {
+        deliveryLogRepository.saveAll(List.of(log(now, "delivered"), log(now, "bounced"), log(now.minusMinutes(1), "bounced")));
+
+        Window<DeliveryLog> window = deliveryLogRepository.findByTenantIdAndEventTypeAndOccurredAtBetweenOrderByOccurredAtDescIdDesc(
+                tenantId, "bounced", now.minusDays(1), now.plusDays(1), PageCursor.positionAfter(null, "occurredAt"), Limit.of(10));
+
+        assertThat(window.getContent()).extracting(DeliveryLog::getEventType).containsExactly("bounced", "bounced");
+        assertThat(window.hasNext()).isFalse();
+    }
+
+    private DeliveryLog log(LocalDateTime occurredAt, String eventType) {
+        return DeliveryLog.builder()
+                .messageId(UUID.randomUUID())
+                .messageType(MessageType.EMAIL)
+                .tenantId(tenantId)
+                .eventType(eventType)
+                .providerName("brevo")
+                .occurredAt(occurredAt)
+                .build();
+    }
+}
@@ -0,0 +1,164 @@
+package io.factorialsystems.communications.repository;
+
+import io.factorialsystems.communications.model.dto.request.PageCursor;
+import io.factorialsystems.communications.model.dto.response.EmailMessageSummary;
+import io.factorialsystems.communications.model.entity.EmailMessage;
+import io.factorialsystems.communications.model.enums.MessageStatus;
+import io.factorialsystems.communications.service.IdempotencyService;
+import io.factorialsystems.communications.support.JpaContainerTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EmailMessageRepositoryTest extends JpaContainerTest {
+
+    @Autowired
+    private EmailMessageRepository emailMessageRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final UUID tenantId = UUID.randomUUID();
+    private final UUID batchId = UUID.randomUUID();
+
+    @Test
+    void insertAllWritesEveryRecipientOfABatch() {
+        List<EmailMessage> messages = batch(3);
+
+        emailMessageRepository.insertAll(messages);
+
+        assertThat(messages).allSatisfy(message -> assertThat(message.getId()).isNotNull());
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM email_messages WHERE batch_id = ? AND status = 'PENDING' AND quota_day IS NOT NULL",
+                Integer.class, batchId)).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT template_params ->> 'name' FROM email_messages WHERE id = ?", String.class,
+                messages.get(1).getId())).isEqualTo("Recipient 1");
+    }
+
+    @Test
+    void markAllSentOnlyUpdatesMessagesStillPending() {
+        List<EmailMessage> messages = batch(3);
+        emailMessageRepository.insertAll(messages);
+        jdbcTemplate.update("UPDATE email_messages SET status = 'FAILED' WHERE id = ?", messages.get(1).getId());
+
+        List<UUID> ids = messages.stream().map(EmailMessage::getId).toList();
+        List<UUID> updated = emailMessageRepository.markAllSent(ids, List.of("<a@brevo>", "<b@brevo>", "<c@brevo>"),
+                LocalDateTime.now());
+
+        assertThat(updated).containsExactly(ids.get(0), ids.get(2));
+        assertThat(jdbcTemplate.queryForObject("SELECT provider_id FROM email_messages WHERE id = ?", String.class,
+                ids.get(2))).isEqualTo("<c@brevo>");
+        assertThat(jdbcTemplate.queryForObject("SELECT status FROM email_messages WHERE id = ?", String.class,
+                ids.get(1))).isEqualTo("FAILED");
+    }
+
+    @Test
+    void singleAndBatchSendsKeepSeparateIdempotencyKeySpaces() {
+        EmailMessage single = keyed(IdempotencyService.EMAIL, "order-42");
+        EmailMessage first = keyed(IdempotencyService.EMAIL_BATCH, "order-42");
+
+        emailMessageRepository.insertAll(List.of(single, first));
+
+        assertThat(emailMessageRepository.findByTenantIdAndIdempotencyScopeAndIdempotencyKey(
+                tenantId, IdempotencyService.EMAIL, "order-42")).get()
+                .extracting(EmailMessage::getId).isEqualTo(single.getId());
+        assertThat(emailMessageRepository.findByTenantIdAndIdempotencyScopeAndIdempotencyKey(
+                tenantId, IdempotencyService.EMAIL_BATCH, "order-42")).get()
+                .extracting(EmailMessage::getId).isEqualTo(first.getId());
+    }
+
+    @Test
+    void repeatedKeyWithinAScopeIsRejected() {
+        emailMessageRepository.insertAll(List.of(keyed(IdempotencyService.EMAIL, "order-42")));
+
+        assertThatThrownBy(() -> emailMessageRepository.insertAll(List.of(keyed(IdempotencyService.EMAIL, "order-42"))))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void listingsReturnSummariesWithoutTheBody() {
+        List<EmailMessage> messages = batch(3);
+        emailMessageRepository.insertAll(messages);
+        jdbcTemplate.update("UPDATE email_messages SET status = 'FAILED', error_message = 'Mailbox full' WHERE id = ?",
+                messages.get(2).getId());
+
+        Page<EmailMessageSummary> page = emailMessageRepository.findByTenantIdAndStatus(tenantId, MessageStatus.FAILED,
+                PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "createdAt")));
+
+        assertThat(page.getTotalElements()).isEqualTo(1);
+        EmailMessageSummary summary = page.getContent().get(0);
+        assertThat(summary.getId()).isEqualTo(messages.get(2).getId());
+        assertThat(summary.getToEmail()).isEqualTo("recipient2@example.com");
+        assertThat(summary.getSubject()).isEqualTo("Reminder");
+        assertThat(summary.getErrorMessage()).isEqualTo("Mailbox full");
+        assertThat(summary.getBatchId()).isEqualTo(batchId);
+    }
+
+    @Test
+    void summaryCursorContinuesWhereThePreviousSliceEnded() {
+        emailMessageRepository.insertAll(batch(3));
+
+        Window<EmailMessageSummary> first = emailMessageRepository.findByTenantIdOrderByCreatedAtDescIdDesc(
+                tenantId, PageCursor.positionAfter(null, "createdAt"), Limit.of(2));
+        EmailMessageSummary last = first.getContent().get(1);
+        Window<EmailMessageSummary> second = emailMessageRepository.findByTenantIdOrderByCreatedAtDescIdDesc(
+                tenantId, PageCursor.positionAfter(new PageCursor(last.getCreatedAt(), last.getId()).encode(), "createdAt"),
+                Limit.of(2));
+
+        assertThat(first.hasNext()).isTrue();
+        assertThat(second.hasNext()).isFalse();
+        assertThat(second.getContent()).hasSize(1)
+                .extracting(EmailMessageSummary::getId)
+                .doesNotContainAnyElementsOf(first.getContent().stream().map(EmailMessageSummary::getId).toList());
+    }
+
+    private EmailMessage keyed(String scope, String idempotencyKey) {
+        return EmailMessage.builder()
+                .tenantId(tenantId)
+                .batchId(IdempotencyService.EMAIL_BATCH.equals(scope) ? batchId : null)
+                .toEmail("patient@example.com")
+                .fromEmail("clinic@example.com")
+                .subject("Reminder")
+                .textContent("Hello")
+                .status(MessageStatus.PENDING)
+                .quotaDay(LocalDate.now())
+                .idempotencyKey(idempotencyKey)
+                .idempotencyScope(scope)
+                .build();
+    }
+
+    private List<EmailMessage> batch(int size) {
+        List<EmailMessage> messages = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            messages.add(EmailMessage.builder()
+                    .tenantId(tenantId)
+                    .batchId(batchId)
+                    .toEmail("recipient" + i + "@example.com")
+                    .fromEmail("clinic@example.com")
+                    .subject("Reminder")
+                    .htmlContent("<p>Hello {{params.name}}</p>")
+                    .status(MessageStatus.PENDING)
+                    .quotaDay(LocalDate.now())
+                    .templateParams(Map.of("name", "Recipient " + i))
+                    .build());
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,165 @@
+package io.factorialsystems.communications.repository;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.model.entity.EmailOutbox;
+import io.factorialsystems.communications.service.DeliveryLogService;
+import io.factorialsystems.communications.service.EmailOutboxService;
+import io.factorialsystems.communications.service.MessageStatsService;
+import io.factorialsystems.communications.service.PipelineMetrics;
+import io.factorialsystems.communications.service.RateLimitService;
+import io.factorialsystems.communications.support.JpaContainerTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * The outbox claim runs in real transactions, so two dispatchers can be made to race.
+ */
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EmailOutboxRepositoryTest extends JpaContainerTest {
+
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+
+    @Autowired
+    private EmailMessageRepository emailMessageRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CommunicationsProperties properties;
+
+    private TransactionTemplate transactionTemplate;
+    private final UUID tenantId = UUID.randomUUID();
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void findsOnlyDueEntriesOfTheTenantOldestFirst() {
+        UUID oldest = insertEntry(tenantId, now.minusMinutes(3), 0);
+        UUID older = insertEntry(tenantId, now.minusMinutes(2), 0);
+        insertEntry(tenantId, now.plusMinutes(5), 0);
+        insertEntry(UUID.randomUUID(), now.minusMinutes(10), 0);
+
+        List<UUID> due = transactionTemplate.execute(status ->
+                ids(outboxRepository.findDueForUpdate(tenantId, now, 10)));
+
+        assertThat(due).containsExactly(oldest, older);
+    }
+
+    @Test
+    void concurrentClaimsSkipEachOthersLockedRows() throws Exception {
+        UUID first = insertEntry(tenantId, now.minusMinutes(3), 0);
+        UUID second = insertEntry(tenantId, now.minusMinutes(2), 0);
+        UUID third = insertEntry(tenantId, now.minusMinutes(1), 0);
+
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<List<UUID>> holder = CompletableFuture.supplyAsync(() ->
+                transactionTemplate.execute(status -> {
+                    List<UUID> claimed = ids(outboxRepository.findDueForUpdate(tenantId, now, 1));
+                    locked.countDown();
+                    await(release);
+                    return claimed;
+                }));
+
+        assertThat(locked.await(10, TimeUnit.SECONDS)).isTrue();
+        List<UUID> claimedMeanwhile = transactionTemplate.execute(status ->
+                ids(outboxRepository.findDueForUpdate(tenantId, now, 10)));
+        release.countDown();
+
+        assertThat(holder.get(10, TimeUnit.SECONDS)).containsExactly(first);
+        assertThat(claimedMeanwhile).containsExactly(second, third);
+    }
+
+    @Test
+    void claimLeasesEntriesUntilTheLeaseRunsOut() {
+        UUID entry = insertEntry(tenantId, now.minusMinutes(1), 0);
+        EmailOutboxService outboxService = new EmailOutboxService(outboxRepository, emailMessageRepository,
+                mock(DeliveryLogService.class), mock(RateLimitService.class), mock(PipelineMetrics.class),
+                mock(MessageStatsService.class), properties);
+
+        List<UUID> claimed = transactionTemplate.execute(status -> ids(outboxService.claimDue(tenantId, 10)));
+        List<UUID> claimedAgain = transactionTemplate.execute(status -> ids(outboxService.claimDue(tenantId, 10)));
+
+        assertThat(claimed).containsExactly(entry);
+        assertThat(claimedAgain).isEmpty();
+        assertThat(jdbcTemplate.queryForObject("SELECT attempts FROM email_outbox WHERE id = ?", Integer.class, entry))
+                .isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT available_at FROM email_outbox WHERE id = ?", Timestamp.class, entry)
+                .toLocalDateTime()).isAfter(now.plusSeconds(properties.getOutbox().getLeaseSeconds() - 1));
+    }
+
+    @Test
+    void countsDueEntriesPerTenant() {
+        UUID otherTenant = UUID.randomUUID();
+        insertEntry(tenantId, now.minusMinutes(2), 0);
+        insertEntry(tenantId, now.minusMinutes(1), 0);
+        insertEntry(tenantId, now.plusMinutes(5), 0);
+        insertEntry(otherTenant, now.minusMinutes(1), 0);
+
+        List<EmailOutboxRepository.TenantDepth> depths = outboxRepository.countDueByTenant(now);
+
+        assertThat(depths).filteredOn(d -> d.getTenantId().equals(tenantId))
+                .singleElement().extracting(EmailOutboxRepository.TenantDepth::getDepth).isEqualTo(2L);
+        assertThat(depths).filteredOn(d -> d.getTenantId().equals(otherTenant))
+                .singleElement().extracting(EmailOutboxRepository.TenantDepth::getDepth).isEqualTo(1L);
+    }
+
+    @Test
+    void deferGivesTheClaimedAttemptBack() {
+        UUID entry = insertEntry(tenantId, now.minusMinutes(1), 1);
+        LocalDateTime later = now.plusMinutes(1);
+
+        transactionTemplate.executeWithoutResult(status -> outboxRepository.defer(entry, later, "bulkhead full"));
+
+        assertThat(jdbcTemplate.queryForObject("SELECT attempts FROM email_outbox WHERE id = ?", Integer.class, entry))
+                .isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT last_error FROM email_outbox WHERE id = ?", String.class, entry))
+                .isEqualTo("bulkhead full");
+    }
+
+    // Batch entries need no email_messages row, which keeps the fixtures to one insert
+    private UUID insertEntry(UUID tenant, LocalDateTime availableAt, int attempts) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO email_outbox (id, tenant_id, batch_id, attempts, available_at) VALUES (?, ?, ?, ?, ?)",
+                id, tenant, UUID.randomUUID(), attempts, Timestamp.valueOf(availableAt));
+        return id;
+    }
+
+    private static List<UUID> ids(List<EmailOutbox> entries) {
+        return entries.stream().map(EmailOutbox::getId).toList();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
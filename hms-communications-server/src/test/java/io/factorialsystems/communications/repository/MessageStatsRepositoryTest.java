@@ -0,0 +1,69 @@
+package io.factorialsystems.communications.repository;
+
+import io.factorialsystems.communications.model.dto.response.DailyMessageStats;
+import io.factorialsystems.communications.model.enums.MessageStatus;
+import io.factorialsystems.communications.model.enums.MessageType;
+import io.factorialsystems.communications.support.PostgresContainerTest;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class MessageStatsRepositoryTest extends PostgresContainerTest {
+
+    private final UUID tenantId = UUID.randomUUID();
+    private final LocalDate today = LocalDate.now();
+    private final MessageStatsRepository repository = new MessageStatsRepository(jdbcTemplate);
+
+    @Test
+    void incrementsAddToTheExistingCount() {
+        repository.increment(Map.of(key(today, MessageType.EMAIL, MessageStatus.SENT), 3L));
+        repository.increment(Map.of(key(today, MessageType.EMAIL, MessageStatus.SENT), 4L));
+
+        assertThat(repository.findByTenant(tenantId, today, today, null))
+                .extracting(DailyMessageStats::getStatus, DailyMessageStats::getCount)
+                .containsExactly(tuple(MessageStatus.SENT, 7L));
+    }
+
+    @Test
+    void oneBatchWritesEveryKey() {
+        repository.increment(Map.of(
+                key(today, MessageType.EMAIL, MessageStatus.PENDING), 5L,
+                key(today, MessageType.EMAIL, MessageStatus.SENT), 4L,
+                key(today, MessageType.SMS, MessageStatus.FAILED), 1L,
+                key(today.minusDays(1), MessageType.EMAIL, MessageStatus.DELIVERED), 2L));
+
+        assertThat(repository.findByTenant(tenantId, today.minusDays(1), today, null))
+                .extracting(DailyMessageStats::getDate, DailyMessageStats::getChannel,
+                        DailyMessageStats::getStatus, DailyMessageStats::getCount)
+                .containsExactly(
+                        tuple(today.minusDays(1), MessageType.EMAIL, MessageStatus.DELIVERED, 2L),
+                        tuple(today, MessageType.EMAIL, MessageStatus.PENDING, 5L),
+                        tuple(today, MessageType.EMAIL, MessageStatus.SENT, 4L),
+                        tuple(today, MessageType.SMS, MessageStatus.FAILED, 1L));
+    }
+
+    @Test
+    void readIsLimitedToTheRangeChannelAndTenant() {
+        repository.increment(Map.of(
+                key(today, MessageType.EMAIL, MessageStatus.SENT), 1L,
+                key(today, MessageType.SMS, MessageStatus.SENT), 2L,
+                key(today.minusDays(10), MessageType.SMS, MessageStatus.SENT), 3L,
+                new MessageStatsRepository.Key(UUID.randomUUID(), today, MessageType.SMS, MessageStatus.SENT), 4L));
+
+        List<DailyMessageStats> rows = repository.findByTenant(tenantId, today.minusDays(1), today, MessageType.SMS);
+
+        assertThat(rows)
+                .extracting(DailyMessageStats::getChannel, DailyMessageStats::getCount)
+                .containsExactly(tuple(MessageType.SMS, 2L));
+    }
+
+    private MessageStatsRepository.Key key(LocalDate day, MessageType channel, MessageStatus status) {
+        return new MessageStatsRepository.Key(tenantId, day, channel, status);
+    }
+}
@@ -0,0 +1,86 @@
+package io.factorialsystems.communications.security;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class JwtAuthenticationFilterTest {
+
+    @Mock
+    private VerifiedTokenCache verifiedTokenCache;
+
+    private final AtomicReference<Authentication> seenAuthentication = new AtomicReference<>();
+    private final AtomicReference<UUID> seenTenant = new AtomicReference<>();
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+        TenantContext.clear();
+    }
+
+    @Test
+    void bearerTokenAuthenticatesTheRequestAndSetsItsTenant() throws Exception {
+        UUID tenantId = UUID.randomUUID();
+        when(verifiedTokenCache.get("abc.def.ghi")).thenReturn(new VerifiedTokenCache.VerifiedPrincipal(
+                "user-1", tenantId, List.of(new SimpleGrantedAuthority("email:send")), Instant.now().plusSeconds(60)));
+
+        filter(request("Bearer abc.def.ghi"));
+
+        assertThat(seenAuthentication.get().getName()).isEqualTo("user-1");
+        assertThat(seenAuthentication.get().getAuthorities()).extracting(Object::toString).containsExactly("email:send");
+        assertThat(seenTenant.get()).isEqualTo(tenantId);
+        assertThat(TenantContext.getTenantId()).isNull();
+    }
+
+    @Test
+    void invalidTokenLeavesTheRequestAnonymous() throws Exception {
+        when(verifiedTokenCache.get("expired")).thenThrow(new ExpiredJwtException(null, null, "JWT expired"));
+
+        filter(request("Bearer expired"));
+
+        assertThat(seenAuthentication.get()).isNull();
+        assertThat(seenTenant.get()).isNull();
+    }
+
+    @Test
+    void requestWithoutABearerTokenIsNotLookedUp() throws Exception {
+        filter(request(null));
+        filter(request("Basic dXNlcjpwYXNz"));
+
+        verifyNoInteractions(verifiedTokenCache);
+        assertThat(seenAuthentication.get()).isNull();
+    }
+
+    private void filter(MockHttpServletRequest request) throws Exception {
+        new JwtAuthenticationFilter(verifiedTokenCache).doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            seenAuthentication.set(SecurityContextHolder.getContext().getAuthentication());
+            seenTenant.set(TenantContext.getTenantId());
+        });
+    }
+
+    private static MockHttpServletRequest request(String authorization) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/email/messages");
+        if (authorization != null) {
+            request.addHeader("Authorization", authorization);
+        }
+        return request;
+    }
+}
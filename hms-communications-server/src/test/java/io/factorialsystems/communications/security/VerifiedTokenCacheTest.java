@@ -0,0 +1,130 @@
+package io.factorialsystems.communications.security;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class VerifiedTokenCacheTest {
+
+    private static final SecretKey KEY =
+            Keys.hmacShaKeyFor("a-test-signing-key-of-at-least-256-bits!".getBytes(StandardCharsets.UTF_8));
+
+    private final UUID tenantId = UUID.randomUUID();
+    private final CommunicationsProperties properties = new CommunicationsProperties();
+    private final JwtParser parser = mock(JwtParser.class, delegatesTo(Jwts.parser().verifyWith(KEY).build()));
+
+    @Test
+    void tokenIsVerifiedOnceAndThenServedFromTheCache() {
+        VerifiedTokenCache cache = cache();
+        String token = token("user-1", Instant.now().plusSeconds(3600));
+
+        VerifiedTokenCache.VerifiedPrincipal first = cache.get(token);
+        VerifiedTokenCache.VerifiedPrincipal second = cache.get(token);
+
+        assertThat(second).isSameAs(first);
+        verify(parser, times(1)).parseSignedClaims(anyString());
+    }
+
+    @Test
+    void principalCarriesTheTokenClaims() {
+        Instant expiresAt = Instant.now().plusSeconds(3600);
+
+        VerifiedTokenCache.VerifiedPrincipal principal = cache().get(token("user-1", expiresAt));
+
+        assertThat(principal.userId()).isEqualTo("user-1");
+        assertThat(principal.tenantId()).isEqualTo(tenantId);
+        assertThat(principal.authorities()).containsExactly(
+                new SimpleGrantedAuthority("email:send"), new SimpleGrantedAuthority("sms:send"));
+        assertThat(principal.expiresAt()).isEqualTo(expiresAt.truncatedTo(ChronoUnit.SECONDS));
+    }
+
+    @Test
+    void eachTokenIsVerifiedSeparately() {
+        VerifiedTokenCache cache = cache();
+
+        cache.get(token("user-1", Instant.now().plusSeconds(3600)));
+        cache.get(token("user-2", Instant.now().plusSeconds(3600)));
+
+        verify(parser, times(2)).parseSignedClaims(anyString());
+    }
+
+    @Test
+    void invalidTokensAreRejectedAndNotCached() {
+        VerifiedTokenCache cache = cache();
+        String expired = token("user-1", Instant.now().minusSeconds(60));
+        String foreign = Jwts.builder()
+                .subject("user-1")
+                .claim("tenant_id", tenantId.toString())
+                .signWith(Keys.hmacShaKeyFor("some-other-issuers-key-of-256-bits-or-more".getBytes(StandardCharsets.UTF_8)))
+                .compact();
+
+        assertThatThrownBy(() -> cache.get(expired)).isInstanceOf(ExpiredJwtException.class);
+        assertThatThrownBy(() -> cache.get(expired)).isInstanceOf(ExpiredJwtException.class);
+        assertThatThrownBy(() -> cache.get(foreign)).isInstanceOf(JwtException.class);
+        verify(parser, times(3)).parseSignedClaims(anyString());
+    }
+
+    @Test
+    void zeroCacheSizeVerifiesEveryRequest() {
+        properties.getJwt().setCacheMaxSize(0L);
+        VerifiedTokenCache cache = cache();
+        String token = token("user-1", Instant.now().plusSeconds(3600));
+
+        cache.get(token);
+        cache.get(token);
+
+        verify(parser, times(2)).parseSignedClaims(anyString());
+    }
+
+    @Test
+    void cacheLifetimeIsCappedByExpiryAndMaxTtl() {
+        Duration maxTtl = Duration.ofMinutes(5);
+
+        assertThat(principal(null).ttl(maxTtl)).isEqualTo(maxTtl);
+        assertThat(principal(Instant.now().plusSeconds(3600)).ttl(maxTtl)).isEqualTo(maxTtl);
+        assertThat(principal(Instant.now().plusSeconds(60)).ttl(maxTtl)).isBetween(Duration.ofSeconds(58), Duration.ofSeconds(60));
+        assertThat(principal(Instant.now().minusSeconds(1)).ttl(maxTtl)).isZero();
+        assertThat(principal(Instant.now().minusSeconds(1)).isValidAt(Instant.now())).isFalse();
+    }
+
+    private VerifiedTokenCache cache() {
+        return new VerifiedTokenCache(parser, properties, new SimpleMeterRegistry());
+    }
+
+    private VerifiedTokenCache.VerifiedPrincipal principal(Instant expiresAt) {
+        return new VerifiedTokenCache.VerifiedPrincipal("user-1", tenantId, List.of(), expiresAt);
+    }
+
+    private String token(String subject, Instant expiresAt) {
+        return Jwts.builder()
+                .subject(subject)
+                .claim("tenant_id", tenantId.toString())
+                .claim("permissions", List.of("email:send", "sms:send"))
+                .expiration(Date.from(expiresAt))
+                .signWith(KEY)
+                .compact();
+    }
+}
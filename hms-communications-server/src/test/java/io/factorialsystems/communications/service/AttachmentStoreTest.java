@@ -0,0 +1,90 @@
+package io.factorialsystems.communications.service;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.exception.BusinessException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AttachmentStoreTest {
+
+    // SHA-256 of "hello"
+    private static final String HELLO_SHA256 = "2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824";
+
+    @TempDir
+    Path root;
+
+    private AttachmentStore attachmentStore;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        CommunicationsProperties properties = new CommunicationsProperties();
+        properties.getAttachment().setStorePath(root.toString());
+        attachmentStore = new AttachmentStore(properties);
+        attachmentStore.init();
+    }
+
+    @Test
+    void blobIsStoredUnderItsHash() throws IOException {
+        AttachmentStore.StoredBlob blob = attachmentStore.store(content("hello"), 1024);
+
+        assertThat(blob.sha256()).isEqualTo(HELLO_SHA256);
+        assertThat(blob.size()).isEqualTo(5);
+        assertThat(root.resolve("2c").resolve("f2").resolve(HELLO_SHA256)).exists();
+        assertThat(attachmentStore.read(blob.sha256())).isEqualTo("hello".getBytes(StandardCharsets.UTF_8));
+        try (var in = attachmentStore.open(blob.sha256())) {
+            assertThat(in.readAllBytes()).isEqualTo("hello".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void sameContentIsStoredOnce() throws IOException {
+        attachmentStore.store(content("hello"), 1024);
+        attachmentStore.store(content("hello"), 1024);
+
+        assertThat(blobCount()).isEqualTo(1);
+        assertThat(tempFiles()).isZero();
+    }
+
+    @Test
+    void contentOverTheLimitIsRejectedAndLeavesNothingBehind() throws IOException {
+        assertThatThrownBy(() -> attachmentStore.store(content("hello"), 4))
+                .isInstanceOf(BusinessException.class);
+
+        assertThat(blobCount()).isZero();
+        assertThat(tempFiles()).isZero();
+        assertThat(attachmentStore.exists(HELLO_SHA256)).isFalse();
+    }
+
+    @Test
+    void onlyHexDigestsAreResolved() {
+        assertThatThrownBy(() -> attachmentStore.read("../../etc/passwd"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static ByteArrayInputStream content(String value) {
+        return new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private long blobCount() throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            return files.filter(Files::isRegularFile).filter(path -> !path.startsWith(root.resolve("tmp"))).count();
+        }
+    }
+
+    private long tempFiles() throws IOException {
+        try (Stream<Path> files = Files.list(root.resolve("tmp"))) {
+            return files.count();
+        }
+    }
+}
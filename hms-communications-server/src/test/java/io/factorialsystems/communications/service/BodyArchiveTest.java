@@ -0,0 +1,127 @@
+package io.factorialsystems.communications.service;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BodyArchiveTest {
+
+    @TempDir
+    Path storePath;
+
+    private final CommunicationsProperties properties = new CommunicationsProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private BodyArchive archive;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        properties.getArchive().setStorePath(storePath.toString());
+        archive = new BodyArchive(properties, meterRegistry);
+        archive.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        archive.close();
+    }
+
+    @Test
+    void bodiesAreReadBackFromTheirRefs() {
+        BodyArchive.Body first = new BodyArchive.Body(UUID.randomUUID(), "<p>Lab results</p>", "Lab results");
+        BodyArchive.Body second = new BodyArchive.Body(UUID.randomUUID(), null, "Text only \u00e9");
+
+        List<BodyArchive.Ref> refs = archive.append(List.of(first, second));
+
+        assertThat(refs).hasSize(2);
+        assertThat(refs.get(1).segment()).isEqualTo(refs.get(0).segment());
+        assertThat(refs.get(1).offset()).isEqualTo(refs.get(0).length());
+        assertThat(archive.read(first.messageId(), refs.get(0))).isEqualTo(first);
+        assertThat(archive.read(second.messageId(), refs.get(1))).isEqualTo(second);
+        assertThat(meterRegistry.get("communications.archive.read").tag("outcome", "success").timer().count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void segmentIsOneGzipStreamOfEveryRecord() throws IOException {
+        List<BodyArchive.Body> bodies = List.of(
+                new BodyArchive.Body(UUID.randomUUID(), "<p>One</p>", "One"),
+                new BodyArchive.Body(UUID.randomUUID(), "<p>Two</p>", null));
+        archive.append(bodies.subList(0, 1));
+        BodyArchive.Ref last = archive.append(bodies.subList(1, 2)).get(0);
+
+        // Concatenated gzip members read as one stream, as zcat would
+        List<BodyArchive.Body> records = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(
+                new GZIPInputStream(Files.newInputStream(storePath.resolve(last.segment()))))) {
+            for (int i = 0; i < bodies.size(); i++) {
+                records.add(new BodyArchive.Body(new UUID(in.readLong(), in.readLong()), readString(in), readString(in)));
+            }
+            assertThat(in.read()).isEqualTo(-1);
+        }
+
+        assertThat(records).isEqualTo(bodies);
+    }
+
+    @Test
+    void segmentIsClosedOnceItReachesTheMaxSize() throws IOException {
+        properties.getArchive().setSegmentMaxBytes(1L);
+
+        BodyArchive.Ref first = archive.append(List.of(new BodyArchive.Body(UUID.randomUUID(), "a", "a"))).get(0);
+        BodyArchive.Ref second = archive.append(List.of(new BodyArchive.Body(UUID.randomUUID(), "b", "b"))).get(0);
+
+        assertThat(second.segment()).isNotEqualTo(first.segment());
+        assertThat(second.offset()).isZero();
+        try (var segments = Files.list(storePath)) {
+            assertThat(segments).hasSize(2);
+        }
+    }
+
+    @Test
+    void refToAnotherMessagesRecordIsRejected() {
+        BodyArchive.Ref ref = archive.append(List.of(new BodyArchive.Body(UUID.randomUUID(), "a", "a"))).get(0);
+
+        assertThatThrownBy(() -> archive.read(UUID.randomUUID(), ref))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("belongs to message");
+        assertThat(meterRegistry.get("communications.archive.read").tag("outcome", "failure").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void segmentNameOutsideTheArchiveIsRejected() {
+        BodyArchive.Ref ref = new BodyArchive.Ref("../secrets.gz", 0, 10);
+
+        assertThatThrownBy(() -> archive.read(UUID.randomUUID(), ref))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Not an archive segment name: ../secrets.gz");
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] utf8 = in.readNBytes(length);
+        if (utf8.length != length) {
+            throw new EOFException();
+        }
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
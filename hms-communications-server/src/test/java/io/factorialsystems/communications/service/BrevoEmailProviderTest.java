@@ -0,0 +1,129 @@
+package io.factorialsystems.communications.service;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.model.entity.EmailMessage;
+import io.factorialsystems.communications.model.enums.MessageStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import sibApi.TransactionalEmailsApi;
+import sibModel.CreateSmtpEmail;
+import sibModel.SendSmtpEmail;
+import sibModel.SendSmtpEmailMessageVersions;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BrevoEmailProviderTest {
+
+    private final UUID batchId = UUID.randomUUID();
+
+    @Mock
+    private AttachmentStore attachmentStore;
+
+    @Mock
+    private EmailTemplateRegistry emailTemplateRegistry;
+
+    @Mock
+    private TransactionalEmailsApi api;
+
+    private BrevoEmailProvider provider;
+
+    @BeforeEach
+    void setUp() {
+        CommunicationsProperties properties = new CommunicationsProperties();
+        provider = new BrevoEmailProvider(properties, attachmentStore,
+                new ProviderExecutor(properties, new SimpleMeterRegistry()), emailTemplateRegistry);
+        ReflectionTestUtils.setField(provider, "apiInstance", api);
+    }
+
+    @Test
+    void batchIsOneCallWithAVersionPerRecipient() throws Exception {
+        CreateSmtpEmail response = new CreateSmtpEmail();
+        response.setMessageIds(List.of("<id-1@brevo>", "<id-2@brevo>"));
+        when(api.sendTransacEmail(any())).thenReturn(response);
+
+        List<String> ids = provider.sendBatch(List.of(
+                member("ada@example.com", Map.of("name", "Ada")),
+                member("grace@example.com", Map.of())));
+
+        ArgumentCaptor<SendSmtpEmail> sent = ArgumentCaptor.forClass(SendSmtpEmail.class);
+        verify(api).sendTransacEmail(sent.capture());
+        SendSmtpEmail email = sent.getValue();
+
+        assertThat(email.getSender().getEmail()).isEqualTo("clinic@example.com");
+        assertThat(email.getSubject()).isEqualTo("Your appointment, {{params.name}}");
+        assertThat(email.getTo()).isNullOrEmpty();
+
+        List<SendSmtpEmailMessageVersions> versions = email.getMessageVersions();
+        assertThat(versions).hasSize(2);
+        assertThat(versions.get(0).getTo().get(0).getEmail()).isEqualTo("ada@example.com");
+        assertThat(versions.get(0).getParams()).containsEntry("name", "Ada");
+        assertThat(versions.get(1).getTo().get(0).getEmail()).isEqualTo("grace@example.com");
+        assertThat(versions.get(1).getParams()).isNull();
+
+        assertThat(ids).containsExactly("<id-1@brevo>", "<id-2@brevo>");
+    }
+
+    @Test
+    void batchWithoutPerVersionIdsStoresNoIds() throws Exception {
+        CreateSmtpEmail response = new CreateSmtpEmail();
+        response.setMessageId("<id@brevo>");
+        when(api.sendTransacEmail(any())).thenReturn(response);
+
+        List<String> ids = provider.sendBatch(List.of(
+                member("ada@example.com", Map.of()), member("grace@example.com", Map.of())));
+
+        assertThat(ids).containsExactly(null, null);
+    }
+
+    @Test
+    void singleMessageWithoutPerVersionIdsUsesTheSingleId() throws Exception {
+        CreateSmtpEmail response = new CreateSmtpEmail();
+        response.setMessageId("<id@brevo>");
+        when(api.sendTransacEmail(any())).thenReturn(response);
+
+        assertThat(provider.sendEmail(member("ada@example.com", Map.of()))).isEqualTo("<id@brevo>");
+    }
+
+    @Test
+    void batchMemberSentAloneKeepsItsParams() throws Exception {
+        CreateSmtpEmail response = new CreateSmtpEmail();
+        response.setMessageIds(List.of("<id-1@brevo>"));
+        when(api.sendTransacEmail(any())).thenReturn(response);
+
+        String id = provider.sendEmail(member("ada@example.com", Map.of("name", "Ada")));
+
+        ArgumentCaptor<SendSmtpEmail> sent = ArgumentCaptor.forClass(SendSmtpEmail.class);
+        verify(api).sendTransacEmail(sent.capture());
+        assertThat(sent.getValue().getMessageVersions()).singleElement()
+                .satisfies(version -> assertThat(version.getParams()).containsEntry("name", "Ada"));
+        assertThat(id).isEqualTo("<id-1@brevo>");
+    }
+
+    private EmailMessage member(String toEmail, Map<String, Object> params) {
+        return EmailMessage.builder()
+                .tenantId(UUID.randomUUID())
+                .batchId(batchId)
+                .toEmail(toEmail)
+                .fromEmail("clinic@example.com")
+                .fromName("Clinic")
+                .subject("Your appointment, {{params.name}}")
+                .htmlContent("<p>See you soon, {{params.name}}</p>")
+                .status(MessageStatus.PENDING)
+                .templateParams(params)
+                .build();
+    }
+}
@@ -0,0 +1,87 @@
+package io.factorialsystems.communications.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompiledTemplateTest {
+
+    @Test
+    void placeholdersAreReplacedByTheirValues() {
+        CompiledTemplate template = CompiledTemplate.compile("Dear {{ name }}, your visit is on {{date}}.", false);
+
+        assertThat(template.render(Map.of("name", "Ada", "date", "14 March")))
+                .isEqualTo("Dear Ada, your visit is on 14 March.");
+    }
+
+    @Test
+    void variablesAreListedOnceInOrderOfFirstUse() {
+        CompiledTemplate template = CompiledTemplate.compile("{{b}} {{a}} {{{b}}} {{c}}", true);
+
+        assertThat(template.variables()).containsExactly("b", "a", "c");
+    }
+
+    @Test
+    void htmlTemplateEscapesValues() {
+        CompiledTemplate template = CompiledTemplate.compile("<p>{{note}}</p>", true);
+
+        assertThat(template.render(Map.of("note", "<script>alert('x') & \"y\"</script>")))
+                .isEqualTo("<p>&lt;script&gt;alert(&#39;x&#39;) &amp; &quot;y&quot;&lt;/script&gt;</p>");
+    }
+
+    @Test
+    void triplePlaceholderInsertsRawHtml() {
+        CompiledTemplate template = CompiledTemplate.compile("{{{signature}}} {{name}}", true);
+
+        assertThat(template.render(Map.of("signature", "<b>Dr. Okafor</b>", "name", "<b>")))
+                .isEqualTo("<b>Dr. Okafor</b> &lt;b&gt;");
+    }
+
+    @Test
+    void plainTextTemplateDoesNotEscape() {
+        CompiledTemplate template = CompiledTemplate.compile("Results: {{value}}", false);
+
+        assertThat(template.render(Map.of("value", "5 < 7 & rising"))).isEqualTo("Results: 5 < 7 & rising");
+    }
+
+    @Test
+    void missingVariableRendersEmpty() {
+        CompiledTemplate template = CompiledTemplate.compile("Hello {{name}}!", false);
+        Map<String, Object> values = new HashMap<>();
+        values.put("name", null);
+
+        assertThat(template.render(Map.of())).isEqualTo("Hello !");
+        assertThat(template.render(values)).isEqualTo("Hello !");
+    }
+
+    @Test
+    void templateWithoutPlaceholdersRendersWithoutValues() {
+        CompiledTemplate template = CompiledTemplate.compile("No placeholders {here}", true);
+
+        assertThat(template.variables()).isEmpty();
+        assertThat(template.render(null)).isEqualTo("No placeholders {here}");
+    }
+
+    @Test
+    void nonStringValuesRenderWithToString() {
+        CompiledTemplate template = CompiledTemplate.compile("{{count}} results", false);
+
+        assertThat(template.render(Map.of("count", 3))).isEqualTo("3 results");
+    }
+
+    @Test
+    void malformedPlaceholdersAreRejected() {
+        assertThatThrownBy(() -> CompiledTemplate.compile("Hello {{name", false))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Unclosed placeholder at offset 6");
+        assertThatThrownBy(() -> CompiledTemplate.compile("Hello {{{name}}", false))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CompiledTemplate.compile("Hello {{ }}", false))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Empty placeholder");
+    }
+}
@@ -0,0 +1,102 @@
+package io.factorialsystems.communications.service;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.support.PostgresContainerTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeliveryLogPartitionManagerTest extends PostgresContainerTest {
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final CommunicationsProperties properties = new CommunicationsProperties();
+    private DeliveryLogPartitionManager manager;
+
+    @BeforeEach
+    void setUp() {
+        manager = new DeliveryLogPartitionManager(jdbcTemplate, properties, transactionTemplate);
+    }
+
+    @Test
+    void partitionsAreCreatedAheadOfTime() {
+        properties.getDeliveryLog().setPartitionsAhead(5);
+
+        manager.maintainPartitions();
+
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= 5; i++) {
+            assertThat(partitions()).contains(partitionName(current.plusMonths(i)));
+        }
+    }
+
+    @Test
+    void expiredPartitionIsDroppedWithItsRows() {
+        YearMonth expired = YearMonth.now().minusMonths(properties.getDeliveryLog().getRetentionMonths() + 1);
+        String name = partitionName(expired);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF delivery_logs FOR VALUES FROM ('"
+                + expired.atDay(1) + "') TO ('" + expired.plusMonths(1).atDay(1) + "')");
+        jdbcTemplate.update("INSERT INTO delivery_logs (message_id, message_type, tenant_id, event_type, provider_name, occurred_at) " +
+                "VALUES (?, 'EMAIL', ?, 'sent', 'brevo', ?)", UUID.randomUUID(), UUID.randomUUID(), expired.atDay(15).atStartOfDay());
+
+        manager.maintainPartitions();
+
+        assertThat(partitions()).doesNotContain(name);
+        assertThat(jdbcTemplate.queryForObject("SELECT to_regclass(?)", String.class, name)).isNull();
+    }
+
+    @Test
+    void partitionsWithinRetentionAndTheDefaultPartitionAreKept() {
+        YearMonth kept = YearMonth.now().minusMonths(properties.getDeliveryLog().getRetentionMonths());
+        String name = partitionName(kept);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF delivery_logs FOR VALUES FROM ('"
+                + kept.atDay(1) + "') TO ('" + kept.plusMonths(1).atDay(1) + "')");
+
+        manager.maintainPartitions();
+
+        assertThat(partitions()).contains(name, "delivery_logs_default");
+    }
+
+    @Test
+    void maintenanceIsSkippedWhileAnotherInstanceHoldsTheLock() {
+        YearMonth expired = YearMonth.now().minusMonths(properties.getDeliveryLog().getRetentionMonths() + 2);
+        String name = partitionName(expired);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF delivery_logs FOR VALUES FROM ('"
+                + expired.atDay(1) + "') TO ('" + expired.plusMonths(1).atDay(1) + "')");
+
+        // Hold the advisory lock in another open transaction while maintenance runs
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, 0x646c6f6773L);
+            Thread other = new Thread(manager::maintainPartitions);
+            other.start();
+            try {
+                other.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertThat(partitions()).contains(name);
+
+        manager.maintainPartitions();
+        assertThat(partitions()).doesNotContain(name);
+    }
+
+    private List<String> partitions() {
+        return jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid " +
+                "JOIN pg_class p ON p.oid = i.inhparent " +
+                "WHERE p.relname = 'delivery_logs'", String.class);
+    }
+
+    private static String partitionName(YearMonth month) {
+        return "delivery_logs_" + month.format(SUFFIX);
+    }
+}
@@ -0,0 +1,119 @@
+package io.factorialsystems.communications.service;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.exception.BusinessException;
+import io.factorialsystems.communications.model.dto.request.EmailAttachmentRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EmailAttachmentServiceTest {
+
+    @TempDir
+    Path root;
+
+    private final CommunicationsProperties properties = new CommunicationsProperties();
+    private AttachmentStore attachmentStore;
+    private EmailAttachmentService emailAttachmentService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        properties.getAttachment().setStorePath(root.toString());
+        attachmentStore = new AttachmentStore(properties);
+        attachmentStore.init();
+        emailAttachmentService = new EmailAttachmentService(attachmentStore, properties);
+    }
+
+    @Test
+    void noAttachmentsLeaveTheRowWithoutReferences() {
+        assertThat(emailAttachmentService.store(null, List.of())).isNull();
+        assertThat(emailAttachmentService.store(List.of(), List.of())).isNull();
+    }
+
+    @Test
+    void base64AndUploadedAttachmentsAreStoredAsReferences() throws IOException {
+        EmailAttachmentRequest inline = EmailAttachmentRequest.builder()
+                .filename("results.txt")
+                .contentType("text/plain")
+                .content(Base64.getEncoder().encodeToString("hello".getBytes(StandardCharsets.UTF_8)))
+                .build();
+        MultipartFile upload = new MockMultipartFile("attachments", "scan.pdf", "application/pdf",
+                "%PDF-1.7".getBytes(StandardCharsets.UTF_8));
+
+        List<Map<String, String>> references = emailAttachmentService.store(List.of(inline), List.of(upload));
+
+        assertThat(references).hasSize(2);
+        assertThat(references.get(0))
+                .containsEntry("filename", "results.txt")
+                .containsEntry("contentType", "text/plain")
+                .containsEntry("size", "5");
+        assertThat(references.get(1))
+                .containsEntry("filename", "scan.pdf")
+                .containsEntry("contentType", "application/pdf")
+                .containsEntry("size", "8");
+        assertThat(attachmentStore.read(references.get(0).get("sha256"))).isEqualTo("hello".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void uploadWithoutAContentTypeIsStoredAsOctetStream() {
+        MultipartFile upload = new MockMultipartFile("attachments", "blob", null, new byte[]{1, 2, 3});
+
+        List<Map<String, String>> references = emailAttachmentService.store(null, List.of(upload));
+
+        assertThat(references.get(0)).containsEntry("contentType", "application/octet-stream");
+    }
+
+    @Test
+    void tooManyAttachmentsAreRejected() {
+        properties.getMessage().setMaxAttachmentsPerEmail(2);
+        List<MultipartFile> uploads = Collections.nCopies(3,
+                new MockMultipartFile("attachments", "a.txt", "text/plain", new byte[]{1}));
+
+        assertThatThrownBy(() -> emailAttachmentService.store(null, uploads))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("at most 2 attachments");
+    }
+
+    @Test
+    void oversizedUploadIsRejectedBeforeAnythingIsStored() throws IOException {
+        properties.getMessage().setMaxAttachmentSizeMb(1);
+        MultipartFile small = new MockMultipartFile("attachments", "a.txt", "text/plain", new byte[]{1});
+        MultipartFile large = new MockMultipartFile("attachments", "b.bin", "application/octet-stream",
+                new byte[1024 * 1024 + 1]);
+
+        assertThatThrownBy(() -> emailAttachmentService.store(null, List.of(small, large)))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("b.bin");
+        try (Stream<Path> files = Files.walk(root)) {
+            assertThat(files.filter(Files::isRegularFile)).isEmpty();
+        }
+    }
+
+    @Test
+    void oversizedBase64AttachmentIsRejectedWhileCopying() {
+        properties.getMessage().setMaxAttachmentSizeMb(1);
+        EmailAttachmentRequest inline = EmailAttachmentRequest.builder()
+                .filename("big.bin")
+                .contentType("application/octet-stream")
+                .content(Base64.getEncoder().encodeToString(new byte[1024 * 1024 + 1]))
+                .build();
+
+        assertThatThrownBy(() -> emailAttachmentService.store(List.of(inline), List.of()))
+                .isInstanceOf(BusinessException.class);
+    }
+}
@@ -0,0 +1,188 @@
+package io.factorialsystems.communications.service;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.mapper.EmailMessageMapperImpl;
+import io.factorialsystems.communications.model.dto.response.EmailMessageResponse;
+import io.factorialsystems.communications.model.entity.EmailMessage;
+import io.factorialsystems.communications.model.enums.MessageStatus;
+import io.factorialsystems.communications.repository.EmailMessageRepository;
+import io.factorialsystems.communications.support.JpaContainerTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The archiver against real PostgreSQL: bodies leave the rows in committed batches and are
+ * read back through {@link EmailService}, and a row updated while its batch is being
+ * archived is left alone.
+ */
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EmailBodyArchiverTest extends JpaContainerTest {
+
+    @TempDir
+    Path storePath;
+
+    @Autowired
+    private EmailMessageRepository emailMessageRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final CommunicationsProperties properties = new CommunicationsProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UUID tenantId = UUID.randomUUID();
+    private final RateLimitService rateLimitService = mock(RateLimitService.class);
+
+    private Runnable beforeAppend = () -> { };
+    private BodyArchive bodyArchive;
+    private EmailBodyArchiver archiver;
+    private EmailService emailService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        properties.getArchive().setStorePath(storePath.toString());
+        properties.getArchive().setBatchSize(2);
+        bodyArchive = new BodyArchive(properties, meterRegistry) {
+            @Override
+            public synchronized List<Ref> append(List<Body> bodies) {
+                beforeAppend.run();
+                return super.append(bodies);
+            }
+        };
+        bodyArchive.init();
+
+        archiver = new EmailBodyArchiver(bodyArchive, jdbcTemplate, new TransactionTemplate(transactionManager),
+                properties, meterRegistry);
+        emailService = new EmailService(emailMessageRepository, mock(EmailOutboxService.class), rateLimitService,
+                mock(IdempotencyService.class), mock(EmailAttachmentService.class), mock(TenantSettingsService.class),
+                mock(EmailTemplateRegistry.class), mock(ScheduledMessageIndex.class), archiver,
+                mock(MessageStatsService.class), mock(PipelineMetrics.class), new EmailMessageMapperImpl(), properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bodyArchive.close();
+    }
+
+    @Test
+    void archivedBodiesAreReadBackThroughTheService() {
+        List<UUID> ids = List.of(insert(MessageStatus.SENT, "<p>Lab results</p>", "Lab results"),
+                insert(MessageStatus.DELIVERED, null, "Text only \u00e9"),
+                insert(MessageStatus.FAILED, "<p>Invoice</p>", null));
+        UUID recent = insert(MessageStatus.SENT, "<p>Recent</p>", "Recent");
+        backdate(recent, 20);
+        UUID pending = insert(MessageStatus.PENDING, "<p>Queued</p>", "Queued");
+
+        archiver.archive();
+
+        assertThat(ids).allSatisfy(id -> {
+            Map<String, Object> row = row(id);
+            assertThat(row.get("html_content")).isNull();
+            assertThat(row.get("text_content")).isNull();
+            assertThat(row.get("archive_segment")).isNotNull();
+            assertThat(row.get("version")).isEqualTo(1);
+        });
+        assertThat(List.of(recent, pending)).allSatisfy(id -> assertThat(row(id).get("archive_segment")).isNull());
+
+        assertBody(emailService.getEmailById(ids.get(0), tenantId), "<p>Lab results</p>", "Lab results");
+        assertBody(emailService.getEmailById(ids.get(1), tenantId), null, "Text only \u00e9");
+        assertBody(emailService.getEmailById(ids.get(2), tenantId), "<p>Invoice</p>", null);
+        assertBody(emailService.getEmailById(recent, tenantId), "<p>Recent</p>", "Recent");
+    }
+
+    @Test
+    void rowUpdatedWhileItsBatchIsArchivedKeepsItsBody() {
+        UUID changed = insert(MessageStatus.FAILED, "<p>Invoice</p>", "Invoice");
+        // Committed from another connection between the archiver's read and its update, as a retry would be
+        beforeAppend = () -> CompletableFuture.runAsync(() -> jdbcTemplate.update(
+                "UPDATE email_messages SET status = 'PENDING', version = version + 1 WHERE id = ?", changed)).join();
+
+        archiver.archive();
+
+        Map<String, Object> row = row(changed);
+        assertThat(row.get("html_content")).isEqualTo("<p>Invoice</p>");
+        assertThat(row.get("text_content")).isEqualTo("Invoice");
+        assertThat(row.get("archive_segment")).isNull();
+        assertThat(row.get("archive_offset")).isNull();
+        assertThat(row.get("version")).isEqualTo(1);
+    }
+
+    @Test
+    void retriedMessageGetsItsArchivedBodyBackInTheRow() {
+        UUID id = insert(MessageStatus.FAILED, "<p>Invoice</p>", "Invoice");
+        archiver.archive();
+        assertThat(row(id).get("archive_segment")).isNotNull();
+        when(rateLimitService.reserveEmail(eq(tenantId), anyInt(), any(LocalDate.class))).thenReturn(true);
+
+        emailService.retryFailedEmail(id, tenantId);
+
+        Map<String, Object> row = row(id);
+        assertThat(row.get("status")).isEqualTo("PENDING");
+        assertThat(row.get("html_content")).isEqualTo("<p>Invoice</p>");
+        assertThat(row.get("text_content")).isEqualTo("Invoice");
+        assertThat(row.get("archive_segment")).isNull();
+        assertThat(row.get("archive_offset")).isNull();
+        assertThat(row.get("archive_length")).isNull();
+        assertBody(emailService.getEmailById(id, tenantId), "<p>Invoice</p>", "Invoice");
+    }
+
+    /**
+     * Inserts a message created 40 days ago, past the default 30-day archive age.
+     */
+    private UUID insert(MessageStatus status, String html, String text) {
+        UUID id = emailMessageRepository.save(EmailMessage.builder()
+                .tenantId(tenantId)
+                .toEmail("patient@example.com")
+                .fromEmail("clinic@example.com")
+                .subject("Your results")
+                .htmlContent(html)
+                .textContent(text)
+                .status(status)
+                .quotaDay(LocalDate.now())
+                .build()).getId();
+        backdate(id, 40);
+        return id;
+    }
+
+    private void backdate(UUID id, int days) {
+        jdbcTemplate.update("UPDATE email_messages SET created_at = ? WHERE id = ?",
+                LocalDateTime.now().minusDays(days), id);
+    }
+
+    private Map<String, Object> row(UUID id) {
+        return jdbcTemplate.queryForMap("SELECT status, html_content, text_content, archive_segment, archive_offset, "
+                + "archive_length, version FROM email_messages WHERE id = ?", id);
+    }
+
+    private static void assertBody(EmailMessageResponse response, String html, String text) {
+        assertThat(response.getHtmlContent()).isEqualTo(html);
+        assertThat(response.getTextContent()).isEqualTo(text);
+    }
+}
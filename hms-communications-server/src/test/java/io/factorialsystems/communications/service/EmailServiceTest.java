@@ -0,0 +1,157 @@
+package io.factorialsystems.communications.service;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.exception.MessageSendException;
+import io.factorialsystems.communications.exception.RequestInProgressException;
+import io.factorialsystems.communications.mapper.EmailMessageMapper;
+import io.factorialsystems.communications.model.dto.request.SendEmailRequest;
+import io.factorialsystems.communications.model.dto.response.EmailMessageResponse;
+import io.factorialsystems.communications.model.entity.EmailMessage;
+import io.factorialsystems.communications.model.enums.MessageStatus;
+import io.factorialsystems.communications.repository.EmailMessageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EmailServiceTest {
+
+    private final UUID tenantId = UUID.randomUUID();
+
+    @Mock
+    private EmailMessageRepository emailMessageRepository;
+
+    @Mock
+    private EmailOutboxService emailOutboxService;
+
+    @Mock
+    private RateLimitService rateLimitService;
+
+    @Mock
+    private IdempotencyService idempotencyService;
+
+    @Mock
+    private EmailAttachmentService emailAttachmentService;
+
+    @Mock
+    private TenantSettingsService tenantSettingsService;
+
+    @Mock
+    private EmailTemplateRegistry emailTemplateRegistry;
+
+    @Mock
+    private ScheduledMessageIndex scheduledMessageIndex;
+
+    @Mock
+    private EmailBodyArchiver emailBodyArchiver;
+
+    @Mock
+    private MessageStatsService messageStatsService;
+
+    @Mock
+    private PipelineMetrics pipelineMetrics;
+
+    @Mock
+    private EmailMessageMapper emailMessageMapper;
+
+    @Spy
+    private CommunicationsProperties properties = new CommunicationsProperties();
+
+    @InjectMocks
+    private EmailService emailService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(pipelineMetrics.time(anyString(), anyString(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(2).get());
+    }
+
+    @Test
+    void repeatedKeyReturnsTheOriginalSingleSend() {
+        EmailMessage original = EmailMessage.builder().tenantId(tenantId).status(MessageStatus.SENT).build();
+        EmailMessageResponse response = new EmailMessageResponse();
+        when(idempotencyService.claim(IdempotencyService.EMAIL, tenantId, "order-42")).thenReturn(false);
+        when(emailMessageRepository.findByTenantIdAndIdempotencyScopeAndIdempotencyKey(
+                tenantId, IdempotencyService.EMAIL, "order-42")).thenReturn(Optional.of(original));
+        when(emailMessageMapper.toResponse(original)).thenReturn(response);
+
+        assertThat(emailService.sendEmail(tenantId, request("order-42"))).isSameAs(response);
+        verifyNoInteractions(rateLimitService, emailOutboxService);
+    }
+
+    @Test
+    void repeatedKeyWithoutARowYetIsStillInProgress() {
+        when(idempotencyService.claim(IdempotencyService.EMAIL, tenantId, "order-42")).thenReturn(false);
+        when(emailMessageRepository.findByTenantIdAndIdempotencyScopeAndIdempotencyKey(
+                tenantId, IdempotencyService.EMAIL, "order-42")).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> emailService.sendEmail(tenantId, request("order-42")))
+                .isInstanceOf(RequestInProgressException.class);
+    }
+
+    @Test
+    void retryIsAllowedBelowTheConfiguredMaximum() {
+        properties.getMessage().setMaxRetryAttempts(5);
+        EmailMessage message = failedMessage(3);
+        when(emailMessageRepository.findByIdAndTenantId(message.getId(), tenantId)).thenReturn(Optional.of(message));
+        when(rateLimitService.reserveEmail(eq(tenantId), eq(1), any(LocalDate.class))).thenReturn(true);
+
+        emailService.retryFailedEmail(message.getId(), tenantId);
+
+        assertThat(message.getStatus()).isEqualTo(MessageStatus.PENDING);
+        assertThat(message.getRetryCount()).isEqualTo(4);
+        assertThat(message.getQuotaDay()).isNotNull();
+        verify(emailBodyArchiver).restore(message);
+        verify(emailOutboxService).enqueue(message);
+    }
+
+    @Test
+    void retryIsRefusedAtTheConfiguredMaximum() {
+        properties.getMessage().setMaxRetryAttempts(5);
+        EmailMessage message = failedMessage(5);
+        when(emailMessageRepository.findByIdAndTenantId(message.getId(), tenantId)).thenReturn(Optional.of(message));
+
+        assertThatThrownBy(() -> emailService.retryFailedEmail(message.getId(), tenantId))
+                .isInstanceOf(MessageSendException.class)
+                .hasMessageContaining("Maximum retry attempts");
+        verifyNoInteractions(rateLimitService, emailOutboxService);
+    }
+
+    private SendEmailRequest request(String idempotencyKey) {
+        return SendEmailRequest.builder()
+                .idempotencyKey(idempotencyKey)
+                .toEmail("patient@example.com")
+                .subject("Lab results")
+                .textContent("Your results are ready")
+                .build();
+    }
+
+    private EmailMessage failedMessage(int retryCount) {
+        EmailMessage message = EmailMessage.builder()
+                .tenantId(tenantId)
+                .status(MessageStatus.FAILED)
+                .retryCount(retryCount)
+                .build();
+        message.setId(UUID.randomUUID());
+        return message;
+    }
+}
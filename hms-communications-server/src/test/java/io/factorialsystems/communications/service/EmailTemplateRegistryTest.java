@@ -0,0 +1,112 @@
+package io.factorialsystems.communications.service;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.exception.BusinessException;
+import io.factorialsystems.communications.exception.ResourceNotFoundException;
+import io.factorialsystems.communications.model.entity.EmailTemplate;
+import io.factorialsystems.communications.repository.EmailTemplateRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class EmailTemplateRegistryTest {
+
+    @Mock
+    private EmailTemplateRepository templateRepository;
+
+    private EmailTemplateRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new EmailTemplateRegistry(templateRepository, new CommunicationsProperties(), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void versionIsCompiledOnceAndServedFromMemory() {
+        EmailTemplate template = template(2, "<p>Hi {{name}}</p>", "Hi {{name}}");
+        when(templateRepository.findByTemplateKeyAndTemplateVersion("auth.welcome", 2)).thenReturn(Optional.of(template));
+
+        EmailTemplateRegistry.Compiled first = registry.resolve("auth.welcome", 2);
+        EmailTemplateRegistry.Compiled second = registry.get(template.getId());
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.version()).isEqualTo(2);
+        assertThat(first.renderHtml(Map.of("name", "<Ada>"))).isEqualTo("<p>Hi &lt;Ada&gt;</p>");
+        assertThat(first.renderText(Map.of("name", "<Ada>"))).isEqualTo("Hi <Ada>");
+        verify(templateRepository, times(0)).findById(template.getId());
+    }
+
+    @Test
+    void latestVersionLookupIsCached() {
+        EmailTemplate template = template(3, "<p>v3</p>", null);
+        when(templateRepository.findFirstByTemplateKeyOrderByTemplateVersionDesc("auth.welcome"))
+                .thenReturn(Optional.of(template));
+
+        registry.resolve("auth.welcome", null);
+        EmailTemplateRegistry.Compiled latest = registry.resolve("auth.welcome", null);
+
+        assertThat(latest.version()).isEqualTo(3);
+        assertThat(latest.renderText(Map.of())).isNull();
+        verify(templateRepository, times(1)).findFirstByTemplateKeyOrderByTemplateVersionDesc("auth.welcome");
+    }
+
+    @Test
+    void unknownTemplateIsNotFound() {
+        when(templateRepository.findFirstByTemplateKeyOrderByTemplateVersionDesc("missing")).thenReturn(Optional.empty());
+        when(templateRepository.findByTemplateKeyAndTemplateVersion("missing", 1)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> registry.resolve("missing", null)).isInstanceOf(ResourceNotFoundException.class);
+        assertThatThrownBy(() -> registry.resolve("missing", 1)).isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void invalidTemplateIsReportedWithItsKeyAndVersion() {
+        when(templateRepository.findByTemplateKeyAndTemplateVersion("auth.welcome", 4))
+                .thenReturn(Optional.of(template(4, "<p>Hi {{name</p>", null)));
+
+        assertThatThrownBy(() -> registry.resolve("auth.welcome", 4))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("auth.welcome v4 is invalid");
+    }
+
+    @Test
+    void everyPlaceholderNeedsAValue() {
+        when(templateRepository.findByTemplateKeyAndTemplateVersion("auth.welcome", 1))
+                .thenReturn(Optional.of(template(1, "<p>{{name}} {{{signature}}}</p>", "{{name}} {{clinic}}")));
+        EmailTemplateRegistry.Compiled compiled = registry.resolve("auth.welcome", 1);
+
+        compiled.checkVariables(Map.of("subjectLine", "x", "name", "Ada", "signature", "", "clinic", "Lagos"));
+        assertThatThrownBy(() -> compiled.checkVariables(Map.of("name", "Ada", "subjectLine", "x")))
+                .isInstanceOf(BusinessException.class)
+                .hasMessageContaining("signature")
+                .hasMessageContaining("clinic");
+        assertThatThrownBy(() -> compiled.checkVariables(null))
+                .isInstanceOf(BusinessException.class);
+    }
+
+    private static EmailTemplate template(int version, String html, String text) {
+        EmailTemplate template = EmailTemplate.builder()
+                .templateKey("auth.welcome")
+                .templateVersion(version)
+                .subject("Welcome {{subjectLine}}")
+                .htmlBody(html)
+                .textBody(text)
+                .build();
+        template.setId(UUID.randomUUID());
+        return template;
+    }
+}
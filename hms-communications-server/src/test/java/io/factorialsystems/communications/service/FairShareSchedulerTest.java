@@ -0,0 +1,148 @@
+package io.factorialsystems.communications.service;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.model.entity.EmailOutbox;
+import io.factorialsystems.communications.model.entity.TenantSettings;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class FairShareSchedulerTest {
+
+    private final UUID campaign = UUID.randomUUID();
+    private final UUID clinic = UUID.randomUUID();
+
+    @Mock
+    private EmailOutboxService outboxService;
+
+    @Mock
+    private TenantSettingsService tenantSettingsService;
+
+    @Mock
+    private PipelineMetrics pipelineMetrics;
+
+    /** Due entries per tenant, in the order the outbox reports them. */
+    private final Map<UUID, Integer> backlog = new LinkedHashMap<>();
+    private final Map<UUID, String> plans = new LinkedHashMap<>();
+
+    private FairShareScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        CommunicationsProperties properties = new CommunicationsProperties();
+        properties.getFairShare().setQuantum(5);
+        scheduler = new FairShareScheduler(outboxService, tenantSettingsService, properties, new SimpleMeterRegistry(),
+                pipelineMetrics);
+        scheduler.registerMetrics();
+
+        lenient().when(pipelineMetrics.tenantTag(any())).thenAnswer(invocation -> invocation.getArgument(0).toString());
+        lenient().when(tenantSettingsService.getOrCreateSettings(any())).thenAnswer(invocation -> TenantSettings.builder()
+                .tenantId(invocation.getArgument(0))
+                .subscriptionPlan(plans.get(invocation.<UUID>getArgument(0)))
+                .build());
+        when(outboxService.countDueByTenant()).thenAnswer(invocation -> {
+            Map<UUID, Long> due = new LinkedHashMap<>();
+            backlog.forEach((tenantId, count) -> {
+                if (count > 0) {
+                    due.put(tenantId, count.longValue());
+                }
+            });
+            return due;
+        });
+        lenient().when(outboxService.claimDue(any(), anyInt())).thenAnswer(invocation -> {
+            UUID tenantId = invocation.getArgument(0);
+            int take = Math.min(invocation.<Integer>getArgument(1), backlog.get(tenantId));
+            backlog.merge(tenantId, -take, Integer::sum);
+            List<EmailOutbox> entries = new ArrayList<>(take);
+            for (int i = 0; i < take; i++) {
+                entries.add(EmailOutbox.builder().id(UUID.randomUUID()).tenantId(tenantId).build());
+            }
+            return entries;
+        });
+    }
+
+    @Test
+    void roundIsSharedByPlanWeight() {
+        backlog.put(campaign, 1000);
+        backlog.put(clinic, 1000);
+        plans.put(campaign, "BASIC");
+        plans.put(clinic, "FREE_TRIAL");
+
+        List<EmailOutbox> round = scheduler.claimRound(15);
+
+        assertThat(round).hasSize(15);
+        assertThat(round).filteredOn(entry -> entry.getTenantId().equals(campaign)).hasSize(10);
+        assertThat(round).filteredOn(entry -> entry.getTenantId().equals(clinic)).hasSize(5);
+    }
+
+    @Test
+    void unknownPlanGetsTheDefaultWeight() {
+        backlog.put(campaign, 1000);
+        backlog.put(clinic, 1000);
+        plans.put(campaign, "LEGACY_GOLD");
+
+        List<EmailOutbox> round = scheduler.claimRound(10);
+
+        assertThat(round).filteredOn(entry -> entry.getTenantId().equals(campaign)).hasSize(5);
+        assertThat(round).filteredOn(entry -> entry.getTenantId().equals(clinic)).hasSize(5);
+    }
+
+    @Test
+    void claimedEntriesAreInterleavedByTenant() {
+        backlog.put(campaign, 1000);
+        backlog.put(clinic, 2);
+
+        List<EmailOutbox> round = scheduler.claimRound(7);
+
+        assertThat(round).extracting(EmailOutbox::getTenantId)
+                .containsExactly(campaign, clinic, campaign, clinic, campaign, campaign, campaign);
+    }
+
+    @Test
+    void tenantThatJoinsBehindACampaignIsServedInTurn() {
+        backlog.put(campaign, 1000);
+        assertThat(scheduler.claimRound(5)).extracting(EmailOutbox::getTenantId).containsOnly(campaign);
+
+        backlog.put(clinic, 1);
+        List<EmailOutbox> second = scheduler.claimRound(5);
+        List<EmailOutbox> third = scheduler.claimRound(5);
+
+        assertThat(second).extracting(EmailOutbox::getTenantId).containsOnly(campaign);
+        assertThat(third).extracting(EmailOutbox::getTenantId).startsWith(clinic);
+        assertThat(backlog.get(clinic)).isZero();
+    }
+
+    @Test
+    void unusedAllowanceCarriesOverWhileTheBacklogLasts() {
+        backlog.put(campaign, 1000);
+        backlog.put(clinic, 1000);
+
+        // The round ends after three of the clinic's five; it starts the next round owed two
+        scheduler.claimRound(8);
+        List<EmailOutbox> next = scheduler.claimRound(12);
+
+        assertThat(next).filteredOn(entry -> entry.getTenantId().equals(campaign)).hasSize(5);
+        assertThat(next).filteredOn(entry -> entry.getTenantId().equals(clinic)).hasSize(7);
+    }
+
+    @Test
+    void nothingIsClaimedWithoutDueWork() {
+        assertThat(scheduler.claimRound(10)).isEmpty();
+    }
+}
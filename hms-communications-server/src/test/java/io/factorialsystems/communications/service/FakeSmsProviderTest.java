@@ -0,0 +1,44 @@
+package io.factorialsystems.communications.service;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.exception.MessageSendException;
+import io.factorialsystems.communications.model.entity.SmsMessage;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FakeSmsProviderTest {
+
+    private final CommunicationsProperties.Sms config = new CommunicationsProperties.Sms();
+
+    @Test
+    void sendCompletesAfterTheConfiguredLatencyWithoutBlockingTheCaller() throws Exception {
+        config.setFakeLatency(Duration.ofMillis(200));
+        FakeSmsProvider provider = new FakeSmsProvider(config);
+
+        long start = System.nanoTime();
+        CompletableFuture<String> send = provider.send(new SmsMessage());
+        assertThat(send).isNotDone();
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(200));
+
+        assertThat(send.get(2, TimeUnit.SECONDS)).startsWith("fake-");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(200));
+    }
+
+    @Test
+    void failureRateOfOneFailsEverySend() {
+        config.setFakeLatency(Duration.ZERO);
+        config.setFakeFailureRate(1.0);
+        FakeSmsProvider provider = new FakeSmsProvider(config);
+
+        assertThatThrownBy(() -> provider.send(new SmsMessage()).get(2, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(MessageSendException.class);
+    }
+}
@@ -0,0 +1,95 @@
+package io.factorialsystems.communications.service;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.exception.BusinessException;
+import io.factorialsystems.communications.support.RedisContainerTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyServiceTest extends RedisContainerTest {
+
+    private final UUID tenantId = UUID.randomUUID();
+    private final CommunicationsProperties properties = new CommunicationsProperties();
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyService(redisTemplate, resourceGovernor(), properties);
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void onlyTheFirstClaimOfAKeySucceeds() {
+        assertThat(idempotencyService.claim(IdempotencyService.EMAIL, tenantId, "order-42")).isTrue();
+        assertThat(idempotencyService.claim(IdempotencyService.EMAIL, tenantId, "order-42")).isFalse();
+    }
+
+    @Test
+    void keysAreScopedByChannelAndTenant() {
+        assertThat(idempotencyService.claim(IdempotencyService.EMAIL, tenantId, "order-42")).isTrue();
+        assertThat(idempotencyService.claim(IdempotencyService.EMAIL_BATCH, tenantId, "order-42")).isTrue();
+        assertThat(idempotencyService.claim(IdempotencyService.SMS, tenantId, "order-42")).isTrue();
+        assertThat(idempotencyService.claim(IdempotencyService.EMAIL, UUID.randomUUID(), "order-42")).isTrue();
+    }
+
+    @Test
+    void claimOutsideATransactionOnlyHoldsForTheInFlightTtl() {
+        idempotencyService.claim(IdempotencyService.EMAIL, tenantId, "order-42");
+
+        assertThat(ttlOf("email", "order-42"))
+                .isPositive()
+                .isLessThanOrEqualTo(properties.getIdempotency().getInFlightTtl().toSeconds());
+    }
+
+    @Test
+    void committedClaimIsKeptForTheFullTtl() {
+        TransactionSynchronizationManager.initSynchronization();
+        idempotencyService.claim(IdempotencyService.EMAIL, tenantId, "order-42");
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(ttlOf("email", "order-42"))
+                .isGreaterThan(properties.getIdempotency().getInFlightTtl().toSeconds());
+    }
+
+    @Test
+    void rolledBackClaimCanBeRetried() {
+        TransactionSynchronizationManager.initSynchronization();
+        idempotencyService.claim(IdempotencyService.SMS, tenantId, "order-42");
+
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(idempotencyService.claim(IdempotencyService.SMS, tenantId, "order-42")).isTrue();
+    }
+
+    @Test
+    void overlongKeyIsRejected() {
+        assertThatThrownBy(() -> idempotencyService.claim(IdempotencyService.EMAIL, tenantId, "k".repeat(256)))
+                .isInstanceOf(BusinessException.class);
+    }
+
+    private long ttlOf(String scope, String key) {
+        return redisTemplate.getExpire("hms:idem:" + scope + ":" + tenantId + ":" + key);
+    }
+
+    private static void complete(int status) {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(status);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+}
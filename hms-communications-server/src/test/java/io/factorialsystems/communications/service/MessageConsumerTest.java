@@ -0,0 +1,240 @@
+package io.factorialsystems.communications.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.Channel;
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.config.RabbitMQConfig;
+import io.factorialsystems.communications.exception.BusinessException;
+import io.factorialsystems.communications.exception.ProviderUnavailableException;
+import io.factorialsystems.communications.exception.RateLimitExceededException;
+import io.factorialsystems.communications.exception.RequestInProgressException;
+import io.factorialsystems.communications.exception.ResourceNotFoundException;
+import io.factorialsystems.communications.model.dto.request.SendEmailRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.ZipException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class MessageConsumerTest {
+
+    private static final UUID TENANT_ID = UUID.randomUUID();
+
+    @Mock
+    private EmailService emailService;
+
+    @Mock
+    private SmsService smsService;
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    @Mock
+    private PipelineMetrics pipelineMetrics;
+
+    @Mock
+    private Channel channel;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private MessageConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        consumer = new MessageConsumer(emailService, smsService, rabbitTemplate, new MessagePayloadCodec(objectMapper),
+                pipelineMetrics, new SimpleMeterRegistry(), new CommunicationsProperties(), new SimpleAsyncTaskExecutor());
+        consumer.registerMetrics();
+    }
+
+    @Test
+    void processedWindowIsAcknowledgedWithOneMultipleAck() throws Exception {
+        consumer.handleEmailMessages(List.of(email(1, "a@example.com"), email(2, "b@example.com"),
+                email(3, "c@example.com")), channel);
+
+        verify(channel).basicAck(3, true);
+        verify(channel, never()).basicNack(anyLong(), anyBoolean(), anyBoolean());
+    }
+
+    @Test
+    void windowIsAcknowledgedUpToItsHighestDeliveryTag() throws Exception {
+        consumer.handleEmailMessages(List.of(email(9, "a@example.com"), email(8, "b@example.com")), channel);
+
+        verify(channel).basicAck(9, true);
+    }
+
+    @Test
+    void emptyWindowIsNotAcknowledged() throws Exception {
+        consumer.handleEmailMessages(List.of(), channel);
+
+        verifyNoInteractions(channel, emailService);
+    }
+
+    @Test
+    void failedMessageGoesToTheFirstRetryTierAndTheWindowIsStillAcknowledged() throws Exception {
+        // Lenient: the other message in the window calls the same method with different arguments
+        lenient().doThrow(new IllegalStateException("provider down"))
+                .when(emailService).sendEmail(any(), argThat((SendEmailRequest r) -> r.getToEmail().startsWith("bad")));
+
+        consumer.handleEmailMessages(List.of(email(1, "a@example.com"), email(2, "bad@example.com")), channel);
+
+        ArgumentCaptor<Message> sent = ArgumentCaptor.forClass(Message.class);
+        verify(rabbitTemplate).send(eq(RabbitMQConfig.RETRY_EXCHANGE),
+                eq(RabbitMQConfig.retryQueueName(RabbitMQConfig.EMAIL_ROUTING_KEY, Duration.ofSeconds(5))), sent.capture());
+        assertThat(sent.getValue().getMessageProperties().<Object>getHeader("x-retry-count")).isEqualTo(1);
+        verify(channel).basicAck(2, true);
+    }
+
+    @Test
+    void messageThatCannotBeRepublishedIsNackedAlone() throws Exception {
+        // Lenient: the other message in the window calls the same method with different arguments
+        lenient().doThrow(new IllegalStateException("provider down"))
+                .when(emailService).sendEmail(any(), argThat((SendEmailRequest r) -> r.getToEmail().startsWith("bad")));
+        doThrow(new AmqpException("broker down"))
+                .when(rabbitTemplate).send(anyString(), anyString(), any(Message.class));
+
+        consumer.handleEmailMessages(List.of(email(1, "a@example.com"), email(2, "bad@example.com")), channel);
+
+        verify(channel).basicAck(1, false);
+        verify(channel).basicNack(2, false, true);
+        verify(channel, never()).basicAck(anyLong(), eq(true));
+    }
+
+    @Test
+    void errorThrownWhileHandlingGoesToTheFirstRetryTier() throws Exception {
+        doThrow(new StackOverflowError()).when(emailService).sendEmail(any(), any(SendEmailRequest.class));
+
+        consumer.handleEmailMessages(List.of(email(7, "a@example.com")), channel);
+
+        verify(rabbitTemplate).send(eq(RabbitMQConfig.RETRY_EXCHANGE), anyString(), any(Message.class));
+        verify(channel).basicAck(7, true);
+    }
+
+    @Test
+    void windowThatFailsBeforeSettlingIsNackedAsAWhole() throws Exception {
+        doThrow(new IOException("channel closed")).when(channel).basicAck(anyLong(), anyBoolean());
+
+        assertThatThrownBy(() -> consumer.handleEmailMessages(
+                List.of(email(4, "a@example.com"), email(5, "b@example.com")), channel))
+                .isInstanceOf(IOException.class);
+
+        verify(channel).basicNack(5, true, true);
+    }
+
+    @Test
+    void retryableFailureWaitsInTheTierForItsAttempt() throws Exception {
+        doThrow(new IllegalStateException("provider down")).when(emailService).sendEmail(any(), any(SendEmailRequest.class));
+        Message message = email(1, "a@example.com");
+        message.getMessageProperties().getHeaders().put("x-retry-count", 2);
+
+        consumer.handleEmailMessages(List.of(message), channel);
+
+        ArgumentCaptor<Message> sent = ArgumentCaptor.forClass(Message.class);
+        verify(rabbitTemplate).send(eq(RabbitMQConfig.RETRY_EXCHANGE),
+                eq(RabbitMQConfig.retryQueueName(RabbitMQConfig.EMAIL_ROUTING_KEY, Duration.ofMinutes(2))), sent.capture());
+        assertThat(sent.getValue().getMessageProperties().<Object>getHeader("x-retry-count")).isEqualTo(3);
+        verify(channel).basicAck(1, true);
+    }
+
+    @Test
+    void failureAfterTheLastTierIsDeadLettered() throws Exception {
+        doThrow(new IllegalStateException("provider down")).when(emailService).sendEmail(any(), any(SendEmailRequest.class));
+        Message message = email(1, "a@example.com");
+        message.getMessageProperties().getHeaders().put("x-retry-count", 4);
+
+        consumer.handleEmailMessages(List.of(message), channel);
+
+        ArgumentCaptor<Message> sent = ArgumentCaptor.forClass(Message.class);
+        verify(rabbitTemplate).send(eq(RabbitMQConfig.DEAD_LETTER_EXCHANGE),
+                eq(RabbitMQConfig.EMAIL_DEAD_LETTER_ROUTING_KEY), sent.capture());
+        assertThat(sent.getValue().getMessageProperties().<String>getHeader("x-exception-class"))
+                .isEqualTo(IllegalStateException.class.getName());
+        verify(rabbitTemplate, never()).send(eq(RabbitMQConfig.RETRY_EXCHANGE), anyString(), any(Message.class));
+    }
+
+    @Test
+    void unreadablePayloadIsDeadLetteredWithoutRetry() throws Exception {
+        MessageProperties props = new MessageProperties();
+        props.setDeliveryTag(1);
+        props.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+
+        consumer.handleEmailMessages(List.of(new Message("{not json".getBytes(StandardCharsets.UTF_8), props)), channel);
+
+        ArgumentCaptor<Message> sent = ArgumentCaptor.forClass(Message.class);
+        verify(rabbitTemplate).send(eq(RabbitMQConfig.DEAD_LETTER_EXCHANGE),
+                eq(RabbitMQConfig.EMAIL_DEAD_LETTER_ROUTING_KEY), sent.capture());
+        assertThat(sent.getValue().getMessageProperties().<String>getHeader("x-original-routing-key"))
+                .isEqualTo(RabbitMQConfig.EMAIL_ROUTING_KEY);
+        verify(channel).basicAck(1, true);
+    }
+
+    @Test
+    void tenantOverItsLimitIsDeadLetteredWithoutRetry() throws Exception {
+        doThrow(new RateLimitExceededException("Daily email limit exceeded for tenant"))
+                .when(emailService).sendEmail(any(), any(SendEmailRequest.class));
+
+        consumer.handleEmailMessages(List.of(email(1, "a@example.com")), channel);
+
+        ArgumentCaptor<Message> sent = ArgumentCaptor.forClass(Message.class);
+        verify(rabbitTemplate).send(eq(RabbitMQConfig.DEAD_LETTER_EXCHANGE),
+                eq(RabbitMQConfig.EMAIL_DEAD_LETTER_ROUTING_KEY), sent.capture());
+        assertThat(sent.getValue().getMessageProperties().<String>getHeader("x-exception-class"))
+                .isEqualTo(RateLimitExceededException.class.getName());
+    }
+
+    @Test
+    void onlyErrorsThatCanClearUpAreRetryable() {
+        assertThat(MessageConsumer.isRetryable(new BusinessException("Template not found"))).isFalse();
+        assertThat(MessageConsumer.isRetryable(new ResourceNotFoundException("Tenant not found"))).isFalse();
+        assertThat(MessageConsumer.isRetryable(new RateLimitExceededException("Over limit"))).isFalse();
+        assertThat(MessageConsumer.isRetryable(new IllegalArgumentException("Bad phone number"))).isFalse();
+        assertThat(MessageConsumer.isRetryable(new ZipException("Not in GZIP format"))).isFalse();
+
+        assertThat(MessageConsumer.isRetryable(new IOException("Connection reset"))).isTrue();
+        assertThat(MessageConsumer.isRetryable(new ProviderUnavailableException("Brevo circuit open", Duration.ofSeconds(30)))).isTrue();
+        assertThat(MessageConsumer.isRetryable(new RequestInProgressException("In flight"))).isTrue();
+    }
+
+    private Message email(long deliveryTag, String toEmail) throws Exception {
+        SendEmailRequest request = SendEmailRequest.builder()
+                .tenantId(TENANT_ID)
+                .toEmail(toEmail)
+                .subject("Lab results")
+                .textContent("Your results are ready")
+                .build();
+
+        MessageProperties props = new MessageProperties();
+        props.setDeliveryTag(deliveryTag);
+        props.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        props.setMessageId("message-" + deliveryTag);
+        return new Message(objectMapper.writeValueAsString(request).getBytes(StandardCharsets.UTF_8), props);
+    }
+}
@@ -0,0 +1,130 @@
+package io.factorialsystems.communications.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.factorialsystems.communications.config.RabbitMQConfig;
+import io.factorialsystems.communications.config.SmileMessageConverter;
+import io.factorialsystems.communications.model.dto.request.SendEmailRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.amqp.support.postprocessor.GZipPostProcessor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.ZipException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MessagePayloadCodecTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final MessagePayloadCodec codec = new MessagePayloadCodec(objectMapper);
+
+    private final SendEmailRequest request = SendEmailRequest.builder()
+            .tenantId(UUID.randomUUID())
+            .toEmail("patient@example.com")
+            .templateKey("appointment.reminder")
+            .variables(Map.of("name", "Ada", "time", "10:00"))
+            .build();
+
+    @Test
+    void jsonPayloadIsRead() throws Exception {
+        SendEmailRequest read = codec.read(message(objectMapper.writeValueAsBytes(request),
+                MessageProperties.CONTENT_TYPE_JSON, null), SendEmailRequest.class);
+
+        assertRead(read);
+    }
+
+    @Test
+    void payloadWithoutAContentTypeIsReadAsJson() throws Exception {
+        SendEmailRequest read = codec.read(message(objectMapper.writeValueAsBytes(request), null, null),
+                SendEmailRequest.class);
+
+        assertRead(read);
+    }
+
+    @Test
+    void templateIdFromAnEarlierProducerIsReadAsTheTemplateKey() throws Exception {
+        byte[] json = ("{\"tenantId\":\"" + request.getTenantId() + "\",\"toEmail\":\"patient@example.com\","
+                + "\"templateId\":\"appointment.reminder\",\"variables\":{\"name\":\"Ada\",\"time\":\"10:00\"}}")
+                .getBytes(StandardCharsets.UTF_8);
+
+        assertRead(codec.read(message(json, MessageProperties.CONTENT_TYPE_JSON, null), SendEmailRequest.class));
+    }
+
+    @Test
+    void smilePayloadIsRead() throws Exception {
+        byte[] smile = objectMapper.copyWith(new SmileFactory()).writeValueAsBytes(request);
+
+        SendEmailRequest read = codec.read(message(smile, SmileMessageConverter.CONTENT_TYPE, null), SendEmailRequest.class);
+
+        assertRead(read);
+    }
+
+    @Test
+    void gzippedPayloadsAreInflatedFirst() throws Exception {
+        GZipPostProcessor gzip = new GZipPostProcessor();
+        Message json = gzip.postProcessMessage(message(objectMapper.writeValueAsBytes(request),
+                MessageProperties.CONTENT_TYPE_JSON, null));
+        Message smile = gzip.postProcessMessage(message(objectMapper.copyWith(new SmileFactory()).writeValueAsBytes(request),
+                SmileMessageConverter.CONTENT_TYPE, "UTF-8"));
+
+        assertThat(smile.getMessageProperties().getContentEncoding()).isEqualTo("gzip:UTF-8");
+        assertRead(codec.read(json, SendEmailRequest.class));
+        assertRead(codec.read(smile, SendEmailRequest.class));
+    }
+
+    @Test
+    void bodyThatIsNotGzipIsRejected() {
+        Message message = message(new byte[]{'{', '}'}, MessageProperties.CONTENT_TYPE_JSON, "gzip");
+
+        assertThatThrownBy(() -> codec.read(message, SendEmailRequest.class)).isInstanceOf(ZipException.class);
+    }
+
+    @Test
+    void formatTagNamesEncodingAndCompression() {
+        assertThat(MessagePayloadCodec.format(props(null, null))).isEqualTo("json");
+        assertThat(MessagePayloadCodec.format(props(MessageProperties.CONTENT_TYPE_JSON, "gzip"))).isEqualTo("json+gzip");
+        assertThat(MessagePayloadCodec.format(props(SmileMessageConverter.CONTENT_TYPE, null))).isEqualTo("smile");
+        assertThat(MessagePayloadCodec.format(props(SmileMessageConverter.CONTENT_TYPE, "gzip:UTF-8"))).isEqualTo("smile+gzip");
+        assertThat(MessagePayloadCodec.format(props(MessageProperties.CONTENT_TYPE_JSON, "gzipped"))).isEqualTo("json");
+    }
+
+    @Test
+    void producerConverterWritesSmileOnlyWhenAskedAndTheCodecReadsBoth() throws Exception {
+        MessageConverter converter = new RabbitMQConfig().messageConverter();
+
+        Message json = converter.toMessage(request, new MessageProperties());
+        MessageProperties smileProps = new MessageProperties();
+        smileProps.setContentType(SmileMessageConverter.CONTENT_TYPE);
+        Message smile = converter.toMessage(request, smileProps);
+
+        assertThat(json.getMessageProperties().getContentType()).isEqualTo(MessageProperties.CONTENT_TYPE_JSON);
+        assertThat(smile.getMessageProperties().getContentType()).startsWith(SmileMessageConverter.CONTENT_TYPE);
+        assertThat(smile.getBody()).hasSizeLessThan(json.getBody().length);
+        assertRead(codec.read(json, SendEmailRequest.class));
+        assertRead(codec.read(smile, SendEmailRequest.class));
+    }
+
+    private void assertRead(SendEmailRequest read) {
+        assertThat(read.getTenantId()).isEqualTo(request.getTenantId());
+        assertThat(read.getToEmail()).isEqualTo("patient@example.com");
+        assertThat(read.getTemplateKey()).isEqualTo("appointment.reminder");
+        assertThat(read.getVariables()).containsEntry("name", "Ada").containsEntry("time", "10:00");
+    }
+
+    private static Message message(byte[] body, String contentType, String contentEncoding) {
+        return new Message(body, props(contentType, contentEncoding));
+    }
+
+    private static MessageProperties props(String contentType, String contentEncoding) {
+        MessageProperties props = new MessageProperties();
+        props.setContentType(contentType);
+        props.setContentEncoding(contentEncoding);
+        return props;
+    }
+}
@@ -0,0 +1,156 @@
+package io.factorialsystems.communications.service;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.exception.BusinessException;
+import io.factorialsystems.communications.model.dto.response.DailyMessageStats;
+import io.factorialsystems.communications.model.dto.response.MessageStatsResponse;
+import io.factorialsystems.communications.model.enums.MessageStatus;
+import io.factorialsystems.communications.model.enums.MessageType;
+import io.factorialsystems.communications.repository.MessageStatsRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MessageStatsServiceTest {
+
+    private static final UUID TENANT_ID = UUID.randomUUID();
+
+    @Mock
+    private MessageStatsRepository statsRepository;
+
+    private final CommunicationsProperties properties = new CommunicationsProperties();
+    private MessageStatsService statsService;
+
+    @BeforeEach
+    void setUp() {
+        statsService = new MessageStatsService(statsRepository, properties, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void countsForTheSameKeyAreFlushedAsOneRow() {
+        statsService.record(MessageType.EMAIL, TENANT_ID, MessageStatus.SENT, 2);
+        statsService.record(MessageType.EMAIL, TENANT_ID, MessageStatus.SENT, 3);
+        statsService.record(MessageType.SMS, TENANT_ID, MessageStatus.FAILED, 1);
+        statsService.record(MessageType.SMS, TENANT_ID, MessageStatus.FAILED, 0);
+
+        statsService.flush();
+
+        assertThat(flushed()).containsOnly(
+                Map.entry(key(MessageType.EMAIL, MessageStatus.SENT), 5L),
+                Map.entry(key(MessageType.SMS, MessageStatus.FAILED), 1L));
+    }
+
+    @Test
+    void countInsideATransactionWaitsForTheCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        statsService.record(MessageType.EMAIL, TENANT_ID, MessageStatus.PENDING, 1);
+        statsService.flush();
+        verify(statsRepository, never()).increment(anyMap());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        statsService.flush();
+        assertThat(flushed()).containsOnly(Map.entry(key(MessageType.EMAIL, MessageStatus.PENDING), 1L));
+    }
+
+    @Test
+    void rolledBackCountIsNeverFlushed() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        statsService.record(MessageType.EMAIL, TENANT_ID, MessageStatus.PENDING, 1);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        statsService.flush();
+
+        verify(statsRepository, never()).increment(anyMap());
+    }
+
+    @Test
+    void failedFlushKeepsTheCountsForTheNextOne() {
+        doThrow(new IllegalStateException("database down")).doNothing().when(statsRepository).increment(anyMap());
+        statsService.record(MessageType.EMAIL, TENANT_ID, MessageStatus.SENT, 2);
+
+        statsService.flush();
+        statsService.record(MessageType.EMAIL, TENANT_ID, MessageStatus.SENT, 1);
+        statsService.flush();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<MessageStatsRepository.Key, Long>> batches = ArgumentCaptor.forClass(Map.class);
+        verify(statsRepository, times(2)).increment(batches.capture());
+        assertThat(batches.getValue()).containsOnly(Map.entry(key(MessageType.EMAIL, MessageStatus.SENT), 3L));
+    }
+
+    @Test
+    void statsAreTotalledPerChannelAndStatus() {
+        LocalDate today = LocalDate.now();
+        when(statsRepository.findByTenant(TENANT_ID, today.minusDays(1), today, null)).thenReturn(List.of(
+                row(today.minusDays(1), MessageType.EMAIL, MessageStatus.SENT, 4L),
+                row(today, MessageType.EMAIL, MessageStatus.SENT, 6L),
+                row(today, MessageType.SMS, MessageStatus.FAILED, 2L)));
+
+        MessageStatsResponse response = statsService.getStats(TENANT_ID, today.minusDays(1), today, null);
+
+        assertThat(response.getDaily()).hasSize(3);
+        assertThat(response.getTotals()).containsOnly(
+                Map.entry(MessageType.EMAIL, Map.of(MessageStatus.SENT, 10L)),
+                Map.entry(MessageType.SMS, Map.of(MessageStatus.FAILED, 2L)));
+    }
+
+    @Test
+    void rangeMustBeOrderedAndBounded() {
+        LocalDate today = LocalDate.now();
+
+        assertThatThrownBy(() -> statsService.getStats(TENANT_ID, today, today.minusDays(1), null))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("from must not be after to");
+        assertThatThrownBy(() -> statsService.getStats(TENANT_ID, today.minusDays(366), today, null))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("Stats can cover at most 366 days per request");
+        verify(statsRepository, never()).findByTenant(any(), any(), any(), any());
+    }
+
+    private Map<MessageStatsRepository.Key, Long> flushed() {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<MessageStatsRepository.Key, Long>> batch = ArgumentCaptor.forClass(Map.class);
+        verify(statsRepository).increment(batch.capture());
+        return batch.getValue();
+    }
+
+    private static MessageStatsRepository.Key key(MessageType channel, MessageStatus status) {
+        return new MessageStatsRepository.Key(TENANT_ID, LocalDate.now(), channel, status);
+    }
+
+    private static DailyMessageStats row(LocalDate date, MessageType channel, MessageStatus status, long count) {
+        return DailyMessageStats.builder().date(date).channel(channel).status(status).count(count).build();
+    }
+}
@@ -0,0 +1,109 @@
+package io.factorialsystems.communications.service;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PipelineMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CommunicationsProperties properties = new CommunicationsProperties();
+    private PipelineMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        properties.getMetrics().setMaxTaggedTenants(2);
+        metrics = new PipelineMetrics(meterRegistry, properties);
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void stageIsTimedByOutcome() {
+        assertThat(metrics.time(PipelineMetrics.EMAIL, "rate_limit", () -> true)).isTrue();
+        assertThatThrownBy(() -> metrics.time(PipelineMetrics.EMAIL, "rate_limit", () -> {
+            throw new IllegalStateException("redis down");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(stageCount("rate_limit", "success")).isEqualTo(1);
+        assertThat(stageCount("rate_limit", "error")).isEqualTo(1);
+    }
+
+    @Test
+    void queueLagIsRecordedOnlyWithAPublishTimestamp() {
+        metrics.recordQueueLag(PipelineMetrics.SMS, null);
+        assertThat(meterRegistry.find("communications.pipeline.queue.lag").timer()).isNull();
+
+        metrics.recordQueueLag(PipelineMetrics.SMS, new Date(System.currentTimeMillis() - 1500));
+
+        assertThat(meterRegistry.get("communications.pipeline.queue.lag").tag("channel", "sms").timer()
+                .totalTime(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(1500);
+    }
+
+    @Test
+    void commitIsTimedOnlyWhenTheTransactionReachesIt() {
+        TransactionSynchronizationManager.initSynchronization();
+        metrics.timeCommit(PipelineMetrics.EMAIL);
+        metrics.timeCommit(PipelineMetrics.EMAIL);
+        var synchronizations = TransactionSynchronizationManager.getSynchronizations();
+
+        synchronizations.get(0).beforeCommit(false);
+        synchronizations.get(0).afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        // Rolled back before the commit started: nothing to time
+        synchronizations.get(1).afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(stageCount("commit", "success")).isEqualTo(1);
+        assertThat(meterRegistry.find("communications.pipeline.stage").tag("stage", "commit").tag("outcome", "error").timer())
+                .isNull();
+    }
+
+    @Test
+    void completedBatchRecordsOneLatencyPerMessage() {
+        UUID tenantId = UUID.randomUUID();
+
+        metrics.recordCompleted(PipelineMetrics.EMAIL, tenantId, LocalDateTime.now().minusSeconds(3), "sent", 4);
+
+        assertThat(meterRegistry.get("communications.pipeline.end.to.end").tag("outcome", "sent").timer().count())
+                .isEqualTo(4);
+        assertThat(meterRegistry.get("communications.pipeline.messages").tag("tenant", tenantId.toString()).counter()
+                .count()).isEqualTo(4);
+    }
+
+    @Test
+    void tenantsPastTheTagLimitShareOneTag() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+
+        assertThat(metrics.tenantTag(first)).isEqualTo(first.toString());
+        assertThat(metrics.tenantTag(second)).isEqualTo(second.toString());
+        assertThat(metrics.tenantTag(third)).isEqualTo("other");
+        assertThat(metrics.tenantTag(first)).isEqualTo(first.toString());
+    }
+
+    private long stageCount(String stage, String outcome) {
+        return meterRegistry.get("communications.pipeline.stage")
+                .tag("channel", PipelineMetrics.EMAIL)
+                .tag("stage", stage)
+                .tag("outcome", outcome)
+                .timer()
+                .count();
+    }
+}
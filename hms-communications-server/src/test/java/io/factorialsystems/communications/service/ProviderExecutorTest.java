@@ -0,0 +1,118 @@
+package io.factorialsystems.communications.service;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.exception.MessageSendException;
+import io.factorialsystems.communications.exception.ProviderUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProviderExecutorTest {
+
+    private static final Predicate<Throwable> ANY_FAULT = e -> true;
+    private static final Predicate<Throwable> NO_FAULT = e -> false;
+
+    private final CommunicationsProperties properties = new CommunicationsProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ProviderExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        CommunicationsProperties.Provider config = properties.getProvider();
+        config.setSlidingWindowSize(4);
+        config.setMinimumCalls(4);
+        config.setFailureRateThreshold(50f);
+        config.setMaxConcurrentCalls(1);
+        config.setMaxWait(Duration.ZERO);
+        executor = new ProviderExecutor(properties, meterRegistry);
+    }
+
+    @Test
+    void successfulCallReturnsItsResult() {
+        assertThat(executor.execute("brevo", () -> "<id@brevo>", ANY_FAULT)).isEqualTo("<id@brevo>");
+        assertThat(meterRegistry.get("communications.provider.call").tag("outcome", "success").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void providerFaultsOpenTheBreaker() {
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> executor.execute("brevo", this::fail, ANY_FAULT))
+                    .isInstanceOf(MessageSendException.class);
+        }
+
+        assertThat(executor.isOpen("brevo")).isTrue();
+        assertThatThrownBy(() -> executor.execute("brevo", () -> "never called", ANY_FAULT))
+                .isInstanceOf(ProviderUnavailableException.class);
+        assertThat(meterRegistry.get("communications.provider.call").tag("outcome", "rejected").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectedRequestsDoNotCountAgainstTheProvider() {
+        for (int i = 0; i < 8; i++) {
+            assertThatThrownBy(() -> executor.execute("brevo", this::fail, NO_FAULT))
+                    .isInstanceOf(MessageSendException.class);
+        }
+
+        assertThat(executor.isOpen("brevo")).isFalse();
+    }
+
+    @Test
+    void breakersAreKeptPerProvider() {
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> executor.execute("brevo", this::fail, ANY_FAULT))
+                    .isInstanceOf(MessageSendException.class);
+        }
+
+        assertThat(executor.isOpen("brevo")).isTrue();
+        assertThat(executor.isOpen("twilio")).isFalse();
+        assertThat(executor.execute("twilio", () -> "SM1", ANY_FAULT)).isEqualTo("SM1");
+    }
+
+    @Test
+    void callBeyondTheConcurrencyLimitIsRefusedAtOnce() throws Exception {
+        CountDownLatch inCall = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            pool.submit(() -> executor.execute("brevo", () -> {
+                inCall.countDown();
+                awaitQuietly(release);
+                return "first";
+            }, ANY_FAULT));
+            assertThat(inCall.await(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThatThrownBy(() -> executor.execute("brevo", () -> "second", ANY_FAULT))
+                    .isInstanceOf(ProviderUnavailableException.class)
+                    .hasMessageContaining("concurrency limit");
+        } finally {
+            release.countDown();
+            pool.shutdown();
+            assertThat(pool.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        }
+
+        assertThat(executor.execute("brevo", () -> "third", ANY_FAULT)).isEqualTo("third");
+        assertThat(executor.isOpen("brevo")).isFalse();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String fail() {
+        throw new MessageSendException("Brevo answered 503");
+    }
+}
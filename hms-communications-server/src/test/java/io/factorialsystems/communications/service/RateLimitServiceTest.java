@@ -0,0 +1,109 @@
+package io.factorialsystems.communications.service;
+
+import io.factorialsystems.communications.model.entity.TenantSettings;
+import io.factorialsystems.communications.model.enums.MessageType;
+import io.factorialsystems.communications.repository.TenantSettingsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RateLimitServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 14);
+
+    private final UUID tenantId = UUID.randomUUID();
+
+    @Mock
+    private TenantSettingsService tenantSettingsService;
+
+    @Mock
+    private TenantSettingsRepository settingsRepository;
+
+    @Mock
+    private RedisRateLimiter rateLimiter;
+
+    @InjectMocks
+    private RateLimitService rateLimitService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(tenantSettingsService.getOrCreateSettings(tenantId))
+                .thenReturn(TenantSettings.builder().tenantId(tenantId).dailyEmailLimit(10).build());
+    }
+
+    @Test
+    void reservationIsCheckedAgainstTheTenantLimit() {
+        when(rateLimiter.tryReserve(MessageType.EMAIL, tenantId, 3, 10, TODAY)).thenReturn(true);
+
+        assertThat(rateLimitService.reserveEmail(tenantId, 3, TODAY)).isTrue();
+    }
+
+    @Test
+    void refusedReservationLeavesNothingToFlush() {
+        when(rateLimiter.tryReserve(MessageType.EMAIL, tenantId, 30, 10, TODAY)).thenReturn(false);
+
+        assertThat(rateLimitService.reserveEmail(tenantId, 30, TODAY)).isFalse();
+        rateLimitService.flushCounters();
+
+        verifyNoInteractions(settingsRepository);
+    }
+
+    @Test
+    void flushCopiesTheCountersOfTheReservedDay() {
+        when(rateLimiter.tryReserve(MessageType.EMAIL, tenantId, 1, 10, TODAY)).thenReturn(true);
+        when(rateLimiter.usage(MessageType.EMAIL, tenantId, TODAY)).thenReturn(4L);
+        when(rateLimiter.usage(MessageType.SMS, tenantId, TODAY)).thenReturn(2L);
+
+        rateLimitService.reserveEmail(tenantId, 1, TODAY);
+        rateLimitService.flushCounters();
+        rateLimitService.flushCounters();
+
+        verify(settingsRepository, times(1)).updateDailyCounters(tenantId, 4, 2, TODAY.atStartOfDay());
+    }
+
+    @Test
+    void failedFlushKeepsTheTenantDirtyForTheNextOne() {
+        when(rateLimiter.tryReserve(MessageType.EMAIL, tenantId, 1, 10, TODAY)).thenReturn(true);
+        when(settingsRepository.updateDailyCounters(eq(tenantId), anyInt(), anyInt(), any()))
+                .thenThrow(new QueryTimeoutException("statement timeout"))
+                .thenReturn(1);
+
+        rateLimitService.reserveEmail(tenantId, 1, TODAY);
+        rateLimitService.flushCounters();
+        rateLimitService.flushCounters();
+        rateLimitService.flushCounters();
+
+        verify(settingsRepository, times(2)).updateDailyCounters(eq(tenantId), anyInt(), anyInt(), eq(TODAY.atStartOfDay()));
+    }
+
+    @Test
+    void releaseMarksTheDayItWasReservedOnDirty() {
+        LocalDate yesterday = TODAY.minusDays(1);
+
+        rateLimitService.releaseEmail(tenantId, 1, yesterday);
+        rateLimitService.flushCounters();
+
+        verify(rateLimiter).release(MessageType.EMAIL, tenantId, 1, yesterday);
+        verify(settingsRepository).updateDailyCounters(eq(tenantId), anyInt(), anyInt(), eq(yesterday.atStartOfDay()));
+        verify(settingsRepository, never()).updateDailyCounters(eq(tenantId), anyInt(), anyInt(), eq(TODAY.atStartOfDay()));
+    }
+}
@@ -0,0 +1,111 @@
+package io.factorialsystems.communications.service;
+
+import io.factorialsystems.communications.model.enums.MessageType;
+import io.factorialsystems.communications.support.RedisContainerTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RedisRateLimiterTest extends RedisContainerTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 14);
+    private static final LocalDate YESTERDAY = TODAY.minusDays(1);
+
+    private final UUID tenantId = UUID.randomUUID();
+    private RedisRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        rateLimiter = new RedisRateLimiter(redisTemplate, resourceGovernor());
+    }
+
+    @Test
+    void reservesUpToTheLimitAndNoFurther() {
+        assertThat(rateLimiter.tryReserve(MessageType.EMAIL, tenantId, 2, 3, TODAY)).isTrue();
+        assertThat(rateLimiter.tryReserve(MessageType.EMAIL, tenantId, 1, 3, TODAY)).isTrue();
+        assertThat(rateLimiter.tryReserve(MessageType.EMAIL, tenantId, 1, 3, TODAY)).isFalse();
+
+        assertThat(rateLimiter.usage(MessageType.EMAIL, tenantId, TODAY)).isEqualTo(3);
+    }
+
+    @Test
+    void refusedReservationTakesNothing() {
+        rateLimiter.tryReserve(MessageType.EMAIL, tenantId, 4, 5, TODAY);
+
+        assertThat(rateLimiter.tryReserve(MessageType.EMAIL, tenantId, 2, 5, TODAY)).isFalse();
+        assertThat(rateLimiter.usage(MessageType.EMAIL, tenantId, TODAY)).isEqualTo(4);
+    }
+
+    @Test
+    void channelsAndDaysHaveTheirOwnBuckets() {
+        rateLimiter.tryReserve(MessageType.EMAIL, tenantId, 2, 10, TODAY);
+        rateLimiter.tryReserve(MessageType.SMS, tenantId, 1, 10, TODAY);
+        rateLimiter.tryReserve(MessageType.EMAIL, tenantId, 5, 10, YESTERDAY);
+
+        assertThat(rateLimiter.usage(MessageType.EMAIL, tenantId, TODAY)).isEqualTo(2);
+        assertThat(rateLimiter.usage(MessageType.SMS, tenantId, TODAY)).isEqualTo(1);
+        assertThat(rateLimiter.usage(MessageType.EMAIL, tenantId, YESTERDAY)).isEqualTo(5);
+    }
+
+    @Test
+    void bucketExpiresOnItsOwn() {
+        rateLimiter.tryReserve(MessageType.EMAIL, tenantId, 1, 10, TODAY);
+
+        String key = "hms:ratelimit:email:" + tenantId + ":" + DateTimeFormatter.BASIC_ISO_DATE.format(TODAY);
+        assertThat(redisTemplate.getExpire(key)).isPositive();
+    }
+
+    @Test
+    void releaseGoesBackToTheDayItWasReservedOn() {
+        rateLimiter.tryReserve(MessageType.EMAIL, tenantId, 3, 10, YESTERDAY);
+        rateLimiter.tryReserve(MessageType.EMAIL, tenantId, 2, 10, TODAY);
+
+        rateLimiter.release(MessageType.EMAIL, tenantId, 1, YESTERDAY);
+
+        assertThat(rateLimiter.usage(MessageType.EMAIL, tenantId, YESTERDAY)).isEqualTo(2);
+        assertThat(rateLimiter.usage(MessageType.EMAIL, tenantId, TODAY)).isEqualTo(2);
+    }
+
+    @Test
+    void releaseNeverGoesBelowZeroOrRecreatesAnExpiredBucket() {
+        rateLimiter.tryReserve(MessageType.SMS, tenantId, 1, 10, TODAY);
+        rateLimiter.release(MessageType.SMS, tenantId, 5, TODAY);
+        rateLimiter.release(MessageType.SMS, tenantId, 1, YESTERDAY);
+
+        assertThat(rateLimiter.usage(MessageType.SMS, tenantId, TODAY)).isZero();
+        assertThat(redisTemplate.hasKey("hms:ratelimit:sms:" + tenantId + ":"
+                + DateTimeFormatter.BASIC_ISO_DATE.format(YESTERDAY))).isFalse();
+    }
+
+    @Test
+    void concurrentReservationsNeverOvershootTheLimit() throws Exception {
+        int limit = 20;
+        List<Callable<Boolean>> reservations = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            reservations.add(() -> rateLimiter.tryReserve(MessageType.EMAIL, tenantId, 1, limit, TODAY));
+        }
+
+        int reserved = 0;
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (Future<Boolean> result : executor.invokeAll(reservations)) {
+                if (result.get()) {
+                    reserved++;
+                }
+            }
+        }
+
+        assertThat(reserved).isEqualTo(limit);
+        assertThat(rateLimiter.usage(MessageType.EMAIL, tenantId, TODAY)).isEqualTo(limit);
+    }
+}
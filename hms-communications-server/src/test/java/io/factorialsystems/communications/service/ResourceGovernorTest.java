@@ -0,0 +1,126 @@
+package io.factorialsystems.communications.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.exception.ResourceBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static io.factorialsystems.communications.service.ResourceGovernor.Resource.DATABASE;
+import static io.factorialsystems.communications.service.ResourceGovernor.Resource.PROVIDER;
+import static io.factorialsystems.communications.service.ResourceGovernor.Resource.REDIS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class ResourceGovernorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CommunicationsProperties properties = new CommunicationsProperties();
+    private HikariDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        // Never connects: the pool only opens connections on first use
+        dataSource = new HikariDataSource();
+        dataSource.setMaximumPoolSize(6);
+        properties.getProvider().setMaxConcurrentCalls(3);
+        properties.getConcurrency().setAcquireTimeout(Duration.ofMillis(50));
+        properties.getConcurrency().setRedisPermits(2);
+    }
+
+    @AfterEach
+    void closePool() {
+        dataSource.close();
+    }
+
+    @Test
+    void limitsAreSizedFromThePoolsBehindEachResource() {
+        governor(dataSource);
+
+        assertThat(limit(DATABASE)).isEqualTo(4);
+        assertThat(limit(PROVIDER)).isEqualTo(3);
+        assertThat(limit(REDIS)).isEqualTo(2);
+    }
+
+    @Test
+    void unknownPoolFallsBackToTenConnections() {
+        governor(mock(DataSource.class));
+
+        assertThat(limit(DATABASE)).isEqualTo(8);
+    }
+
+    @Test
+    void databaseKeepsAtLeastOnePermit() {
+        properties.getConcurrency().setDatabaseReserve(10);
+        governor(dataSource);
+
+        assertThat(limit(DATABASE)).isEqualTo(1);
+    }
+
+    @Test
+    void requestIsShedOnceTheWaitRunsOut() {
+        ResourceGovernor governor = governor(dataSource);
+        governor.acquire(REDIS);
+        governor.acquire(REDIS);
+
+        assertThatThrownBy(() -> governor.acquire(REDIS))
+                .isInstanceOf(ResourceBusyException.class)
+                .hasMessageContaining("redis");
+        assertThat(meterRegistry.get("communications.concurrency.wait")
+                .tag("resource", "redis").tag("outcome", "timed_out").timer().count()).isEqualTo(1);
+        assertThat(inUse(REDIS)).isEqualTo(2);
+
+        governor.release(REDIS);
+        governor.acquire(REDIS);
+    }
+
+    @Test
+    void callReleasesItsPermitWhenTheWorkFails() {
+        ResourceGovernor governor = governor(dataSource);
+
+        assertThatThrownBy(() -> governor.call(REDIS, () -> {
+            throw new IllegalStateException("redis down");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(inUse(REDIS)).isZero();
+        assertThat(governor.call(REDIS, () -> "OK")).isEqualTo("OK");
+    }
+
+    @Test
+    void executorTaskWaitsForAPermitInsteadOfFailing() throws Exception {
+        ResourceGovernor governor = governor(dataSource);
+        governor.acquire(REDIS);
+        governor.acquire(REDIS);
+        AtomicBoolean ran = new AtomicBoolean();
+
+        CompletableFuture<Void> task = CompletableFuture.runAsync(() -> governor.runWhenFree(REDIS, () -> ran.set(true)));
+        Thread.sleep(150);
+        assertThat(ran).isFalse();
+
+        governor.release(REDIS);
+        task.get(5, TimeUnit.SECONDS);
+        assertThat(ran).isTrue();
+        assertThat(inUse(REDIS)).isEqualTo(1);
+    }
+
+    private ResourceGovernor governor(DataSource dataSource) {
+        return new ResourceGovernor(dataSource, properties, meterRegistry);
+    }
+
+    private double limit(ResourceGovernor.Resource resource) {
+        return meterRegistry.get("communications.concurrency.permits.limit").tag("resource", resource.getTag()).gauge().value();
+    }
+
+    private double inUse(ResourceGovernor.Resource resource) {
+        return meterRegistry.get("communications.concurrency.permits.in.use").tag("resource", resource.getTag()).gauge().value();
+    }
+}
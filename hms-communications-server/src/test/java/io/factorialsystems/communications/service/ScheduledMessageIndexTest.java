@@ -0,0 +1,165 @@
+package io.factorialsystems.communications.service;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.exception.BusinessException;
+import io.factorialsystems.communications.repository.ScheduledMessageRef;
+import io.factorialsystems.communications.support.RedisContainerTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ScheduledMessageIndexTest extends RedisContainerTest {
+
+    private static final String CHANNEL = "email";
+
+    private final CommunicationsProperties properties = new CommunicationsProperties();
+    private ScheduledMessageIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ScheduledMessageIndex(redisTemplate, resourceGovernor(), properties);
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void claimReturnsAndRemovesOnlyDueMembers() {
+        UUID due = UUID.randomUUID();
+        UUID later = UUID.randomUUID();
+        index.add(CHANNEL, List.of(
+                new ScheduledMessageRef(due, LocalDateTime.now().minusSeconds(5)),
+                new ScheduledMessageRef(later, LocalDateTime.now().plusMinutes(10))));
+
+        assertThat(index.claimDue(CHANNEL, 10)).containsExactly(due);
+        assertThat(index.claimDue(CHANNEL, 10)).isEmpty();
+        assertThat(index.size(CHANNEL)).isEqualTo(1);
+    }
+
+    @Test
+    void claimIsLimitedAndInDueOrder() {
+        LocalDateTime now = LocalDateTime.now();
+        List<ScheduledMessageRef> refs = new ArrayList<>();
+        for (int i = 5; i > 0; i--) {
+            refs.add(new ScheduledMessageRef(UUID.randomUUID(), now.minusMinutes(i)));
+        }
+        index.add(CHANNEL, refs);
+
+        assertThat(index.claimDue(CHANNEL, 2)).containsExactly(refs.get(0).id(), refs.get(1).id());
+        assertThat(index.claimDue(CHANNEL, 10)).containsExactly(refs.get(2).id(), refs.get(3).id(), refs.get(4).id());
+    }
+
+    @Test
+    void concurrentPollersClaimEachMessageOnce() throws Exception {
+        List<ScheduledMessageRef> refs = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            refs.add(new ScheduledMessageRef(UUID.randomUUID(), LocalDateTime.now().minusSeconds(1)));
+        }
+        index.add(CHANNEL, refs);
+
+        List<UUID> claimed;
+        try (ExecutorService pollers = Executors.newFixedThreadPool(4)) {
+            List<CompletableFuture<List<UUID>>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                futures.add(CompletableFuture.supplyAsync(() -> drain(index), pollers));
+            }
+            claimed = new ArrayList<>();
+            for (CompletableFuture<List<UUID>> future : futures) {
+                claimed.addAll(future.get());
+            }
+        }
+
+        assertThat(claimed)
+                .doesNotHaveDuplicates()
+                .containsExactlyInAnyOrderElementsOf(refs.stream().map(ScheduledMessageRef::id).toList());
+    }
+
+    @Test
+    void channelsHaveSeparateIndexes() {
+        UUID email = UUID.randomUUID();
+        index.add(CHANNEL, List.of(new ScheduledMessageRef(email, LocalDateTime.now().minusSeconds(1))));
+
+        assertThat(index.claimDue("sms", 10)).isEmpty();
+        assertThat(index.claimDue(CHANNEL, 10)).containsExactly(email);
+    }
+
+    @Test
+    void messageBeyondTheHorizonIsLeftToTheLoader() {
+        index.addAfterCommit(CHANNEL, UUID.randomUUID(),
+                LocalDateTime.now().plus(properties.getScheduler().getHorizon()).plusMinutes(1));
+
+        assertThat(index.size(CHANNEL)).isZero();
+    }
+
+    @Test
+    void messageIsIndexedOnlyOnceTheTransactionCommits() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        index.addAfterCommit(CHANNEL, UUID.randomUUID(), LocalDateTime.now().plusMinutes(5));
+        assertThat(index.size(CHANNEL)).isZero();
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(index.size(CHANNEL)).isEqualTo(1);
+    }
+
+    @Test
+    void loadedUntilRoundTripsToTheMillisecond() {
+        LocalDateTime until = LocalDateTime.now().plusHours(2).truncatedTo(ChronoUnit.MILLIS);
+
+        assertThat(index.loadedUntil(CHANNEL)).isEmpty();
+        index.setLoadedUntil(CHANNEL, until);
+
+        assertThat(index.loadedUntil(CHANNEL)).contains(until);
+    }
+
+    @Test
+    void loaderLockIsHeldByOneInstance() {
+        assertThat(index.tryLockLoader(Duration.ofMinutes(1))).isTrue();
+        assertThat(index.tryLockLoader(Duration.ofMinutes(1))).isFalse();
+    }
+
+    @Test
+    void dueTimeIsNullForImmediateSends() {
+        assertThat(index.dueTime(null)).isNull();
+        assertThat(index.dueTime(OffsetDateTime.now().minusMinutes(1))).isNull();
+        assertThat(index.dueTime(OffsetDateTime.now().plusHours(1))).isAfter(LocalDateTime.now());
+    }
+
+    @Test
+    void sendAtBeyondTheMaxDelayIsRejected() {
+        OffsetDateTime tooLate = OffsetDateTime.now().plus(properties.getScheduler().getMaxDelay()).plusDays(1);
+
+        assertThatThrownBy(() -> index.dueTime(tooLate))
+                .isInstanceOf(BusinessException.class)
+                .hasMessage("sendAt must be within 400 days");
+    }
+
+    private static List<UUID> drain(ScheduledMessageIndex index) {
+        List<UUID> claimed = new ArrayList<>();
+        List<UUID> batch;
+        while (!(batch = index.claimDue(CHANNEL, 7)).isEmpty()) {
+            claimed.addAll(batch);
+        }
+        return claimed;
+    }
+}
@@ -0,0 +1,209 @@
+package io.factorialsystems.communications.service;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.model.entity.EmailMessage;
+import io.factorialsystems.communications.model.enums.MessageStatus;
+import io.factorialsystems.communications.repository.EmailMessageRepository;
+import io.factorialsystems.communications.repository.EmailOutboxRepository;
+import io.factorialsystems.communications.repository.ScheduledMessageRef;
+import io.factorialsystems.communications.repository.SmsMessageRepository;
+import io.factorialsystems.communications.support.JpaContainerTest;
+import io.factorialsystems.communications.support.RedisContainerTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * The poller against both stores: ids are claimed from a real Redis index and released in
+ * real PostgreSQL transactions, so a double release can be made to happen.
+ */
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ScheduledMessagePollerTest extends JpaContainerTest {
+
+    private static final String EMAIL = PipelineMetrics.EMAIL;
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    @Autowired
+    private EmailMessageRepository emailMessageRepository;
+
+    @Autowired
+    private EmailOutboxRepository outboxRepository;
+
+    @Autowired
+    private SmsMessageRepository smsMessageRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final CommunicationsProperties properties = new CommunicationsProperties();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UUID tenantId = UUID.randomUUID();
+    private final LocalDateTime now = LocalDateTime.now();
+
+    private TransactionTemplate transactionTemplate;
+    private ScheduledMessageIndex index;
+    private EmailOutboxService outboxService;
+    private ScheduledMessagePoller poller;
+
+    @BeforeAll
+    static void connectRedis() {
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(
+                RedisContainerTest.REDIS.getHost(), RedisContainerTest.REDIS.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void disconnectRedis() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        });
+
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        index = new ScheduledMessageIndex(redisTemplate,
+                new ResourceGovernor(mock(DataSource.class), properties, meterRegistry), properties);
+        outboxService = new EmailOutboxService(outboxRepository, emailMessageRepository,
+                mock(DeliveryLogService.class), mock(RateLimitService.class), mock(PipelineMetrics.class),
+                mock(MessageStatsService.class), properties);
+        poller = new ScheduledMessagePoller(index, outboxService, mock(SmsService.class),
+                emailMessageRepository, smsMessageRepository, properties, meterRegistry);
+    }
+
+    @Test
+    void idsReleasedTwiceAreQueuedOnce() {
+        List<UUID> ids = List.of(insert(MessageStatus.SCHEDULED, now.minusSeconds(5)),
+                insert(MessageStatus.SCHEDULED, now.minusSeconds(5)));
+
+        index.add(EMAIL, refs(ids));
+        releaseDue();
+        // As if the overdue sweep had put them back after another instance released them
+        index.add(EMAIL, refs(ids));
+        releaseDue();
+
+        assertThat(index.size(EMAIL)).isZero();
+        assertThat(outboxEntries(ids)).isEqualTo(2);
+        assertThat(ids).allSatisfy(id -> assertThat(status(id)).isEqualTo("PENDING"));
+        assertThat(meterRegistry.get("communications.scheduler.released").tag("channel", EMAIL).counter().count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void concurrentReleasesOfTheSameIdsQueueThemOnce() throws Exception {
+        List<UUID> ids = List.of(insert(MessageStatus.SCHEDULED, now.minusSeconds(5)),
+                insert(MessageStatus.SCHEDULED, now.minusSeconds(5)),
+                insert(MessageStatus.SCHEDULED, now.minusSeconds(5)));
+
+        CountDownLatch released = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        CompletableFuture<Integer> first = CompletableFuture.supplyAsync(() ->
+                transactionTemplate.execute(status -> {
+                    int count = outboxService.releaseScheduled(ids);
+                    released.countDown();
+                    await(commit);
+                    return count;
+                }));
+
+        assertThat(released.await(10, TimeUnit.SECONDS)).isTrue();
+        // Waits on the row locks of the first release, then finds the rows no longer SCHEDULED
+        CompletableFuture<Integer> second = CompletableFuture.supplyAsync(() ->
+                transactionTemplate.execute(status -> outboxService.releaseScheduled(ids)));
+        Thread.sleep(200);
+        commit.countDown();
+
+        assertThat(first.get(10, TimeUnit.SECONDS)).isEqualTo(3);
+        assertThat(second.get(10, TimeUnit.SECONDS)).isZero();
+        assertThat(outboxEntries(ids)).isEqualTo(3);
+    }
+
+    @Test
+    void loadIndexReindexesAnOverdueScheduledRow() {
+        UUID overdue = insert(MessageStatus.SCHEDULED, now.minusMinutes(10));
+        UUID withinGrace = insert(MessageStatus.SCHEDULED, now.minusSeconds(30));
+        UUID alreadyReleased = insert(MessageStatus.PENDING, now.minusMinutes(10));
+        // An earlier load covered the whole horizon, so only the overdue sweep looks back this far
+        index.setLoadedUntil(EMAIL, now.plus(properties.getScheduler().getHorizon()));
+
+        poller.loadIndex();
+
+        assertThat(index.claimDue(EMAIL, 1000))
+                .contains(overdue)
+                .doesNotContain(withinGrace, alreadyReleased);
+    }
+
+    // The outbox service is not a Spring proxy here, so the transaction releaseScheduled runs in is opened by hand
+    private void releaseDue() {
+        transactionTemplate.executeWithoutResult(status -> poller.releaseDue());
+    }
+
+    private UUID insert(MessageStatus status, LocalDateTime scheduledAt) {
+        return emailMessageRepository.save(EmailMessage.builder()
+                .tenantId(tenantId)
+                .toEmail("patient@example.com")
+                .fromEmail("clinic@example.com")
+                .subject("Appointment reminder")
+                .textContent("See you tomorrow at 10:00")
+                .status(status)
+                .scheduledAt(scheduledAt)
+                .quotaDay(LocalDate.now())
+                .build()).getId();
+    }
+
+    private static List<ScheduledMessageRef> refs(List<UUID> ids) {
+        return ids.stream().map(id -> new ScheduledMessageRef(id, LocalDateTime.now().minusSeconds(1))).toList();
+    }
+
+    private int outboxEntries(List<UUID> ids) {
+        return ids.stream()
+                .mapToInt(id -> jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM email_outbox WHERE message_id = ?", Integer.class, id))
+                .sum();
+    }
+
+    private String status(UUID id) {
+        return jdbcTemplate.queryForObject("SELECT status FROM email_messages WHERE id = ?", String.class, id);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package io.factorialsystems.communications.service;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.exception.MessageSendException;
+import io.factorialsystems.communications.model.entity.SmsMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SmsDispatcherTest {
+
+    @Mock
+    private SmsProvider smsProvider;
+
+    @Mock
+    private SmsService smsService;
+
+    private final CommunicationsProperties properties = new CommunicationsProperties();
+    private SmsDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        properties.getSms().setMaxInFlight(1);
+        properties.getSms().setAcquireTimeout(Duration.ofMillis(10));
+        // Completions run on the calling thread, so every outcome is recorded before dispatch returns
+        dispatcher = new SmsDispatcher(smsProvider, smsService, properties, new SimpleMeterRegistry(),
+                new TaskExecutorAdapter(Runnable::run));
+        dispatcher.init();
+        lenient().when(smsProvider.getName()).thenReturn("fake");
+    }
+
+    @Test
+    void sentMessageIsRecordedWithTheProviderId() {
+        SmsMessage message = message();
+        when(smsProvider.send(message)).thenReturn(CompletableFuture.completedFuture("SM123"));
+
+        dispatcher.onAccepted(new SmsAcceptedEvent(message));
+
+        verify(smsService).recordSent(message, "fake", "SM123");
+    }
+
+    @Test
+    void failedSendIsRecordedWithTheUnderlyingError() {
+        SmsMessage message = message();
+        CompletableFuture<String> failed = CompletableFuture.supplyAsync(() -> {
+            throw new MessageSendException("Invalid 'To' number");
+        }, Runnable::run);
+        when(smsProvider.send(message)).thenReturn(failed);
+
+        dispatcher.onAccepted(new SmsAcceptedEvent(message));
+
+        verify(smsService).recordFailure(message, "fake", "Invalid 'To' number");
+    }
+
+    @Test
+    void providerThatThrowsIsTreatedAsAFailedSend() {
+        SmsMessage message = message();
+        when(smsProvider.send(message)).thenThrow(new IllegalStateException("client closed"));
+
+        dispatcher.onAccepted(new SmsAcceptedEvent(message));
+
+        verify(smsService).recordFailure(message, "fake", "client closed");
+    }
+
+    @Test
+    void sendsBeyondTheInFlightCapWaitForRedispatch() {
+        SmsMessage first = message();
+        SmsMessage second = message();
+        CompletableFuture<String> outstanding = new CompletableFuture<>();
+        when(smsProvider.send(first)).thenReturn(outstanding);
+
+        dispatcher.onAccepted(new SmsAcceptedEvent(first));
+        dispatcher.onAccepted(new SmsAcceptedEvent(second));
+        verify(smsProvider, never()).send(second);
+
+        outstanding.complete("SM1");
+        when(smsProvider.send(second)).thenReturn(CompletableFuture.completedFuture("SM2"));
+        dispatcher.onAccepted(new SmsAcceptedEvent(second));
+
+        verify(smsService).recordSent(second, "fake", "SM2");
+    }
+
+    @Test
+    void slotIsReleasedWhenRecordingTheResultFails() {
+        SmsMessage first = message();
+        SmsMessage second = message();
+        when(smsProvider.send(any())).thenReturn(CompletableFuture.completedFuture("SM1"));
+        // Lenient: the second message reaches the same method with other arguments
+        lenient().doThrow(new IllegalStateException("database down"))
+                .when(smsService).recordSent(eq(first), anyString(), anyString());
+
+        dispatcher.onAccepted(new SmsAcceptedEvent(first));
+        dispatcher.onAccepted(new SmsAcceptedEvent(second));
+
+        verify(smsProvider, times(2)).send(any());
+    }
+
+    @Test
+    void onlyClaimedStaleMessagesAreRedispatched() {
+        SmsMessage claimed = message();
+        UUID taken = UUID.randomUUID();
+        when(smsService.findStalePending(any(LocalDateTime.class), eq(1))).thenReturn(List.of(claimed.getId(), taken));
+        when(smsService.claimForRedispatch(eq(claimed.getId()), any(LocalDateTime.class))).thenReturn(Optional.of(claimed));
+        when(smsService.claimForRedispatch(eq(taken), any(LocalDateTime.class))).thenReturn(Optional.empty());
+        when(smsProvider.send(claimed)).thenReturn(CompletableFuture.completedFuture("SM1"));
+
+        dispatcher.redispatchStale();
+
+        verify(smsProvider, times(1)).send(any());
+        verify(smsService).recordSent(claimed, "fake", "SM1");
+    }
+
+    private static SmsMessage message() {
+        SmsMessage message = SmsMessage.builder()
+                .tenantId(UUID.randomUUID())
+                .toPhone("+2348012345678")
+                .message("Your appointment is tomorrow at 10:00")
+                .build();
+        message.setId(UUID.randomUUID());
+        return message;
+    }
+}
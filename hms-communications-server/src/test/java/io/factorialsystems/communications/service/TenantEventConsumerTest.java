@@ -0,0 +1,97 @@
+package io.factorialsystems.communications.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.Channel;
+import io.factorialsystems.communications.model.dto.request.TenantEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class TenantEventConsumerTest {
+
+    private static final UUID TENANT_ID = UUID.randomUUID();
+
+    @Mock
+    private TenantSettingsService tenantSettingsService;
+
+    @Mock
+    private Channel channel;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private TenantEventConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        consumer = new TenantEventConsumer(tenantSettingsService, new MessagePayloadCodec(objectMapper));
+    }
+
+    @Test
+    void planFromTheEventIsRecorded() throws Exception {
+        consumer.handleTenantEvent(event(1, "tenant.activated", "PROFESSIONAL"), channel);
+
+        verify(tenantSettingsService).updateSubscriptionPlan(TENANT_ID, "PROFESSIONAL");
+        verify(channel).basicAck(1, false);
+    }
+
+    @Test
+    void eventWithoutAPlanIsAcknowledgedAndIgnored() throws Exception {
+        consumer.handleTenantEvent(event(2, "tenant.created", null), channel);
+
+        verifyNoInteractions(tenantSettingsService);
+        verify(channel).basicAck(2, false);
+    }
+
+    @Test
+    void unreadableEventIsRejectedWithoutRequeue() throws Exception {
+        MessageProperties props = new MessageProperties();
+        props.setDeliveryTag(3);
+        props.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+
+        consumer.handleTenantEvent(new Message("{not json".getBytes(StandardCharsets.UTF_8), props), channel);
+
+        verifyNoInteractions(tenantSettingsService);
+        verify(channel).basicReject(3, false);
+    }
+
+    @Test
+    void failedUpdateReturnsTheEventToTheQueue() throws Exception {
+        doThrow(new QueryTimeoutException("statement timeout"))
+                .when(tenantSettingsService).updateSubscriptionPlan(any(), any());
+
+        consumer.handleTenantEvent(event(4, "tenant.activated", "BASIC"), channel);
+
+        verify(channel).basicNack(4, false, true);
+    }
+
+    private Message event(long deliveryTag, String messageType, String plan) throws Exception {
+        Map<String, String> payload = new HashMap<>();
+        payload.put("tenantId", TENANT_ID.toString());
+        payload.put("status", "ACTIVE");
+        if (plan != null) {
+            payload.put("subscriptionPlan", plan);
+        }
+        TenantEvent event = TenantEvent.builder().messageType(messageType).payload(payload).build();
+
+        MessageProperties props = new MessageProperties();
+        props.setDeliveryTag(deliveryTag);
+        props.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        return new Message(objectMapper.writeValueAsBytes(event), props);
+    }
+}
@@ -0,0 +1,145 @@
+package io.factorialsystems.communications.service;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.model.entity.TenantSettings;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class TenantSettingsCacheTest {
+
+    private final UUID tenantId = UUID.randomUUID();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private CacheManager cacheManager;
+    private StringRedisTemplate redisTemplate;
+    private TenantSettingsCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new ConcurrentMapCacheManager(TenantSettingsCache.CACHE_NAME);
+        redisTemplate = mock(StringRedisTemplate.class);
+        cache = new TenantSettingsCache(cacheManager, redisTemplate, new SimpleMeterRegistry(), new CommunicationsProperties());
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void settingsAreLoadedOnceAndWrittenToBothTiers() {
+        TenantSettings first = cache.get(tenantId, loader("clinic@example.com"));
+        TenantSettings second = cache.get(tenantId, loader("other@example.com"));
+
+        assertThat(second).isSameAs(first);
+        assertThat(loads).hasValue(1);
+        assertThat(shared().get(tenantId, TenantSettings.class)).isSameAs(first);
+    }
+
+    @Test
+    void sharedTierAnswersALocalMiss() {
+        TenantSettings settings = settings("clinic@example.com");
+        shared().put(tenantId, settings);
+
+        assertThat(cache.get(tenantId, loader("other@example.com"))).isSameAs(settings);
+        assertThat(loads).hasValue(0);
+    }
+
+    @Test
+    void invalidationEvictsBothTiersAndBroadcasts() {
+        cache.get(tenantId, loader("clinic@example.com"));
+
+        cache.invalidate(tenantId);
+
+        assertThat(shared().get(tenantId)).isNull();
+        verify(redisTemplate).convertAndSend(TenantSettingsCache.INVALIDATION_CHANNEL, tenantId.toString());
+        assertThat(cache.get(tenantId, loader("new@example.com")).getDefaultFromEmail()).isEqualTo("new@example.com");
+    }
+
+    @Test
+    void invalidationInsideATransactionWaitsForCommit() {
+        cache.get(tenantId, loader("clinic@example.com"));
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.invalidate(tenantId);
+        assertThat(shared().get(tenantId)).isNotNull();
+        verify(redisTemplate, never()).convertAndSend(anyString(), anyString());
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+        assertThat(shared().get(tenantId)).isNull();
+        verify(redisTemplate).convertAndSend(TenantSettingsCache.INVALIDATION_CHANNEL, tenantId.toString());
+    }
+
+    @Test
+    void broadcastDropsOnlyTheLocalEntry() {
+        cache.get(tenantId, loader("clinic@example.com"));
+        shared().put(tenantId, settings("shared@example.com"));
+
+        cache.onMessage(new DefaultMessage(TenantSettingsCache.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                tenantId.toString().getBytes(StandardCharsets.UTF_8)), null);
+
+        assertThat(cache.get(tenantId, loader("other@example.com")).getDefaultFromEmail()).isEqualTo("shared@example.com");
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void malformedBroadcastIsIgnored() {
+        TenantSettings settings = cache.get(tenantId, loader("clinic@example.com"));
+
+        cache.onMessage(new DefaultMessage(TenantSettingsCache.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8),
+                "not-a-uuid".getBytes(StandardCharsets.UTF_8)), null);
+
+        assertThat(cache.get(tenantId, loader("other@example.com"))).isSameAs(settings);
+    }
+
+    @Test
+    void failedBroadcastStillEvictsThisInstance() {
+        cache.get(tenantId, loader("clinic@example.com"));
+        doThrow(new RedisConnectionFailureException("redis down"))
+                .when(redisTemplate).convertAndSend(anyString(), anyString());
+
+        cache.invalidate(tenantId);
+
+        assertThat(cache.get(tenantId, loader("new@example.com")).getDefaultFromEmail()).isEqualTo("new@example.com");
+    }
+
+    private org.springframework.cache.Cache shared() {
+        return cacheManager.getCache(TenantSettingsCache.CACHE_NAME);
+    }
+
+    private Supplier<TenantSettings> loader(String fromEmail) {
+        return () -> {
+            loads.incrementAndGet();
+            return settings(fromEmail);
+        };
+    }
+
+    private TenantSettings settings(String fromEmail) {
+        return TenantSettings.builder().tenantId(tenantId).defaultFromEmail(fromEmail).build();
+    }
+}
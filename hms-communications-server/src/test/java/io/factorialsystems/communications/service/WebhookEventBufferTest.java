@@ -0,0 +1,122 @@
+package io.factorialsystems.communications.service;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.config.RabbitMQConfig;
+import io.factorialsystems.communications.model.dto.request.BrevoWebhookEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.MessagePostProcessor;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class WebhookEventBufferTest {
+
+    @Mock
+    private WebhookEventWriter writer;
+
+    @Mock
+    private RabbitTemplate rabbitTemplate;
+
+    private WebhookEventBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        CommunicationsProperties properties = new CommunicationsProperties();
+        properties.getWebhook().setBufferCapacity(4);
+        properties.getWebhook().setBatchSize(2);
+        buffer = new WebhookEventBuffer(writer, rabbitTemplate, properties, new SimpleMeterRegistry());
+        buffer.init();
+    }
+
+    @Test
+    void deliveryIsAcceptedWholeOrNotAtAll() {
+        assertThat(buffer.offerAll(events(3))).isTrue();
+        assertThat(buffer.offerAll(events(2))).isFalse();
+        assertThat(buffer.offerAll(events(1))).isTrue();
+    }
+
+    @Test
+    void flushWritesTheBufferInBatches() {
+        buffer.offerAll(events(3));
+
+        buffer.flush();
+
+        verify(writer, times(2)).write(anyList());
+    }
+
+    @Test
+    void failedBatchGoesFirstOnTheNextFlush() {
+        List<BrevoWebhookEvent> first = events(2);
+        buffer.offerAll(first);
+        doThrow(new DataAccessResourceFailureException("database down")).doNothing().when(writer).write(anyList());
+
+        buffer.flush();
+        buffer.offerAll(events(2));
+        buffer.flush();
+
+        verify(writer, times(2)).write(first);
+        verify(writer, times(3)).write(anyList());
+    }
+
+    @Test
+    void batchThatKeepsFailingIsDeadLetteredAndTheRestWritten() {
+        List<BrevoWebhookEvent> poison = events(2);
+        buffer.offerAll(poison);
+        doThrow(new DataAccessResourceFailureException("value too long")).when(writer).write(poison);
+
+        for (int i = 0; i < 4; i++) {
+            buffer.flush();
+        }
+        verify(rabbitTemplate, never()).convertAndSend(anyString(), anyString(), any(Object.class), any(MessagePostProcessor.class));
+
+        List<BrevoWebhookEvent> next = events(2);
+        buffer.offerAll(next);
+        doNothing().when(writer).write(next);
+        buffer.flush();
+
+        verify(rabbitTemplate).convertAndSend(eq(RabbitMQConfig.DEAD_LETTER_EXCHANGE),
+                eq(RabbitMQConfig.WEBHOOK_DEAD_LETTER_ROUTING_KEY), eq(poison), any(MessagePostProcessor.class));
+        verify(writer).write(next);
+    }
+
+    @Test
+    void batchIsKeptWhenItCannotBeDeadLettered() {
+        List<BrevoWebhookEvent> poison = events(2);
+        buffer.offerAll(poison);
+        doThrow(new DataAccessResourceFailureException("value too long")).when(writer).write(poison);
+        doThrow(new AmqpException("broker down")).when(rabbitTemplate)
+                .convertAndSend(anyString(), anyString(), any(Object.class), any(MessagePostProcessor.class));
+
+        for (int i = 0; i < 6; i++) {
+            buffer.flush();
+        }
+
+        verify(writer, times(6)).write(poison);
+    }
+
+    private static List<BrevoWebhookEvent> events(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> BrevoWebhookEvent.builder().event("delivered").messageId("<" + i + "@brevo>").build())
+                .toList();
+    }
+}
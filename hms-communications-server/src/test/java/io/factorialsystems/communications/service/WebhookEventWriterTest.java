@@ -0,0 +1,138 @@
+package io.factorialsystems.communications.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.factorialsystems.communications.model.dto.request.BrevoWebhookEvent;
+import io.factorialsystems.communications.model.enums.MessageStatus;
+import io.factorialsystems.communications.model.enums.MessageType;
+import io.factorialsystems.communications.support.PostgresContainerTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class WebhookEventWriterTest extends PostgresContainerTest {
+
+    private final UUID tenantId = UUID.randomUUID();
+    private final long now = Instant.now().getEpochSecond();
+
+    private MessageStatsService messageStatsService;
+    private WebhookEventWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        messageStatsService = mock(MessageStatsService.class);
+        writer = new WebhookEventWriter(jdbcTemplate, new ObjectMapper(), new SimpleMeterRegistry(), messageStatsService);
+    }
+
+    @Test
+    void eventsForOneMessageAreFoldedIntoOneForwardMove() {
+        String providerId = sentMessage();
+
+        writer.write(List.of(event("delivered", providerId), event("opened", providerId)));
+
+        assertThat(column(providerId, "status")).isEqualTo("OPENED");
+        assertThat(column(providerId, "delivered_at")).isNotNull();
+        assertThat(column(providerId, "opened_at")).isNotNull();
+        assertThat(deliveryLogs(providerId)).containsExactlyInAnyOrder("delivered", "opened");
+        verify(messageStatsService).record(MessageType.EMAIL, tenantId, MessageStatus.DELIVERED, 1);
+        verify(messageStatsService).record(MessageType.EMAIL, tenantId, MessageStatus.OPENED, 1);
+    }
+
+    @Test
+    void duplicateEventIsLoggedWithoutANewRowVersion() {
+        String providerId = sentMessage();
+        writer.write(List.of(event("delivered", providerId)));
+        Object version = column(providerId, "version");
+
+        writer.write(List.of(event("delivered", providerId)));
+
+        assertThat(column(providerId, "version")).isEqualTo(version);
+        assertThat(deliveryLogs(providerId)).containsExactly("delivered", "delivered");
+        verify(messageStatsService, times(1)).record(MessageType.EMAIL, tenantId, MessageStatus.DELIVERED, 1);
+    }
+
+    @Test
+    void lateEventNeverMovesAMessageBackwards() {
+        String providerId = sentMessage();
+        writer.write(List.of(event("click", providerId)));
+
+        writer.write(List.of(event("delivered", providerId)));
+
+        assertThat(column(providerId, "status")).isEqualTo("CLICKED");
+        assertThat(column(providerId, "delivered_at")).isNotNull();
+    }
+
+    @Test
+    void repeatedBounceIsCountedOnce() {
+        String providerId = sentMessage();
+        BrevoWebhookEvent bounce = event("hard_bounce", providerId);
+        bounce.setReason("Mailbox does not exist");
+
+        writer.write(List.of(bounce));
+        writer.write(List.of(bounce));
+
+        assertThat(column(providerId, "status")).isEqualTo("BOUNCED");
+        assertThat(column(providerId, "error_message")).isEqualTo("Mailbox does not exist");
+        verify(messageStatsService, times(1)).record(MessageType.EMAIL, tenantId, MessageStatus.BOUNCED, 1);
+    }
+
+    @Test
+    void eventForAnUnknownMessageIsNotLogged() {
+        String providerId = "<" + UUID.randomUUID() + "@brevo>";
+
+        writer.write(List.of(event("delivered", providerId)));
+
+        assertThat(deliveryLogs(providerId)).isEmpty();
+        verify(messageStatsService, never()).record(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void unmappedEventIsLoggedButLeavesTheStatus() {
+        String providerId = sentMessage();
+
+        writer.write(List.of(event("spam", providerId)));
+
+        assertThat(column(providerId, "status")).isEqualTo("SENT");
+        assertThat(deliveryLogs(providerId)).containsExactly("spam");
+        verify(messageStatsService, never()).record(any(), eq(tenantId), any(), anyInt());
+    }
+
+    private String sentMessage() {
+        String providerId = "<" + UUID.randomUUID() + "@brevo>";
+        jdbcTemplate.update("INSERT INTO email_messages (id, tenant_id, to_email, from_email, subject, status, provider_id) " +
+                        "VALUES (?, ?, 'patient@example.com', 'clinic@example.com', 'Lab results', 'SENT', ?)",
+                UUID.randomUUID(), tenantId, providerId);
+        return providerId;
+    }
+
+    private BrevoWebhookEvent event(String name, String providerId) {
+        return BrevoWebhookEvent.builder()
+                .event(name)
+                .email("patient@example.com")
+                .messageId(providerId)
+                .tsEvent(now)
+                .build();
+    }
+
+    private Object column(String providerId, String column) {
+        return jdbcTemplate.queryForObject("SELECT " + column + " FROM email_messages WHERE provider_id = ?",
+                Object.class, providerId);
+    }
+
+    private List<String> deliveryLogs(String providerId) {
+        return jdbcTemplate.queryForList("SELECT event_type FROM delivery_logs WHERE event_data ->> 'providerId' = ? " +
+                "ORDER BY created_at", String.class, providerId);
+    }
+}
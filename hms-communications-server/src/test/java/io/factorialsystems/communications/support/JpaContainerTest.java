@@ -0,0 +1,32 @@
+package io.factorialsystems.communications.support;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.config.JpaAuditingConfig;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Base for repository tests: the JPA slice on the shared PostgreSQL container, with the
+ * schema built by Flyway and validated by Hibernate as in production. Skipped when Docker
+ * is not available.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({JpaAuditingConfig.class, CommunicationsProperties.class})
+@Testcontainers(disabledWithoutDocker = true)
+public abstract class JpaContainerTest {
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", PostgresContainerTest.POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", PostgresContainerTest.POSTGRES::getUsername);
+        registry.add("spring.datasource.password", PostgresContainerTest.POSTGRES::getPassword);
+    }
+}
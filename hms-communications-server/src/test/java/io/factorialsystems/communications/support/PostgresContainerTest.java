@@ -0,0 +1,46 @@
+package io.factorialsystems.communications.support;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import javax.sql.DataSource;
+
+/**
+ * Base for tests of the hand-written SQL against a real PostgreSQL with the Flyway
+ * migrations applied. One container serves every test class, so tests work on their own
+ * tenant ids instead of cleaning up. Skipped when Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+public abstract class PostgresContainerTest {
+
+    public static final PostgreSQLContainer<?> POSTGRES =
+            new PostgreSQLContainer<>(DockerImageName.parse("postgres:15-alpine"));
+
+    static {
+        POSTGRES.start();
+    }
+
+    protected static DataSource dataSource;
+    protected static JdbcTemplate jdbcTemplate;
+    protected static TransactionTemplate transactionTemplate;
+
+    @BeforeAll
+    static void migrate() {
+        dataSource = new DriverManagerDataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+}
@@ -0,0 +1,68 @@
+package io.factorialsystems.communications.support;
+
+import io.factorialsystems.communications.config.CommunicationsProperties;
+import io.factorialsystems.communications.service.ResourceGovernor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import javax.sql.DataSource;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Base for tests of the Redis scripts and data structures against a real Redis. One
+ * container serves every test class and the database is flushed before every test.
+ * Skipped when Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+public abstract class RedisContainerTest {
+
+    public static final GenericContainer<?> REDIS =
+            new GenericContainer<>(DockerImageName.parse("redis:7-alpine")).withExposedPorts(6379);
+
+    static {
+        REDIS.start();
+    }
+
+    protected static LettuceConnectionFactory connectionFactory;
+    protected static StringRedisTemplate redisTemplate;
+
+    @BeforeAll
+    static void connectRedis() {
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(REDIS.getHost(), REDIS.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void disconnectRedis() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void flushRedis() {
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        });
+    }
+
+    /**
+     * A governor with the default limits, for components that take their Redis calls through one.
+     */
+    protected static ResourceGovernor resourceGovernor() {
+        return new ResourceGovernor(mock(DataSource.class), new CommunicationsProperties(),
+                new SimpleMeterRegistry());
+    }
+}